@@ -723,17 +723,19 @@ Java_io_questdb_std_Rosti_keyedIntSumIntMerge(JNIEnv *env, jclass cl, jlong pRos
 
             if (PREDICT_FALSE(res.second)) {
                 *reinterpret_cast<int32_t *>(dest) = key;
-            }
-
-            // when maps have non-null values, their count is >0 and val is not MIN
-            // on other hand
-            const jlong old_count = *reinterpret_cast<jlong *>(dest + count_offset);
-            if (old_count > 0 && count > 0) {
-                *reinterpret_cast<jlong *>(dest + value_offset) += val;
-                *reinterpret_cast<jlong *>(dest + count_offset) += count;
-            } else {
                 *reinterpret_cast<jlong *>(dest + value_offset) = val;
                 *reinterpret_cast<jlong *>(dest + count_offset) = count;
+            } else if (count > 0) {
+                // when maps have non-null values, their count is >0 and val is not MIN
+                // on other hand map B must not erase value of map A when B saw only nulls
+                const jlong old_count = *reinterpret_cast<jlong *>(dest + count_offset);
+                if (old_count > 0) {
+                    *reinterpret_cast<jlong *>(dest + value_offset) += val;
+                    *reinterpret_cast<jlong *>(dest + count_offset) += count;
+                } else {
+                    *reinterpret_cast<jlong *>(dest + value_offset) = val;
+                    *reinterpret_cast<jlong *>(dest + count_offset) = count;
+                }
             }
         }
     }
@@ -908,17 +910,19 @@ Java_io_questdb_std_Rosti_keyedIntSumLongMerge(JNIEnv *env, jclass cl, jlong pRo
 
             if (PREDICT_FALSE(res.second)) {
                 *reinterpret_cast<int32_t *>(dest) = key;
-            }
-
-            // when maps have non-null values, their count is >0 and val is not MIN
-            // on other hand
-            const jlong old_count = *reinterpret_cast<jlong *>(dest + count_offset);
-            if (old_count > 0 && count > 0) {
-                *reinterpret_cast<jlong *>(dest + value_offset) += val;
-                *reinterpret_cast<jlong *>(dest + count_offset) += count;
-            } else {
                 *reinterpret_cast<jlong *>(dest + value_offset) = val;
                 *reinterpret_cast<jlong *>(dest + count_offset) = count;
+            } else if (count > 0) {
+                // when maps have non-null values, their count is >0 and val is not MIN
+                // on other hand map B must not erase value of map A when B saw only nulls
+                const jlong old_count = *reinterpret_cast<jlong *>(dest + count_offset);
+                if (old_count > 0) {
+                    *reinterpret_cast<jlong *>(dest + value_offset) += val;
+                    *reinterpret_cast<jlong *>(dest + count_offset) += count;
+                } else {
+                    *reinterpret_cast<jlong *>(dest + value_offset) = val;
+                    *reinterpret_cast<jlong *>(dest + count_offset) = count;
+                }
             }
         }
     }
@@ -40,6 +40,24 @@ public interface MessageBus extends Closeable {
 
     CairoConfiguration getConfiguration();
 
+    Sequence getFilterPubSeq();
+
+    RingQueue<FilterTask> getFilterQueue();
+
+    Sequence getFilterSubSeq();
+
+    Sequence getGroupByPubSeq();
+
+    RingQueue<GroupByTask> getGroupByQueue();
+
+    Sequence getGroupBySubSeq();
+
+    Sequence getHashJoinPubSeq();
+
+    RingQueue<HashJoinTask> getHashJoinQueue();
+
+    Sequence getHashJoinSubSeq();
+
     Sequence getIndexerPubSequence();
 
     RingQueue<ColumnIndexerTask> getIndexerQueue();
@@ -82,6 +100,12 @@ public interface MessageBus extends Closeable {
 
     MCSequence getO3CallbackSubSeq();
 
+    MPSequence getPartitionCompressionPubSeq();
+
+    RingQueue<PartitionCompressionTask> getPartitionCompressionQueue();
+
+    MCSequence getPartitionCompressionSubSeq();
+
     default Sequence getTableBlockWriterPubSeq() {
         return null;
     }
@@ -35,6 +35,15 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence indexerPubSeq;
     private final MCSequence indexerSubSeq;
 
+    private final RingQueue<FilterTask> filterQueue;
+    private final MPSequence filterPubSeq;
+    private final MCSequence filterSubSeq;
+    private final RingQueue<GroupByTask> groupByQueue;
+    private final MPSequence groupByPubSeq;
+    private final MCSequence groupBySubSeq;
+    private final RingQueue<HashJoinTask> hashJoinQueue;
+    private final MPSequence hashJoinPubSeq;
+    private final MCSequence hashJoinSubSeq;
     private final RingQueue<VectorAggregateTask> vectorAggregateQueue;
     private final MPSequence vectorAggregatePubSeq;
     private final MCSequence vectorAggregateSubSeq;
@@ -51,6 +60,10 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence o3PurgeDiscoveryPubSeq;
     private final MCSequence o3PurgeDiscoverySubSeq;
 
+    private final RingQueue<PartitionCompressionTask> partitionCompressionQueue;
+    private final MPSequence partitionCompressionPubSeq;
+    private final MCSequence partitionCompressionSubSeq;
+
     private final RingQueue<O3PurgeTask> o3PurgeQueue;
     private final MPSequence o3PurgePubSeq;
     private final MCSequence o3PurgeSubSeq;
@@ -81,6 +94,21 @@ public class MessageBusImpl implements MessageBus {
         this.vectorAggregateSubSeq = new MCSequence(vectorAggregateQueue.getCapacity());
         vectorAggregatePubSeq.then(vectorAggregateSubSeq).then(vectorAggregatePubSeq);
 
+        this.filterQueue = new RingQueue<>(FilterTask::new, configuration.getFilterQueueCapacity());
+        this.filterPubSeq = new MPSequence(filterQueue.getCapacity());
+        this.filterSubSeq = new MCSequence(filterQueue.getCapacity());
+        filterPubSeq.then(filterSubSeq).then(filterPubSeq);
+
+        this.groupByQueue = new RingQueue<>(GroupByTask::new, configuration.getGroupByQueueCapacity());
+        this.groupByPubSeq = new MPSequence(groupByQueue.getCapacity());
+        this.groupBySubSeq = new MCSequence(groupByQueue.getCapacity());
+        groupByPubSeq.then(groupBySubSeq).then(groupByPubSeq);
+
+        this.hashJoinQueue = new RingQueue<>(HashJoinTask::new, configuration.getHashJoinQueueCapacity());
+        this.hashJoinPubSeq = new MPSequence(hashJoinQueue.getCapacity());
+        this.hashJoinSubSeq = new MCSequence(hashJoinQueue.getCapacity());
+        hashJoinPubSeq.then(hashJoinSubSeq).then(hashJoinPubSeq);
+
         this.tableBlockWriterQueue = new RingQueue<>(TableBlockWriterTaskHolder::new, configuration.getTableBlockWriterQueueCapacity());
         this.tableBlockWriterPubSeq = new MPSequence(tableBlockWriterQueue.getCapacity());
         this.tableBlockWriterSubSeq = new MCSequence(tableBlockWriterQueue.getCapacity());
@@ -111,6 +139,11 @@ public class MessageBusImpl implements MessageBus {
         this.o3PurgeDiscoverySubSeq = new MCSequence(this.o3PurgeDiscoveryQueue.getCapacity());
         this.o3PurgeDiscoveryPubSeq.then(this.o3PurgeDiscoverySubSeq).then(o3PurgeDiscoveryPubSeq);
 
+        this.partitionCompressionQueue = new RingQueue<>(PartitionCompressionTask::new, configuration.getPartitionCompressionQueueCapacity());
+        this.partitionCompressionPubSeq = new MPSequence(this.partitionCompressionQueue.getCapacity());
+        this.partitionCompressionSubSeq = new MCSequence(this.partitionCompressionQueue.getCapacity());
+        this.partitionCompressionPubSeq.then(this.partitionCompressionSubSeq).then(this.partitionCompressionPubSeq);
+
         this.o3PurgeQueue = new RingQueue<>(O3PurgeTask::new, configuration.getO3PurgeQueueCapacity());
         this.o3PurgePubSeq = new MPSequence(this.o3PurgeQueue.getCapacity());
         this.o3PurgeSubSeq = new MCSequence(this.o3PurgeQueue.getCapacity());
@@ -152,6 +185,51 @@ public class MessageBusImpl implements MessageBus {
         return indexerSubSeq;
     }
 
+    @Override
+    public Sequence getFilterPubSeq() {
+        return filterPubSeq;
+    }
+
+    @Override
+    public RingQueue<FilterTask> getFilterQueue() {
+        return filterQueue;
+    }
+
+    @Override
+    public Sequence getFilterSubSeq() {
+        return filterSubSeq;
+    }
+
+    @Override
+    public Sequence getGroupByPubSeq() {
+        return groupByPubSeq;
+    }
+
+    @Override
+    public RingQueue<GroupByTask> getGroupByQueue() {
+        return groupByQueue;
+    }
+
+    @Override
+    public Sequence getGroupBySubSeq() {
+        return groupBySubSeq;
+    }
+
+    @Override
+    public Sequence getHashJoinPubSeq() {
+        return hashJoinPubSeq;
+    }
+
+    @Override
+    public RingQueue<HashJoinTask> getHashJoinQueue() {
+        return hashJoinQueue;
+    }
+
+    @Override
+    public Sequence getHashJoinSubSeq() {
+        return hashJoinSubSeq;
+    }
+
     @Override
     public RingQueue<VectorAggregateTask> getVectorAggregateQueue() {
         return vectorAggregateQueue;
@@ -242,6 +320,21 @@ public class MessageBusImpl implements MessageBus {
         return o3PurgeDiscoverySubSeq;
     }
 
+    @Override
+    public MPSequence getPartitionCompressionPubSeq() {
+        return partitionCompressionPubSeq;
+    }
+
+    @Override
+    public RingQueue<PartitionCompressionTask> getPartitionCompressionQueue() {
+        return partitionCompressionQueue;
+    }
+
+    @Override
+    public MCSequence getPartitionCompressionSubSeq() {
+        return partitionCompressionSubSeq;
+    }
+
     @Override
     public MPSequence getO3PurgePubSeq() {
         return o3PurgePubSeq;
@@ -107,6 +107,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlSortKeyMaxPages;
     private final long sqlSortLightValuePageSize;
     private final int sqlSortLightValueMaxPages;
+    private final int sqlSortTopKMaxRows;
+    private final long sqlSortMemoryBudget;
     private final int sqlHashJoinValuePageSize;
     private final int sqlHashJoinValueMaxPages;
     private final long sqlLatestByRowCount;
@@ -123,6 +125,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int lineUdpMsgBufferSize;
     private final int lineUdpMsgCount;
     private final int lineUdpReceiveBufferSize;
+    private final int lineUdpReceiverCount;
+    private final int lineUdpRouterQueueCapacity;
     private final int lineUdpCommitMode;
     private final int[] sharedWorkerAffinity;
     private final int sharedWorkerCount;
@@ -187,6 +191,10 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final BuildInformation buildInformation;
     private final int columnIndexerQueueCapacity;
     private final int vectorAggregateQueueCapacity;
+    private final int filterQueueCapacity;
+    private final int groupByQueueCapacity;
+    private final int hashJoinQueueCapacity;
+    private final int partitionCompressionQueueCapacity;
     private final int o3CallbackQueueCapacity;
     private final int o3PartitionQueueCapacity;
     private final int o3OpenColumnQueueCapacity;
@@ -200,6 +208,14 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final long instanceHashHi;
     private final int sqlTxnScoreboardEntryCount;
     private final boolean o3QuickSortEnabled;
+    private final boolean sqlFilterCompilationEnabled;
+    private final boolean zoneMapEnabled;
+    private final long sqlParallelFilterFrameRows;
+    private final long sqlParallelGroupByMinTaskRows;
+    private final long sqlParallelHashJoinBatchRows;
+    private final long sqlHashJoinMemoryBudget;
+    private final long columnBlockCacheSize;
+    private final long walSegmentRolloverRowCount;
     private boolean httpAllowDeflateBeforeSend;
     private int[] httpWorkerAffinity;
     private int[] httpMinWorkerAffinity;
@@ -245,6 +261,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int lineUdpPort;
     private int jsonQueryFloatScale;
     private int jsonQueryDoubleScale;
+    private int jsonQueryMaxOpenCursors;
+    private long jsonQueryOpenCursorTimeout;
     private int jsonQueryConnectionCheckFrequency;
     private boolean httpFrozenClock;
     private boolean readOnlySecurityContext;
@@ -301,6 +319,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int lineTcpMsgBufferSize;
     private int lineTcpMaxMeasurementSize;
     private int lineTcpWriterQueueCapacity;
+    private int lineTcpMaxEventSize;
     private int lineTcpWriterWorkerCount;
     private int[] lineTcpWriterWorkerAffinity;
     private boolean lineTcpWriterWorkerPoolHaltOnError;
@@ -467,6 +486,8 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.jsonQueryConnectionCheckFrequency = getInt(properties, env, "http.json.query.connection.check.frequency", 1_000_000);
                 this.jsonQueryFloatScale = getInt(properties, env, "http.json.query.float.scale", 4);
                 this.jsonQueryDoubleScale = getInt(properties, env, "http.json.query.double.scale", 12);
+                this.jsonQueryMaxOpenCursors = getInt(properties, env, "http.json.query.cursor.max.count", 16);
+                this.jsonQueryOpenCursorTimeout = getLong(properties, env, "http.json.query.cursor.timeout", 60_000);
                 this.readOnlySecurityContext = getBoolean(properties, env, "http.security.readonly", false);
                 this.maxHttpQueryResponseRowLimit = getLong(properties, env, "http.security.max.response.rows", Long.MAX_VALUE);
                 this.interruptOnClosedConnection = getBoolean(properties, env, "http.security.interrupt.on.closed.connection", true);
@@ -568,6 +589,8 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlSortKeyMaxPages = getIntSize(properties, env, "cairo.sql.sort.key.max.pages", Integer.MAX_VALUE);
             this.sqlSortLightValuePageSize = getLongSize(properties, env, "cairo.sql.sort.light.value.page.size", 8 * 1048576);
             this.sqlSortLightValueMaxPages = getIntSize(properties, env, "cairo.sql.sort.light.value.max.pages", Integer.MAX_VALUE);
+            this.sqlSortTopKMaxRows = getInt(properties, env, "cairo.sql.sort.top.k.max.rows", 10_000);
+            this.sqlSortMemoryBudget = getLongSize(properties, env, "cairo.sql.sort.memory.budget", 0);
             this.sqlHashJoinValuePageSize = getIntSize(properties, env, "cairo.sql.hash.join.value.page.size", 16777216);
             this.sqlHashJoinValueMaxPages = getIntSize(properties, env, "cairo.sql.hash.join.value.max.pages", Integer.MAX_VALUE);
             this.sqlLatestByRowCount = getInt(properties, env, "cairo.sql.latest.by.row.count", 1000);
@@ -627,6 +650,10 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.tableBlockWriterQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.table.block.writer.queue.capacity", 256));
             this.columnIndexerQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.column.indexer.queue.capacity", 64));
             this.vectorAggregateQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.vector.aggregate.queue.capacity", 128));
+            this.filterQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.filter.queue.capacity", 64));
+            this.groupByQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.groupby.queue.capacity", 64));
+            this.hashJoinQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.hash.join.queue.capacity", 64));
+            this.partitionCompressionQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.partition.compression.queue.capacity", 64));
             this.o3CallbackQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.o3.callback.queue.capacity", 128));
             this.o3PartitionQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.o3.partition.queue.capacity", 128));
             this.o3OpenColumnQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.o3.open.column.queue.capacity", 128));
@@ -637,6 +664,14 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.o3MaxUncommittedRows = getInt(properties, env, "cairo.o3.max.uncommitted.rows", 500_000);
             this.o3CommitHystersis = getLong(properties, env, "cairo.o3.commit.hysteresis.in.ms", 300_000) * 1_000;
             this.o3QuickSortEnabled = getBoolean(properties, env, "cairo.o3.quicksort.enabled", false);
+            this.sqlFilterCompilationEnabled = getBoolean(properties, env, "cairo.sql.filter.compilation.enabled", true);
+            this.zoneMapEnabled = getBoolean(properties, env, "cairo.zone.map.enabled", true);
+            this.sqlParallelFilterFrameRows = getLong(properties, env, "cairo.sql.parallel.filter.frame.rows", 65536);
+            this.sqlParallelGroupByMinTaskRows = getLong(properties, env, "cairo.sql.parallel.groupby.min.task.rows", 100_000);
+            this.sqlParallelHashJoinBatchRows = getLong(properties, env, "cairo.sql.parallel.hash.join.batch.rows", 100_000);
+            this.sqlHashJoinMemoryBudget = getLongSize(properties, env, "cairo.sql.hash.join.memory.budget", 0);
+            this.columnBlockCacheSize = getLongSize(properties, env, "cairo.column.block.cache.size", 256 * 1024 * 1024);
+            this.walSegmentRolloverRowCount = getLong(properties, env, "cairo.wal.segment.rollover.row.count", 1_000_000);
             this.sqlAnalyticStorePageSize = Numbers.ceilPow2(getIntSize(properties, env, "cairo.sql.analytic.store.page.size", 1024 * 1024));
             this.sqlAnalyticStoreMaxPages = Numbers.ceilPow2(getIntSize(properties, env, "cairo.sql.analytic.store.max.pages", Integer.MAX_VALUE));
             this.sqlAnalyticRowIdPageSize = Numbers.ceilPow2(getIntSize(properties, env, "cairo.sql.analytic.rowid.page.size", 512 * 1024));
@@ -664,6 +699,12 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.lineUdpUnicast = getBoolean(properties, env, "line.udp.unicast", false);
             this.lineUdpCommitMode = getCommitMode(properties, env, "line.udp.commit.mode");
             this.lineUdpTimestampAdapter = getLineTimestampAdaptor(properties, env, "line.udp.timestamp");
+            this.lineUdpReceiverCount = getInt(properties, env, "line.udp.receiver.count", 1);
+            if (lineUdpReceiverCount < 1 || (lineUdpReceiverCount > 1 && !lineUdpUnicast)) {
+                // every socket joined to a multicast group receives its own copy of a datagram
+                throw new ServerConfigurationException("line.udp.receiver.count", Integer.toString(lineUdpReceiverCount));
+            }
+            this.lineUdpRouterQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "line.udp.router.queue.capacity", 1024));
 
             this.lineTcpEnabled = getBoolean(properties, env, "line.tcp.enabled", true);
             if (lineTcpEnabled) {
@@ -688,6 +729,7 @@ public class PropServerConfiguration implements ServerConfiguration {
                             "line.tcp.max.measurement.size (" + this.lineTcpMaxMeasurementSize + ") cannot be more than line.tcp.msg.buffer.size (" + this.lineTcpMsgBufferSize + ")");
                 }
                 this.lineTcpWriterQueueCapacity = getInt(properties, env, "line.tcp.writer.queue.capacity", 128);
+                this.lineTcpMaxEventSize = getIntSize(properties, env, "line.tcp.max.event.size", 32768);
                 this.lineTcpWriterWorkerCount = getInt(properties, env, "line.tcp.writer.worker.count", 1);
                 cpuUsed += this.lineTcpWriterWorkerCount;
                 this.lineTcpWriterWorkerAffinity = getAffinity(properties, env, "line.tcp.writer.worker.affinity", lineTcpWriterWorkerCount);
@@ -1632,6 +1674,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlSortLightValueMaxPages;
         }
 
+        @Override
+        public int getSqlSortTopKMaxRows() {
+            return sqlSortTopKMaxRows;
+        }
+
+        @Override
+        public long getSqlSortMemoryBudget() {
+            return sqlSortMemoryBudget;
+        }
+
         @Override
         public int getSqlHashJoinValuePageSize() {
             return sqlHashJoinValuePageSize;
@@ -1807,6 +1859,26 @@ public class PropServerConfiguration implements ServerConfiguration {
             return vectorAggregateQueueCapacity;
         }
 
+        @Override
+        public int getFilterQueueCapacity() {
+            return filterQueueCapacity;
+        }
+
+        @Override
+        public int getGroupByQueueCapacity() {
+            return groupByQueueCapacity;
+        }
+
+        @Override
+        public int getHashJoinQueueCapacity() {
+            return hashJoinQueueCapacity;
+        }
+
+        @Override
+        public int getPartitionCompressionQueueCapacity() {
+            return partitionCompressionQueueCapacity;
+        }
+
         @Override
         public int getO3CallbackQueueCapacity() {
             return o3CallbackQueueCapacity;
@@ -1866,6 +1938,46 @@ public class PropServerConfiguration implements ServerConfiguration {
         public boolean isO3QuickSortEnabled() {
             return o3QuickSortEnabled;
         }
+
+        @Override
+        public boolean isSqlFilterCompilationEnabled() {
+            return sqlFilterCompilationEnabled;
+        }
+
+        @Override
+        public boolean isZoneMapEnabled() {
+            return zoneMapEnabled;
+        }
+
+        @Override
+        public long getSqlParallelFilterFrameRows() {
+            return sqlParallelFilterFrameRows;
+        }
+
+        @Override
+        public long getSqlParallelGroupByMinTaskRows() {
+            return sqlParallelGroupByMinTaskRows;
+        }
+
+        @Override
+        public long getSqlParallelHashJoinBatchRows() {
+            return sqlParallelHashJoinBatchRows;
+        }
+
+        @Override
+        public long getSqlHashJoinMemoryBudget() {
+            return sqlHashJoinMemoryBudget;
+        }
+
+        @Override
+        public long getColumnBlockCacheSize() {
+            return columnBlockCacheSize;
+        }
+
+        @Override
+        public long getWalSegmentRolloverRowCount() {
+            return walSegmentRolloverRowCount;
+        }
     }
 
     private class PropLineUdpReceiverConfiguration implements LineUdpReceiverConfiguration {
@@ -1914,6 +2026,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return lineUdpReceiveBufferSize;
         }
 
+        @Override
+        public int getReceiverCount() {
+            return lineUdpReceiverCount;
+        }
+
+        @Override
+        public int getRouterQueueCapacity() {
+            return lineUdpRouterQueueCapacity;
+        }
+
         @Override
         public CairoSecurityContext getCairoSecurityContext() {
             return AllowAllCairoSecurityContext.INSTANCE;
@@ -2138,6 +2260,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return lineTcpMaxLoadRatio;
         }
 
+        @Override
+        public int getMaxEventSize() {
+            return lineTcpMaxEventSize;
+        }
+
         @Override
         public int getMaxMeasurementSize() {
             return lineTcpMaxMeasurementSize;
@@ -2240,6 +2367,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return maxHttpQueryResponseRowLimit;
         }
 
+        @Override
+        public int getMaxOpenCursors() {
+            return jsonQueryMaxOpenCursors;
+        }
+
+        @Override
+        public long getOpenCursorTimeout() {
+            return jsonQueryOpenCursorTimeout;
+        }
+
         @Override
         public SqlInterruptorConfiguration getInterruptorConfiguration() {
             return interruptorConfiguration;
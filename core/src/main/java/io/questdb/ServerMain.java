@@ -54,10 +54,14 @@ import io.questdb.cairo.O3PartitionJob;
 import io.questdb.cairo.O3PurgeDiscoveryJob;
 import io.questdb.cairo.O3PurgeJob;
 import io.questdb.cairo.O3Utils;
+import io.questdb.cairo.PartitionCompressionJob;
 import io.questdb.cutlass.http.HttpServer;
+import io.questdb.cutlass.http.HttpServerConfiguration;
 import io.questdb.cutlass.json.JsonException;
 import io.questdb.cutlass.line.tcp.LineTcpServer;
 import io.questdb.cutlass.line.udp.LineProtoReceiver;
+import io.questdb.cutlass.line.udp.LineProtoRouter;
+import io.questdb.cutlass.line.udp.LineUdpReceiverConfiguration;
 import io.questdb.cutlass.line.udp.LinuxMMLineProtoReceiver;
 import io.questdb.cutlass.pgwire.PGWireServer;
 import io.questdb.griffin.FunctionFactory;
@@ -74,6 +78,7 @@ import io.questdb.std.Os;
 import io.questdb.std.Vect;
 import io.questdb.std.datetime.millitime.Dates;
 import io.questdb.std.str.Path;
+import org.jetbrains.annotations.Nullable;
 import sun.misc.Signal;
 
 public class ServerMain {
@@ -153,6 +158,7 @@ public class ServerMain {
         LogFactory.configureFromSystemProperties(workerPool);
         final CairoEngine cairoEngine = new CairoEngine(configuration.getCairoConfiguration());
         workerPool.assign(cairoEngine.getWriterMaintenanceJob());
+        workerPool.assign(cairoEngine.getWalApplyJob());
         instancesToClean.add(cairoEngine);
 
         // The TelemetryJob is always needed (even when telemetry is off) because it is responsible for
@@ -171,12 +177,26 @@ public class ServerMain {
         workerPool.assign(new O3CopyJob(cairoEngine.getMessageBus()));
         workerPool.assign(new O3PurgeDiscoveryJob(cairoEngine.getMessageBus(), workerPool.getWorkerCount()));
         workerPool.assign(new O3PurgeJob(cairoEngine.getMessageBus()));
+        final PartitionCompressionJob partitionCompressionJob = new PartitionCompressionJob(cairoEngine.getMessageBus(), workerPool.getWorkerCount());
+        instancesToClean.add(partitionCompressionJob);
+        workerPool.assign(partitionCompressionJob);
         O3Utils.initBuf(workerPool.getWorkerCount() + 1);
 
         try {
             initQuestDb(workerPool, cairoEngine, log);
 
-            instancesToClean.add(createHttpServer(workerPool, log, cairoEngine, functionFactoryCache));
+            // line TCP server is created first, HTTP workers need their own slots in its scheduler
+            final HttpServerConfiguration httpServerConfiguration = configuration.getHttpServerConfiguration();
+            final LineTcpServer lineTcpServer = LineTcpServer.create(
+                    configuration.getLineTcpReceiverConfiguration(),
+                    workerPool,
+                    log,
+                    cairoEngine,
+                    httpServerConfiguration.isEnabled() ?
+                            WorkerPoolAwareConfiguration.configuredWorkerCount(httpServerConfiguration, workerPool) : 0
+            );
+
+            instancesToClean.add(createHttpServer(workerPool, log, cairoEngine, functionFactoryCache, lineTcpServer));
             instancesToClean.add(createMinHttpServer(workerPool, log, cairoEngine, functionFactoryCache));
 
             if (configuration.getPGWireConfiguration().isEnabled()) {
@@ -189,28 +209,36 @@ public class ServerMain {
                 ));
             }
 
-            if (configuration.getLineUdpReceiverConfiguration().isEnabled()) {
-                if (Os.type == Os.LINUX_AMD64 || Os.type == Os.LINUX_ARM64) {
-                    instancesToClean.add(new LinuxMMLineProtoReceiver(
-                            configuration.getLineUdpReceiverConfiguration(),
-                            cairoEngine,
-                            workerPool
-                    ));
-                } else {
-                    instancesToClean.add(new LineProtoReceiver(
-                            configuration.getLineUdpReceiverConfiguration(),
-                            cairoEngine,
-                            workerPool
-                    ));
+            final LineUdpReceiverConfiguration lineUdpReceiverConfiguration = configuration.getLineUdpReceiverConfiguration();
+            if (lineUdpReceiverConfiguration.isEnabled()) {
+                final int receiverCount = lineUdpReceiverConfiguration.getReceiverCount();
+                final LineProtoRouter router = receiverCount > 1 ? new LineProtoRouter(lineUdpReceiverConfiguration) : null;
+                for (int i = 0; i < receiverCount; i++) {
+                    if (Os.type == Os.LINUX_AMD64 || Os.type == Os.LINUX_ARM64) {
+                        instancesToClean.add(new LinuxMMLineProtoReceiver(
+                                lineUdpReceiverConfiguration,
+                                cairoEngine,
+                                workerPool,
+                                router,
+                                i
+                        ));
+                    } else {
+                        instancesToClean.add(new LineProtoReceiver(
+                                lineUdpReceiverConfiguration,
+                                cairoEngine,
+                                workerPool,
+                                router,
+                                i
+                        ));
+                    }
+                }
+                // receivers drain the router when closed, it has to outlive them
+                if (router != null) {
+                    instancesToClean.add(router);
                 }
             }
 
-            instancesToClean.add(LineTcpServer.create(
-                    configuration.getLineTcpReceiverConfiguration(),
-                    workerPool,
-                    log,
-                    cairoEngine
-            ));
+            instancesToClean.add(lineTcpServer);
 
             startQuestDb(workerPool, cairoEngine, log);
             if (configuration.getHttpServerConfiguration().isEnabled()) {
@@ -477,13 +505,20 @@ public class ServerMain {
         return new Attributes();
     }
 
-    protected HttpServer createHttpServer(final WorkerPool workerPool, final Log log, final CairoEngine cairoEngine, FunctionFactoryCache functionFactoryCache) {
+    protected HttpServer createHttpServer(
+            final WorkerPool workerPool,
+            final Log log,
+            final CairoEngine cairoEngine,
+            FunctionFactoryCache functionFactoryCache,
+            @Nullable LineTcpServer lineTcpServer
+    ) {
         return HttpServer.create(
                 configuration.getHttpServerConfiguration(),
                 workerPool,
                 log,
                 cairoEngine,
-                functionFactoryCache
+                functionFactoryCache,
+                lineTcpServer
         );
     }
 
@@ -64,6 +64,10 @@ public interface WorkerPoolAwareConfiguration extends WorkerPoolConfiguration {
         return configuration.getWorkerCount() > 0 ? new WorkerPool(configuration) : sharedPool;
     }
 
+    static int configuredWorkerCount(WorkerPoolAwareConfiguration configuration, WorkerPool sharedPool) {
+        return configuration.getWorkerCount() > 0 ? configuration.getWorkerCount() : sharedPool.getWorkerCount();
+    }
+
     @Nullable
     static <T extends Closeable, C extends WorkerPoolAwareConfiguration> T create(
             C configuration,
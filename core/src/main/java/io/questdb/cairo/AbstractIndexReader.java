@@ -42,6 +42,7 @@ public abstract class AbstractIndexReader implements BitmapIndexReader {
     protected final MappedReadOnlyMemory valueMem = new SinglePageMappedReadOnlyPageMemory();
     protected int blockValueCountMod;
     protected int blockCapacity;
+    protected boolean compact;
     protected long spinLockTimeoutUs;
     protected MicrosecondClock clock;
     protected int keyCount;
@@ -120,7 +121,9 @@ public abstract class AbstractIndexReader implements BitmapIndexReader {
             }
 
             this.blockValueCountMod = blockValueCountMod;
-            this.blockCapacity = (blockValueCountMod + 1) * 8 + BitmapIndexUtils.VALUE_BLOCK_FILE_RESERVED;
+            // format is written once, when key file is created
+            this.compact = this.keyMem.getByte(BitmapIndexUtils.KEY_RESERVED_OFFSET_FORMAT) == BitmapIndexUtils.FORMAT_COMPACT;
+            this.blockCapacity = BitmapIndexUtils.getValueBlockCapacity(blockValueCountMod + 1, compact);
             this.keyCount = this.keyCountIncludingNulls = keyCount;
             if (unIndexedNullCount > 0) {
                 this.keyCountIncludingNulls++;
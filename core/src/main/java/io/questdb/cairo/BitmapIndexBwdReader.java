@@ -99,7 +99,7 @@ public class BitmapIndexBwdReader extends AbstractIndexReader {
         public boolean hasNext() {
             if (valueCount > 0) {
                 long cellIndex = getValueCellIndex(--valueCount);
-                long result = valueMem.getLong(valueBlockOffset + cellIndex * 8);
+                long result = BitmapIndexUtils.getValue(valueMem, valueBlockOffset, cellIndex, compact);
                 if (cellIndex == 0 && valueCount > 0) {
                     // we are at edge of block right now, next value will be in previous block
                     jumpToPreviousValueBlock();
@@ -171,7 +171,7 @@ public class BitmapIndexBwdReader extends AbstractIndexReader {
                 valueMem.grow(valueBlockOffset + blockCapacity);
 
                 if (valueCount > 0) {
-                    BitmapIndexUtils.seekValueBlockRTL(valueCount, valueBlockOffset, valueMem, maxValue, blockValueCountMod, SEEKER);
+                    BitmapIndexUtils.seekValueBlockRTL(valueCount, valueBlockOffset, valueMem, maxValue, blockValueCountMod, compact, SEEKER);
                 } else {
                     seekValue(valueCount, valueBlockOffset);
                 }
@@ -100,7 +100,7 @@ public class BitmapIndexFwdReader extends AbstractIndexReader {
         public boolean hasNext() {
             if (position < valueCount) {
                 long cellIndex = getValueCellIndex(position++);
-                long result = valueMem.getLong(valueBlockOffset + cellIndex * 8);
+                long result = BitmapIndexUtils.getValue(valueMem, valueBlockOffset, cellIndex, compact);
 
                 if (result > maxValue) {
                     valueCount = 0;
@@ -174,7 +174,7 @@ public class BitmapIndexFwdReader extends AbstractIndexReader {
                 valueMem.grow(lastValueBlockOffset + blockCapacity);
                 this.valueCount = valueCount;
                 if (valueCount > 0) {
-                    BitmapIndexUtils.seekValueBlockLTR(valueCount, valueBlockOffset, valueMem, minValue, blockValueCountMod, SEEKER);
+                    BitmapIndexUtils.seekValueBlockLTR(valueCount, valueBlockOffset, valueMem, minValue, blockValueCountMod, compact, SEEKER);
                 } else {
                     seekValue(valueCount, valueBlockOffset);
                 }
@@ -44,10 +44,36 @@ public final class BitmapIndexUtils {
     static final int KEY_RESERVED_OFFSET_BLOCK_VALUE_COUNT = 17;
     static final int KEY_RESERVED_OFFSET_KEY_COUNT = 21;
     static final int KEY_RESERVED_OFFSET_SEQUENCE_CHECK = 29;
+    static final int KEY_RESERVED_OFFSET_FORMAT = 46;
 
     static final byte SIGNATURE = (byte) 0xfa;
     static final int VALUE_BLOCK_FILE_RESERVED = 16;
 
+    /**
+     * Value block formats. Default block stores 64-bit values. Compact block starts with 64-bit base,
+     * which is the first value in the block, followed by unsigned 32-bit deltas from the base.
+     * Both formats end with links to previous and next blocks.
+     */
+    static final byte FORMAT_DEFAULT = 0;
+    static final byte FORMAT_COMPACT = 1;
+    static final int COMPACT_VALUE_BLOCK_BASE_SIZE = 8;
+    static final long COMPACT_VALUE_MAX_DELTA = 0xffffffffL;
+
+    static int getValueBlockCapacity(int blockValueCount, boolean compact) {
+        if (compact) {
+            return COMPACT_VALUE_BLOCK_BASE_SIZE + blockValueCount * Integer.BYTES + VALUE_BLOCK_FILE_RESERVED;
+        }
+        return blockValueCount * Long.BYTES + VALUE_BLOCK_FILE_RESERVED;
+    }
+
+    static long getValue(ReadOnlyVirtualMemory valueMem, long valueBlockOffset, long cellIndex, boolean compact) {
+        if (compact) {
+            return valueMem.getLong(valueBlockOffset)
+                    + (valueMem.getInt(valueBlockOffset + COMPACT_VALUE_BLOCK_BASE_SIZE + cellIndex * Integer.BYTES) & COMPACT_VALUE_MAX_DELTA);
+        }
+        return valueMem.getLong(valueBlockOffset + cellIndex * Long.BYTES);
+    }
+
     public static Path keyFileName(Path path, CharSequence name) {
         return path.concat(name).put(".k").$();
     }
@@ -68,6 +94,7 @@ public final class BitmapIndexUtils {
      * @param valueMem             value block memory
      * @param maxValue             upper limit for block values.
      * @param blockValueCountMod   number of values in single block - 1
+     * @param compact              true when value blocks are in compact format
      * @param seeker               interface that collects results of the search
      */
     static void seekValueBlockRTL(
@@ -76,15 +103,16 @@ public final class BitmapIndexUtils {
             ReadOnlyVirtualMemory valueMem,
             long maxValue,
             long blockValueCountMod,
+            boolean compact,
             ValueBlockSeeker seeker
     ) {
         long valueBlockOffset = blockOffset;
         if (valueCount > 0) {
-            long prevBlockOffset = (blockValueCountMod + 1) * 8;
+            long prevBlockOffset = getValueBlockCapacity((int) (blockValueCountMod + 1), compact) - VALUE_BLOCK_FILE_RESERVED;
             long cellCount;
             do {
                 // check block range by peeking at first and last value
-                long lo = valueMem.getLong(valueBlockOffset);
+                long lo = getValue(valueMem, valueBlockOffset, 0, compact);
                 cellCount = (valueCount - 1 & blockValueCountMod) + 1;
 
                 // can we skip this block ?
@@ -101,10 +129,10 @@ public final class BitmapIndexUtils {
 
             if (valueCount > 0) {
                 // do we need to search this block?
-                long hi = valueMem.getLong(valueBlockOffset + (cellCount - 1) * 8);
+                long hi = getValue(valueMem, valueBlockOffset, cellCount - 1, compact);
                 if (maxValue < hi) {
                     // yes, we do
-                    valueCount -= cellCount - searchValueBlock(valueMem, valueBlockOffset, cellCount, maxValue);
+                    valueCount -= cellCount - searchValueBlock(valueMem, valueBlockOffset, cellCount, maxValue, compact);
                 }
             }
         }
@@ -123,6 +151,7 @@ public final class BitmapIndexUtils {
      * @param valueMem              value block memory
      * @param minValue              lower limit for values
      * @param blockValueCountMod    number of values in single block - 1
+     * @param compact               true when value blocks are in compact format
      * @param seeker                interface that collects results of the search
      */
     static void seekValueBlockLTR(
@@ -131,6 +160,7 @@ public final class BitmapIndexUtils {
             ReadOnlyVirtualMemory valueMem,
             long minValue,
             long blockValueCountMod,
+            boolean compact,
             ValueBlockSeeker seeker
     ) {
         long valueCount = initialCount;
@@ -144,14 +174,14 @@ public final class BitmapIndexUtils {
                 } else {
                     cellCount = valueCount;
                 }
-                final long hi = valueMem.getLong(valueBlockOffset + (cellCount - 1) * 8);
+                final long hi = getValue(valueMem, valueBlockOffset, cellCount - 1, compact);
 
                 // can we skip this block ?
                 if (hi < minValue) {
                     valueCount -= cellCount;
                     // do we have previous block?
                     if (valueCount > 0) {
-                        final long nextBlockOffset = (blockValueCountMod + 1) * 8 + 8;
+                        final long nextBlockOffset = getValueBlockCapacity((int) (blockValueCountMod + 1), compact) - VALUE_BLOCK_FILE_RESERVED + 8;
                         valueBlockOffset = valueMem.getLong(valueBlockOffset + nextBlockOffset);
                         continue;
                     }
@@ -161,10 +191,10 @@ public final class BitmapIndexUtils {
 
             if (valueCount > 0) {
                 // do we need to search this block?
-                final long lo = valueMem.getLong(valueBlockOffset);
+                final long lo = getValue(valueMem, valueBlockOffset, 0, compact);
                 if (minValue > lo) {
                     // yes, we do
-                    valueCount -= searchValueBlock(valueMem, valueBlockOffset, cellCount, minValue - 1);
+                    valueCount -= searchValueBlock(valueMem, valueBlockOffset, cellCount, minValue - 1, compact);
                 }
             }
         }
@@ -194,15 +224,16 @@ public final class BitmapIndexUtils {
      * @param offset    offset in virtual memory
      * @param cellCount length of the available memory measured in 64-bit cells
      * @param value     value we search of
+     * @param compact   true when value block is in compact format
      * @return index directly behind the searched value or group of values if list contains duplicate values.
      */
-    static long searchValueBlock(ReadOnlyVirtualMemory memory, long offset, long cellCount, long value) {
+    static long searchValueBlock(ReadOnlyVirtualMemory memory, long offset, long cellCount, long value, boolean compact) {
         // when block is "small", we just scan it linearly
         if (cellCount < 64) {
             // this will definitely exit because we had checked that at least the last value is greater than value
-            for (long i = offset; ; i += 8) {
-                if (memory.getLong(i) > value) {
-                    return (i - offset) / 8;
+            for (long i = 0; ; i++) {
+                if (getValue(memory, offset, i, compact) > value) {
+                    return i;
                 }
             }
         } else {
@@ -216,7 +247,7 @@ public final class BitmapIndexUtils {
                 if (half == 0) {
                     break;
                 }
-                pivot = memory.getLong(offset + (low + half) * 8);
+                pivot = getValue(memory, offset, low + half, compact);
                 if (pivot <= value) {
                     low += half;
                 } else {
@@ -41,6 +41,8 @@ public class BitmapIndexWriter implements Closeable, Mutable {
     private final Cursor cursor = new Cursor();
     private int blockCapacity;
     private int blockValueCountMod;
+    // format of index files created by this writer, existing files keep format they were created with
+    private boolean compact;
     private long valueMemSize = -1;
     private int keyCount = -1;
     private long seekValueCount;
@@ -60,6 +62,10 @@ public class BitmapIndexWriter implements Closeable, Mutable {
     }
 
     public static void initKeyMemory(PagedVirtualMemory keyMem, int blockValueCount) {
+        initKeyMemory(keyMem, blockValueCount, false);
+    }
+
+    public static void initKeyMemory(PagedVirtualMemory keyMem, int blockValueCount, boolean compact) {
 
         // block value count must be power of 2
         assert blockValueCount == Numbers.ceilPow2(blockValueCount);
@@ -74,6 +80,8 @@ public class BitmapIndexWriter implements Closeable, Mutable {
         Unsafe.getUnsafe().storeFence();
         keyMem.putLong(1); // SEQUENCE CHECK
         keyMem.putLong(0); // maxRow
+        keyMem.skip(BitmapIndexUtils.KEY_RESERVED_OFFSET_FORMAT - keyMem.getAppendOffset());
+        keyMem.putByte(compact ? BitmapIndexUtils.FORMAT_COMPACT : BitmapIndexUtils.FORMAT_DEFAULT);
         keyMem.skip(BitmapIndexUtils.KEY_FILE_RESERVED - keyMem.getAppendOffset());
     }
 
@@ -83,6 +91,9 @@ public class BitmapIndexWriter implements Closeable, Mutable {
      * <p>
      * Index is updated atomically as far as concurrent reading is concerned. Please refer to notes on classes that
      * are responsible for reading bitmap indexes, such as {@link BitmapIndexBwdReader}.
+     * <p>
+     * Values of the key must be added in ascending order. Compact index requires values in the same value block
+     * to be within 32-bit range of the first value in the block.
      *
      * @param key   int key
      * @param value long value
@@ -162,6 +173,15 @@ public class BitmapIndexWriter implements Closeable, Mutable {
         keyMem.putLong(38L, maxValue);
     }
 
+    /**
+     * Sets format of index files this writer initializes, e.g. when partition is created.
+     *
+     * @param compact true for value blocks of 32-bit deltas
+     */
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+
     final public void of(CairoConfiguration configuration, long keyFd, long valueFd, boolean init) {
         close();
         final FilesFacade ff = configuration.getFilesFacade();
@@ -174,7 +194,7 @@ public class BitmapIndexWriter implements Closeable, Mutable {
                 if (ff.truncate(keyFd, 0)) {
                     kFdUnassigned = false;
                     this.keyMem.of(ff, keyFd, pageSize);
-                    initKeyMemory(this.keyMem, TableUtils.MIN_INDEX_VALUE_BLOCK_SIZE);
+                    initKeyMemory(this.keyMem, TableUtils.MIN_INDEX_VALUE_BLOCK_SIZE, compact);
                 } else {
                     throw CairoException.instance(ff.errno()).put("Could not truncate [fd=").put(keyFd).put(']');
                 }
@@ -231,7 +251,8 @@ public class BitmapIndexWriter implements Closeable, Mutable {
             // to calculate remainder we use faster 'x & (count-1)', which is equivalent to (x % count)
             this.blockValueCountMod = this.keyMem.getInt(BitmapIndexUtils.KEY_RESERVED_OFFSET_BLOCK_VALUE_COUNT) - 1;
             assert blockValueCountMod > 0;
-            this.blockCapacity = (this.blockValueCountMod + 1) * 8 + BitmapIndexUtils.VALUE_BLOCK_FILE_RESERVED;
+            this.compact = this.keyMem.getByte(BitmapIndexUtils.KEY_RESERVED_OFFSET_FORMAT) == BitmapIndexUtils.FORMAT_COMPACT;
+            this.blockCapacity = BitmapIndexUtils.getValueBlockCapacity(this.blockValueCountMod + 1, compact);
         } catch (Throwable e) {
             this.close();
             if (kFdUnassigned) {
@@ -295,7 +316,8 @@ public class BitmapIndexWriter implements Closeable, Mutable {
             // to calculate remainder we use faster 'x & (count-1)', which is equivalent to (x % count)
             this.blockValueCountMod = this.keyMem.getInt(BitmapIndexUtils.KEY_RESERVED_OFFSET_BLOCK_VALUE_COUNT) - 1;
             assert blockValueCountMod > 0;
-            this.blockCapacity = (this.blockValueCountMod + 1) * 8 + BitmapIndexUtils.VALUE_BLOCK_FILE_RESERVED;
+            this.compact = this.keyMem.getByte(BitmapIndexUtils.KEY_RESERVED_OFFSET_FORMAT) == BitmapIndexUtils.FORMAT_COMPACT;
+            this.blockCapacity = BitmapIndexUtils.getValueBlockCapacity(this.blockValueCountMod + 1, compact);
         } catch (Throwable e) {
             this.close();
             throw e;
@@ -320,7 +342,7 @@ public class BitmapIndexWriter implements Closeable, Mutable {
             // do we have anything for the key?
             if (valueCount > 0) {
                 long blockOffset = keyMem.getLong(offset + BitmapIndexUtils.KEY_ENTRY_OFFSET_LAST_VALUE_BLOCK_OFFSET);
-                BitmapIndexUtils.seekValueBlockRTL(valueCount, blockOffset, valueMem, maxValue, blockValueCountMod, SEEKER);
+                BitmapIndexUtils.seekValueBlockRTL(valueCount, blockOffset, valueMem, maxValue, blockValueCountMod, compact, SEEKER);
 
                 if (valueCount != seekValueCount || blockOffset != seekValueBlockOffset) {
                     // set new value count
@@ -381,8 +403,11 @@ public class BitmapIndexWriter implements Closeable, Mutable {
     private long allocateValueBlockAndStore(long value) {
         long newValueBlockOffset = valueMemSize;
 
-        // store our value
+        // store our value, in compact block it is also the base for other values
         valueMem.putLong(newValueBlockOffset, value);
+        if (compact) {
+            valueMem.putInt(newValueBlockOffset + BitmapIndexUtils.COMPACT_VALUE_BLOCK_BASE_SIZE, 0);
+        }
 
         // reserve memory for value block
         valueMem.jumpTo(valueMemSize + blockCapacity);
@@ -398,7 +423,15 @@ public class BitmapIndexWriter implements Closeable, Mutable {
 
     private void appendValue(long offset, long valueBlockOffset, long valueCount, int valueCellIndex, long value) {
         // first set value
-        valueMem.putLong(valueBlockOffset + valueCellIndex * 8L, value);
+        if (compact) {
+            final long delta = value - valueMem.getLong(valueBlockOffset);
+            if (delta < 0 || delta > BitmapIndexUtils.COMPACT_VALUE_MAX_DELTA) {
+                throw CairoException.instance(0).put("value is out of compact index block range [value=").put(value).put(", delta=").put(delta).put(']');
+            }
+            valueMem.putInt(valueBlockOffset + BitmapIndexUtils.COMPACT_VALUE_BLOCK_BASE_SIZE + valueCellIndex * 4L, (int) delta);
+        } else {
+            valueMem.putLong(valueBlockOffset + valueCellIndex * 8L, value);
+        }
         Unsafe.getUnsafe().storeFence();
         // update count and last value block offset for the key
         // in atomic fashion
@@ -449,7 +482,7 @@ public class BitmapIndexWriter implements Closeable, Mutable {
     void truncate() {
         keyMem.truncate();
         valueMem.truncate();
-        initKeyMemory(keyMem, TableUtils.MIN_INDEX_VALUE_BLOCK_SIZE);
+        initKeyMemory(keyMem, TableUtils.MIN_INDEX_VALUE_BLOCK_SIZE, compact);
         keyCount = 0;
         valueMemSize = TableUtils.MIN_INDEX_VALUE_BLOCK_SIZE;
     }
@@ -487,7 +520,7 @@ public class BitmapIndexWriter implements Closeable, Mutable {
         @Override
         public long next() {
             long cellIndex = getValueCellIndex(--valueCount);
-            long result = valueMem.getLong(valueBlockOffset + cellIndex * 8);
+            long result = BitmapIndexUtils.getValue(valueMem, valueBlockOffset, cellIndex, compact);
             if (cellIndex == 0 && valueCount > 0) {
                 // we are at edge of block right now, next value will be in previous block
                 jumpToPreviousValueBlock();
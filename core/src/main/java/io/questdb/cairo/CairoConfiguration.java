@@ -134,6 +134,10 @@ public interface CairoConfiguration {
 
     int getSqlSortLightValueMaxPages();
 
+    int getSqlSortTopKMaxRows();
+
+    long getSqlSortMemoryBudget();
+
     int getSqlHashJoinValuePageSize();
 
     int getSqlHashJoinValueMaxPages();
@@ -209,6 +213,14 @@ public interface CairoConfiguration {
 
     int getVectorAggregateQueueCapacity();
 
+    int getFilterQueueCapacity();
+
+    int getGroupByQueueCapacity();
+
+    int getHashJoinQueueCapacity();
+
+    int getPartitionCompressionQueueCapacity();
+
     int getO3CallbackQueueCapacity();
 
     int getO3PartitionQueueCapacity();
@@ -238,4 +250,32 @@ public interface CairoConfiguration {
     long getO3CommitHysteresis();
 
     boolean isO3QuickSortEnabled();
+
+    boolean isSqlFilterCompilationEnabled();
+
+    boolean isZoneMapEnabled();
+
+    long getSqlParallelFilterFrameRows();
+
+    long getSqlParallelGroupByMinTaskRows();
+
+    long getSqlParallelHashJoinBatchRows();
+
+    long getSqlHashJoinMemoryBudget();
+
+    /**
+     * Amount of decompressed blocks of compressed partitions that readers of a pool keep
+     * cached once queries release them.
+     *
+     * @return cache size in bytes
+     */
+    long getColumnBlockCacheSize();
+
+    /**
+     * Number of rows after which write-ahead log segment that statements of a connection share is closed
+     * and the next statement starts a new one. Closed segments are removed once they are applied.
+     *
+     * @return segment row count limit
+     */
+    long getWalSegmentRolloverRowCount();
 }
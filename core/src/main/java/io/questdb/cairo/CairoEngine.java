@@ -42,6 +42,7 @@ import io.questdb.tasks.TelemetryTask;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static io.questdb.cairo.ColumnType.SYMBOL;
 
@@ -57,6 +58,8 @@ public class CairoEngine implements Closeable, WriterSource {
     private final MPSequence telemetryPubSeq;
     private final SCSequence telemetrySubSeq;
     private final long tableIdMemSize;
+    private final WalApplyJob walApplyJob;
+    private final AtomicLong walSegmentId;
     private long tableIdFd = -1;
     private long tableIdMem = 0;
 
@@ -71,9 +74,14 @@ public class CairoEngine implements Closeable, WriterSource {
         this.telemetrySubSeq = new SCSequence();
         telemetryPubSeq.then(telemetrySubSeq).then(telemetryPubSeq);
         this.tableIdMemSize = Files.PAGE_SIZE;
+        this.walApplyJob = new WalApplyJob(this);
+        // segment ids only need to be unique, seeding them with clock keeps them unique across restarts
+        this.walSegmentId = new AtomicLong(configuration.getMicrosecondClock().getTicks());
         openTableId();
         try {
             new EngineMigration(this, configuration).migrateEngineTo(ColumnType.VERSION);
+            // nothing can write to tables until interrupted WAL batches are resolved
+            walApplyJob.recover();
         } catch (Throwable e) {
             close();
             throw e;
@@ -108,6 +116,7 @@ public class CairoEngine implements Closeable, WriterSource {
 
     @Override
     public void close() {
+        Misc.free(walApplyJob);
         Misc.free(writerPool);
         Misc.free(readerPool);
         freeTableId();
@@ -281,6 +290,80 @@ public class CairoEngine implements Closeable, WriterSource {
         return writerMaintenanceJob;
     }
 
+    public WalApplyJob getWalApplyJob() {
+        return walApplyJob;
+    }
+
+    /**
+     * Creates new write-ahead log segment for the table and returns writer to append rows to it.
+     * Writer is not pooled and is not exclusive to the table, each caller gets its own segment.
+     * Committed rows become visible in the table once {@link WalApplyJob} merges the segment.
+     *
+     * @param securityContext security context
+     * @param tableName       name of the table
+     * @return writer of new WAL segment, its structure version is that of the table at the time of call
+     */
+    public TableWriter getWalWriter(
+            CairoSecurityContext securityContext,
+            CharSequence tableName
+    ) {
+        securityContext.checkWritePermission();
+        final FilesFacade ff = configuration.getFilesFacade();
+        try (
+                TableReader reader = getReader(securityContext, tableName);
+                Path path = new Path()
+        ) {
+            path.of(configuration.getRoot()).concat(tableName).concat(TableUtils.WAL_DIR_NAME);
+            final int walLen = path.length();
+            if (ff.mkdirs(path.slash$(), configuration.getMkDirMode()) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not create [dir=").put(path).put(']');
+            }
+
+            long segmentId;
+            do {
+                segmentId = walSegmentId.incrementAndGet();
+                path.trimTo(walLen).slash().put(segmentId).$();
+            } while (ff.exists(path));
+            final String segmentRoot = path.trimTo(walLen).slash().put(segmentId).toString();
+
+            try {
+                TableUtils.createTable(
+                        ff,
+                        new AppendOnlyVirtualMemory(),
+                        path,
+                        segmentRoot,
+                        new WalSegmentStructure(reader),
+                        configuration.getMkDirMode(),
+                        reader.getMetadata().getId()
+                );
+                try (TxWriter txWriter = new TxWriter(ff, path.of(segmentRoot).concat(tableName), PartitionBy.NONE)) {
+                    txWriter.setStructureVersion(reader.getVersion());
+                }
+                final TableWriter writer = new TableWriter(
+                        configuration,
+                        tableName,
+                        messageBus,
+                        true,
+                        DefaultLifecycleManager.INSTANCE,
+                        segmentRoot,
+                        true
+                );
+                walApplyJob.notifySegmentCreated(tableName);
+                LOG.info().$("created WAL segment [table=").$(tableName).$(", id=").$(segmentId).$(']').$();
+                return writer;
+            } catch (Throwable e) {
+                ff.rmdir(path.of(segmentRoot).slash$());
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public TableWriter getWalWriter(CairoSecurityContext context, CharSequence name, int tableId, long structureVersion) {
+        // engine does not own connections, each statement gets its own segment
+        return getWalWriter(context, name);
+    }
+
     public boolean lock(
             CairoSecurityContext securityContext,
             CharSequence tableName
@@ -438,6 +521,82 @@ public class CairoEngine implements Closeable, WriterSource {
         }
     }
 
+    private static class WalSegmentStructure implements TableStructure {
+        private final TableReader reader;
+        private final TableReaderMetadata metadata;
+
+        private WalSegmentStructure(TableReader reader) {
+            this.reader = reader;
+            this.metadata = reader.getMetadata();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return metadata.getColumnCount();
+        }
+
+        @Override
+        public CharSequence getColumnName(int columnIndex) {
+            return metadata.getColumnName(columnIndex);
+        }
+
+        @Override
+        public int getColumnType(int columnIndex) {
+            return metadata.getColumnType(columnIndex);
+        }
+
+        @Override
+        public int getIndexBlockCapacity(int columnIndex) {
+            return metadata.getIndexValueBlockCapacity(columnIndex);
+        }
+
+        @Override
+        public boolean isIndexed(int columnIndex) {
+            // segments are scanned sequentially, indexes are built when rows reach the table
+            return false;
+        }
+
+        @Override
+        public boolean isSequential(int columnIndex) {
+            return false;
+        }
+
+        @Override
+        public int getPartitionBy() {
+            return PartitionBy.NONE;
+        }
+
+        @Override
+        public boolean getSymbolCacheFlag(int columnIndex) {
+            return reader.getSymbolMapReader(columnIndex).isCached();
+        }
+
+        @Override
+        public int getSymbolCapacity(int columnIndex) {
+            return reader.getSymbolMapReader(columnIndex).getSymbolCapacity();
+        }
+
+        @Override
+        public CharSequence getTableName() {
+            return reader.getTableName();
+        }
+
+        @Override
+        public int getTimestampIndex() {
+            return metadata.getTimestampIndex();
+        }
+
+        @Override
+        public int getO3MaxUncommittedRows() {
+            return metadata.getMaxUncommittedRows();
+        }
+
+        @Override
+        public long getO3CommitHysteresisInMicros() {
+            return metadata.getO3CommitHysteresisMicros();
+        }
+    }
+
     private class WriterMaintenanceJob extends SynchronizedJob {
 
         private final MicrosecondClock clock;
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+
+/**
+ * Decompressed blocks of compressed column files, see {@link ColumnCompressor}. Cache is shared by
+ * readers of a pool and blocks are keyed by file id and block index, so that readers of the same
+ * partition decode each block once.
+ * <p>
+ * Block is pinned while its address is in use and is never reused until all of its pins are released.
+ * Released blocks stay in the cache until it holds more than its capacity, then least recently used
+ * block is reused for the next miss or freed. Cache grows over capacity only when all of its blocks
+ * are pinned, and shrinks back as soon as these blocks are released. Readers pin a block per column
+ * they scan, frame cursors release blocks they moved past.
+ */
+public class ColumnBlockCache implements Closeable {
+    private static final Log LOG = LogFactory.getLog(ColumnBlockCache.class);
+    private final long capacity;
+    private final long blockSize;
+    private final LongList fileIds = new LongList();
+    private final IntList blocks = new IntList();
+    private final IntList pinCounts = new IntList();
+    private final LongList lastUsed = new LongList();
+    private final LongList addresses = new LongList();
+    // slot of block by file id and block index
+    private final LongObjHashMap<IntIntHashMap> slotsByFile = new LongObjHashMap<>();
+    private final ObjList<IntIntHashMap> spareSlotMaps = new ObjList<>();
+    private long clock;
+    private long missCount;
+
+    public ColumnBlockCache(long capacity) {
+        this.capacity = capacity;
+        this.blockSize = (long) Long.BYTES << ColumnCompressor.BLOCK_VALUE_COUNT_SHIFT;
+    }
+
+    /**
+     * Frees blocks that are not pinned.
+     */
+    public synchronized void clear() {
+        for (int i = addresses.size() - 1; i > -1; i--) {
+            if (pinCounts.getQuick(i) == 0) {
+                free(i);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for (int i = 0, n = addresses.size(); i < n; i++) {
+            Unsafe.free(addresses.getQuick(i), blockSize);
+        }
+        fileIds.clear();
+        blocks.clear();
+        pinCounts.clear();
+        lastUsed.clear();
+        addresses.clear();
+        slotsByFile.clear();
+    }
+
+    public synchronized long getAllocatedSize() {
+        return addresses.size() * blockSize;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns address of decompressed block and pins it until {@link #unpin(long, int)} is called.
+     *
+     * @param src   address of compressed file contents
+     * @param block index of block
+     * @return address of block values
+     */
+    public synchronized long pin(long src, int block) {
+        final long fileId = ColumnCompressor.getFileId(src);
+        int slot = indexOf(fileId, block);
+        if (slot < 0) {
+            missCount++;
+            slot = getFreeSlot();
+            ColumnCompressor.decompressBlock(src, block, addresses.getQuick(slot));
+            fileIds.setQuick(slot, fileId);
+            blocks.setQuick(slot, block);
+            putSlot(fileId, block, slot);
+        }
+        pinCounts.increment(slot);
+        lastUsed.setQuick(slot, ++clock);
+        return addresses.getQuick(slot);
+    }
+
+    public synchronized void unpin(long fileId, int block) {
+        final int slot = indexOf(fileId, block);
+        if (slot < 0) {
+            // cache was closed while reader was still using it
+            return;
+        }
+        final int pinCount = pinCounts.getQuick(slot) - 1;
+        pinCounts.setQuick(slot, pinCount);
+        if (pinCount == 0 && addresses.size() * blockSize > capacity) {
+            // cache grew over capacity while blocks were pinned
+            free(slot);
+        }
+    }
+
+    private void free(int slot) {
+        Unsafe.free(addresses.getQuick(slot), blockSize);
+        removeSlot(fileIds.getQuick(slot), blocks.getQuick(slot));
+        final int last = addresses.size() - 1;
+        if (slot < last) {
+            putSlot(fileIds.getQuick(last), blocks.getQuick(last), slot);
+            fileIds.setQuick(slot, fileIds.getQuick(last));
+            blocks.setQuick(slot, blocks.getQuick(last));
+            pinCounts.setQuick(slot, pinCounts.getQuick(last));
+            lastUsed.setQuick(slot, lastUsed.getQuick(last));
+            addresses.setQuick(slot, addresses.getQuick(last));
+        }
+        fileIds.setPos(last);
+        blocks.setPos(last);
+        pinCounts.setPos(last);
+        lastUsed.setPos(last);
+        addresses.setPos(last);
+    }
+
+    private int getFreeSlot() {
+        final int n = addresses.size();
+        if ((n + 1) * blockSize > capacity) {
+            int lru = -1;
+            for (int i = 0; i < n; i++) {
+                if (pinCounts.getQuick(i) == 0 && (lru == -1 || lastUsed.getQuick(i) < lastUsed.getQuick(lru))) {
+                    lru = i;
+                }
+            }
+            if (lru > -1) {
+                removeSlot(fileIds.getQuick(lru), blocks.getQuick(lru));
+                return lru;
+            }
+            LOG.info().$("all blocks are pinned, growing over capacity [capacity=").$(capacity).$(", blocks=").$(n).$(']').$();
+        }
+        fileIds.add(0);
+        blocks.add(-1);
+        pinCounts.add(0);
+        lastUsed.add(0);
+        addresses.add(Unsafe.malloc(blockSize));
+        return n;
+    }
+
+    private int indexOf(long fileId, int block) {
+        final IntIntHashMap slots = slotsByFile.get(fileId);
+        return slots != null ? slots.get(block) : -1;
+    }
+
+    private void putSlot(long fileId, int block, int slot) {
+        final int index = slotsByFile.keyIndex(fileId);
+        IntIntHashMap slots;
+        if (index > -1) {
+            final int spareCount = spareSlotMaps.size();
+            if (spareCount > 0) {
+                slots = spareSlotMaps.getQuick(spareCount - 1);
+                spareSlotMaps.setPos(spareCount - 1);
+            } else {
+                slots = new IntIntHashMap();
+            }
+            slotsByFile.putAt(index, fileId, slots);
+        } else {
+            slots = slotsByFile.valueAt(index);
+        }
+        slots.put(block, slot);
+    }
+
+    private void removeSlot(long fileId, int block) {
+        final int index = slotsByFile.keyIndex(fileId);
+        if (index < 0) {
+            final IntIntHashMap slots = slotsByFile.valueAt(index);
+            slots.remove(block);
+            if (slots.size() == 0) {
+                // files come and go with partitions, keep maps of files that have no blocks cached for reuse
+                slotsByFile.removeAt(index);
+                spareSlotMaps.add(slots);
+            }
+        }
+    }
+}
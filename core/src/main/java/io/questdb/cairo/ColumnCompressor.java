@@ -0,0 +1,379 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.AppendOnlyVirtualMemory;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+
+import java.io.Closeable;
+
+/**
+ * Compressed format of fixed-width column files in cold partitions. LONG, DATE and TIMESTAMP
+ * columns are stored as zig-zag varint deltas of deltas, which reduces regular timestamps to
+ * a byte per value. DOUBLE columns use XOR of consecutive values with leading and trailing zero
+ * elimination, as described in the Gorilla paper. Other column types are not compressed.
+ * <p>
+ * Values are encoded in blocks of 2^{@link #BLOCK_VALUE_COUNT_SHIFT} values, each block starts with
+ * its first value and can be decoded without the blocks before it. File has a header of codec (int),
+ * block shift (int), value count (long), first value (long), file id (long) and offset of block index (long),
+ * followed by blocks and the index of block offsets at the end of the file. File id is random and tells
+ * decompressed blocks of different files apart in {@link ColumnBlockCache}.
+ * <p>
+ * Compressed file sits next to where raw ".d" file would be and has ".dz" suffix. When both files exist
+ * the raw file wins, which lets writer materialize raw data for out-of-order merges without disturbing
+ * readers of the compressed file.
+ */
+public class ColumnCompressor implements Closeable {
+    public static final String FILE_SUFFIX = ".dz";
+    public static final int HEADER_FIRST_VALUE_OFFSET = 16;
+    public static final int BLOCK_VALUE_COUNT_SHIFT = 16;
+    static final int CODEC_DELTA = 1;
+    static final int CODEC_XOR = 2;
+    private static final Log LOG = LogFactory.getLog(ColumnCompressor.class);
+    private static final int HEADER_CODEC_OFFSET = 0;
+    private static final int HEADER_BLOCK_SHIFT_OFFSET = 4;
+    private static final int HEADER_VALUE_COUNT_OFFSET = 8;
+    private static final int HEADER_FILE_ID_OFFSET = 24;
+    private static final int HEADER_INDEX_OFFSET = 32;
+    private static final int HEADER_SIZE = 40;
+    private final AppendOnlyVirtualMemory mem = new AppendOnlyVirtualMemory();
+    private final LongList blockOffsets = new LongList();
+    private final Rnd rnd = new Rnd(System.nanoTime(), System.currentTimeMillis());
+    private long bitBuffer;
+    private int bitCount;
+
+    public static boolean isCompressible(int columnType) {
+        switch (columnType) {
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Decodes compressed column into memory. Destination must have room for
+     * {@link #getValueCount(long)} values of 8 bytes.
+     *
+     * @param src address of compressed file contents
+     * @param dst address of raw column values
+     */
+    public static void decompress(long src, long dst) {
+        final int shift = getBlockShift(src);
+        for (int i = 0, n = getBlockCount(src); i < n; i++) {
+            decompressBlock(src, i, dst + ((long) i << (shift + 3)));
+        }
+    }
+
+    /**
+     * Writes raw column file from compressed one. Callers that expose the raw file to readers
+     * write it under temporary name and rename.
+     *
+     * @param ff  files facade
+     * @param src compressed file name
+     * @param dst raw file name
+     */
+    public static void decompress(FilesFacade ff, LPSZ src, LPSZ dst) {
+        final long srcFd = TableUtils.openRO(ff, src, LOG);
+        try {
+            final long srcSize = ff.length(srcFd);
+            final long srcAddr = ff.mmap(srcFd, srcSize, 0, Files.MAP_RO);
+            if (srcAddr == FilesFacade.MAP_FAILED) {
+                throw CairoException.instance(ff.errno()).put("could not mmap [file=").put(src).put(']');
+            }
+            try {
+                final long dstSize = getValueCount(srcAddr) * Long.BYTES;
+                final long dstFd = TableUtils.openRW(ff, dst, LOG);
+                try {
+                    if (!ff.truncate(dstFd, dstSize)) {
+                        throw CairoException.instance(ff.errno()).put("could not resize [file=").put(dst).put(", size=").put(dstSize).put(']');
+                    }
+                    if (dstSize > 0) {
+                        final long dstAddr = ff.mmap(dstFd, dstSize, 0, Files.MAP_RW);
+                        if (dstAddr == FilesFacade.MAP_FAILED) {
+                            throw CairoException.instance(ff.errno()).put("could not mmap [file=").put(dst).put(']');
+                        }
+                        try {
+                            decompress(srcAddr, dstAddr);
+                        } finally {
+                            ff.munmap(dstAddr, dstSize);
+                        }
+                    }
+                } finally {
+                    ff.close(dstFd);
+                }
+            } finally {
+                ff.munmap(srcAddr, srcSize);
+            }
+        } finally {
+            ff.close(srcFd);
+        }
+    }
+
+    /**
+     * Decodes single block of compressed column. Destination must have room for
+     * {@link #getBlockValueCount(long, int)} values of 8 bytes.
+     *
+     * @param src   address of compressed file contents
+     * @param block index of block
+     * @param dst   address of raw block values
+     */
+    public static void decompressBlock(long src, int block, long dst) {
+        final long count = getBlockValueCount(src, block);
+        if (count == 0) {
+            return;
+        }
+        final long index = src + Unsafe.getUnsafe().getLong(src + HEADER_INDEX_OFFSET);
+        final long p = src + Unsafe.getUnsafe().getLong(index + (long) block * Long.BYTES);
+        final long first = Unsafe.getUnsafe().getLong(p);
+        Unsafe.getUnsafe().putLong(dst, first);
+        if (Unsafe.getUnsafe().getInt(src + HEADER_CODEC_OFFSET) == CODEC_XOR) {
+            decodeXor(p + Long.BYTES, dst, count, first);
+        } else {
+            decodeDelta(p + Long.BYTES, dst, count, first);
+        }
+    }
+
+    public static int getBlockCount(long src) {
+        final int shift = getBlockShift(src);
+        return (int) ((getValueCount(src) + (1L << shift) - 1) >>> shift);
+    }
+
+    public static int getBlockShift(long src) {
+        return Unsafe.getUnsafe().getInt(src + HEADER_BLOCK_SHIFT_OFFSET);
+    }
+
+    public static long getBlockValueCount(long src, int block) {
+        final int shift = getBlockShift(src);
+        return Math.min(1L << shift, getValueCount(src) - ((long) block << shift));
+    }
+
+    public static long getFileId(long src) {
+        return Unsafe.getUnsafe().getLong(src + HEADER_FILE_ID_OFFSET);
+    }
+
+    public static long getValueCount(long src) {
+        return Unsafe.getUnsafe().getLong(src + HEADER_VALUE_COUNT_OFFSET);
+    }
+
+    @Override
+    public void close() {
+        mem.close();
+    }
+
+    /**
+     * Writes compressed file of column values.
+     *
+     * @param ff         files facade
+     * @param name       compressed file name
+     * @param pageSize   append page size
+     * @param columnType type of column, must be one of compressible types
+     * @param address    address of column values
+     * @param valueCount number of values to compress
+     */
+    public void compress(FilesFacade ff, LPSZ name, long pageSize, int columnType, long address, long valueCount) {
+        assert isCompressible(columnType);
+        mem.of(ff, name, pageSize);
+        try {
+            final int codec = columnType == ColumnType.DOUBLE ? CODEC_XOR : CODEC_DELTA;
+            mem.putInt(codec);
+            mem.putInt(BLOCK_VALUE_COUNT_SHIFT);
+            mem.putLong(valueCount);
+            mem.putLong(valueCount > 0 ? Unsafe.getUnsafe().getLong(address) : 0);
+            mem.putLong(rnd.nextLong());
+            // index offset is known once blocks are written
+            mem.putLong(0);
+
+            blockOffsets.clear();
+            final long blockValueCount = 1L << BLOCK_VALUE_COUNT_SHIFT;
+            for (long lo = 0; lo < valueCount; lo += blockValueCount) {
+                final long hi = Math.min(lo + blockValueCount, valueCount);
+                blockOffsets.add(mem.getAppendOffset());
+                mem.putLong(Unsafe.getUnsafe().getLong(address + lo * Long.BYTES));
+                if (codec == CODEC_XOR) {
+                    encodeXor(address, lo, hi);
+                } else {
+                    encodeDelta(address, lo, hi);
+                }
+            }
+
+            final long indexOffset = mem.getAppendOffset();
+            for (int i = 0, n = blockOffsets.size(); i < n; i++) {
+                mem.putLong(blockOffsets.getQuick(i));
+            }
+            final long size = mem.getAppendOffset();
+            mem.jumpTo(HEADER_INDEX_OFFSET);
+            mem.putLong(indexOffset);
+            mem.jumpTo(size);
+        } finally {
+            mem.close(true);
+        }
+    }
+
+    private static void decodeDelta(long p, long dst, long count, long first) {
+        long prev = first;
+        long prevDelta = 0;
+        for (long i = 1; i < count; i++) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = Unsafe.getUnsafe().getByte(p++);
+                value |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            prevDelta += (value >>> 1) ^ -(value & 1);
+            prev += prevDelta;
+            Unsafe.getUnsafe().putLong(dst + i * Long.BYTES, prev);
+        }
+    }
+
+    private static void decodeXor(long p, long dst, long count, long first) {
+        final BitReader reader = new BitReader(p);
+        long prev = first;
+        int prevLeading = -1;
+        int prevTrailing = 0;
+        for (long i = 1; i < count; i++) {
+            if (reader.read(1) != 0) {
+                if (reader.read(1) == 0) {
+                    prev ^= reader.read(64 - prevLeading - prevTrailing) << prevTrailing;
+                } else {
+                    prevLeading = (int) reader.read(5);
+                    final int len = (int) reader.read(6) + 1;
+                    prevTrailing = 64 - prevLeading - len;
+                    prev ^= reader.read(len) << prevTrailing;
+                }
+            }
+            Unsafe.getUnsafe().putLong(dst + i * Long.BYTES, prev);
+        }
+    }
+
+    private void encodeDelta(long address, long lo, long hi) {
+        long prev = Unsafe.getUnsafe().getLong(address + lo * Long.BYTES);
+        long prevDelta = 0;
+        for (long i = lo + 1; i < hi; i++) {
+            final long value = Unsafe.getUnsafe().getLong(address + i * Long.BYTES);
+            final long delta = value - prev;
+            final long dod = delta - prevDelta;
+            long zigzag = (dod << 1) ^ (dod >> 63);
+            while ((zigzag & ~0x7fL) != 0) {
+                mem.putByte((byte) ((zigzag & 0x7f) | 0x80));
+                zigzag >>>= 7;
+            }
+            mem.putByte((byte) zigzag);
+            prevDelta = delta;
+            prev = value;
+        }
+    }
+
+    private void encodeXor(long address, long lo, long hi) {
+        bitBuffer = 0;
+        bitCount = 0;
+        long prev = Unsafe.getUnsafe().getLong(address + lo * Long.BYTES);
+        int prevLeading = -1;
+        int prevTrailing = 0;
+        for (long i = lo + 1; i < hi; i++) {
+            final long value = Unsafe.getUnsafe().getLong(address + i * Long.BYTES);
+            final long xor = value ^ prev;
+            if (xor == 0) {
+                writeBits(0, 1);
+            } else {
+                final int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                final int trailing = Long.numberOfTrailingZeros(xor);
+                writeBits(1, 1);
+                if (prevLeading > -1 && leading >= prevLeading && trailing >= prevTrailing) {
+                    // meaningful bits fit into the window of previous value
+                    writeBits(0, 1);
+                    writeBits(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+                } else {
+                    final int len = 64 - leading - trailing;
+                    writeBits(1, 1);
+                    writeBits(leading, 5);
+                    writeBits(len - 1, 6);
+                    writeBits(xor >>> trailing, len);
+                    prevLeading = leading;
+                    prevTrailing = trailing;
+                }
+            }
+            prev = value;
+        }
+        if (bitCount > 0) {
+            mem.putLong(bitBuffer);
+        }
+    }
+
+    private void writeBits(long value, int n) {
+        if (n < 64) {
+            value &= (1L << n) - 1;
+        }
+        bitBuffer |= value << bitCount;
+        final int total = bitCount + n;
+        if (total < 64) {
+            bitCount = total;
+        } else {
+            mem.putLong(bitBuffer);
+            bitCount = total - 64;
+            bitBuffer = bitCount == 0 ? 0 : value >>> (n - bitCount);
+        }
+    }
+
+    private static class BitReader {
+        private long p;
+        private long buffer;
+        private int available;
+
+        BitReader(long p) {
+            this.p = p;
+        }
+
+        long read(int n) {
+            if (n <= available) {
+                final long result;
+                if (n == 64) {
+                    result = buffer;
+                    buffer = 0;
+                } else {
+                    result = buffer & ((1L << n) - 1);
+                    buffer >>>= n;
+                }
+                available -= n;
+                return result;
+            }
+            final long next = Unsafe.getUnsafe().getLong(p);
+            p += Long.BYTES;
+            final int need = n - available;
+            final long result = buffer | ((need == 64 ? next : next & ((1L << need) - 1)) << available);
+            buffer = need == 64 ? 0 : next >>> need;
+            available = 64 - need;
+            return result;
+        }
+    }
+}
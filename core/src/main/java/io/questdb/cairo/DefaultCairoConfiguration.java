@@ -216,6 +216,46 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return false;
     }
 
+    @Override
+    public boolean isSqlFilterCompilationEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isZoneMapEnabled() {
+        return true;
+    }
+
+    @Override
+    public long getSqlParallelFilterFrameRows() {
+        return 65536;
+    }
+
+    @Override
+    public long getSqlParallelGroupByMinTaskRows() {
+        return 100_000;
+    }
+
+    @Override
+    public long getSqlParallelHashJoinBatchRows() {
+        return 100_000;
+    }
+
+    @Override
+    public long getSqlHashJoinMemoryBudget() {
+        return 0;
+    }
+
+    @Override
+    public long getColumnBlockCacheSize() {
+        return 16 * 1024 * 1024;
+    }
+
+    @Override
+    public long getWalSegmentRolloverRowCount() {
+        return 1_000_000;
+    }
+
     @Override
     public int getSqlCharacterStoreSequencePoolCapacity() {
         return 64;
@@ -296,6 +336,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024;
     }
 
+    @Override
+    public int getSqlSortTopKMaxRows() {
+        return 10_000;
+    }
+
+    @Override
+    public long getSqlSortMemoryBudget() {
+        return 0;
+    }
+
     @Override
     public int getSqlHashJoinValuePageSize() {
         return Numbers.SIZE_1MB * 16;
@@ -471,6 +521,26 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024;
     }
 
+    @Override
+    public int getFilterQueueCapacity() {
+        return 64;
+    }
+
+    @Override
+    public int getGroupByQueueCapacity() {
+        return 64;
+    }
+
+    @Override
+    public int getHashJoinQueueCapacity() {
+        return 64;
+    }
+
+    @Override
+    public int getPartitionCompressionQueueCapacity() {
+        return 64;
+    }
+
     @Override
     public int getO3CallbackQueueCapacity() {
         return 1024;
@@ -28,10 +28,26 @@ import io.questdb.cairo.sql.DataFrame;
 import org.jetbrains.annotations.Nullable;
 
 public class FullFwdDataFrameCursor extends AbstractFullDataFrameCursor {
+    private final ZoneMapFilter zoneMapFilter;
+
+    public FullFwdDataFrameCursor() {
+        this(null);
+    }
+
+    /**
+     * @param zoneMapFilter optional filter, partitions it rules out are skipped without being opened
+     */
+    public FullFwdDataFrameCursor(@Nullable ZoneMapFilter zoneMapFilter) {
+        this.zoneMapFilter = zoneMapFilter;
+    }
 
     @Override
     public @Nullable DataFrame next() {
         while (this.partitionIndex < partitionHi) {
+            if (zoneMapFilter != null && zoneMapFilter.skip(reader, partitionIndex)) {
+                partitionIndex++;
+                continue;
+            }
             final long hi = getTableReader().openPartition(partitionIndex);
             if (hi < 1) {
                 // this partition is missing, skip
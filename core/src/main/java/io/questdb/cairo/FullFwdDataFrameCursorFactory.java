@@ -26,12 +26,26 @@ package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrameCursor;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Misc;
+import org.jetbrains.annotations.Nullable;
 
 public class FullFwdDataFrameCursorFactory extends AbstractDataFrameCursorFactory {
-    private final FullFwdDataFrameCursor cursor = new FullFwdDataFrameCursor();
+    private final FullFwdDataFrameCursor cursor;
+    private final ZoneMapFilter zoneMapFilter;
 
     public FullFwdDataFrameCursorFactory(CairoEngine engine, String tableName, long tableVersion) {
+        this(engine, tableName, tableVersion, null);
+    }
+
+    public FullFwdDataFrameCursorFactory(CairoEngine engine, String tableName, long tableVersion, @Nullable ZoneMapFilter zoneMapFilter) {
         super(engine, tableName, tableVersion);
+        this.cursor = new FullFwdDataFrameCursor(zoneMapFilter);
+        this.zoneMapFilter = zoneMapFilter;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(zoneMapFilter);
     }
 
     @Override
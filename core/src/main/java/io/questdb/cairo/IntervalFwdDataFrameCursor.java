@@ -27,8 +27,12 @@ package io.questdb.cairo;
 import io.questdb.cairo.sql.DataFrame;
 import io.questdb.cairo.vm.ReadOnlyVirtualMemory;
 import io.questdb.griffin.model.RuntimeIntrinsicIntervalModel;
+import org.jetbrains.annotations.Nullable;
 
 public class IntervalFwdDataFrameCursor extends AbstractIntervalDataFrameCursor {
+    private final ZoneMapFilter zoneMapFilter;
+    private int zoneMapPartition = -1;
+
     /**
      * Cursor for data frames that chronologically intersect collection of intervals.
      * Data frame low and high row will be within intervals inclusive of edges. Intervals
@@ -39,7 +43,17 @@ public class IntervalFwdDataFrameCursor extends AbstractIntervalDataFrameCursor
      * @param timestampIndex index of timestamp column in the readr that is used by this cursor
      */
     public IntervalFwdDataFrameCursor(RuntimeIntrinsicIntervalModel intervals, int timestampIndex) {
+        this(intervals, timestampIndex, null);
+    }
+
+    /**
+     * @param intervals      pairs of microsecond interval values
+     * @param timestampIndex index of timestamp column in the reader
+     * @param zoneMapFilter  optional filter, partitions it rules out are skipped without being opened
+     */
+    public IntervalFwdDataFrameCursor(RuntimeIntrinsicIntervalModel intervals, int timestampIndex, @Nullable ZoneMapFilter zoneMapFilter) {
         super(intervals, timestampIndex);
+        this.zoneMapFilter = zoneMapFilter;
     }
 
     @Override
@@ -47,6 +61,15 @@ public class IntervalFwdDataFrameCursor extends AbstractIntervalDataFrameCursor
         // order of logical operations is important
         // we are not calculating partition rages when intervals are empty
         while (intervalsLo < intervalsHi && partitionLo < partitionHi) {
+            // partition is checked against zone map once, when cursor first arrives at it
+            if (zoneMapFilter != null && zoneMapPartition != partitionLo) {
+                zoneMapPartition = partitionLo;
+                if (zoneMapFilter.skip(reader, partitionLo)) {
+                    partitionLimit = 0;
+                    partitionLo++;
+                    continue;
+                }
+            }
             // We don't need to worry about column tops and null column because we
             // are working with timestamp. Timestamp column cannot be added to existing table.
             long rowCount = reader.openPartition(partitionLo);
@@ -126,5 +149,6 @@ public class IntervalFwdDataFrameCursor extends AbstractIntervalDataFrameCursor
     public void toTop() {
         super.toTop();
         partitionLimit = 0;
+        zoneMapPartition = -1;
     }
 }
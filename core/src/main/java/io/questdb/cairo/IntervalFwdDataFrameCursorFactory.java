@@ -28,10 +28,12 @@ import io.questdb.cairo.sql.DataFrameCursor;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.model.RuntimeIntrinsicIntervalModel;
 import io.questdb.std.Misc;
+import org.jetbrains.annotations.Nullable;
 
 public class IntervalFwdDataFrameCursorFactory extends AbstractDataFrameCursorFactory {
     private final IntervalFwdDataFrameCursor cursor;
     private final RuntimeIntrinsicIntervalModel intervals;
+    private final ZoneMapFilter zoneMapFilter;
 
     public IntervalFwdDataFrameCursorFactory(
             CairoEngine engine,
@@ -39,10 +41,22 @@ public class IntervalFwdDataFrameCursorFactory extends AbstractDataFrameCursorFa
             long tableVersion,
             RuntimeIntrinsicIntervalModel intervals,
             int timestampIndex
+    ) {
+        this(engine, tableName, tableVersion, intervals, timestampIndex, null);
+    }
+
+    public IntervalFwdDataFrameCursorFactory(
+            CairoEngine engine,
+            String tableName,
+            long tableVersion,
+            RuntimeIntrinsicIntervalModel intervals,
+            int timestampIndex,
+            @Nullable ZoneMapFilter zoneMapFilter
     ) {
         super(engine, tableName, tableVersion);
-        this.cursor = new IntervalFwdDataFrameCursor(intervals, timestampIndex);
+        this.cursor = new IntervalFwdDataFrameCursor(intervals, timestampIndex, zoneMapFilter);
         this.intervals = intervals;
+        this.zoneMapFilter = zoneMapFilter;
     }
 
     @Override
@@ -54,5 +68,6 @@ public class IntervalFwdDataFrameCursorFactory extends AbstractDataFrameCursorFa
     @Override
     public void close() {
         Misc.free(intervals);
+        Misc.free(zoneMapFilter);
     }
 }
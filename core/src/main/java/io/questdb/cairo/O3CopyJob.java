@@ -116,6 +116,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                         srcOooVarAddr,
                         srcOooLo,
                         srcOooHi,
+                        tableWriter.getO3ReplacedRowCount(partitionTimestamp),
                         dstFixAddr + dstFixOffset,
                         dstVarAddr,
                         dstVarOffset
@@ -157,6 +158,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
         copyTail(
                 columnCounter,
                 partCounter,
+                columnType,
                 timestampMergeIndexAddr,
                 srcDataFixFd,
                 srcDataFixAddr,
@@ -300,6 +302,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
     private static void copyTail(
             AtomicInteger columnCounter,
             @Nullable AtomicInteger partCounter,
+            int columnType,
             long timestampMergeIndexAddr,
             long srcDataFixFd,
             long srcDataFixAddr,
@@ -337,6 +340,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
             if (isIndexed) {
                 updateIndex(
                         columnCounter,
+                        columnType,
                         timestampMergeIndexAddr,
                         srcDataFixFd,
                         srcDataFixAddr,
@@ -436,6 +440,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
 
     private static void updateIndex(
             AtomicInteger columnCounter,
+            int columnType,
             long timestampMergeIndexAddr,
             long srcDataFixFd,
             long srcDataFixAddr,
@@ -461,13 +466,13 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
     ) {
         // dstKFd & dstVFd are closed by the indexer
         try {
-            long row = dstIndexOffset / Integer.BYTES;
+            final long row = dstIndexOffset >> ColumnType.pow2SizeOf(columnType);
             boolean closed = !indexWriter.isOpen();
             if (closed) {
                 indexWriter.of(tableWriter.getConfiguration(), dstKFd, dstVFd, row == 0);
             }
             try {
-                updateIndex(dstFixAddr, dstFixSize, indexWriter, dstIndexOffset / Integer.BYTES, dstIndexAdjust);
+                updateIndex(columnType, dstFixAddr, dstFixSize, indexWriter, row, dstIndexAdjust);
             } finally {
                 if (closed) {
                     Misc.free(indexWriter);
@@ -892,11 +897,13 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
             long srcOooVarAddr,
             long srcOooLo,
             long srcOooHi,
+            long replacedRowCount,
             long dstFixAddr,
             long dstVarAddr,
             long dstVarOffset
     ) {
-        final long rowCount = srcOooHi - srcOooLo + 1 + srcDataHi - srcDataLo + 1;
+        // merge index does not have data rows that deduplicated rows replace
+        final long rowCount = srcOooHi - srcOooLo + 1 + srcDataHi - srcDataLo + 1 - replacedRowCount;
         switch (columnType) {
             case ColumnType.BOOLEAN:
             case ColumnType.BYTE:
@@ -954,11 +961,25 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
         }
     }
 
-    private static void updateIndex(long dstFixAddr, long dstFixSize, BitmapIndexWriter w, long row, long rowAdjust) {
+    private static void updateIndex(int columnType, long dstFixAddr, long dstFixSize, BitmapIndexWriter w, long row, long rowAdjust) {
         w.rollbackConditionally(row + rowAdjust);
-        final long count = dstFixSize / Integer.BYTES - rowAdjust;
-        for (; row < count; row++) {
-            w.add(TableUtils.toIndexKey(Unsafe.getUnsafe().getInt(dstFixAddr + row * Integer.BYTES)), row + rowAdjust);
+        final long count = (dstFixSize >> ColumnType.pow2SizeOf(columnType)) - rowAdjust;
+        switch (columnType) {
+            case ColumnType.INT:
+                for (; row < count; row++) {
+                    w.add(TableUtils.toIntIndexKey(Unsafe.getUnsafe().getInt(dstFixAddr + row * Integer.BYTES)), row + rowAdjust);
+                }
+                break;
+            case ColumnType.LONG:
+                for (; row < count; row++) {
+                    w.add(TableUtils.toLongIndexKey(Unsafe.getUnsafe().getLong(dstFixAddr + row * Long.BYTES)), row + rowAdjust);
+                }
+                break;
+            default:
+                for (; row < count; row++) {
+                    w.add(TableUtils.toIndexKey(Unsafe.getUnsafe().getInt(dstFixAddr + row * Integer.BYTES)), row + rowAdjust);
+                }
+                break;
         }
         w.setMaxValue(count - 1);
     }
@@ -303,7 +303,9 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             BitmapIndexWriter indexWriter,
             long tmpBuf
     ) {
-        final long mergeLen = mergeOOOHi - mergeOOOLo + 1 + mergeDataHi - mergeDataLo + 1;
+        // merge drops committed rows that deduplicated rows replace
+        final long mergeLen = mergeOOOHi - mergeOOOLo + 1 + mergeDataHi - mergeDataLo + 1
+                - tableWriter.getO3ReplacedRowCount(partitionTimestamp);
         final Path pathToPartition = Path.getThreadLocal(pathToTable);
         TableUtils.setPathForPartition(pathToPartition, tableWriter.getPartitionBy(), oooTimestampLo, false);
         final int pplen = pathToPartition.length();
@@ -2066,7 +2068,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
 
             pathToPartition.trimTo(pDirNameLen).concat(columnName).put(FILE_SUFFIX_D).$();
             dstFixFd = openRW(ff, pathToPartition, LOG);
-            dstFixSize = ((srcOooHi - srcOooLo + 1) + srcDataMax - srcDataTop) << shl;
+            dstFixSize = ((srcOooHi - srcOooLo + 1) + srcDataMax - srcDataTop - tableWriter.getO3ReplacedRowCount(oooPartitionHi)) << shl;
             dstFixAddr = O3Utils.mapRW(ff, dstFixFd, dstFixSize);
 
             // when prefix is "data" we need to reduce it by "srcDataTop"
@@ -2358,7 +2360,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             int pColNameLen = pathToPartition.length();
             pathToPartition.put(FILE_SUFFIX_I).$();
             dstFixFd = openRW(ff, pathToPartition, LOG);
-            dstFixSize = (srcOooHi - srcOooLo + 1 + srcDataMax - srcDataTop) * Long.BYTES;
+            dstFixSize = (srcOooHi - srcOooLo + 1 + srcDataMax - srcDataTop - tableWriter.getO3ReplacedRowCount(oooPartitionHi)) * Long.BYTES;
             dstFixAddr = O3Utils.mapRW(ff, dstFixFd, dstFixSize);
 
             pathToPartition.trimTo(pColNameLen);
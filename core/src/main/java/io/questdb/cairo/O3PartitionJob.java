@@ -445,6 +445,23 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                     }
                 }
 
+                if (tableWriter.getO3ReplacedRowCount(partitionTimestamp) > 0) {
+                    // deduplicated rows replace some of committed rows, merge takes the entire partition
+                    // so that replaced rows can be dropped from the merge index
+                    branch = 9;
+                    prefixType = O3_BLOCK_NONE;
+                    prefixLo = 0;
+                    prefixHi = -1;
+                    mergeType = O3_BLOCK_MERGE;
+                    mergeDataLo = 0;
+                    mergeDataHi = srcDataMax - 1;
+                    mergeO3Lo = srcOooLo;
+                    mergeO3Hi = srcOooHi;
+                    suffixType = O3_BLOCK_NONE;
+                    suffixLo = -1;
+                    suffixHi = -1;
+                }
+
                 LOG.debug()
                         .$("o3 merge [branch=").$(branch)
                         .$(", prefixType=").$(prefixType)
@@ -468,7 +485,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                         .$(", table=").$(pathToTable)
                         .I$();
 
-                if (prefixType == O3_BLOCK_NONE) {
+                if (prefixType == O3_BLOCK_NONE && mergeType == O3_BLOCK_NONE) {
                     // We do not need to create a copy of partition when we simply need to append
                     // existing the one.
                     openColumnMode = OPEN_MID_PARTITION_FOR_APPEND;
@@ -755,6 +772,11 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                     mergeOOOLo,
                     mergeOOOHi
             );
+            tableWriter.o3DropReplacedRows(
+                    partitionTimestamp,
+                    timestampMergeIndexAddr,
+                    mergeOOOHi - mergeOOOLo + 1 + mergeDataHi - mergeDataLo + 1
+            );
         } else {
             timestampMergeIndexAddr = 0;
         }
@@ -806,6 +828,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                 final BitmapIndexWriter indexWriter;
                 if (isIndexed) {
                     indexWriter = o3Basket.nextIndexer();
+                    indexWriter.setCompact(tableWriter.isColumnIndexCompact(i));
                 } else {
                     indexWriter = null;
                 }
@@ -39,6 +39,11 @@ public final class PartitionBy {
      * all data is stored in a single directory
      */
     public static final int NONE = 3;
+    public static final int HOUR = 4;
+    /**
+     * Weekly partitions start on Monday, directory is named after the Monday date
+     */
+    public static final int WEEK = 5;
     private final static CharSequenceIntHashMap nameToIndexMap = new CharSequenceIntHashMap();
 
     static {
@@ -46,6 +51,8 @@ public final class PartitionBy {
         nameToIndexMap.put("MONTH", MONTH);
         nameToIndexMap.put("YEAR", YEAR);
         nameToIndexMap.put("NONE", NONE);
+        nameToIndexMap.put("HOUR", HOUR);
+        nameToIndexMap.put("WEEK", WEEK);
     }
 
     private PartitionBy() {
@@ -65,6 +72,10 @@ public final class PartitionBy {
                 return "YEAR";
             case NONE:
                 return "NONE";
+            case HOUR:
+                return "HOUR";
+            case WEEK:
+                return "WEEK";
             default:
                 return "UNKNOWN";
         }
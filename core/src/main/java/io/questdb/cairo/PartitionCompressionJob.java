@@ -0,0 +1,197 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.MessageBus;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.AbstractQueueConsumerJob;
+import io.questdb.std.*;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.tasks.PartitionCompressionTask;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.TableUtils.*;
+
+/**
+ * Compresses cold partitions off the commit path. Compressed copy of the partition is written into
+ * "compress.&lt;partition&gt;.&lt;request id&gt;" staging directory next to the partition. {@link TableWriter} renames the staging
+ * directory into new version of the partition on its next commit, see {@link PartitionCompressionRequest}.
+ * Staging directories of requests that writer abandoned are removed when writer is opened.
+ */
+public class PartitionCompressionJob extends AbstractQueueConsumerJob<PartitionCompressionTask> implements Closeable {
+    public static final String STAGING_DIR_PREFIX = "compress.";
+    private static final Log LOG = LogFactory.getLog(PartitionCompressionJob.class);
+    private final CairoConfiguration configuration;
+    private final ColumnCompressor[] compressors;
+    private final Path[] paths;
+    private final Path[] others;
+    private final NativeLPSZ[] nativeLPSZ;
+    private final long[] tempMem;
+
+    public PartitionCompressionJob(MessageBus messageBus, int workerCount) {
+        super(messageBus.getPartitionCompressionQueue(), messageBus.getPartitionCompressionSubSeq());
+        this.configuration = messageBus.getConfiguration();
+        this.compressors = new ColumnCompressor[workerCount];
+        this.paths = new Path[workerCount];
+        this.others = new Path[workerCount];
+        this.nativeLPSZ = new NativeLPSZ[workerCount];
+        this.tempMem = new long[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            compressors[i] = new ColumnCompressor();
+            paths[i] = new Path();
+            others[i] = new Path();
+            nativeLPSZ[i] = new NativeLPSZ();
+            tempMem[i] = Unsafe.malloc(Long.BYTES);
+        }
+    }
+
+    /**
+     * Appends name of staging directory of the request to path of table directory.
+     */
+    public static void setStagingPath(Path path, PartitionCompressionRequest request) {
+        path.slash().put(STAGING_DIR_PREFIX);
+        setSinkForPartition(path, request.getPartitionBy(), request.getPartitionTimestamp(), false);
+        path.put('.').put(request.getId());
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0, n = compressors.length; i < n; i++) {
+            Misc.free(compressors[i]);
+            Misc.free(paths[i]);
+            Misc.free(others[i]);
+            if (tempMem[i] != 0) {
+                Unsafe.free(tempMem[i], Long.BYTES);
+                tempMem[i] = 0;
+            }
+        }
+    }
+
+    @Override
+    protected boolean doRun(int workerId, long cursor) {
+        final PartitionCompressionRequest request = queue.get(cursor).getRequest();
+        subSeq.done(cursor);
+        // writer cancels requests when it is closed
+        if (request.start()) {
+            compress(request, workerId);
+        }
+        return true;
+    }
+
+    private static boolean isCompressedColumnFile(PartitionCompressionRequest request, CharSequence fileName) {
+        if (Chars.endsWith(fileName, ColumnCompressor.FILE_SUFFIX)) {
+            // stale compressed file of materialized column
+            return true;
+        }
+        if (Chars.endsWith(fileName, FILE_SUFFIX_D)) {
+            final int len = fileName.length() - FILE_SUFFIX_D.length();
+            for (int i = 0, n = request.getColumnCount(); i < n; i++) {
+                final String name = request.getColumnName(i);
+                if (name.length() == len && Chars.startsWith(fileName, name)) {
+                    return ColumnCompressor.isCompressible(request.getColumnType(i));
+                }
+            }
+        }
+        return false;
+    }
+
+    private void compress(PartitionCompressionRequest request, int workerId) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        final Path path = paths[workerId].of(request.getTablePath());
+        final Path other = others[workerId].of(request.getTablePath());
+        setPathForPartition(path, request.getPartitionBy(), request.getPartitionTimestamp(), false);
+        txnPartitionConditionally(path, request.getPartitionNameTxn());
+        final int plen = path.length();
+        setStagingPath(other, request);
+        final int olen = other.length();
+
+        boolean success = false;
+        try {
+            compressPartition(ff, request, path, plen, other, olen, workerId);
+            success = true;
+            LOG.info().$("compressed partition [path=").$(path.trimTo(plen).$()).$(']').$();
+        } catch (CairoException e) {
+            // compression is an optimisation, partition stays uncompressed
+            LOG.error().$("could not compress partition [path=").$(path.trimTo(plen).$()).$(", errno=").$(e.getErrno()).$(", msg=").$(e.getFlyweightMessage()).$(']').$();
+        } finally {
+            if (!success) {
+                ff.rmdir(other.trimTo(olen).slash$());
+                request.finish(false);
+            } else if (!request.finish(true)) {
+                // writer was closed while partition was being compressed
+                ff.rmdir(other.trimTo(olen).slash$());
+            }
+        }
+    }
+
+    private void compressPartition(FilesFacade ff, PartitionCompressionRequest request, Path path, int plen, Path other, int olen, int workerId) {
+        createDirsOrFail(ff, other.trimTo(olen).slash$(), configuration.getMkDirMode());
+
+        final ColumnCompressor compressor = compressors[workerId];
+        final long partitionSize = request.getPartitionSize();
+        for (int i = 0, n = request.getColumnCount(); i < n; i++) {
+            final int type = request.getColumnType(i);
+            final CharSequence name = request.getColumnName(i);
+            if (ColumnCompressor.isCompressible(type) && ff.exists(dFile(path.trimTo(plen), name))) {
+                final long fd = openRO(ff, path, LOG);
+                try {
+                    final long columnTop = readColumnTop(ff, path.trimTo(plen), name, plen, tempMem[workerId]);
+                    final long fileSize = ff.length(fd);
+                    final long valueCount = Math.min(partitionSize - columnTop, fileSize / Long.BYTES);
+                    final long address = valueCount > 0 ? ff.mmap(fd, fileSize, 0, Files.MAP_RO) : 0;
+                    if (address == FilesFacade.MAP_FAILED) {
+                        throw CairoException.instance(ff.errno()).put("could not mmap [file=").put(dFile(path.trimTo(plen), name)).put(']');
+                    }
+                    try {
+                        compressor.compress(ff, dzFile(other.trimTo(olen), name), configuration.getAppendPageSize(), type, address, Math.max(valueCount, 0));
+                    } finally {
+                        if (address != 0) {
+                            ff.munmap(address, fileSize);
+                        }
+                    }
+                } finally {
+                    ff.close(fd);
+                }
+            }
+        }
+
+        // everything else, including column tops, indexes and zone map, is copied as is
+        final NativeLPSZ fileName = nativeLPSZ[workerId];
+        ff.iterateDir(path.trimTo(plen).$(), (file, type) -> {
+            fileName.of(file);
+            if (type != Files.DT_DIR && !isCompressedColumnFile(request, fileName)) {
+                path.trimTo(plen).concat(fileName).$();
+                other.trimTo(olen).concat(fileName).$();
+                if (ff.copy(path, other) < 0) {
+                    throw CairoException.instance(ff.errno()).put("could not copy [from=").put(path).put(", to=").put(other).put(']');
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.std.IntList;
+import io.questdb.std.ObjList;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Partition that {@link TableWriter} hands over to {@link PartitionCompressionJob}. Request carries
+ * everything job needs to know about the table, so that the job does not touch writer state. Job writes
+ * compressed copy of the partition into staging directory and writer attaches it on its next commit,
+ * unless partition has changed in the meantime.
+ */
+public class PartitionCompressionRequest {
+    static final int STATUS_PENDING = 0;
+    static final int STATUS_RUNNING = 1;
+    static final int STATUS_DONE = 2;
+    static final int STATUS_FAILED = 3;
+    static final int STATUS_CANCELLED = 4;
+    private final AtomicInteger status = new AtomicInteger(STATUS_PENDING);
+    private final ObjList<String> columnNames = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final long id;
+    private final String tablePath;
+    private final int partitionBy;
+    private final long partitionTimestamp;
+    private final long partitionNameTxn;
+    private final long partitionSize;
+    private final long structureVersion;
+
+    PartitionCompressionRequest(
+            long id,
+            CharSequence tablePath,
+            int partitionBy,
+            long partitionTimestamp,
+            long partitionNameTxn,
+            long partitionSize,
+            long structureVersion,
+            TableWriterMetadata metadata
+    ) {
+        this.id = id;
+        this.tablePath = tablePath.toString();
+        this.partitionBy = partitionBy;
+        this.partitionTimestamp = partitionTimestamp;
+        this.partitionNameTxn = partitionNameTxn;
+        this.partitionSize = partitionSize;
+        this.structureVersion = structureVersion;
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            columnNames.add(metadata.getColumnName(i).toString());
+            columnTypes.add(metadata.getColumnType(i));
+        }
+    }
+
+    public int getColumnCount() {
+        return columnNames.size();
+    }
+
+    public String getColumnName(int index) {
+        return columnNames.getQuick(index);
+    }
+
+    public int getColumnType(int index) {
+        return columnTypes.getQuick(index);
+    }
+
+    /**
+     * @return unique id of the request, it keeps staging directories of concurrent requests apart
+     */
+    public long getId() {
+        return id;
+    }
+
+    public int getPartitionBy() {
+        return partitionBy;
+    }
+
+    public long getPartitionNameTxn() {
+        return partitionNameTxn;
+    }
+
+    public long getPartitionSize() {
+        return partitionSize;
+    }
+
+    public long getPartitionTimestamp() {
+        return partitionTimestamp;
+    }
+
+    public long getStructureVersion() {
+        return structureVersion;
+    }
+
+    public String getTablePath() {
+        return tablePath;
+    }
+
+    /**
+     * @return previous status, job might have finished compression before request was cancelled
+     */
+    int cancel() {
+        return status.getAndSet(STATUS_CANCELLED);
+    }
+
+    boolean finish(boolean success) {
+        return status.compareAndSet(STATUS_RUNNING, success ? STATUS_DONE : STATUS_FAILED);
+    }
+
+    int getStatus() {
+        return status.get();
+    }
+
+    boolean start() {
+        return status.compareAndSet(STATUS_PENDING, STATUS_RUNNING);
+    }
+}
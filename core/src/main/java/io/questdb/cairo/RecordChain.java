@@ -52,7 +52,19 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
     private RecordCursor symbolTableResolver;
 
     public RecordChain(@Transient ColumnTypes columnTypes, RecordSink recordSink, long pageSize, int maxPages) {
-        this.mem = new ContiguousVirtualMemory(pageSize, maxPages);
+        this(columnTypes, recordSink, new ContiguousVirtualMemory(pageSize, maxPages));
+    }
+
+    /**
+     * Creates chain over provided memory, which chain takes ownership of. Records reference
+     * each other by offsets, so memory can be file-backed as long as it is contiguous.
+     *
+     * @param columnTypes types of record columns
+     * @param recordSink  sink that copies records into the chain
+     * @param mem         memory for record storage
+     */
+    public RecordChain(@Transient ColumnTypes columnTypes, RecordSink recordSink, ContiguousVirtualMemory mem) {
+        this.mem = mem;
         this.recordSink = recordSink;
         int count = columnTypes.getColumnCount();
         long varOffset = 0L;
@@ -106,6 +118,10 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
         varAppendOffset = 0L;
     }
 
+    public long getMemorySize() {
+        return varAppendOffset;
+    }
+
     public long getOffsetOfColumn(long recordOffset, int columnIndex) {
         return rowToDataOffset(recordOffset) + varOffset + columnOffsets[columnIndex];
     }
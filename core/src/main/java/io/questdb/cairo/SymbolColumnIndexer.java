@@ -36,9 +36,9 @@ import java.io.Closeable;
 class SymbolColumnIndexer implements ColumnIndexer, Closeable {
 
     private static final long SEQUENCE_OFFSET;
-    private final BitmapIndexWriter writer = new BitmapIndexWriter();
+    final BitmapIndexWriter writer = new BitmapIndexWriter();
     private final PagedSlidingReadOnlyMemory mem = new PagedSlidingReadOnlyMemory();
-    private long columnTop;
+    long columnTop;
     @SuppressWarnings({"unused", "FieldCanBeLocal", "FieldMayBeFinal"})
     private volatile long sequence = 0L;
     private volatile boolean distressed = false;
@@ -26,6 +26,7 @@ package io.questdb.cairo;
 
 import io.questdb.cairo.sql.PageFrame;
 import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.vm.CompressedPageTracker;
 import io.questdb.cairo.vm.ReadOnlyVirtualMemory;
 import io.questdb.cairo.vm.VmUtils;
 import io.questdb.std.IntList;
@@ -39,6 +40,7 @@ public class TablePageFrameCursor implements PageFrameCursor {
     private final LongList columnFrameLengths = new LongList();
     private final LongList columnTops = new LongList();
     private final ReplicationPageFrame frame = new ReplicationPageFrame();
+    private final CompressedPageTracker compressedPages = new CompressedPageTracker();
 
     private TableReader reader;
     private long maxRowsPerFrame;
@@ -59,6 +61,7 @@ public class TablePageFrameCursor implements PageFrameCursor {
     @Override
     public void close() {
         if (null != reader) {
+            compressedPages.of(columnCount);
             reader = Misc.free(reader);
             reader = null;
             columnIndexes = null;
@@ -66,6 +69,11 @@ public class TablePageFrameCursor implements PageFrameCursor {
         }
     }
 
+    @Override
+    public int getRetiredPageCount() {
+        return compressedPages.getRetiredPageCount();
+    }
+
     @Override
     public @Nullable ReplicationPageFrame next() {
         while (!moveToNextPartition || ++partitionIndex < partitionCount) {
@@ -106,18 +114,35 @@ public class TablePageFrameCursor implements PageFrameCursor {
                 }
             }
 
+            // columns of compressed partitions have a page per block, frame does not cross block boundary
+            for (int i = 0; i < columnCount; i++) {
+                final long columnTop = columnTops.getQuick(i);
+                final ReadOnlyVirtualMemory col = reader.getColumn(TableReader.getPrimaryColumnIndex(columnBase, columnIndexes.get(i)));
+                if (columnTop <= frameFirstRow && col.getPageCount() > 1) {
+                    final long pageRows = col.getPageSize(0) >> columnSizes.getQuick(i);
+                    nFrameRows = Math.min(nFrameRows, pageRows - (frameFirstRow - columnTop) % pageRows);
+                }
+            }
+
             for (int i = 0; i < columnCount; i++) {
                 int columnIndex = columnIndexes.get(i);
                 final long columnTop = columnTops.getQuick(i);
                 final ReadOnlyVirtualMemory col = reader.getColumn(TableReader.getPrimaryColumnIndex(columnBase, columnIndex));
 
                 if (columnTop <= frameFirstRow && col.getPageCount() > 0) {
-                    assert col.getPageCount() == 1;
-                    final long colFrameFirstRow = frameFirstRow - columnTop;
-                    final long colFrameLastRow = colFrameFirstRow + nFrameRows;
+                    long colFrameFirstRow = frameFirstRow - columnTop;
+                    long colFrameLastRow = colFrameFirstRow + nFrameRows;
                     final long colMaxRow = nPartitionRows - columnTop;
 
-                    long columnPageAddress = col.getPageAddress(0);
+                    long columnPageAddress;
+                    if (col.getPageCount() > 1) {
+                        final long pageRows = col.getPageSize(0) >> columnSizes.getQuick(i);
+                        columnPageAddress = compressedPages.map(i, col, (int) (colFrameFirstRow / pageRows));
+                        colFrameFirstRow %= pageRows;
+                        colFrameLastRow = colFrameFirstRow + nFrameRows;
+                    } else {
+                        columnPageAddress = compressedPages.map(i, col, 0);
+                    }
                     long columnPageLength;
 
                     int columnType = reader.getMetadata().getColumnType(columnIndex);
@@ -185,8 +210,14 @@ public class TablePageFrameCursor implements PageFrameCursor {
         return null;
     }
 
+    @Override
+    public void releaseFrames() {
+        compressedPages.releaseRetired();
+    }
+
     @Override
     public void toTop() {
+        compressedPages.releaseAll();
         partitionIndex = -1;
         moveToNextPartition = true;
         partitionCount = reader.getPartitionCount();
@@ -213,6 +244,7 @@ public class TablePageFrameCursor implements PageFrameCursor {
         columnFrameAddresses.seed(columnCount, 0);
         columnFrameLengths.seed(columnCount, 0);
         columnTops.seed(columnCount, 0);
+        compressedPages.of(columnCount);
         toTop();
         return this;
     }
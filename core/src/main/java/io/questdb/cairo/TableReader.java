@@ -26,6 +26,7 @@ package io.questdb.cairo;
 
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.vm.CompressedColumnMemory;
 import io.questdb.cairo.vm.MappedReadOnlyMemory;
 import io.questdb.cairo.vm.ReadOnlyVirtualMemory;
 import io.questdb.cairo.vm.SinglePageMappedReadOnlyPageMemory;
@@ -38,6 +39,7 @@ import io.questdb.std.datetime.microtime.Timestamps;
 import io.questdb.std.str.CharSink;
 import io.questdb.std.str.Path;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 import java.util.concurrent.locks.LockSupport;
@@ -75,13 +77,29 @@ public class TableReader implements Closeable, SymbolTableSource {
     private long txn = TableUtils.INITIAL_TXN;
     private long tempMem8b = Unsafe.malloc(8);
     private boolean active;
+    private ColumnBlockCache blockCache;
+    private boolean ownBlockCache;
+    private boolean hasCompressedColumns;
 
     public TableReader(CairoConfiguration configuration, CharSequence tableName) {
+        this(configuration, tableName, configuration.getRoot());
+    }
+
+    public TableReader(CairoConfiguration configuration, CharSequence tableName, CharSequence root) {
+        this(configuration, tableName, root, null);
+    }
+
+    /**
+     * @param blockCache cache of decompressed blocks shared with other readers, when null reader
+     *                   creates cache of its own once it opens compressed column
+     */
+    public TableReader(CairoConfiguration configuration, CharSequence tableName, CharSequence root, @Nullable ColumnBlockCache blockCache) {
         this.configuration = configuration;
+        this.blockCache = blockCache;
         this.ff = configuration.getFilesFacade();
         this.tableName = Chars.toString(tableName);
         this.path = new Path();
-        this.path.of(configuration.getRoot()).concat(tableName);
+        this.path.of(root).concat(tableName);
         this.rootLen = path.length();
         try {
             failOnPendingTodo();
@@ -145,6 +163,7 @@ public class TableReader implements Closeable, SymbolTableSource {
                     final long a = column.getPageAddress(pageIndex);
                     final long count = column.getPageSize(pageIndex) / Double.BYTES;
                     result += Vect.avgDouble(a, count);
+                    releasePage(column, pageIndex);
                     countTotal++;
                 }
             }
@@ -167,6 +186,9 @@ public class TableReader implements Closeable, SymbolTableSource {
             Misc.free(txFile);
             Misc.free(todoMem);
             freeColumns();
+            if (ownBlockCache) {
+                blockCache = Misc.free(blockCache);
+            }
             freeTempMem();
             Misc.free(txnScoreboard);
             Misc.free(path);
@@ -296,6 +318,7 @@ public class TableReader implements Closeable, SymbolTableSource {
         // check for double-close
         if (active) {
             active = false;
+            releaseCompressedPages();
             txnScoreboard.releaseTxn(txn);
         }
     }
@@ -316,6 +339,7 @@ public class TableReader implements Closeable, SymbolTableSource {
                     long a = column.getPageAddress(pageIndex);
                     long count = column.getPageSize(pageIndex) / Double.BYTES;
                     double x = Vect.maxDouble(a, count);
+                    releasePage(column, pageIndex);
                     if (x > max) {
                         max = x;
                     }
@@ -337,6 +361,7 @@ public class TableReader implements Closeable, SymbolTableSource {
                     long a = column.getPageAddress(pageIndex);
                     long count = column.getPageSize(pageIndex) / Double.BYTES;
                     double x = Vect.minDouble(a, count);
+                    releasePage(column, pageIndex);
                     if (x < min) {
                         min = x;
                     }
@@ -354,6 +379,26 @@ public class TableReader implements Closeable, SymbolTableSource {
         return openPartition0(partitionIndex);
     }
 
+    /**
+     * Loads zone map of partition. The last partition is still being written to and never has zone map.
+     *
+     * @param partitionIndex index of partition
+     * @param zoneMap        zone map instance to load statistics into
+     * @return true when partition has up-to-date statistics
+     */
+    public boolean readZoneMap(int partitionIndex, ZoneMap zoneMap) {
+        if (partitionIndex >= partitionCount - 1) {
+            return false;
+        }
+        try {
+            Path path = pathGenPartitioned(partitionIndex);
+            TableUtils.txnPartitionConditionally(path, txFile.getPartitionNameTxn(partitionIndex));
+            return zoneMap.of(ff, path, txFile.getPartitionSize(partitionIndex));
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     public void reconcileOpenPartitionsFrom(int partitionIndex) {
         int txPartitionCount = txFile.getPartitionCount();
         int txPartitionIndex = partitionIndex;
@@ -514,12 +559,20 @@ public class TableReader implements Closeable, SymbolTableSource {
                     long a = column.getPageAddress(pageIndex);
                     long count = column.getPageSize(pageIndex) / Double.BYTES;
                     result += Vect.sumDouble(a, count);
+                    releasePage(column, pageIndex);
                 }
             }
         }
         return result;
     }
 
+    private static void releasePage(ReadOnlyVirtualMemory column, int pageIndex) {
+        if (column instanceof CompressedColumnMemory) {
+            // values are aggregated page at a time, decompressed block is not needed past its page
+            ((CompressedColumnMemory) column).releasePage(pageIndex);
+        }
+    }
+
     private static int getColumnBits(int columnCount) {
         return Numbers.msb(Numbers.ceilPow2(columnCount) * 2);
     }
@@ -782,6 +835,17 @@ public class TableReader implements Closeable, SymbolTableSource {
         Misc.freeObjList(columns);
     }
 
+    private void releaseCompressedPages() {
+        if (hasCompressedColumns) {
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                final MappedReadOnlyMemory mem = columns.getQuick(i);
+                if (mem instanceof CompressedColumnMemory) {
+                    ((CompressedColumnMemory) mem).releasePages();
+                }
+            }
+        }
+    }
+
     private void freeSymbolMapReaders() {
         for (int i = 0, n = symbolMapReaders.size(); i < n; i++) {
             Misc.free(symbolMapReaders.getQuick(i));
@@ -874,11 +938,29 @@ public class TableReader implements Closeable, SymbolTableSource {
         }
     }
 
+    @NotNull
+    private MappedReadOnlyMemory openCompressedMemory(Path path, ObjList<MappedReadOnlyMemory> columns, int primaryIndex, MappedReadOnlyMemory mem) {
+        if (mem instanceof CompressedColumnMemory) {
+            mem.of(ff, path, 0);
+        } else {
+            Misc.free(mem);
+            if (blockCache == null) {
+                blockCache = new ColumnBlockCache(configuration.getColumnBlockCacheSize());
+                ownBlockCache = true;
+            }
+            mem = new CompressedColumnMemory(ff, path, blockCache);
+            columns.setQuick(primaryIndex, mem);
+            hasCompressedColumns = true;
+        }
+        return mem;
+    }
+
     @NotNull
     private MappedReadOnlyMemory openOrCreateMemory(Path path, ObjList<MappedReadOnlyMemory> columns, boolean lastPartition, int primaryIndex, MappedReadOnlyMemory mem) {
-        if (mem != null && mem != NullColumn.INSTANCE) {
+        if (mem != null && mem != NullColumn.INSTANCE && !(mem instanceof CompressedColumnMemory)) {
             mem.of(ff, path, ff.getMapPageSize(), ff.length(path));
         } else {
+            Misc.free(mem);
             if (lastPartition) {
                 mem = new SinglePageMappedReadOnlyPageMemory(ff, path, ff.getMapPageSize());
             } else {
@@ -1110,12 +1192,18 @@ public class TableReader implements Closeable, SymbolTableSource {
             MappedReadOnlyMemory mem1 = columns.getQuick(primaryIndex);
             MappedReadOnlyMemory mem2 = columns.getQuick(secondaryIndex);
 
-            if (ff.exists(TableUtils.dFile(path.trimTo(plen), name))) {
+            final int type = metadata.getColumnType(columnIndex);
+            boolean compressed = false;
+            if (ff.exists(TableUtils.dFile(path.trimTo(plen), name))
+                    || (compressed = ColumnCompressor.isCompressible(type) && ff.exists(TableUtils.dzFile(path.trimTo(plen), name)))) {
 
-                mem1 = openOrCreateMemory(path, columns, lastPartition, primaryIndex, mem1);
+                if (compressed) {
+                    mem1 = openCompressedMemory(path, columns, primaryIndex, mem1);
+                } else {
+                    mem1 = openOrCreateMemory(path, columns, lastPartition, primaryIndex, mem1);
+                }
 
                 final long columnTop = TableUtils.readColumnTop(ff, path.trimTo(plen), name, plen, tempMem8b);
-                final int type = metadata.getColumnType(columnIndex);
 
                 switch (type) {
                     case ColumnType.BINARY:
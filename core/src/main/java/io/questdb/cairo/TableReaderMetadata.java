@@ -272,6 +272,10 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
         return metaMem.getLong(TableUtils.META_OFFSET_O3_COMMIT_HYSTERESIS_IN_MICROS);
     }
 
+    public boolean isWalEnabled() {
+        return metaMem.getInt(TableUtils.META_OFFSET_WAL_ENABLED) != 0;
+    }
+
     private TableColumnMetadata moveMetadata(int index, TableColumnMetadata metadata) {
         return columnMetadata.getAndSetQuick(index, metadata);
     }
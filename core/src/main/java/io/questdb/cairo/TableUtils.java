@@ -49,6 +49,8 @@ public final class TableUtils {
     public static final String UPGRADE_FILE_NAME = "_upgrade.d";
     public static final String DETACHED_DIR_MARKER = ".detached";
     public static final String TAB_INDEX_FILE_NAME = "_tab_index.d";
+    public static final String WAL_DIR_NAME = "wal";
+    public static final String WAL_APPLIED_FILE_NAME = "_applied";
     public static final int INITIAL_TXN = 0;
     public static final int NULL_LEN = -1;
     public static final int ANY_TABLE_VERSION = -1;
@@ -62,6 +64,8 @@ public final class TableUtils {
     public static final long META_OFFSET_TABLE_ID = 16;
     public static final long META_OFFSET_O3_MAX_UNCOMMITTED_ROWS = 20;
     public static final long META_OFFSET_O3_COMMIT_HYSTERESIS_IN_MICROS = 24;
+    public static final long META_OFFSET_COMPRESS_AFTER_PARTITIONS = 32;
+    public static final long META_OFFSET_WAL_ENABLED = 36;
     public static final String FILE_SUFFIX_I = ".i";
     public static final String FILE_SUFFIX_D = ".d";
     public static final int LONGS_PER_TX_ATTACHED_PARTITION = 4;
@@ -72,6 +76,7 @@ public final class TableUtils {
     static final DateFormat fmtDay;
     static final DateFormat fmtMonth;
     static final DateFormat fmtYear;
+    static final DateFormat fmtHour;
     static final String DEFAULT_PARTITION_NAME = "default";
     // transaction file structure
     static final long TX_OFFSET_TXN = 0;
@@ -107,7 +112,11 @@ public final class TableUtils {
     static final long META_OFFSET_COLUMN_TYPES = 128;
     static final int META_FLAG_BIT_INDEXED = 1;
     static final int META_FLAG_BIT_SEQUENTIAL = 1 << 1;
+    static final int META_FLAG_BIT_DEDUP_KEY = 1 << 2;
+    static final int META_FLAG_BIT_COMPACT_INDEX = 1 << 3;
     static final String TODO_FILE_NAME = "_todo_";
+    // INT and LONG values are hashed into fixed key space of the bitmap index, key 0 is reserved for nulls
+    static final int NUMERIC_INDEX_KEY_BITS = 16;
     private static final int MIN_SYMBOL_CAPACITY = 2;
     private static final int MAX_SYMBOL_CAPACITY = Numbers.ceilPow2(Integer.MAX_VALUE);
     private static final int MAX_SYMBOL_CAPACITY_CACHED = Numbers.ceilPow2(1_000_000);
@@ -249,6 +258,10 @@ public final class TableUtils {
                 return Timestamps.ADD_MM;
             case PartitionBy.YEAR:
                 return Timestamps.ADD_YYYY;
+            case PartitionBy.HOUR:
+                return Timestamps.ADD_HH;
+            case PartitionBy.WEEK:
+                return Timestamps.ADD_WW;
             default:
                 throw new UnsupportedOperationException("partition by " + partitionBy + " does not have add method");
         }
@@ -506,6 +519,39 @@ public final class TableUtils {
                     return Timestamps.addYear(Timestamps.yearMicros(y, leap), 1) - 1;
                 }
                 return 0;
+            case PartitionBy.HOUR:
+                y = Timestamps.getYear(timestamp);
+                leap = Timestamps.isLeapYear(y);
+                m = Timestamps.getMonthOfYear(timestamp, y, leap);
+                d = Timestamps.getDayOfMonth(timestamp, y, m, leap);
+                TimestampFormatUtils.append000(path, y);
+                path.put('-');
+                TimestampFormatUtils.append0(path, m);
+                path.put('-');
+                TimestampFormatUtils.append0(path, d);
+                path.put('T');
+                TimestampFormatUtils.append0(path, Timestamps.getHourOfDay(timestamp));
+
+                if (calculatePartitionMax) {
+                    return Timestamps.ceilHH(timestamp);
+                }
+                return 0;
+            case PartitionBy.WEEK:
+                timestamp = Timestamps.floorWW(timestamp);
+                y = Timestamps.getYear(timestamp);
+                leap = Timestamps.isLeapYear(y);
+                m = Timestamps.getMonthOfYear(timestamp, y, leap);
+                d = Timestamps.getDayOfMonth(timestamp, y, m, leap);
+                TimestampFormatUtils.append000(path, y);
+                path.put('-');
+                TimestampFormatUtils.append0(path, m);
+                path.put('-');
+                TimestampFormatUtils.append0(path, d);
+
+                if (calculatePartitionMax) {
+                    return timestamp + Timestamps.WEEK_MICROS - 1;
+                }
+                return 0;
             default:
                 path.put(DEFAULT_PARTITION_NAME);
                 return Long.MAX_VALUE;
@@ -516,6 +562,29 @@ public final class TableUtils {
         return symbolKey == SymbolTable.VALUE_IS_NULL ? 0 : symbolKey + 1;
     }
 
+    public static int toIntIndexKey(int value) {
+        return value == Numbers.INT_NaN ? 0 : toNumericIndexKey(value);
+    }
+
+    public static int toLongIndexKey(long value) {
+        return value == Numbers.LONG_NaN ? 0 : toNumericIndexKey(value);
+    }
+
+    /**
+     * Bitmap index of INT and LONG column has a key per hash bucket. Rows of values
+     * that share bucket are returned together, index users have to compare values.
+     */
+    public static boolean isIndexable(int columnType) {
+        switch (columnType) {
+            case ColumnType.SYMBOL:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     public static void txnPartition(CharSink path, long txn) {
         path.put('.').put(txn);
     }
@@ -561,8 +630,8 @@ public final class TableUtils {
                 }
 
                 if (isColumnIndexed(metaMem, i)) {
-                    if (type != ColumnType.SYMBOL) {
-                        throw validationException(metaMem).put("Index flag is only supported for SYMBOL").put(" at [").put(i).put(']');
+                    if (!isIndexable(type)) {
+                        throw validationException(metaMem).put("Index flag is only supported for SYMBOL, INT and LONG").put(" at [").put(i).put(']');
                     }
 
                     if (getIndexBlockCapacity(metaMem, i) < 2) {
@@ -675,6 +744,10 @@ public final class TableUtils {
         return path.concat(columnName).put(FILE_SUFFIX_D).$();
     }
 
+    static LPSZ dzFile(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(ColumnCompressor.FILE_SUFFIX).$();
+    }
+
     static LPSZ topFile(Path path, CharSequence columnName) {
         return path.concat(columnName).put(".top").$();
     }
@@ -695,6 +768,14 @@ public final class TableUtils {
         return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_SEQUENTIAL) != 0;
     }
 
+    static boolean isDedupKey(ReadOnlyVirtualMemory metaMem, int columnIndex) {
+        return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_DEDUP_KEY) != 0;
+    }
+
+    static boolean isIndexCompact(ReadOnlyVirtualMemory metaMem, int columnIndex) {
+        return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_COMPACT_INDEX) != 0;
+    }
+
     static int getIndexBlockCapacity(ReadOnlyVirtualMemory metaMem, int columnIndex) {
         return metaMem.getInt(META_OFFSET_COLUMN_TYPES + columnIndex * META_COLUMN_DATA_SIZE + 9);
     }
@@ -759,6 +840,11 @@ public final class TableUtils {
         }
     }
 
+    private static int toNumericIndexKey(long value) {
+        // fibonacci hashing keeps sequential ids apart
+        return (int) ((value * 0x9E3779B97F4A7C15L) >>> (64 - NUMERIC_INDEX_KEY_BITS)) + 1;
+    }
+
     private static CairoException validationException(MappedReadOnlyMemory mem) {
         return CairoException.instance(0).put("Invalid metadata at fd=").put(mem.getFd()).put(". ");
     }
@@ -773,6 +859,10 @@ public final class TableUtils {
                 return Timestamps.floorMM(timestampA) == Timestamps.floorMM(timestampB);
             case PartitionBy.YEAR:
                 return Timestamps.floorYYYY(timestampA) == Timestamps.floorYYYY(timestampB);
+            case PartitionBy.HOUR:
+                return Timestamps.floorHH(timestampA) == Timestamps.floorHH(timestampB);
+            case PartitionBy.WEEK:
+                return Timestamps.floorWW(timestampA) == Timestamps.floorWW(timestampB);
             default:
                 throw CairoException.instance(0).put("Cannot compare timestamps for unsupported partition type: [").put(partitionBy).put(']');
         }
@@ -786,6 +876,10 @@ public final class TableUtils {
                 return fmtMonth;
             case PartitionBy.YEAR:
                 return fmtYear;
+            case PartitionBy.HOUR:
+                return fmtHour;
+            case PartitionBy.WEEK:
+                return fmtDay;
             case PartitionBy.NONE:
                 return fmtDefault;
             default:
@@ -801,6 +895,10 @@ public final class TableUtils {
                 return Timestamps.FLOOR_MM;
             case PartitionBy.YEAR:
                 return Timestamps.FLOOR_YYYY;
+            case PartitionBy.HOUR:
+                return Timestamps.FLOOR_HH;
+            case PartitionBy.WEEK:
+                return Timestamps.FLOOR_WW;
             default:
                 throw new UnsupportedOperationException("partition by " + partitionBy + " does not have floor method");
         }
@@ -814,6 +912,10 @@ public final class TableUtils {
                 return Timestamps.CEIL_MM;
             case PartitionBy.YEAR:
                 return Timestamps.CEIL_YYYY;
+            case PartitionBy.HOUR:
+                return Timestamps.CEIL_HH;
+            case PartitionBy.WEEK:
+                return Timestamps.CEIL_WW;
             default:
                 throw new UnsupportedOperationException("partition by " + partitionBy + " does not have ceil method");
         }
@@ -888,6 +990,7 @@ public final class TableUtils {
         fmtDay = compiler.compile("yyyy-MM-dd");
         fmtMonth = compiler.compile("yyyy-MM");
         fmtYear = compiler.compile("yyyy");
+        fmtHour = compiler.compile("yyyy-MM-ddTHH");
         fmtDefault = new DateFormat() {
             @Override
             public void format(long datetime, DateLocale locale, CharSequence timeZoneName, CharSink sink) {
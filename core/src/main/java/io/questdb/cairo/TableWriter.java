@@ -27,6 +27,9 @@ package io.questdb.cairo;
 import io.questdb.MessageBus;
 import io.questdb.MessageBusImpl;
 import io.questdb.cairo.SymbolMapWriter.TransientSymbolCountChangeHandler;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
 import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordMetadata;
@@ -86,6 +89,7 @@ public class TableWriter implements Closeable {
     private final RowFunction openPartitionFunction = new OpenPartitionRowFunction();
     private final RowFunction noPartitionFunction = new NoPartitionFunction();
     private final RowFunction noTimestampFunction = new NoTimestampFunction();
+    private final RowFunction walSegmentFunction = new WalSegmentFunction();
     private final RowFunction o3RowFunction = new O3PartitionFunction();
     private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
     private final LongList columnTops;
@@ -163,6 +167,24 @@ public class TableWriter implements Closeable {
     private long lastPartitionTimestamp;
     private boolean o3InError = false;
     private final boolean o3QuickSortEnabled;
+    private final boolean zoneMapEnabled;
+    private final boolean walSegment;
+    // partitions, which zone maps have to be written on commit
+    private final LongHashSet zoneMapPartitions = new LongHashSet();
+    // partitions known to be compressed, saves checking the file system on every commit
+    private final LongHashSet compressedPartitions = new LongHashSet();
+    private final ObjList<PartitionCompressionRequest> compressionRequests = new ObjList<>();
+    private long zoneMapLastPartitionTimestamp = Long.MIN_VALUE;
+    // symbol columns, which together with designated timestamp identify a row when deduplication is enabled
+    private final IntList dedupKeyColumns = new IntList();
+    // address, size and column top of key columns of the partition deduplication runs against
+    private final LongList dedupKeyColumnMem = new LongList();
+    // committed rows out-of-order rows replace, grouped by partition and sorted within the group
+    private final LongList o3ReplacedRows = new LongList();
+    // partition timestamp, low and high index of its group in o3ReplacedRows
+    private final LongList o3ReplacedPartitions = new LongList();
+    private boolean dedup;
+    private FastMap dedupMap;
 
     public TableWriter(CairoConfiguration configuration, CharSequence tableName) {
         this(configuration, tableName, new MessageBusImpl(configuration));
@@ -189,9 +211,27 @@ public class TableWriter implements Closeable {
             boolean lock,
             LifecycleManager lifecycleManager,
             CharSequence root
+    ) {
+        this(configuration, tableName, messageBus, lock, lifecycleManager, root, false);
+    }
+
+    /**
+     * Opens writer over table files under given root. When walSegment is true the table is
+     * a write-ahead log segment: it is not partitioned and rows are accepted in arrival order
+     * regardless of their designated timestamp. Segments are merged into the table by {@link WalApplyJob}.
+     */
+    public TableWriter(
+            CairoConfiguration configuration,
+            CharSequence tableName,
+            @NotNull MessageBus messageBus,
+            boolean lock,
+            LifecycleManager lifecycleManager,
+            CharSequence root,
+            boolean walSegment
     ) {
         LOG.info().$("open '").utf8(tableName).$('\'').$();
         this.configuration = configuration;
+        this.walSegment = walSegment;
         this.messageBus = messageBus;
         this.defaultCommitMode = configuration.getCommitMode();
         this.lifecycleManager = lifecycleManager;
@@ -201,6 +241,7 @@ public class TableWriter implements Closeable {
         this.fileOperationRetryCount = configuration.getFileOperationRetryCount();
         this.tableName = Chars.toString(tableName);
         this.o3QuickSortEnabled = configuration.isO3QuickSortEnabled();
+        this.zoneMapEnabled = configuration.isZoneMapEnabled();
         this.o3PartitionUpdateQueue = new RingQueue<O3PartitionUpdateTask>(O3PartitionUpdateTask.CONSTRUCTOR, configuration.getO3PartitionUpdateQueueCapacity());
         this.o3PartitionUpdatePubSeq = new MPSequence(this.o3PartitionUpdateQueue.getCapacity());
         this.o3PartitionUpdateSubSeq = new SCSequence();
@@ -265,6 +306,7 @@ public class TableWriter implements Closeable {
             this.o3NullSetters = new ObjList<>(columnCount);
             this.row.activeNullSetters = nullSetters;
             this.columnTops = new LongList(columnCount);
+            configureDedup();
             if (partitionBy != PartitionBy.NONE) {
                 timestampFloorMethod = getPartitionFloor(partitionBy);
                 timestampCeilMethod = getPartitionCeil(partitionBy);
@@ -296,6 +338,10 @@ public class TableWriter implements Closeable {
         return Unsafe.getUnsafe().getLong(timestampIndex + indexRow * 16);
     }
 
+    private static long getTimestampIndexRow(long timestampIndex, long indexRow) {
+        return Unsafe.getUnsafe().getLong(timestampIndex + indexRow * 16 + Long.BYTES);
+    }
+
     public static DateFormat selectPartitionDirFmt(int partitionBy) {
         switch (partitionBy) {
             case PartitionBy.DAY:
@@ -304,6 +350,10 @@ public class TableWriter implements Closeable {
                 return fmtMonth;
             case PartitionBy.YEAR:
                 return fmtYear;
+            case PartitionBy.HOUR:
+                return fmtHour;
+            case PartitionBy.WEEK:
+                return fmtDay;
             default:
                 return null;
         }
@@ -437,6 +487,17 @@ public class TableWriter implements Closeable {
     }
 
     public void addIndex(CharSequence columnName, int indexValueBlockSize) {
+        addIndex(columnName, indexValueBlockSize, false);
+    }
+
+    /**
+     * Indexes existing partitions of the column and sets index flag in metadata.
+     *
+     * @param columnName          column name
+     * @param indexValueBlockSize number of values in index value block, power of 2
+     * @param compact             when true index value blocks store 32-bit deltas instead of 64-bit row ids
+     */
+    public void addIndex(CharSequence columnName, int indexValueBlockSize, boolean compact) {
         assert indexValueBlockSize == Numbers.ceilPow2(indexValueBlockSize) : "power of 2 expected";
 
         checkDistressed();
@@ -456,13 +517,13 @@ public class TableWriter implements Closeable {
         final int existingType = getColumnType(metaMem, columnIndex);
         LOG.info().$("adding index to '").utf8(columnName).$('[').$(ColumnType.nameOf(existingType)).$(", path=").$(path).$(']').$();
 
-        if (existingType != ColumnType.SYMBOL) {
+        if (!TableUtils.isIndexable(existingType)) {
             LOG.error().$("cannot create index for [column='").utf8(columnName).$(", type=").$(ColumnType.nameOf(existingType)).$(", path=").$(path).$(']').$();
             throw CairoException.instance(0).put("cannot create index for [column='").put(columnName).put(", type=").put(ColumnType.nameOf(existingType)).put(", path=").put(path).put(']');
         }
 
         // create indexer
-        final SymbolColumnIndexer indexer = new SymbolColumnIndexer();
+        final SymbolColumnIndexer indexer = newColumnIndexer(existingType);
 
         try {
             try {
@@ -474,7 +535,7 @@ public class TableWriter implements Closeable {
                 //
                 if (partitionBy != PartitionBy.NONE) {
                     // run indexer for the whole table
-                    final long timestamp = indexHistoricPartitions(indexer, columnName, indexValueBlockSize);
+                    final long timestamp = indexHistoricPartitions(indexer, columnName, existingType, indexValueBlockSize, compact);
                     if (timestamp == Numbers.LONG_NaN) {
                         return;
                     }
@@ -485,7 +546,7 @@ public class TableWriter implements Closeable {
                 }
 
                 // create index in last partition
-                indexLastPartition(indexer, columnName, columnIndex, indexValueBlockSize);
+                indexLastPartition(indexer, columnName, columnIndex, indexValueBlockSize, compact);
 
             } finally {
                 path.trimTo(rootLen);
@@ -499,7 +560,7 @@ public class TableWriter implements Closeable {
         // set index flag in metadata
         // create new _meta.swp
 
-        metaSwapIndex = copyMetadataAndSetIndexed(columnIndex, indexValueBlockSize);
+        metaSwapIndex = copyMetadataAndSetIndexed(columnIndex, indexValueBlockSize, compact);
 
         // close _meta so we can rename it
         metaMem.close();
@@ -736,6 +797,10 @@ public class TableWriter implements Closeable {
         return txFile != null && (txFile.inTransaction() || hasO3());
     }
 
+    public boolean isColumnIndexCompact(int columnIndex) {
+        return TableUtils.isIndexCompact(metaMem, columnIndex);
+    }
+
     public boolean isOpen() {
         return tempMem16b != 0;
     }
@@ -769,8 +834,12 @@ public class TableWriter implements Closeable {
             final CairoException ee = CairoException.instance(0);
             switch (partitionBy) {
                 case PartitionBy.DAY:
+                case PartitionBy.WEEK:
                     ee.put("'YYYY-MM-DD'");
                     break;
+                case PartitionBy.HOUR:
+                    ee.put("'YYYY-MM-DDTHH'");
+                    break;
                 case PartitionBy.MONTH:
                     ee.put("'YYYY-MM'");
                     break;
@@ -844,6 +913,7 @@ public class TableWriter implements Closeable {
 
             // remove column files has to be done after _todo is removed
             removeColumnFiles(name, type, REMOVE_OR_LOG);
+            removeZoneMaps();
         } catch (CairoException err) {
             throwDistressException(err);
         }
@@ -859,6 +929,7 @@ public class TableWriter implements Closeable {
             o3TimestampMem = o3Columns.getQuick(getPrimaryColumnIndex(timestampIndex2));
         }
 
+        configureDedup();
         LOG.info().$("REMOVED column '").utf8(name).$("' from ").$(path).$();
     }
 
@@ -907,6 +978,8 @@ public class TableWriter implements Closeable {
             txFile.setMinTimestamp(nextMinTimestamp);
             txFile.finishPartitionSizeUpdate(nextMinTimestamp, txFile.getMaxTimestamp());
             txFile.commit(defaultCommitMode, denseSymbolMapWriters);
+            cancelPartitionCompression(timestamp);
+            compressedPartitions.remove(timestamp);
 
             if (ff.exists(path.$())) {
                 int errno;
@@ -981,6 +1054,7 @@ public class TableWriter implements Closeable {
 
             // rename column files has to be done after _todo is removed
             renameColumnFiles(currentName, newName, type);
+            removeZoneMaps();
         } catch (CairoException err) {
             throwDistressException(err);
         }
@@ -1043,6 +1117,107 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Sets number of most recent partitions that are kept uncompressed. Older partitions are
+     * rewritten with compressed column files, see {@link ColumnCompressor}. Zero disables compression
+     * of new partitions, partitions that are compressed already stay compressed.
+     *
+     * @param partitionCount number of most recent partitions to keep uncompressed
+     */
+    public void setMetaCompressAfterPartitions(int partitionCount) {
+        try {
+            commit();
+            long metaSize = copyMetadataAndUpdateVersion();
+            openMetaSwapFileByIndex(ff, ddlMem, path, rootLen, this.metaSwapIndex);
+            try {
+                ddlMem.jumpTo(META_OFFSET_COMPRESS_AFTER_PARTITIONS);
+                ddlMem.putInt(partitionCount);
+                ddlMem.jumpTo(metaSize);
+            } finally {
+                ddlMem.close();
+            }
+
+            finishMetaSwapUpdate();
+            metadata.setCompressAfterPartitions(partitionCount);
+        } finally {
+            ddlMem.close();
+        }
+        processPartitionCompression(configuration.getCommitMode());
+    }
+
+    public void setMetaWalEnabled(boolean walEnabled) {
+        try {
+            commit();
+            long metaSize = copyMetadataAndUpdateVersion();
+            openMetaSwapFileByIndex(ff, ddlMem, path, rootLen, this.metaSwapIndex);
+            try {
+                ddlMem.jumpTo(META_OFFSET_WAL_ENABLED);
+                ddlMem.putInt(walEnabled ? 1 : 0);
+                ddlMem.jumpTo(metaSize);
+            } finally {
+                ddlMem.close();
+            }
+
+            finishMetaSwapUpdate();
+            metadata.setWalEnabled(walEnabled);
+        } finally {
+            ddlMem.close();
+        }
+    }
+
+    /**
+     * Sets columns that identify a row together with designated timestamp. Rows that repeat timestamp and key
+     * values are deduplicated on commit: of the uncommitted rows the most recently added one is kept and it
+     * replaces committed row with the same key, so that the last write wins and replaying data is idempotent.
+     * Empty list disables deduplication.
+     *
+     * @param keyColumns indexes of SYMBOL columns in the key, designated timestamp is always part of the key
+     */
+    public void setMetaDedupKeys(IntList keyColumns) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        final boolean enable = keyColumns.size() > 0;
+        if (enable && (timestampIndex < 0 || partitionBy == PartitionBy.NONE)) {
+            throw CairoException.instance(0).put("deduplication requires partitioned table with designated timestamp");
+        }
+        for (int i = 0, n = keyColumns.size(); i < n; i++) {
+            final int columnIndex = keyColumns.getQuick(i);
+            if (columnIndex != timestampIndex && metadata.getColumnType(columnIndex) != ColumnType.SYMBOL) {
+                throw CairoException.instance(0).put("deduplication key must be SYMBOL column [column=")
+                        .put(metadata.getColumnName(columnIndex))
+                        .put(']');
+            }
+        }
+
+        try {
+            commit();
+            long metaSize = copyMetadataAndUpdateVersion();
+            openMetaSwapFileByIndex(ff, ddlMem, path, rootLen, this.metaSwapIndex);
+            try {
+                for (int i = 0; i < columnCount; i++) {
+                    long flags = getColumnFlags(metaMem, i) & ~META_FLAG_BIT_DEDUP_KEY;
+                    if (enable && i == timestampIndex) {
+                        flags |= META_FLAG_BIT_DEDUP_KEY;
+                    }
+                    ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES + i * META_COLUMN_DATA_SIZE + 1);
+                    ddlMem.putLong(flags);
+                }
+                for (int i = 0, n = keyColumns.size(); i < n; i++) {
+                    final int columnIndex = keyColumns.getQuick(i);
+                    ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES + columnIndex * META_COLUMN_DATA_SIZE + 1);
+                    ddlMem.putLong(getColumnFlags(metaMem, columnIndex) | META_FLAG_BIT_DEDUP_KEY);
+                }
+                ddlMem.jumpTo(metaSize);
+            } finally {
+                ddlMem.close();
+            }
+
+            finishMetaSwapUpdate();
+        } finally {
+            ddlMem.close();
+        }
+        configureDedup();
+    }
+
     public void setMetaO3MaxUncommittedRows(int maxUncommittedRows) {
         try {
             commit();
@@ -1156,6 +1331,8 @@ public class TableWriter implements Closeable {
 
         txFile.resetTimestamp();
         txFile.truncate();
+        cancelPartitionCompression(Long.MIN_VALUE);
+        compressedPartitions.clear();
 
         try {
             clearTodoLog();
@@ -1535,7 +1712,9 @@ public class TableWriter implements Closeable {
         ddlMem.putInt(ColumnType.VERSION);
         ddlMem.putInt(metaMem.getInt(META_OFFSET_TABLE_ID));
         ddlMem.putInt(metaMem.getInt(META_OFFSET_O3_MAX_UNCOMMITTED_ROWS));
-        ddlMem.putInt(metaMem.getInt(META_OFFSET_O3_COMMIT_HYSTERESIS_IN_MICROS));
+        ddlMem.putLong(metaMem.getLong(META_OFFSET_O3_COMMIT_HYSTERESIS_IN_MICROS));
+        ddlMem.putInt(metaMem.getInt(META_OFFSET_COMPRESS_AFTER_PARTITIONS));
+        ddlMem.putInt(metaMem.getInt(META_OFFSET_WAL_ENABLED));
     }
 
     private void bumpMasterRef() {
@@ -1724,6 +1903,11 @@ public class TableWriter implements Closeable {
             updateIndexes();
             txFile.commit(commitMode, this.denseSymbolMapWriters);
             o3ProcessPartitionRemoveCandidates();
+            updateZoneMaps();
+            processPartitionCompression(commitMode);
+        } else if (compressionRequests.size() > 0) {
+            // attach partitions that were compressed while table was idle
+            processPartitionCompression(commitMode);
         }
     }
 
@@ -1748,6 +1932,9 @@ public class TableWriter implements Closeable {
             if (partitionBy == PartitionBy.NONE) {
                 if (metadata.getTimestampIndex() < 0) {
                     rowFunction = noTimestampFunction;
+                } else if (walSegment) {
+                    rowFunction = walSegmentFunction;
+                    timestampSetter = appendTimestampSetter;
                 } else {
                     rowFunction = noPartitionFunction;
                     timestampSetter = appendTimestampSetter;
@@ -1761,6 +1948,8 @@ public class TableWriter implements Closeable {
             timestampSetter = appendTimestampSetter;
         }
         row.activeColumns = columns;
+        zoneMapPartitions.clear();
+        zoneMapLastPartitionTimestamp = getLastPartitionTimestamp();
     }
 
     private void configureColumn(int type, boolean indexFlag) {
@@ -1792,7 +1981,7 @@ public class TableWriter implements Closeable {
         configureNullSetters(nullSetters, type, primary, secondary);
         configureNullSetters(o3NullSetters, type, oooPrimary, oooSecondary);
         if (indexFlag) {
-            indexers.extendAndSet((columns.size() - 1) / 2, new SymbolColumnIndexer());
+            indexers.extendAndSet((columns.size() - 1) / 2, newColumnIndexer(type));
             populateDenseIndexerList();
         }
         refs.add(0);
@@ -1816,7 +2005,7 @@ public class TableWriter implements Closeable {
             }
 
             if (metadata.isColumnIndexed(i)) {
-                indexers.extendAndSet(i, new SymbolColumnIndexer());
+                indexers.extendAndSet(i, newColumnIndexer(type));
             }
         }
         final int timestampIndex = metadata.getTimestampIndex();
@@ -1827,6 +2016,20 @@ public class TableWriter implements Closeable {
         populateDenseIndexerList();
     }
 
+    private void configureDedup() {
+        dedupKeyColumns.clear();
+        dedupMap = Misc.free(dedupMap);
+        final int timestampIndex = metadata.getTimestampIndex();
+        dedup = timestampIndex > -1 && isDedupKey(metaMem, timestampIndex);
+        if (dedup) {
+            for (int i = 0; i < columnCount; i++) {
+                if (i != timestampIndex && isDedupKey(metaMem, i)) {
+                    dedupKeyColumns.add(i);
+                }
+            }
+        }
+    }
+
     private LongConsumer configureTimestampSetter() {
         int index = metadata.getTimestampIndex();
         if (index == -1) {
@@ -1893,7 +2096,7 @@ public class TableWriter implements Closeable {
         }
     }
 
-    private int copyMetadataAndSetIndexed(int columnIndex, int indexValueBlockSize) {
+    private int copyMetadataAndSetIndexed(int columnIndex, int indexValueBlockSize, boolean compact) {
         try {
             int index = openMetaSwapFile(ff, ddlMem, path, rootLen, configuration.getMaxSwapFileCount());
             int columnCount = metaMem.getInt(META_OFFSET_COUNT);
@@ -1911,6 +2114,12 @@ public class TableWriter implements Closeable {
                     if (isSequential(metaMem, i)) {
                         flags |= META_FLAG_BIT_SEQUENTIAL;
                     }
+                    if (isDedupKey(metaMem, i)) {
+                        flags |= META_FLAG_BIT_DEDUP_KEY;
+                    }
+                    if (compact) {
+                        flags |= META_FLAG_BIT_COMPACT_INDEX;
+                    }
                     ddlMem.putLong(flags);
                     ddlMem.putInt(indexValueBlockSize);
                     ddlMem.skip(META_COLUMN_DATA_RESERVED);
@@ -1938,8 +2147,6 @@ public class TableWriter implements Closeable {
             ddlMem.putInt(metaMem.getInt(META_OFFSET_PARTITION_BY));
             ddlMem.putInt(metaMem.getInt(META_OFFSET_TIMESTAMP_INDEX));
             copyVersionAndHysteresis();
-            ddlMem.putInt(metaMem.getInt(META_OFFSET_O3_MAX_UNCOMMITTED_ROWS));
-            ddlMem.putLong(metaMem.getInt(META_OFFSET_O3_COMMIT_HYSTERESIS_IN_MICROS));
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
             for (int i = 0; i < columnCount; i++) {
                 writeColumnEntry(i);
@@ -1965,8 +2172,9 @@ public class TableWriter implements Closeable {
      * @param columnName              column name
      * @param indexValueBlockCapacity approximate number of values per index key
      * @param plen                    path length. This is used to trim shared path object to.
+     * @param compact                 true to create index with compact value blocks
      */
-    private void createIndexFiles(CharSequence columnName, int indexValueBlockCapacity, int plen, boolean force) {
+    private void createIndexFiles(CharSequence columnName, int indexValueBlockCapacity, int plen, boolean force, boolean compact) {
         try {
             BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName);
 
@@ -1977,7 +2185,7 @@ public class TableWriter implements Closeable {
             // reuse memory column object to create index and close it at the end
             try {
                 ddlMem.of(ff, path, ff.getPageSize());
-                BitmapIndexWriter.initKeyMemory(ddlMem, indexValueBlockCapacity);
+                BitmapIndexWriter.initKeyMemory(ddlMem, indexValueBlockCapacity, compact);
             } catch (CairoException e) {
                 // looks like we could not create key file properly
                 // lets not leave half baked file sitting around
@@ -2015,6 +2223,7 @@ public class TableWriter implements Closeable {
 
     private void doClose(boolean truncate) {
         consumeO3PartitionRemoveTasks();
+        cancelPartitionCompression(Long.MIN_VALUE);
         boolean tx = inTransaction();
         freeColumns(truncate & !distressed);
         freeSymbolMapWriters();
@@ -2025,6 +2234,7 @@ public class TableWriter implements Closeable {
         Misc.free(ddlMem);
         Misc.free(other);
         Misc.free(todoMem);
+        dedupMap = Misc.free(dedupMap);
         try {
             releaseLock(!truncate | tx | performRecovery | distressed);
         } finally {
@@ -2188,12 +2398,15 @@ public class TableWriter implements Closeable {
         return o3MasterRef > -1 && getO3RowCount() > 0;
     }
 
-    private long indexHistoricPartitions(SymbolColumnIndexer indexer, CharSequence columnName, int indexValueBlockSize) {
+    private long indexHistoricPartitions(SymbolColumnIndexer indexer, CharSequence columnName, int columnType, int indexValueBlockSize, boolean compact) {
         final long ts = this.txFile.getMaxTimestamp();
         if (ts > Numbers.LONG_NaN) {
             final long maxTimestamp = timestampFloorMethod.floor(ts);
             long timestamp = txFile.getMinTimestamp();
 
+            // compressed partitions are indexed a block at a time, one decompressed block is enough
+            ColumnBlockCache blockCache = null;
+
             //noinspection TryFinallyCanBeTryWithResources
             try (final MappedReadOnlyMemory roMem = new SinglePageMappedReadOnlyPageMemory()) {
 
@@ -2207,27 +2420,38 @@ public class TableWriter implements Closeable {
 
                         final int plen = path.length();
 
-                        TableUtils.dFile(path.trimTo(plen), columnName);
-
-                        if (ff.exists(path)) {
+                        boolean compressed = false;
+                        if (ff.exists(TableUtils.dFile(path.trimTo(plen), columnName))
+                                || (compressed = ColumnCompressor.isCompressible(columnType) && ff.exists(dzFile(path.trimTo(plen), columnName)))) {
 
                             path.trimTo(plen);
 
-                            LOG.info().$("indexing [path=").$(path).$(']').$();
+                            LOG.info().$("indexing [path=").$(path).$(", compressed=").$(compressed).$(']').$();
 
-                            createIndexFiles(columnName, indexValueBlockSize, plen, true);
+                            createIndexFiles(columnName, indexValueBlockSize, plen, true, compact);
 
                             final long partitionSize = txFile.getPartitionSizeByPartitionTimestamp(timestamp);
                             final long columnTop = TableUtils.readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem16b);
 
                             if (partitionSize > columnTop) {
-                                TableUtils.dFile(path.trimTo(plen), columnName);
+                                // indexer adds column top to the number of values it reads from the file
+                                if (compressed) {
+                                    if (blockCache == null) {
+                                        blockCache = new ColumnBlockCache((long) Long.BYTES << ColumnCompressor.BLOCK_VALUE_COUNT_SHIFT);
+                                    }
+                                    try (CompressedColumnMemory dzMem = new CompressedColumnMemory(ff, dzFile(path.trimTo(plen), columnName), blockCache)) {
+                                        indexer.configureWriter(configuration, path.trimTo(plen), columnName, columnTop);
+                                        indexer.index(dzMem, columnTop, partitionSize - columnTop);
+                                    }
+                                } else {
+                                    TableUtils.dFile(path.trimTo(plen), columnName);
 
-                                roMem.of(ff, path, ff.getPageSize(), 0);
-                                roMem.grow((partitionSize - columnTop) << ColumnType.pow2SizeOf(ColumnType.INT));
+                                    roMem.of(ff, path, ff.getPageSize(), 0);
+                                    roMem.grow((partitionSize - columnTop) << ColumnType.pow2SizeOf(columnType));
 
-                                indexer.configureWriter(configuration, path.trimTo(plen), columnName, columnTop);
-                                indexer.index(roMem, columnTop, partitionSize);
+                                    indexer.configureWriter(configuration, path.trimTo(plen), columnName, columnTop);
+                                    indexer.index(roMem, columnTop, partitionSize - columnTop);
+                                }
                             }
                         }
                     }
@@ -2235,16 +2459,17 @@ public class TableWriter implements Closeable {
                 }
             } finally {
                 indexer.close();
+                Misc.free(blockCache);
             }
             return timestamp;
         }
         return ts;
     }
 
-    private void indexLastPartition(SymbolColumnIndexer indexer, CharSequence columnName, int columnIndex, int indexValueBlockSize) {
+    private void indexLastPartition(SymbolColumnIndexer indexer, CharSequence columnName, int columnIndex, int indexValueBlockSize, boolean compact) {
         final int plen = path.length();
 
-        createIndexFiles(columnName, indexValueBlockSize, plen, true);
+        createIndexFiles(columnName, indexValueBlockSize, plen, true, compact);
 
         final long columnTop = TableUtils.readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem16b);
 
@@ -2253,6 +2478,17 @@ public class TableWriter implements Closeable {
         indexer.refreshSourceAndIndex(0, txFile.getTransientRowCount());
     }
 
+    private static SymbolColumnIndexer newColumnIndexer(int columnType) {
+        switch (columnType) {
+            case ColumnType.INT:
+                return new IntColumnIndexer();
+            case ColumnType.LONG:
+                return new LongColumnIndexer();
+            default:
+                return new SymbolColumnIndexer();
+        }
+    }
+
     boolean isSymbolMapWriterCached(int columnIndex) {
         return symbolMapWriters.getQuick(columnIndex).isCached();
     }
@@ -2403,6 +2639,8 @@ public class TableWriter implements Closeable {
     private boolean o3Commit(long hysteresis) {
         o3RowCount = getO3RowCount();
         o3PartitionRemoveCandidates.clear();
+        o3ReplacedRows.clear();
+        o3ReplacedPartitions.clear();
         o3ErrorCount.set(0);
         o3ColumnCounters.clear();
         o3BasketPool.clear();
@@ -2413,6 +2651,8 @@ public class TableWriter implements Closeable {
         final int timestampIndex = metadata.getTimestampIndex();
         this.lastPartitionTimestamp = timestampFloorMethod.floor(partitionTimestampHi);
         try {
+            // uncommitted rows are moved after the rows added to out-of-order memory
+            final long movedRowLo = o3RowCount;
             o3RowCount += o3MoveUncommitted(timestampIndex);
 
             // we may need to re-use file descriptors when this partition is the "current" one
@@ -2431,6 +2671,10 @@ public class TableWriter implements Closeable {
                 Vect.quickSortLongIndexAscInPlace(sortedTimestampsAddr, o3RowCount);
             }
 
+            if (dedup) {
+                o3RowCount = o3Dedup(sortedTimestampsAddr, o3RowCount, movedRowLo);
+            }
+
             // we have three frames:
             // partition logical "lo" and "hi" - absolute bounds (partitionLo, partitionHi)
             // partition actual data "lo" and "hi" (dataLo, dataHi)
@@ -2478,6 +2722,11 @@ public class TableWriter implements Closeable {
                 return true;
             }
 
+            if (dedup) {
+                // rows kept uncommitted are checked against committed data when they are committed
+                o3DedupCommitted(sortedTimestampsAddr, srcOooMax);
+            }
+
             final long o3TimestampMax = getTimestampIndexValue(sortedTimestampsAddr, srcOooMax - 1);
             // move uncommitted is liable to change max timestamp
             // however we need to identify last partition before max timestamp skips to NULL for example
@@ -2529,12 +2778,18 @@ public class TableWriter implements Closeable {
                                 srcDataSize = getPartitionSizeByIndex(partitionIndex);
                             }
                             srcNameTxn = getPartitionNameTxnByIndex(partitionIndex);
+                            if (!last) {
+                                o3MaterializeCompressedColumns(partitionTimestamp, srcNameTxn);
+                            }
                         } else {
                             srcDataSize = -1;
                             srcNameTxn = -1;
                         }
 
-                        final boolean append = last && (srcDataSize < 0 || o3Timestamp >= maxTimestamp);
+                        // rows that replace committed rows are merged even when they do not precede max timestamp
+                        final boolean append = last
+                                && (srcDataSize < 0 || o3Timestamp >= maxTimestamp)
+                                && getO3ReplacedRowCount(partitionTimestamp) == 0;
                         LOG.debug().
                                 $("o3 partition task [table=").$(tableName)
                                 .$(", srcOooLo=").$(srcOooLo)
@@ -3060,7 +3315,8 @@ public class TableWriter implements Closeable {
             boolean partitionMutates
     ) {
         this.txFile.minTimestamp = Math.min(timestampMin, this.txFile.minTimestamp);
-        final long partitionSize = srcDataMax + srcOooPartitionHi - srcOooPartitionLo + 1;
+        // merge drops committed rows that deduplicated rows replace
+        final long partitionSize = srcDataMax + srcOooPartitionHi - srcOooPartitionLo + 1 - getO3ReplacedRowCount(partitionTimestamp);
         final long rowDelta = srcOooPartitionHi - srcOooMax;
         if (partitionTimestamp < lastPartitionTimestamp) {
             this.txFile.fixedRowCount += partitionSize - srcDataMax;
@@ -3075,6 +3331,9 @@ public class TableWriter implements Closeable {
         }
 
         final int partitionIndex = txFile.findAttachedPartitionIndexByLoTimestamp(partitionTimestamp);
+        if (zoneMapEnabled) {
+            zoneMapPartitions.add(partitionTimestamp);
+        }
         if (partitionTimestamp == lastPartitionTimestamp) {
             if (partitionMutates) {
                 closeActivePartition();
@@ -3126,6 +3385,331 @@ public class TableWriter implements Closeable {
         );
     }
 
+    /**
+     * Removes rows that repeat designated timestamp and key values from sorted out-of-order index. Of the
+     * uncommitted rows with the same key the most recently added one is kept. Columns are reshuffled by the
+     * index afterwards, which drops removed rows from out-of-order memory.
+     *
+     * @param movedRowLo first row moved from column files, these rows were added before the rows below them
+     * @return number of rows left in the index
+     */
+    private long o3Dedup(long sortedTimestampsAddr, long rowCount, long movedRowLo) {
+        final long count = o3DedupUncommitted(sortedTimestampsAddr, rowCount, movedRowLo);
+        if (count < rowCount) {
+            LOG.info().$("o3 dedup [table=").utf8(tableName)
+                    .$(", rows=").$(rowCount)
+                    .$(", removed=").$(rowCount - count)
+                    .I$();
+        }
+        return count;
+    }
+
+    /**
+     * Finds committed rows that out-of-order rows about to be committed repeat. Found rows are replaced:
+     * partitions they are in are merged in full and the merge drops them, see {@link #o3DropReplacedRows(long, long, long)}.
+     *
+     * @param rowCount number of rows in the index that are committed, rows above are kept uncommitted
+     */
+    private void o3DedupCommitted(long sortedTimestampsAddr, long rowCount) {
+        long lo = 0;
+        while (lo < rowCount) {
+            final long timestamp = getTimestampIndexValue(sortedTimestampsAddr, lo);
+            final long hi = Vect.boundedBinarySearchIndexT(
+                    sortedTimestampsAddr,
+                    timestampCeilMethod.ceil(timestamp),
+                    lo,
+                    rowCount - 1,
+                    BinarySearch.SCAN_DOWN
+            ) + 1;
+            final long partitionTimestamp = timestampFloorMethod.floor(timestamp);
+            final int partitionIndex = txFile.findAttachedPartitionIndexByLoTimestamp(partitionTimestamp);
+            if (partitionIndex > -1) {
+                o3DedupPartition(sortedTimestampsAddr, lo, hi, partitionTimestamp, partitionIndex);
+            }
+            lo = hi;
+        }
+    }
+
+    private MapKey o3DedupKey(long row) {
+        final MapKey key = dedupMap.withKey();
+        for (int i = 0, n = dedupKeyColumns.size(); i < n; i++) {
+            key.putInt(o3Columns.getQuick(getPrimaryColumnIndex(dedupKeyColumns.getQuick(i))).getInt(row << 2));
+        }
+        return key;
+    }
+
+    private long o3DedupKeep(long sortedTimestampsAddr, long index, long dst) {
+        if (index != dst) {
+            final long src = sortedTimestampsAddr + index * 16;
+            final long tgt = sortedTimestampsAddr + dst * 16;
+            Unsafe.getUnsafe().putLong(tgt, Unsafe.getUnsafe().getLong(src));
+            Unsafe.getUnsafe().putLong(tgt + 8, Unsafe.getUnsafe().getLong(src + 8));
+        }
+        return dst + 1;
+    }
+
+    private void o3DedupPartition(
+            long sortedTimestampsAddr,
+            long lo,
+            long hi,
+            long partitionTimestamp,
+            int partitionIndex
+    ) {
+        final boolean last = partitionTimestamp == lastPartitionTimestamp;
+        final long dataSize = last ? txFile.getTransientRowCount() : getPartitionSizeByIndex(partitionIndex);
+        if (dataSize == 0) {
+            return;
+        }
+        final int keyCount = dedupKeyColumns.size();
+        final int replacedLo = o3ReplacedRows.size();
+        long timestampAddr = 0;
+        try {
+            timestampAddr = o3DedupMapPartition(partitionTimestamp, partitionIndex, last, dataSize);
+            for (long i = lo; i < hi; i++) {
+                final long timestamp = getTimestampIndexValue(sortedTimestampsAddr, i);
+                final long row = getTimestampIndexRow(sortedTimestampsAddr, i);
+                long dataRow = Vect.binarySearch64Bit(timestampAddr, timestamp, 0, dataSize - 1, BinarySearch.SCAN_UP);
+                if (dataRow < 0) {
+                    continue;
+                }
+                for (; dataRow < dataSize && Unsafe.getUnsafe().getLong(timestampAddr + dataRow * Long.BYTES) == timestamp; dataRow++) {
+                    boolean duplicate = true;
+                    for (int k = 0; k < keyCount; k++) {
+                        final long columnTop = dedupKeyColumnMem.getQuick(k * 3 + 2);
+                        final int dataKey = dataRow < columnTop
+                                ? SymbolTable.VALUE_IS_NULL
+                                : Unsafe.getUnsafe().getInt(dedupKeyColumnMem.getQuick(k * 3) + (dataRow - columnTop) * Integer.BYTES);
+                        if (dataKey != o3Columns.getQuick(getPrimaryColumnIndex(dedupKeyColumns.getQuick(k))).getInt(row << 2)) {
+                            duplicate = false;
+                            break;
+                        }
+                    }
+                    if (duplicate) {
+                        o3ReplacedRows.add(dataRow);
+                    }
+                }
+            }
+        } finally {
+            if (timestampAddr != 0) {
+                ff.munmap(timestampAddr, dataSize * Long.BYTES);
+            }
+            for (int i = 0, n = dedupKeyColumnMem.size(); i < n; i += 3) {
+                final long addr = dedupKeyColumnMem.getQuick(i);
+                if (addr != 0) {
+                    ff.munmap(addr, dedupKeyColumnMem.getQuick(i + 1));
+                }
+            }
+            dedupKeyColumnMem.clear();
+        }
+
+        final int replacedHi = o3ReplacedRows.size();
+        if (replacedHi > replacedLo) {
+            // the merge drops replaced rows walking data rows in ascending order
+            LongSort.sort(o3ReplacedRows, replacedLo, replacedHi - 1);
+            o3ReplacedPartitions.add(partitionTimestamp);
+            o3ReplacedPartitions.add(replacedLo);
+            o3ReplacedPartitions.add(replacedHi);
+            LOG.info().$("o3 dedup replaces committed rows [table=").utf8(tableName)
+                    .$(", partition=").$ts(partitionTimestamp)
+                    .$(", rows=").$(replacedHi - replacedLo)
+                    .I$();
+        }
+    }
+
+    /**
+     * Removes data rows, which deduplicated out-of-order rows replace, from merge index of the partition.
+     * Partition with replaced rows is merged in full, so all of its data rows are in the index.
+     *
+     * @return number of entries left in the index
+     */
+    long o3DropReplacedRows(long partitionTimestamp, long mergeIndexAddr, long mergeIndexSize) {
+        final int index = o3ReplacedPartitionIndex(partitionTimestamp);
+        if (index < 0) {
+            return mergeIndexSize;
+        }
+        int replaced = (int) o3ReplacedPartitions.getQuick(index + 1);
+        final int replacedHi = (int) o3ReplacedPartitions.getQuick(index + 2);
+        long dst = 0;
+        for (long i = 0; i < mergeIndexSize; i++) {
+            final long row = getTimestampIndexRow(mergeIndexAddr, i);
+            // data rows are marked by the high bit
+            if (row < 0 && replaced < replacedHi && (row & ~(1L << 63)) == o3ReplacedRows.getQuick(replaced)) {
+                replaced++;
+                continue;
+            }
+            dst = o3DedupKeep(mergeIndexAddr, i, dst);
+        }
+        assert replaced == replacedHi;
+        return dst;
+    }
+
+    /**
+     * @return number of committed rows of the partition that deduplicated out-of-order rows replace
+     */
+    long getO3ReplacedRowCount(long partitionTimestamp) {
+        final int index = o3ReplacedPartitionIndex(partitionTimestamp);
+        return index < 0 ? 0 : o3ReplacedPartitions.getQuick(index + 2) - o3ReplacedPartitions.getQuick(index + 1);
+    }
+
+    private int o3ReplacedPartitionIndex(long partitionTimestamp) {
+        for (int i = 0, n = o3ReplacedPartitions.size(); i < n; i += 3) {
+            if (o3ReplacedPartitions.getQuick(i) == partitionTimestamp) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Maps timestamp and key columns of the partition out-of-order rows go to. Last partition is mapped
+     * via file descriptors of the writer, other partitions are opened read-only.
+     *
+     * @return address of timestamp column, key columns are added to dedupKeyColumnMem
+     */
+    private long o3DedupMapPartition(long partitionTimestamp, int partitionIndex, boolean last, long dataSize) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (last) {
+            for (int i = 0, n = dedupKeyColumns.size(); i < n; i++) {
+                final int columnIndex = dedupKeyColumns.getQuick(i);
+                final long columnTop = getColumnTop(columnIndex);
+                final long size = Math.max(0, dataSize - columnTop) * Integer.BYTES;
+                dedupKeyColumnMem.add(size > 0 ? O3Utils.mapRO(ff, getPrimaryColumn(columnIndex).getFd(), size) : 0);
+                dedupKeyColumnMem.add(size);
+                dedupKeyColumnMem.add(columnTop);
+            }
+            return O3Utils.mapRO(ff, getPrimaryColumn(timestampIndex).getFd(), dataSize * Long.BYTES);
+        }
+
+        final long partitionNameTxn = getPartitionNameTxnByIndex(partitionIndex);
+        o3MaterializeCompressedColumns(partitionTimestamp, partitionNameTxn);
+        setPathForPartition(path.trimTo(rootLen), partitionBy, partitionTimestamp, false);
+        txnPartitionConditionally(path, partitionNameTxn);
+        final int plen = path.length();
+        try {
+            for (int i = 0, n = dedupKeyColumns.size(); i < n; i++) {
+                final CharSequence name = metadata.getColumnName(dedupKeyColumns.getQuick(i));
+                // column added after partition was written has no file in the partition
+                final long columnTop = ff.exists(dFile(path.trimTo(plen), name))
+                        ? readColumnTop(ff, path.trimTo(plen), name, plen, tempMem16b)
+                        : dataSize;
+                final long size = Math.max(0, dataSize - columnTop) * Integer.BYTES;
+                dedupKeyColumnMem.add(size > 0 ? o3DedupMapFile(dFile(path.trimTo(plen), name), size) : 0);
+                dedupKeyColumnMem.add(size);
+                dedupKeyColumnMem.add(columnTop);
+            }
+            return o3DedupMapFile(dFile(path.trimTo(plen), metadata.getColumnName(timestampIndex)), dataSize * Long.BYTES);
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    private long o3DedupMapFile(LPSZ name, long size) {
+        final long fd = openRO(ff, name, LOG);
+        try {
+            return O3Utils.mapRO(ff, fd, size);
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    /**
+     * Order in which row at the given index position was added. Rows moved from column files
+     * on commit precede rows that were added to out-of-order memory directly.
+     */
+    private static long o3DedupRank(long sortedTimestampsAddr, long index, long rowCount, long movedRowLo) {
+        final long row = getTimestampIndexRow(sortedTimestampsAddr, index);
+        return row < movedRowLo ? row + rowCount - movedRowLo : row - movedRowLo;
+    }
+
+    private long o3DedupUncommitted(long sortedTimestampsAddr, long rowCount, long movedRowLo) {
+        final int keyCount = dedupKeyColumns.size();
+        if (keyCount > 0 && dedupMap == null) {
+            final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
+            for (int i = 0; i < keyCount; i++) {
+                keyTypes.add(ColumnType.INT);
+            }
+            dedupMap = new FastMap(
+                    configuration.getSqlMapPageSize(),
+                    keyTypes,
+                    new SingleColumnType(ColumnType.LONG),
+                    configuration.getSqlMapKeyCapacity(),
+                    configuration.getSqlFastMapLoadFactor(),
+                    configuration.getSqlMapMaxResizes()
+            );
+        }
+
+        long dst = 0;
+        long lo = 0;
+        while (lo < rowCount) {
+            final long timestamp = getTimestampIndexValue(sortedTimestampsAddr, lo);
+            long hi = lo + 1;
+            while (hi < rowCount && getTimestampIndexValue(sortedTimestampsAddr, hi) == timestamp) {
+                hi++;
+            }
+
+            if (hi - lo == 1) {
+                dst = o3DedupKeep(sortedTimestampsAddr, lo, dst);
+            } else if (keyCount == 0) {
+                // timestamp is the only key, the most recently added row wins
+                long latest = lo;
+                for (long i = lo + 1; i < hi; i++) {
+                    if (o3DedupRank(sortedTimestampsAddr, i, rowCount, movedRowLo) > o3DedupRank(sortedTimestampsAddr, latest, rowCount, movedRowLo)) {
+                        latest = i;
+                    }
+                }
+                dst = o3DedupKeep(sortedTimestampsAddr, latest, dst);
+            } else {
+                // keep the latest row per key
+                dedupMap.clear();
+                for (long i = lo; i < hi; i++) {
+                    final long rank = o3DedupRank(sortedTimestampsAddr, i, rowCount, movedRowLo);
+                    final MapValue value = o3DedupKey(getTimestampIndexRow(sortedTimestampsAddr, i)).createValue();
+                    if (value.isNew() || value.getLong(0) < rank) {
+                        value.putLong(0, rank);
+                    }
+                }
+                for (long i = lo; i < hi; i++) {
+                    final long rank = o3DedupRank(sortedTimestampsAddr, i, rowCount, movedRowLo);
+                    if (o3DedupKey(getTimestampIndexRow(sortedTimestampsAddr, i)).findValue().getLong(0) == rank) {
+                        dst = o3DedupKeep(sortedTimestampsAddr, i, dst);
+                    }
+                }
+            }
+            lo = hi;
+        }
+        return dst;
+    }
+
+    /**
+     * Out-of-order merge reads raw column files of the partition it merges into. Raw files of compressed
+     * columns are written next to compressed ones, readers that opened compressed files are not affected.
+     * Partition is compressed again once it is committed and still cold.
+     */
+    private void o3MaterializeCompressedColumns(long partitionTimestamp, long partitionNameTxn) {
+        compressedPartitions.remove(partitionTimestamp);
+        setPathForPartition(path.trimTo(rootLen), partitionBy, partitionTimestamp, false);
+        txnPartitionConditionally(path, partitionNameTxn);
+        other.of(path);
+        final int plen = path.length();
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                final CharSequence name = metadata.getColumnName(i);
+                if (ColumnCompressor.isCompressible(metadata.getColumnType(i))
+                        && !ff.exists(dFile(path.trimTo(plen), name))
+                        && ff.exists(dzFile(other.trimTo(plen), name))) {
+                    path.trimTo(plen).concat(name).put(FILE_SUFFIX_D).put(".tmp").$();
+                    ColumnCompressor.decompress(ff, other, path);
+                    dFile(other.trimTo(plen), name);
+                    renameOrFail(ff, path, other);
+                    LOG.info().$("materialized [path=").$(other).$(']').$();
+                }
+            }
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+    }
+
     private void o3ProcessPartitionRemoveCandidates() {
         try {
             final int n = o3PartitionRemoveCandidates.size();
@@ -3531,7 +4115,7 @@ public class TableWriter implements Closeable {
             // index must be created before column is initialised because
             // it uses primary column object as temporary tool
             if (indexFlag) {
-                createIndexFiles(name, indexValueBlockCapacity, plen, true);
+                createIndexFiles(name, indexValueBlockCapacity, plen, true, false);
             }
 
             openColumnFiles(name, columnIndex, plen);
@@ -3570,7 +4154,7 @@ public class TableWriter implements Closeable {
                 if (indexed) {
                     // we have to create files before columns are open
                     // because we are reusing AppendOnlyVirtualMemory object from columns list
-                    createIndexFiles(name, metadata.getIndexValueBlockCapacity(i), plen, txFile.getTransientRowCount() < 1);
+                    createIndexFiles(name, metadata.getIndexValueBlockCapacity(i), plen, txFile.getTransientRowCount() < 1, isIndexCompact(metaMem, i));
                 }
 
                 openColumnFiles(name, i, plen);
@@ -3645,8 +4229,14 @@ public class TableWriter implements Closeable {
 
     private long readMinTimestamp(long partitionTimestamp) {
         setStateForTimestamp(other, partitionTimestamp, false);
+        final int plen = other.length();
         try {
-            dFile(other, metadata.getColumnName(metadata.getTimestampIndex()));
+            final CharSequence timestampColumnName = metadata.getColumnName(metadata.getTimestampIndex());
+            if (!ff.exists(dFile(other, timestampColumnName)) && ff.exists(dzFile(other.trimTo(plen), timestampColumnName))) {
+                // compressed file keeps first value in its header
+                return readLongAtOffset(ff, other, tempMem16b, ColumnCompressor.HEADER_FIRST_VALUE_OFFSET);
+            }
+            dFile(other.trimTo(plen), timestampColumnName);
             if (ff.exists(other)) {
                 // read min timestamp value
                 final long fd = TableUtils.openRO(ff, other, LOG);
@@ -3736,6 +4326,7 @@ public class TableWriter implements Closeable {
                     path.concat(nativeLPSZ);
                     int plen = path.length();
                     removeLambda.remove(ff, dFile(path, columnName));
+                    removeLambda.remove(ff, dzFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, iFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, topFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
@@ -3754,6 +4345,25 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Zone maps keep statistics by column name. They are removed when column is removed or renamed, otherwise
+     * statistics of the old column would be attributed to a new column of the same name.
+     */
+    private void removeZoneMaps() {
+        try {
+            ff.iterateDir(path.$(), (file, type) -> {
+                nativeLPSZ.of(file);
+                if (type == Files.DT_DIR && IGNORED_FILES.excludes(nativeLPSZ)) {
+                    path.trimTo(rootLen);
+                    path.concat(nativeLPSZ);
+                    removeFileAndOrLog(ff, path.concat(ZoneMap.FILE_NAME).$());
+                }
+            });
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     private int removeColumnFromMeta(int index) {
         try {
             int metaSwapIndex = openMetaSwapFile(ff, ddlMem, path, rootLen, fileOperationRetryCount);
@@ -3860,6 +4470,9 @@ public class TableWriter implements Closeable {
                 // They are probably about to be attached.
                 return;
             }
+            if (Chars.equals(nativeLPSZ, WAL_DIR_NAME)) {
+                return;
+            }
             try {
                 long txn = 0;
                 int txnSep = Chars.indexOf(nativeLPSZ, '.');
@@ -3965,6 +4578,7 @@ public class TableWriter implements Closeable {
                     other.concat(nativeLPSZ);
                     int plen = path.length();
                     renameFileOrLog(ff, dFile(path.trimTo(plen), columnName), dFile(other.trimTo(plen), newName));
+                    renameFileOrLog(ff, dzFile(path.trimTo(plen), columnName), dzFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, iFile(path.trimTo(plen), columnName), iFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, topFile(path.trimTo(plen), columnName), topFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName), BitmapIndexUtils.keyFileName(other.trimTo(plen), newName));
@@ -4287,6 +4901,9 @@ public class TableWriter implements Closeable {
         // added so far. Index writers will start point to different
         // files after switch.
         updateIndexes();
+        if (zoneMapEnabled) {
+            zoneMapPartitions.add(txFile.getPartitionTimestampLo(txFile.getMaxTimestamp()));
+        }
         txFile.switchPartitions(timestamp);
         openPartition(timestamp);
         setAppendPosition(0, false);
@@ -4455,11 +5072,206 @@ public class TableWriter implements Closeable {
         if (isSequential(metaMem, i)) {
             flags |= META_FLAG_BIT_SEQUENTIAL;
         }
+
+        if (isDedupKey(metaMem, i)) {
+            flags |= META_FLAG_BIT_DEDUP_KEY;
+        }
+
+        if (isIndexCompact(metaMem, i)) {
+            flags |= META_FLAG_BIT_COMPACT_INDEX;
+        }
         ddlMem.putLong(flags);
         ddlMem.putInt(getIndexBlockCapacity(metaMem, i));
         ddlMem.skip(META_COLUMN_DATA_RESERVED);
     }
 
+    private long getLastPartitionTimestamp() {
+        if (partitionBy == PartitionBy.NONE || txFile.getMaxTimestamp() == Long.MIN_VALUE) {
+            return Long.MIN_VALUE;
+        }
+        return txFile.getPartitionTimestampLo(txFile.getMaxTimestamp());
+    }
+
+    /**
+     * Attaches partitions that {@link PartitionCompressionJob} compressed since the last commit and hands
+     * partitions that are older than configured number of most recent partitions over to the job. Each
+     * compressed partition gets new name txn and its uncompressed directory is purged when readers release
+     * it, the same way out-of-order merge replaces partitions.
+     */
+    private void processPartitionCompression(int commitMode) {
+        if (compressionRequests.size() > 0) {
+            attachCompressedPartitions(commitMode);
+        }
+
+        final int keep = metadata.getCompressAfterPartitions();
+        if (keep < 1 || partitionBy == PartitionBy.NONE) {
+            return;
+        }
+
+        final long lastPartitionTimestamp = getLastPartitionTimestamp();
+        for (int i = 0, n = txFile.getPartitionCount() - keep; i < n; i++) {
+            final long timestamp = txFile.getPartitionTimestamp(i);
+            final long partitionSize = txFile.getPartitionSize(i);
+            if (timestamp >= lastPartitionTimestamp
+                    || partitionSize < 1
+                    || compressedPartitions.contains(timestamp)
+                    || isCompressionRequested(timestamp)) {
+                continue;
+            }
+
+            final long nameTxn = txFile.getPartitionNameTxn(i);
+            setPathForPartition(path.trimTo(rootLen), partitionBy, timestamp, false);
+            txnPartitionConditionally(path, nameTxn);
+            // raw timestamp file is materialized when out-of-order data is merged into compressed partition
+            final boolean compressed = !ff.exists(dFile(path, metadata.getColumnName(metadata.getTimestampIndex())));
+            path.trimTo(rootLen);
+            if (compressed) {
+                compressedPartitions.add(timestamp);
+                continue;
+            }
+
+            final long cursor = messageBus.getPartitionCompressionPubSeq().next();
+            if (cursor < 0) {
+                // queue is full or contended, partition is handed over on one of the next commits
+                break;
+            }
+            final PartitionCompressionRequest request = new PartitionCompressionRequest(
+                    cursor,
+                    path,
+                    partitionBy,
+                    timestamp,
+                    nameTxn,
+                    partitionSize,
+                    txFile.getStructureVersion(),
+                    metadata
+            );
+            messageBus.getPartitionCompressionQueue().get(cursor).of(request);
+            messageBus.getPartitionCompressionPubSeq().done(cursor);
+            compressionRequests.add(request);
+        }
+    }
+
+    private void attachCompressedPartitions(int commitMode) {
+        final long lastPartitionTimestamp = getLastPartitionTimestamp();
+        boolean attached = false;
+        for (int i = compressionRequests.size() - 1; i > -1; i--) {
+            final PartitionCompressionRequest request = compressionRequests.getQuick(i);
+            final int status = request.getStatus();
+            if (status == PartitionCompressionRequest.STATUS_PENDING || status == PartitionCompressionRequest.STATUS_RUNNING) {
+                continue;
+            }
+            compressionRequests.remove(i);
+            if (status != PartitionCompressionRequest.STATUS_DONE) {
+                // job could not compress partition, it is handed over again by the caller
+                continue;
+            }
+
+            final long timestamp = request.getPartitionTimestamp();
+            PartitionCompressionJob.setStagingPath(other.trimTo(rootLen), request);
+            final int index = txFile.findAttachedPartitionIndex(timestamp);
+            if (index < 0
+                    || timestamp >= lastPartitionTimestamp
+                    || txFile.getPartitionNameTxnByIndex(index) != request.getPartitionNameTxn()
+                    || txFile.getPartitionSizeByIndex(index) != request.getPartitionSize()
+                    || txFile.getStructureVersion() != request.getStructureVersion()) {
+                LOG.info().$("partition changed while it was compressed [path=").$(other.$()).$(']').$();
+                ff.rmdir(other.slash$());
+                other.trimTo(rootLen);
+                continue;
+            }
+
+            setPathForPartition(path.trimTo(rootLen), partitionBy, timestamp, false);
+            txnPartition(path, txFile.getTxn());
+            if (!ff.rename(other.$(), path.$())) {
+                LOG.error().$("could not attach compressed partition [from=").$(other).$(", to=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+                ff.rmdir(other.slash$());
+            } else {
+                txFile.updatePartitionSizeByIndexAndTxn(index, request.getPartitionSize());
+                txFile.bumpPartitionTableVersion();
+                o3PartitionRemoveCandidates.add(timestamp);
+                o3PartitionRemoveCandidates.add(request.getPartitionNameTxn());
+                compressedPartitions.add(timestamp);
+                attached = true;
+                LOG.info().$("attached compressed partition [path=").$(path).$(']').$();
+            }
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+
+        if (attached) {
+            txFile.commit(commitMode, denseSymbolMapWriters);
+            o3ProcessPartitionRemoveCandidates();
+        }
+    }
+
+    private void cancelPartitionCompression(long timestamp) {
+        for (int i = compressionRequests.size() - 1; i > -1; i--) {
+            final PartitionCompressionRequest request = compressionRequests.getQuick(i);
+            if (timestamp == Long.MIN_VALUE || request.getPartitionTimestamp() == timestamp) {
+                compressionRequests.remove(i);
+                // job removes staging directory when it finds out that request is cancelled
+                if (request.cancel() == PartitionCompressionRequest.STATUS_DONE) {
+                    PartitionCompressionJob.setStagingPath(other.trimTo(rootLen), request);
+                    ff.rmdir(other.slash$());
+                    other.trimTo(rootLen);
+                }
+            }
+        }
+    }
+
+    private boolean isCompressionRequested(long timestamp) {
+        for (int i = 0, n = compressionRequests.size(); i < n; i++) {
+            if (compressionRequests.getQuick(i).getPartitionTimestamp() == timestamp) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void updateZoneMaps() {
+        if (!zoneMapEnabled || partitionBy == PartitionBy.NONE) {
+            return;
+        }
+
+        final long lastPartitionTimestamp = getLastPartitionTimestamp();
+        if (zoneMapLastPartitionTimestamp != Long.MIN_VALUE && zoneMapLastPartitionTimestamp != lastPartitionTimestamp) {
+            // out-of-order commit can add partitions past the one that used to be the last
+            zoneMapPartitions.add(zoneMapLastPartitionTimestamp);
+        }
+        zoneMapLastPartitionTimestamp = lastPartitionTimestamp;
+
+        final int n = zoneMapPartitions.size();
+        if (n == 0) {
+            return;
+        }
+
+        for (int i = 0; i < n; i++) {
+            final long timestamp = zoneMapPartitions.get(i);
+            // last partition is still being appended to
+            if (timestamp >= lastPartitionTimestamp) {
+                continue;
+            }
+
+            final long partitionSize = txFile.getPartitionSizeByPartitionTimestamp(timestamp);
+            if (partitionSize < 1) {
+                continue;
+            }
+
+            try {
+                setPathForPartition(path.trimTo(rootLen), partitionBy, timestamp, false);
+                txnPartitionConditionally(path, txFile.getPartitionNameTxnByPartitionTimestamp(timestamp));
+                ZoneMap.write(ff, path, other, metadata, partitionSize, tempMem16b);
+            } catch (CairoException e) {
+                // zone map is an optimisation, readers scan partitions that do not have it
+                LOG.error().$("could not write zone map [path=").$(path).$(", errno=").$(e.getErrno()).$(", msg=").$(e.getFlyweightMessage()).$(']').$();
+            } finally {
+                path.trimTo(rootLen);
+                other.trimTo(rootLen);
+            }
+        }
+        zoneMapPartitions.clear();
+    }
+
     private void writeColumnTop(CharSequence name) {
         writeColumnTop(name, txFile.getTransientRowCount());
     }
@@ -4561,6 +5373,22 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private class WalSegmentFunction implements RowFunction {
+        @Override
+        public Row newRow(long timestamp) {
+            if (timestamp < Timestamps.AD_01) {
+                throw CairoException.instance(0).put("timestamp before 0001-01-01 is not allowed");
+            }
+            bumpMasterRef();
+            txFile.append();
+            if (timestamp > txFile.getMaxTimestamp()) {
+                txFile.updateMaxTimestamp(timestamp);
+            }
+            timestampSetter.accept(timestamp);
+            return row;
+        }
+    }
+
     private class NoTimestampFunction implements RowFunction {
         @Override
         public Row newRow(long timestamp) {
@@ -4583,7 +5411,7 @@ public class TableWriter implements Closeable {
         @Override
         public Row newRow(long timestamp) {
             bumpMasterRef();
-            if (timestamp > partitionTimestampHi || timestamp < txFile.getMaxTimestamp()) {
+            if (timestamp > partitionTimestampHi || timestamp < txFile.getMaxTimestamp() || (timestamp == txFile.getMaxTimestamp() && dedup)) {
                 return newRow0(timestamp);
             }
             updateMaxTimestamp(timestamp);
@@ -4593,7 +5421,8 @@ public class TableWriter implements Closeable {
 
         @NotNull
         private Row newRow0(long timestamp) {
-            if (timestamp < txFile.getMaxTimestamp()) {
+            // deduplication has to see rows that repeat max timestamp, they may repeat committed rows
+            if (timestamp < txFile.getMaxTimestamp() || (timestamp == txFile.getMaxTimestamp() && dedup)) {
                 return newRowO3(timestamp);
             }
 
@@ -4789,5 +5618,6 @@ public class TableWriter implements Closeable {
         IGNORED_FILES.add(META_FILE_NAME);
         IGNORED_FILES.add(TXN_FILE_NAME);
         IGNORED_FILES.add(TODO_FILE_NAME);
+        IGNORED_FILES.add(WAL_DIR_NAME);
     }
 }
@@ -37,6 +37,8 @@ public class TableWriterMetadata extends BaseRecordMetadata {
     private final int id;
     private int o3MaxUncommittedRows;
     private long o3CommitHysteresisInMicros;
+    private int compressAfterPartitions;
+    private boolean walEnabled;
 
     public TableWriterMetadata(FilesFacade ff, MappedReadOnlyMemory metaMem) {
         this.columnCount = metaMem.getInt(TableUtils.META_OFFSET_COUNT);
@@ -45,6 +47,8 @@ public class TableWriterMetadata extends BaseRecordMetadata {
         this.id = metaMem.getInt(TableUtils.META_OFFSET_TABLE_ID);
         this.o3MaxUncommittedRows = metaMem.getInt(TableUtils.META_OFFSET_O3_MAX_UNCOMMITTED_ROWS);
         this.o3CommitHysteresisInMicros = metaMem.getLong(TableUtils.META_OFFSET_O3_COMMIT_HYSTERESIS_IN_MICROS);
+        this.compressAfterPartitions = metaMem.getInt(TableUtils.META_OFFSET_COMPRESS_AFTER_PARTITIONS);
+        this.walEnabled = metaMem.getInt(TableUtils.META_OFFSET_WAL_ENABLED) != 0;
         TableUtils.validate(ff, metaMem, columnNameIndexMap);
         this.timestampIndex = metaMem.getInt(TableUtils.META_OFFSET_TIMESTAMP_INDEX);
         this.columnMetadata = new ObjList<>(this.columnCount);
@@ -134,6 +138,10 @@ public class TableWriterMetadata extends BaseRecordMetadata {
         version = ColumnType.VERSION;
     }
 
+    public int getCompressAfterPartitions() {
+        return compressAfterPartitions;
+    }
+
     public int getId() {
         return id;
     }
@@ -153,4 +161,16 @@ public class TableWriterMetadata extends BaseRecordMetadata {
     public void setO3CommitHysteresisInMicros(long micros) {
         this.o3CommitHysteresisInMicros = micros;
     }
+
+    public void setCompressAfterPartitions(int partitionCount) {
+        this.compressAfterPartitions = partitionCount;
+    }
+
+    public boolean isWalEnabled() {
+        return walEnabled;
+    }
+
+    public void setWalEnabled(boolean walEnabled) {
+        this.walEnabled = walEnabled;
+    }
 }
@@ -106,6 +106,11 @@ public final class TxWriter extends TxReader implements Closeable {
         txMem.putLong(TX_OFFSET_TXN_CHECK, txn);
     }
 
+    public void setStructureVersion(long structureVersion) {
+        this.structureVersion = structureVersion;
+        txMem.putLong(TX_OFFSET_STRUCT_VERSION, structureVersion);
+    }
+
     public void cancelRow() {
         if (transientRowCount == 0 && txPartitionCount > 1) {
             // we have to undo creation of partition
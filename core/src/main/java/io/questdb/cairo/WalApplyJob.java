@@ -0,0 +1,565 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.AppendOnlyVirtualMemory;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Merges write-ahead log segments into their tables. Each WAL producer appends to its own segment,
+ * which is a non-partitioned table under "wal/&lt;segmentId&gt;" directory of the table. This job tails
+ * committed rows of all segments of a table and appends them to the table in a single transaction,
+ * out-of-order rows are merged by the regular O3 pipeline of {@link TableWriter}.
+ * <p>
+ * Position up to which segments are applied is kept in "wal/_applied" file. The file is written before
+ * the table transaction is committed and stores positions both before and after the transaction together
+ * with table txn the batch started from and txn the batch commits. Batch is committed when the table reached
+ * its txn. This holds only as long as nothing else moves the table txn between the batch and restart, which is
+ * why engine calls {@link #recover()} before it hands out any table writer.
+ * Segment is removed once its writer is closed and all of its rows are applied.
+ */
+public class WalApplyJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(WalApplyJob.class);
+    private static final long STATE_HEADER_SIZE = 3 * Long.BYTES;
+    private static final long STATE_ENTRY_SIZE = 3 * Long.BYTES;
+    private final CairoEngine engine;
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final MicrosecondClock clock;
+    private final long sealCheckInterval;
+    private final ObjList<String> createdSegmentTables = new ObjList<>();
+    private final ObjList<String> tablesToScan = new ObjList<>();
+    private final CharSequenceObjHashMap<TableWal> tables = new CharSequenceObjHashMap<>();
+    private final Path path = new Path();
+    private final Path other = new Path();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private final LongList segmentIds = new LongList();
+    private final AppendOnlyVirtualMemory stateMem = new AppendOnlyVirtualMemory();
+    private final FindVisitor tableDirVisitor = this::discoverTable;
+    private final FindVisitor segmentDirVisitor = this::discoverSegment;
+    private int rootLen;
+    private boolean discovered = false;
+    private long lastSealCheck = 0;
+
+    public WalApplyJob(CairoEngine engine) {
+        this.engine = engine;
+        this.configuration = engine.getConfiguration();
+        this.ff = configuration.getFilesFacade();
+        this.clock = configuration.getMicrosecondClock();
+        this.sealCheckInterval = configuration.getIdleCheckInterval() * 1000;
+    }
+
+    @Override
+    public void close() {
+        final ObjList<CharSequence> names = tables.keys();
+        for (int i = 0, n = names.size(); i < n; i++) {
+            Misc.free(tables.get(names.getQuick(i)));
+        }
+        tables.clear();
+        Misc.free(stateMem);
+        Misc.free(path);
+        Misc.free(other);
+    }
+
+    /**
+     * Resolves batches that were interrupted by restart and rewrites their state, so that state no longer
+     * depends on the table txn. Must run before any writer of WAL tables is handed out, otherwise
+     * a commit by another writer is taken for commit of the interrupted batch.
+     */
+    public void recover() {
+        path.of(configuration.getRoot());
+        rootLen = path.length();
+        ff.iterateDir(path.$(), tableDirVisitor);
+        discovered = true;
+
+        for (int i = 0, n = tablesToScan.size(); i < n; i++) {
+            final String tableName = tablesToScan.getQuick(i);
+            try {
+                scanSegments(tableName);
+                final TableWal wal = tables.get(tableName);
+                path.of(configuration.getRoot()).concat(tableName);
+                final long tableTxn;
+                try (TxReader txReader = new TxReader(ff, path, PartitionBy.NONE)) {
+                    tableTxn = txReader.readTxn();
+                }
+                if (readState(wal, tableTxn)) {
+                    for (int j = 0, m = wal.segments.size(); j < m; j++) {
+                        final Segment segment = wal.segments.getQuick(j);
+                        segment.batchRowCount = segment.appliedRowCount;
+                    }
+                    writeState(wal, tableTxn, tableTxn);
+                }
+                wal.recovered = true;
+            } catch (CairoException e) {
+                // state is loaded again when table is applied
+                LOG.error().$("could not recover WAL [table=").$(tableName).$(", errno=").$(e.getErrno()).$(", ex=").$(e.getFlyweightMessage()).$(']').$();
+            }
+        }
+        tablesToScan.clear();
+    }
+
+    public void notifySegmentCreated(CharSequence tableName) {
+        synchronized (createdSegmentTables) {
+            createdSegmentTables.add(Chars.toString(tableName));
+        }
+    }
+
+    private static void copyColumn(TableReaderRecord record, TableWriter.Row row, int from, int to, int columnType) {
+        switch (columnType) {
+            case ColumnType.BOOLEAN:
+                row.putBool(to, record.getBool(from));
+                break;
+            case ColumnType.BYTE:
+                row.putByte(to, record.getByte(from));
+                break;
+            case ColumnType.SHORT:
+                row.putShort(to, record.getShort(from));
+                break;
+            case ColumnType.CHAR:
+                row.putChar(to, record.getChar(from));
+                break;
+            case ColumnType.INT:
+                row.putInt(to, record.getInt(from));
+                break;
+            case ColumnType.LONG:
+                row.putLong(to, record.getLong(from));
+                break;
+            case ColumnType.DATE:
+                row.putDate(to, record.getDate(from));
+                break;
+            case ColumnType.TIMESTAMP:
+                row.putTimestamp(to, record.getTimestamp(from));
+                break;
+            case ColumnType.FLOAT:
+                row.putFloat(to, record.getFloat(from));
+                break;
+            case ColumnType.DOUBLE:
+                row.putDouble(to, record.getDouble(from));
+                break;
+            case ColumnType.STRING:
+                row.putStr(to, record.getStr(from));
+                break;
+            case ColumnType.SYMBOL:
+                row.putSym(to, record.getSym(from));
+                break;
+            case ColumnType.LONG256:
+                row.putLong256(to, record.getLong256A(from));
+                break;
+            case ColumnType.BINARY:
+                row.putBin(to, record.getBin(from));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private boolean applyTable(TableWal wal, boolean checkSealed) {
+        final ObjList<Segment> segments = wal.segments;
+        long pendingRowCount = 0;
+        for (int i = 0, n = segments.size(); i < n; i++) {
+            final Segment segment = segments.getQuick(i);
+            segment.reader.reload();
+            pendingRowCount += segment.reader.size() - segment.appliedRowCount;
+        }
+
+        if (pendingRowCount == 0 && wal.recovered) {
+            if (checkSealed) {
+                removeSealedSegments(wal);
+            }
+            return false;
+        }
+
+        final TableWriter writer;
+        try {
+            writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, wal.tableName);
+        } catch (EntryUnavailableException e) {
+            // table is busy, try again on next run
+            return false;
+        } catch (CairoException e) {
+            if (engine.getStatus(AllowAllCairoSecurityContext.INSTANCE, path, wal.tableName) == TableUtils.TABLE_DOES_NOT_EXIST) {
+                LOG.info().$("table is gone, dropping WAL [table=").$(wal.tableName).$(']').$();
+                tables.remove(wal.tableName);
+                wal.close();
+            } else {
+                LOG.error().$("could not open writer [table=").$(wal.tableName).$(", errno=").$(e.getErrno()).$(", ex=").$(e.getFlyweightMessage()).$(']').$();
+            }
+            return false;
+        }
+
+        try {
+            if (!wal.recovered) {
+                readState(wal, writer.getTxn());
+                wal.recovered = true;
+            }
+
+            long budget = Math.max(1, writer.getMetadata().getO3MaxUncommittedRows());
+            long batchRowCount = 0;
+            for (int i = 0, n = segments.size(); i < n; i++) {
+                final Segment segment = segments.getQuick(i);
+                segment.batchRowCount = Math.min(segment.reader.size(), segment.appliedRowCount + budget);
+                budget -= segment.batchRowCount - segment.appliedRowCount;
+                batchRowCount += segment.batchRowCount - segment.appliedRowCount;
+            }
+
+            if (batchRowCount == 0) {
+                if (checkSealed) {
+                    removeSealedSegments(wal);
+                }
+                return false;
+            }
+
+            // writer is exclusive, commit of the batch is the only one that moves table to the next txn
+            writeState(wal, writer.getTxn(), writer.getTxn() + 1);
+            try {
+                for (int i = 0, n = segments.size(); i < n; i++) {
+                    copyRows(segments.getQuick(i), writer);
+                }
+                writer.commit();
+            } catch (Throwable e) {
+                LOG.error().$("could not apply WAL [table=").$(wal.tableName).$(", ex=").$(e).$(']').$();
+                writer.rollback();
+                for (int i = 0, n = segments.size(); i < n; i++) {
+                    final Segment segment = segments.getQuick(i);
+                    segment.batchRowCount = segment.appliedRowCount;
+                }
+                writeState(wal, writer.getTxn(), writer.getTxn());
+                return false;
+            }
+
+            for (int i = 0, n = segments.size(); i < n; i++) {
+                final Segment segment = segments.getQuick(i);
+                segment.appliedRowCount = segment.batchRowCount;
+            }
+            LOG.debug().$("applied WAL [table=").$(wal.tableName).$(", rows=").$(batchRowCount).$(']').$();
+            if (checkSealed) {
+                removeSealedSegments(wal);
+            }
+            return true;
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void copyRows(Segment segment, TableWriter writer) {
+        if (segment.appliedRowCount == segment.batchRowCount) {
+            return;
+        }
+
+        if (segment.mappedStructureVersion != writer.getStructureVersion()) {
+            mapColumns(segment, writer.getMetadata());
+            segment.mappedStructureVersion = writer.getStructureVersion();
+        }
+
+        final TableReader reader = segment.reader;
+        final RecordMetadata metadata = reader.getMetadata();
+        final int timestampIndex = metadata.getTimestampIndex();
+        final IntList columnMap = segment.columnMap;
+        final TableReaderRecord record = segment.record;
+        reader.openPartition(0);
+        for (long r = segment.appliedRowCount; r < segment.batchRowCount; r++) {
+            record.jumpTo(0, r);
+            final TableWriter.Row row = writer.newRow(record.getTimestamp(timestampIndex));
+            for (int i = 0, n = columnMap.size(); i < n; i++) {
+                final int to = columnMap.getQuick(i);
+                if (to > -1 && i != timestampIndex) {
+                    copyColumn(record, row, i, to, metadata.getColumnType(i));
+                }
+            }
+            row.append();
+        }
+    }
+
+    private void discoverSegment(long name, int type) {
+        if (type == Files.DT_DIR) {
+            nativeLPSZ.of(name);
+            try {
+                segmentIds.add(Numbers.parseLong(nativeLPSZ));
+            } catch (NumericException ignore) {
+                // not a segment
+            }
+        }
+    }
+
+    private void discoverTable(long name, int type) {
+        nativeLPSZ.of(name);
+        if (type == Files.DT_DIR && !Files.isDots(nativeLPSZ)) {
+            path.trimTo(rootLen).concat(nativeLPSZ).concat(TableUtils.WAL_DIR_NAME).$();
+            if (ff.exists(path)) {
+                tablesToScan.add(Chars.toString(nativeLPSZ));
+            }
+        }
+    }
+
+    private void mapColumns(Segment segment, RecordMetadata tableMetadata) {
+        final RecordMetadata metadata = segment.reader.getMetadata();
+        final IntList columnMap = segment.columnMap;
+        columnMap.clear();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int index = tableMetadata.getColumnIndexQuiet(metadata.getColumnName(i));
+            if (index > -1 && tableMetadata.getColumnType(index) == metadata.getColumnType(i)) {
+                columnMap.add(index);
+            } else {
+                if (index > -1) {
+                    LOG.error().$("column type changed, WAL values are skipped [table=").$(segment.reader.getTableName())
+                            .$(", segment=").$(segment.id)
+                            .$(", column=").$(metadata.getColumnName(i))
+                            .$(']').$();
+                }
+                columnMap.add(-1);
+            }
+        }
+    }
+
+    /**
+     * Loads applied positions of segments from state file.
+     *
+     * @return true when state file has positions of a batch that might not be committed
+     */
+    private boolean readState(TableWal wal, long tableTxn) {
+        path.of(configuration.getRoot()).concat(wal.tableName).concat(TableUtils.WAL_DIR_NAME).concat(TableUtils.WAL_APPLIED_FILE_NAME).$();
+        if (!ff.exists(path)) {
+            return false;
+        }
+
+        final long fd = TableUtils.openRO(ff, path, LOG);
+        try {
+            final long size = ff.length(fd);
+            if (size < STATE_HEADER_SIZE) {
+                LOG.error().$("WAL state is too short [path=").$(path).$(", size=").$(size).$(']').$();
+                return false;
+            }
+            final long mem = ff.mmap(fd, size, 0, Files.MAP_RO);
+            if (mem == -1) {
+                throw CairoException.instance(ff.errno()).put("could not mmap [file=").put(path).put(']');
+            }
+            try {
+                final long startTxn = Unsafe.getUnsafe().getLong(mem);
+                final long targetTxn = Unsafe.getUnsafe().getLong(mem + Long.BYTES);
+                final long count = Unsafe.getUnsafe().getLong(mem + 2 * Long.BYTES);
+                if (size < STATE_HEADER_SIZE + count * STATE_ENTRY_SIZE) {
+                    LOG.error().$("WAL state is corrupt [path=").$(path).$(", size=").$(size).$(", count=").$(count).$(']').$();
+                    return false;
+                }
+                final boolean committed = tableTxn >= targetTxn;
+                for (long i = 0; i < count; i++) {
+                    final long p = mem + STATE_HEADER_SIZE + i * STATE_ENTRY_SIZE;
+                    final Segment segment = wal.findSegment(Unsafe.getUnsafe().getLong(p));
+                    if (segment != null) {
+                        segment.appliedRowCount = Unsafe.getUnsafe().getLong(p + (committed ? 2 * Long.BYTES : Long.BYTES));
+                    }
+                }
+                LOG.info().$("recovered WAL state [table=").$(wal.tableName)
+                        .$(", startTxn=").$(startTxn)
+                        .$(", targetTxn=").$(targetTxn)
+                        .$(", tableTxn=").$(tableTxn)
+                        .$(", committed=").$(committed)
+                        .$(']').$();
+                return startTxn != targetTxn;
+            } finally {
+                ff.munmap(mem, size);
+            }
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    private void removeSealedSegments(TableWal wal) {
+        final ObjList<Segment> segments = wal.segments;
+        for (int i = segments.size() - 1; i > -1; i--) {
+            final Segment segment = segments.getQuick(i);
+            // segment writer holds lock for as long as it is open
+            path.of(segment.root).concat(wal.tableName);
+            TableUtils.lockName(path);
+            final long fd = ff.openRW(path);
+            if (fd == -1) {
+                continue;
+            }
+            try {
+                if (ff.lock(fd) != 0) {
+                    continue;
+                }
+                // writer could have committed between our last reload and close
+                segment.reader.reload();
+                if (segment.reader.size() > segment.appliedRowCount) {
+                    continue;
+                }
+                segment.close();
+                segments.remove(i);
+                if (ff.rmdir(path.of(segment.root).slash$()) == 0) {
+                    LOG.info().$("removed WAL segment [table=").$(wal.tableName).$(", id=").$(segment.id).$(']').$();
+                } else {
+                    LOG.error().$("could not remove WAL segment [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+                }
+            } finally {
+                ff.close(fd);
+            }
+        }
+    }
+
+    private void scanSegments(CharSequence tableName) {
+        TableWal wal = tables.get(tableName);
+        if (wal == null) {
+            wal = new TableWal(Chars.toString(tableName));
+            tables.put(wal.tableName, wal);
+        }
+
+        path.of(configuration.getRoot()).concat(tableName).concat(TableUtils.WAL_DIR_NAME);
+        final int walLen = path.length();
+        segmentIds.clear();
+        ff.iterateDir(path.$(), segmentDirVisitor);
+        segmentIds.sort();
+        for (int i = 0, n = segmentIds.size(); i < n; i++) {
+            final long id = segmentIds.getQuick(i);
+            if (wal.findSegment(id) == null) {
+                final String root = path.trimTo(walLen).slash().put(id).toString();
+                try {
+                    wal.segments.add(new Segment(id, root, new TableReader(configuration, tableName, root)));
+                } catch (CairoException e) {
+                    LOG.error().$("could not open WAL segment [path=").$(root)
+                            .$(", errno=").$(e.getErrno())
+                            .$(", ex=").$(e.getFlyweightMessage())
+                            .$(']').$();
+                }
+            }
+        }
+    }
+
+    @Override
+    protected boolean runSerially() {
+        if (!discovered) {
+            path.of(configuration.getRoot());
+            rootLen = path.length();
+            ff.iterateDir(path.$(), tableDirVisitor);
+            discovered = true;
+        }
+
+        synchronized (createdSegmentTables) {
+            tablesToScan.addAll(createdSegmentTables);
+            createdSegmentTables.clear();
+        }
+
+        for (int i = 0, n = tablesToScan.size(); i < n; i++) {
+            scanSegments(tablesToScan.getQuick(i));
+        }
+        tablesToScan.clear();
+
+        final long now = clock.getTicks();
+        final boolean checkSealed = now - lastSealCheck >= sealCheckInterval;
+        if (checkSealed) {
+            lastSealCheck = now;
+        }
+
+        boolean useful = false;
+        final ObjList<CharSequence> names = tables.keys();
+        for (int i = names.size() - 1; i > -1; i--) {
+            useful |= applyTable(tables.get(names.getQuick(i)), checkSealed);
+        }
+        return useful;
+    }
+
+    private void writeState(TableWal wal, long startTxn, long targetTxn) {
+        other.of(configuration.getRoot()).concat(wal.tableName).concat(TableUtils.WAL_DIR_NAME).concat(TableUtils.WAL_APPLIED_FILE_NAME).$();
+        path.of(configuration.getRoot()).concat(wal.tableName).concat(TableUtils.WAL_DIR_NAME).concat(TableUtils.WAL_APPLIED_FILE_NAME).put(".tmp").$();
+        final ObjList<Segment> segments = wal.segments;
+        try {
+            stateMem.of(ff, path, ff.getPageSize());
+            stateMem.putLong(startTxn);
+            stateMem.putLong(targetTxn);
+            stateMem.putLong(segments.size());
+            for (int i = 0, n = segments.size(); i < n; i++) {
+                final Segment segment = segments.getQuick(i);
+                stateMem.putLong(segment.id);
+                stateMem.putLong(segment.appliedRowCount);
+                stateMem.putLong(segment.batchRowCount);
+            }
+            if (configuration.getCommitMode() != CommitMode.NOSYNC) {
+                stateMem.sync(configuration.getCommitMode() == CommitMode.ASYNC);
+            }
+        } finally {
+            stateMem.close();
+        }
+        // rename is atomic, state file is never observed half-written
+        TableUtils.renameOrFail(ff, path, other);
+    }
+
+    private static class TableWal implements Closeable {
+        private final String tableName;
+        private final ObjList<Segment> segments = new ObjList<>();
+        private boolean recovered = false;
+
+        private TableWal(String tableName) {
+            this.tableName = tableName;
+        }
+
+        @Override
+        public void close() {
+            Misc.freeObjList(segments);
+            segments.clear();
+        }
+
+        private Segment findSegment(long id) {
+            for (int i = 0, n = segments.size(); i < n; i++) {
+                final Segment segment = segments.getQuick(i);
+                if (segment.id == id) {
+                    return segment;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static class Segment implements Closeable {
+        private final long id;
+        private final String root;
+        private final TableReader reader;
+        private final TableReaderRecord record = new TableReaderRecord();
+        private final IntList columnMap = new IntList();
+        private long mappedStructureVersion = -1;
+        private long appliedRowCount = 0;
+        private long batchRowCount = 0;
+
+        private Segment(long id, String root, TableReader reader) {
+            this.id = id;
+            this.root = root;
+            this.reader = reader;
+            this.record.of(reader);
+        }
+
+        @Override
+        public void close() {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.pool.WriterSource;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+
+import java.io.Closeable;
+
+/**
+ * Write-ahead log segments of a connection. Statements that run in the same connection append to
+ * the same segment of a table instead of creating new segment each. Segment writer is returned to
+ * the cache when statement closes it, its uncommitted rows are rolled back. Segment is closed and
+ * left to {@link WalApplyJob} to remove when table structure changes, segment reaches
+ * {@link CairoConfiguration#getWalSegmentRolloverRowCount()} rows or cache is cleared.
+ * <p>
+ * Cache is not thread-safe, it belongs to the connection.
+ */
+public class WalWriterCache implements WriterSource, Mutable, Closeable {
+    private static final Log LOG = LogFactory.getLog(WalWriterCache.class);
+    private final CairoEngine engine;
+    private final long rolloverRowCount;
+    private final CharSequenceObjHashMap<Entry> entries = new CharSequenceObjHashMap<>();
+
+    public WalWriterCache(CairoEngine engine) {
+        this.engine = engine;
+        this.rolloverRowCount = engine.getConfiguration().getWalSegmentRolloverRowCount();
+    }
+
+    @Override
+    public void clear() {
+        final ObjList<CharSequence> names = entries.keys();
+        for (int i = 0, n = names.size(); i < n; i++) {
+            entries.get(names.getQuick(i)).seal();
+        }
+        entries.clear();
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    @Override
+    public TableWriter getWalWriter(CairoSecurityContext context, CharSequence name, int tableId, long structureVersion) {
+        final int index = entries.keyIndex(name);
+        if (index < 0) {
+            final Entry e = entries.valueAt(index);
+            final TableWriter writer = e.writer;
+            if (writer != null
+                    && writer.getMetadata().getId() == tableId
+                    && writer.getStructureVersion() == structureVersion
+                    && writer.size() < rolloverRowCount) {
+                return writer;
+            }
+            entries.removeAt(index);
+            e.seal();
+        }
+
+        final TableWriter writer = engine.getWalWriter(context, name);
+        final Entry e = new Entry(writer);
+        writer.setLifecycleManager(e);
+        entries.put(writer.getTableName(), e);
+        return writer;
+    }
+
+    @Override
+    public TableWriter getWriter(CairoSecurityContext context, CharSequence name) {
+        return engine.getWriter(context, name);
+    }
+
+    private static class Entry implements LifecycleManager {
+        private TableWriter writer;
+
+        private Entry(TableWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public boolean close() {
+            try {
+                writer.rollback();
+                return false;
+            } catch (CairoException | CairoError e) {
+                LOG.error().$("could not roll back WAL segment, closing it [table=").$(writer.getTableName()).$(", ex=").$(e.getMessage()).$(']').$();
+                writer.setLifecycleManager(DefaultLifecycleManager.INSTANCE);
+                writer = null;
+                return true;
+            }
+        }
+
+        private void seal() {
+            if (writer != null) {
+                writer.setLifecycleManager(DefaultLifecycleManager.INSTANCE);
+                writer = Misc.free(writer);
+            }
+        }
+    }
+}
@@ -0,0 +1,386 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Per-partition column statistics, also known as zone map. For every fixed-width numeric column
+ * partition keeps count of null values together with minimum and maximum of non-null values.
+ * Statistics are stored in a small side file in partition directory. The file is written by
+ * {@link TableWriter} once partition stops being the last one and again when out-of-order data
+ * is merged into the partition. Readers use statistics to skip partitions that cannot satisfy
+ * filter without opening partition columns, see {@link ZoneMapFilter}.
+ * <p>
+ * File layout is a header of row count (long) and entry count (int) followed by entries. Entry is
+ * column type (int), null count (long), min (long), max (long), length of column name (int) and name
+ * chars. Min and max of FLOAT and DOUBLE columns are stored as raw bits of double value.
+ */
+public class ZoneMap implements Closeable {
+    public static final String FILE_NAME = "_zm";
+    private static final Log LOG = LogFactory.getLog(ZoneMap.class);
+    private static final String TEMP_FILE_NAME = "_zm.tmp";
+    private static final int HEADER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int ENTRY_TYPE_OFFSET = 0;
+    private static final int ENTRY_NULL_COUNT_OFFSET = ENTRY_TYPE_OFFSET + Integer.BYTES;
+    private static final int ENTRY_MIN_OFFSET = ENTRY_NULL_COUNT_OFFSET + Long.BYTES;
+    private static final int ENTRY_MAX_OFFSET = ENTRY_MIN_OFFSET + Long.BYTES;
+    private static final int ENTRY_NAME_OFFSET = ENTRY_MAX_OFFSET + Long.BYTES;
+    private static final int ENTRY_SIZE = ENTRY_NAME_OFFSET + Integer.BYTES;
+    private final LongList entryOffsets = new LongList();
+    private long address;
+    private long capacity;
+    private long rowCount;
+
+    /**
+     * Scans columns of partition and writes zone map file into partition directory. The file is written
+     * under temporary name and renamed, so that readers never observe partially written file.
+     *
+     * @param ff         files facade
+     * @param path       path to partition directory, it is restored before method returns
+     * @param other      path instance used to build temporary file name
+     * @param metadata   table metadata, statistics are collected for numeric columns
+     * @param rowCount   partition row count
+     * @param tempMem8b  scratch memory of 8 bytes
+     */
+    public static void write(FilesFacade ff, Path path, Path other, RecordMetadata metadata, long rowCount, long tempMem8b) {
+        final int plen = path.length();
+        final int columnCount = metadata.getColumnCount();
+        long size = HEADER_SIZE;
+        int entryCount = 0;
+        for (int i = 0; i < columnCount; i++) {
+            if (isSupported(metadata.getColumnType(i))) {
+                size += ENTRY_SIZE + (long) metadata.getColumnName(i).length() * Character.BYTES;
+                entryCount++;
+            }
+        }
+
+        final long buf = Unsafe.malloc(size);
+        try {
+            Unsafe.getUnsafe().putLong(buf, rowCount);
+            Unsafe.getUnsafe().putInt(buf + Long.BYTES, entryCount);
+            long p = buf + HEADER_SIZE;
+            for (int i = 0; i < columnCount; i++) {
+                final int type = metadata.getColumnType(i);
+                if (isSupported(type)) {
+                    final CharSequence name = metadata.getColumnName(i);
+                    Unsafe.getUnsafe().putInt(p + ENTRY_TYPE_OFFSET, type);
+                    scanColumn(ff, path, name, type, rowCount, p, tempMem8b);
+                    path.trimTo(plen);
+                    final int len = name.length();
+                    Unsafe.getUnsafe().putInt(p + ENTRY_NAME_OFFSET, len);
+                    p += ENTRY_SIZE;
+                    for (int j = 0; j < len; j++) {
+                        Unsafe.getUnsafe().putChar(p, name.charAt(j));
+                        p += Character.BYTES;
+                    }
+                }
+            }
+
+            // temporary file left behind by a failed write can be longer than the new one
+            other.of(path).concat(TEMP_FILE_NAME).$();
+            if (ff.exists(other)) {
+                ff.remove(other);
+            }
+            final long fd = TableUtils.openRW(ff, other, LOG);
+            try {
+                if (ff.write(fd, buf, size, 0) != size) {
+                    throw CairoException.instance(ff.errno()).put("could not write zone map [path=").put(other).put(']');
+                }
+            } finally {
+                ff.close(fd);
+            }
+
+            path.concat(FILE_NAME).$();
+            if (!ff.rename(other, path)) {
+                // some file systems do not replace existing file on rename
+                ff.remove(path);
+                TableUtils.renameOrFail(ff, other, path);
+            }
+        } finally {
+            Unsafe.free(buf, size);
+            path.trimTo(plen);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (address != 0) {
+            Unsafe.free(address, capacity);
+            address = 0;
+            capacity = 0;
+        }
+        entryOffsets.clear();
+    }
+
+    public int getColumnType(int entry) {
+        return Unsafe.getUnsafe().getInt(entryOffsets.getQuick(entry) + ENTRY_TYPE_OFFSET);
+    }
+
+    /**
+     * @param name column name
+     * @return index of zone map entry for the column or -1 when partition has no statistics for it
+     */
+    public int getEntry(CharSequence name) {
+        final int len = name.length();
+        for (int i = 0, n = entryOffsets.size(); i < n; i++) {
+            final long p = entryOffsets.getQuick(i);
+            if (Unsafe.getUnsafe().getInt(p + ENTRY_NAME_OFFSET) == len && nameEquals(p + ENTRY_SIZE, name, len)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param entry zone map entry
+     * @return maximum of non-null values, raw bits of double for FLOAT and DOUBLE columns
+     */
+    public long getMax(int entry) {
+        return Unsafe.getUnsafe().getLong(entryOffsets.getQuick(entry) + ENTRY_MAX_OFFSET);
+    }
+
+    /**
+     * @param entry zone map entry
+     * @return minimum of non-null values, raw bits of double for FLOAT and DOUBLE columns
+     */
+    public long getMin(int entry) {
+        return Unsafe.getUnsafe().getLong(entryOffsets.getQuick(entry) + ENTRY_MIN_OFFSET);
+    }
+
+    public long getNullCount(int entry) {
+        return Unsafe.getUnsafe().getLong(entryOffsets.getQuick(entry) + ENTRY_NULL_COUNT_OFFSET);
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Loads zone map of partition.
+     *
+     * @param ff       files facade
+     * @param path     path to partition directory, it is restored before method returns
+     * @param rowCount current partition row count, statistics collected for different row count are stale
+     * @return true when partition has valid statistics
+     */
+    public boolean of(FilesFacade ff, Path path, long rowCount) {
+        entryOffsets.clear();
+        final int plen = path.length();
+        try {
+            path.concat(FILE_NAME).$();
+            if (!ff.exists(path)) {
+                return false;
+            }
+
+            final long len = ff.length(path);
+            if (len < HEADER_SIZE) {
+                return false;
+            }
+
+            final long fd = ff.openRO(path);
+            if (fd < 0) {
+                return false;
+            }
+
+            try {
+                if (len > capacity) {
+                    address = Unsafe.realloc(address, capacity, len);
+                    capacity = len;
+                }
+                if (ff.read(fd, address, len, 0) != len) {
+                    return false;
+                }
+            } finally {
+                ff.close(fd);
+            }
+
+            this.rowCount = Unsafe.getUnsafe().getLong(address);
+            if (this.rowCount != rowCount) {
+                return false;
+            }
+
+            final int entryCount = Unsafe.getUnsafe().getInt(address + Long.BYTES);
+            final long hi = address + len;
+            long p = address + HEADER_SIZE;
+            for (int i = 0; i < entryCount; i++) {
+                if (p + ENTRY_SIZE > hi) {
+                    entryOffsets.clear();
+                    return false;
+                }
+                entryOffsets.add(p);
+                p += ENTRY_SIZE + (long) Unsafe.getUnsafe().getInt(p + ENTRY_NAME_OFFSET) * Character.BYTES;
+            }
+
+            if (p != hi) {
+                entryOffsets.clear();
+                return false;
+            }
+            return true;
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    static boolean isSupported(int columnType) {
+        switch (columnType) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean nameEquals(long p, CharSequence name, int len) {
+        for (int i = 0; i < len; i++) {
+            if (Unsafe.getUnsafe().getChar(p + (long) i * Character.BYTES) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void scanColumn(FilesFacade ff, Path path, CharSequence name, int type, long rowCount, long entry, long tempMem8b) {
+        final int plen = path.length();
+        final long columnTop = Math.min(TableUtils.readColumnTop(ff, path, name, plen, tempMem8b), rowCount);
+        final long count = ff.exists(TableUtils.dFile(path.trimTo(plen), name)) ? rowCount - columnTop : 0;
+        final long nullCount = rowCount - count;
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        double minD = Double.POSITIVE_INFINITY;
+        double maxD = Double.NEGATIVE_INFINITY;
+        long nulls = 0;
+
+        if (count > 0) {
+            final long size = count << ColumnType.pow2SizeOf(type);
+            final long fd = TableUtils.openRO(ff, path, LOG);
+            try {
+                // data file of column with top starts at the first row below the top
+                final long addr = ff.mmap(fd, size, 0, Files.MAP_RO);
+                if (addr == -1) {
+                    throw CairoException.instance(ff.errno()).put("could not mmap [file=").put(path).put(']');
+                }
+                try {
+                    switch (type) {
+                        case ColumnType.BYTE:
+                            for (long i = 0; i < count; i++) {
+                                final long v = Unsafe.getUnsafe().getByte(addr + i);
+                                min = Math.min(min, v);
+                                max = Math.max(max, v);
+                            }
+                            break;
+                        case ColumnType.SHORT:
+                            for (long i = 0; i < count; i++) {
+                                final long v = Unsafe.getUnsafe().getShort(addr + i * Short.BYTES);
+                                min = Math.min(min, v);
+                                max = Math.max(max, v);
+                            }
+                            break;
+                        case ColumnType.INT:
+                            for (long i = 0; i < count; i++) {
+                                final int v = Unsafe.getUnsafe().getInt(addr + i * Integer.BYTES);
+                                if (v == Numbers.INT_NaN) {
+                                    nulls++;
+                                } else {
+                                    min = Math.min(min, v);
+                                    max = Math.max(max, v);
+                                }
+                            }
+                            break;
+                        case ColumnType.FLOAT:
+                            for (long i = 0; i < count; i++) {
+                                final float v = Unsafe.getUnsafe().getFloat(addr + i * Float.BYTES);
+                                if (v != v) {
+                                    nulls++;
+                                } else {
+                                    minD = Math.min(minD, v);
+                                    maxD = Math.max(maxD, v);
+                                }
+                            }
+                            break;
+                        case ColumnType.DOUBLE:
+                            for (long i = 0; i < count; i++) {
+                                final double v = Unsafe.getUnsafe().getDouble(addr + i * Double.BYTES);
+                                if (v != v) {
+                                    nulls++;
+                                } else {
+                                    minD = Math.min(minD, v);
+                                    maxD = Math.max(maxD, v);
+                                }
+                            }
+                            break;
+                        default:
+                            for (long i = 0; i < count; i++) {
+                                final long v = Unsafe.getUnsafe().getLong(addr + i * Long.BYTES);
+                                if (v == Numbers.LONG_NaN) {
+                                    nulls++;
+                                } else {
+                                    min = Math.min(min, v);
+                                    max = Math.max(max, v);
+                                }
+                            }
+                            break;
+                    }
+                } finally {
+                    ff.munmap(addr, size);
+                }
+            } finally {
+                ff.close(fd);
+            }
+        }
+
+        if (nullCount > 0 && (type == ColumnType.BYTE || type == ColumnType.SHORT)) {
+            // rows above column top read as zeroes for types without null value
+            min = Math.min(min, 0);
+            max = Math.max(max, 0);
+        } else {
+            nulls += nullCount;
+        }
+
+        if (type == ColumnType.FLOAT || type == ColumnType.DOUBLE) {
+            min = Double.doubleToRawLongBits(minD);
+            max = Double.doubleToRawLongBits(maxD);
+        }
+
+        Unsafe.getUnsafe().putLong(entry + ENTRY_NULL_COUNT_OFFSET, nulls);
+        Unsafe.getUnsafe().putLong(entry + ENTRY_MIN_OFFSET, min);
+        Unsafe.getUnsafe().putLong(entry + ENTRY_MAX_OFFSET, max);
+        path.trimTo(plen);
+    }
+}
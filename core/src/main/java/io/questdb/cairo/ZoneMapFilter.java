@@ -0,0 +1,227 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+import java.io.Closeable;
+
+/**
+ * Decides whether partition may contain rows satisfying filter by looking at partition {@link ZoneMap}.
+ * Filter is a postfix program over clauses, each clause compares a column to a constant. Parts of the
+ * original filter that cannot be evaluated on statistics are represented as "unknown", which always
+ * may match. Partitions without statistics are never skipped.
+ */
+public class ZoneMapFilter implements Closeable {
+    public static final int CMP_EQ = 0;
+    public static final int CMP_NE = 1;
+    public static final int CMP_LT = 2;
+    public static final int CMP_LE = 3;
+    public static final int CMP_GT = 4;
+    public static final int CMP_GE = 5;
+    // matches any non-null value
+    public static final int CMP_ANY = 6;
+    // does not match non-null values, used for null checks
+    public static final int CMP_NONE = 7;
+
+    // program instructions, non-negative values are clause indexes
+    private static final int OP_UNKNOWN = -1;
+    private static final int OP_AND = -2;
+    private static final int OP_OR = -3;
+    private static final double EQ_EPSILON = 0.0000000001;
+
+    private final IntList program = new IntList();
+    private final ObjList<CharSequence> columnNames = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final IntList comparisons = new IntList();
+    // compare as doubles, otherwise as longs
+    private final IntList doubleComparisons = new IntList();
+    // whether null value satisfies comparison
+    private final IntList nullMatches = new IntList();
+    // long value or raw bits of double
+    private final LongList values = new LongList();
+    private final ZoneMap zoneMap = new ZoneMap();
+    private boolean[] stack;
+
+    public void addAnd() {
+        program.add(OP_AND);
+    }
+
+    public void addClause(CharSequence columnName, int columnType, int comparison, long value, boolean nullMatches) {
+        addClause0(columnName, columnType, comparison, value, false, nullMatches);
+    }
+
+    public void addClause(CharSequence columnName, int columnType, int comparison, double value, boolean nullMatches) {
+        addClause0(columnName, columnType, comparison, Double.doubleToRawLongBits(value), true, nullMatches);
+    }
+
+    public void addOr() {
+        program.add(OP_OR);
+    }
+
+    public void addUnknown() {
+        program.add(OP_UNKNOWN);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(zoneMap);
+    }
+
+    public int getClauseCount() {
+        return comparisons.size();
+    }
+
+    /**
+     * @param reader         table reader
+     * @param partitionIndex partition to check
+     * @return true when none of partition rows can satisfy filter
+     */
+    public boolean skip(TableReader reader, int partitionIndex) {
+        if (!reader.readZoneMap(partitionIndex, zoneMap)) {
+            return false;
+        }
+
+        if (stack == null || stack.length < program.size()) {
+            stack = new boolean[program.size()];
+        }
+
+        int sp = 0;
+        for (int i = 0, n = program.size(); i < n; i++) {
+            final int op = program.getQuick(i);
+            switch (op) {
+                case OP_UNKNOWN:
+                    stack[sp++] = true;
+                    break;
+                case OP_AND:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] && stack[sp];
+                    break;
+                case OP_OR:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] || stack[sp];
+                    break;
+                default:
+                    stack[sp++] = mayMatch(op);
+                    break;
+            }
+        }
+        assert sp == 1;
+        return !stack[0];
+    }
+
+    private static boolean isFloating(int columnType) {
+        return columnType == ColumnType.FLOAT || columnType == ColumnType.DOUBLE;
+    }
+
+    private static boolean rangeMayMatch(int comparison, double min, double max, double value) {
+        switch (comparison) {
+            case CMP_EQ:
+                // equality of doubles is approximate
+                return value > min - EQ_EPSILON && value < max + EQ_EPSILON;
+            case CMP_NE:
+                return Math.abs(min - value) >= EQ_EPSILON || Math.abs(max - value) >= EQ_EPSILON;
+            case CMP_LT:
+                return min < value;
+            case CMP_LE:
+                return min <= value;
+            case CMP_GT:
+                return max > value;
+            case CMP_GE:
+                return max >= value;
+            case CMP_ANY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean rangeMayMatch(int comparison, long min, long max, long value) {
+        switch (comparison) {
+            case CMP_EQ:
+                return value >= min && value <= max;
+            case CMP_NE:
+                return min != value || max != value;
+            case CMP_LT:
+                return min < value;
+            case CMP_LE:
+                return min <= value;
+            case CMP_GT:
+                return max > value;
+            case CMP_GE:
+                return max >= value;
+            case CMP_ANY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void addClause0(CharSequence columnName, int columnType, int comparison, long value, boolean doubleComparison, boolean nullMatches) {
+        program.add(comparisons.size());
+        columnNames.add(columnName);
+        columnTypes.add(columnType);
+        comparisons.add(comparison);
+        values.add(value);
+        doubleComparisons.add(doubleComparison ? 1 : 0);
+        this.nullMatches.add(nullMatches ? 1 : 0);
+    }
+
+    private boolean mayMatch(int clause) {
+        final int entry = zoneMap.getEntry(columnNames.getQuick(clause));
+        final int columnType = columnTypes.getQuick(clause);
+        if (entry < 0 || zoneMap.getColumnType(entry) != columnType) {
+            return true;
+        }
+
+        final long nullCount = zoneMap.getNullCount(entry);
+        if (nullCount > 0 && nullMatches.getQuick(clause) == 1) {
+            return true;
+        }
+
+        if (nullCount >= zoneMap.getRowCount()) {
+            // there are no values, only nulls
+            return false;
+        }
+
+        final int comparison = comparisons.getQuick(clause);
+        final long min = zoneMap.getMin(entry);
+        final long max = zoneMap.getMax(entry);
+        final long value = values.getQuick(clause);
+        if (doubleComparisons.getQuick(clause) == 1) {
+            final boolean floating = isFloating(columnType);
+            return rangeMayMatch(
+                    comparison,
+                    floating ? Double.longBitsToDouble(min) : (double) min,
+                    floating ? Double.longBitsToDouble(max) : (double) max,
+                    Double.longBitsToDouble(value)
+            );
+        }
+        return rangeMayMatch(comparison, min, max, value);
+    }
+}
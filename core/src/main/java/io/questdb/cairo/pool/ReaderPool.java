@@ -26,6 +26,7 @@ package io.questdb.cairo.pool;
 
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnBlockCache;
 import io.questdb.cairo.EntryUnavailableException;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.pool.ex.EntryLockedException;
@@ -33,6 +34,7 @@ import io.questdb.cairo.pool.ex.PoolClosedException;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.ConcurrentHashMap;
+import io.questdb.std.Misc;
 import io.questdb.std.Unsafe;
 
 import java.util.Arrays;
@@ -51,11 +53,13 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
     private final ConcurrentHashMap<Entry> entries = new ConcurrentHashMap<>();
     private final int maxSegments;
     private final int maxEntries;
+    private final ColumnBlockCache blockCache;
 
     public ReaderPool(CairoConfiguration configuration) {
         super(configuration, configuration.getInactiveReaderTTL());
         this.maxSegments = configuration.getReaderPoolMaxSegments();
         this.maxEntries = maxSegments * ENTRY_SIZE;
+        this.blockCache = new ColumnBlockCache(configuration.getColumnBlockCacheSize());
     }
 
     @Override
@@ -215,6 +219,7 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
     @Override
     protected void closePool() {
         super.closePool();
+        Misc.free(blockCache);
         LOG.info().$("closed").$();
     }
 
@@ -255,6 +260,11 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
             } while (e != null);
         }
 
+        if (closeReason == PoolConstants.CR_POOL_CLOSE) {
+            // blocks of readers that are still in use stay
+            blockCache.clear();
+        }
+
         // when we are timing out entries the result is "true" if there was any work done
         // when we closing pool, the result is true when pool is empty
         if (closeReason == PoolConstants.CR_IDLE) {
@@ -350,7 +360,7 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
         private Entry entry;
 
         public R(ReaderPool pool, Entry entry, int index, CharSequence name) {
-            super(pool.getConfiguration(), name);
+            super(pool.getConfiguration(), name, pool.getConfiguration().getRoot(), pool.blockCache);
             this.pool = pool;
             this.entry = entry;
             this.index = index;
@@ -30,4 +30,16 @@ import io.questdb.cairo.TableWriter;
 @FunctionalInterface
 public interface WriterSource {
     TableWriter getWriter(CairoSecurityContext context, CharSequence name);
+
+    /**
+     * Provides writer to append rows to write-ahead log of the table. Sources that do not
+     * maintain WAL hand out exclusive table writer instead.
+     *
+     * @param tableId          id of the table statement was compiled against
+     * @param structureVersion structure version statement was compiled against, sources that reuse
+     *                         segments start new segment when it differs from version of the segment
+     */
+    default TableWriter getWalWriter(CairoSecurityContext context, CharSequence name, int tableId, long structureVersion) {
+        return getWriter(context, name);
+    }
 }
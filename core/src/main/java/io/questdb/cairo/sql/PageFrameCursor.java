@@ -33,8 +33,25 @@ public interface PageFrameCursor extends Closeable {
     @Override
     void close(); // we don't throw IOException
 
+    /**
+     * Number of pages of earlier frames that cursor keeps pinned until {@link #releaseFrames()} is called.
+     * Only columns of compressed partitions have such pages, they are decompressed blocks held in cache.
+     *
+     * @return number of pages that can be released
+     */
+    default int getRetiredPageCount() {
+        return 0;
+    }
+
     @Nullable PageFrame next();
 
+    /**
+     * Releases pages of frames returned by {@link #next()} before the last one. Consumer calls this once it
+     * no longer reads addresses of these frames.
+     */
+    default void releaseFrames() {
+    }
+
     void toTop();
 
     long size();
@@ -0,0 +1,181 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.vm;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnBlockCache;
+import io.questdb.cairo.ColumnCompressor;
+import io.questdb.cairo.TableUtils;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.LongList;
+import io.questdb.std.str.LPSZ;
+
+/**
+ * Read-only view of compressed column file, see {@link ColumnCompressor}. File is mapped when memory
+ * is opened and values are decompressed block at a time into shared {@link ColumnBlockCache}. Every block
+ * of the file is a page of this memory.
+ * <p>
+ * Values read by offset keep only the block they are in pinned. Page addresses stay pinned until
+ * {@link #releasePage(int)} is called, frame cursors do that once consumer is done with frames they moved
+ * past. Reader releases whatever is left pinned when it goes back to the pool. Memory does not hold
+ * decompressed values of its own.
+ */
+public class CompressedColumnMemory extends SinglePageMappedReadOnlyPageMemory {
+    private static final Log LOG = LogFactory.getLog(CompressedColumnMemory.class);
+    private final ColumnBlockCache cache;
+    private final LongList pageAddresses = new LongList();
+    private long compressedPage = -1;
+    private long compressedSize;
+    private long fileId;
+    private int blockShift;
+    private long blockMask;
+    private int blockCount;
+    private int rowBlock = -1;
+    private long rowBlockAddress;
+
+    public CompressedColumnMemory(FilesFacade ff, LPSZ name, ColumnBlockCache cache) {
+        this.cache = cache;
+        of(ff, name, 0);
+    }
+
+    @Override
+    public long addressOf(long offset) {
+        assert offset < size : "offset=" + offset + ", size=" + size + ", fd=" + fd;
+        final int block = (int) (offset >>> blockShift);
+        if (block != rowBlock) {
+            if (rowBlock != -1) {
+                cache.unpin(fileId, rowBlock);
+            }
+            rowBlockAddress = cache.pin(compressedPage, block);
+            rowBlock = block;
+        }
+        return rowBlockAddress + (offset & blockMask);
+    }
+
+    @Override
+    public void close() {
+        releasePages();
+        if (compressedPage != -1) {
+            ff.munmap(compressedPage, compressedSize);
+            compressedPage = -1;
+        }
+        size = 0;
+        blockCount = 0;
+        if (fd != -1) {
+            ff.close(fd);
+            fd = -1;
+        }
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long pageSize, long size) {
+        of(ff, name, pageSize);
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long pageSize) {
+        close();
+        this.ff = ff;
+        this.fd = TableUtils.openRO(ff, name, LOG);
+        this.compressedSize = ff.length(fd);
+        this.compressedPage = ff.mmap(fd, compressedSize, 0, Files.MAP_RO);
+        if (compressedPage == FilesFacade.MAP_FAILED) {
+            compressedPage = -1;
+            close();
+            throw CairoException.instance(ff.errno()).put("could not mmap [file=").put(name).put(']');
+        }
+        final int valueShift = ColumnCompressor.getBlockShift(compressedPage);
+        if (valueShift > ColumnCompressor.BLOCK_VALUE_COUNT_SHIFT) {
+            close();
+            throw CairoException.instance(0).put("unsupported block size [file=").put(name).put(", shift=").put(valueShift).put(']');
+        }
+        this.blockShift = valueShift + 3;
+        this.blockMask = (1L << blockShift) - 1;
+        this.blockCount = ColumnCompressor.getBlockCount(compressedPage);
+        this.fileId = ColumnCompressor.getFileId(compressedPage);
+        this.size = ColumnCompressor.getValueCount(compressedPage) * Long.BYTES;
+        pageAddresses.setAll(blockCount, 0);
+        LOG.debug().$("open ").$(name).$(" [fd=").$(fd).$(", compressedSize=").$(compressedSize).$(", size=").$(size).$(']').$();
+    }
+
+    @Override
+    public long getPageAddress(int pageIndex) {
+        long address = pageAddresses.getQuick(pageIndex);
+        if (address == 0) {
+            address = cache.pin(compressedPage, pageIndex);
+            pageAddresses.setQuick(pageIndex, address);
+        }
+        return address;
+    }
+
+    @Override
+    public int getPageCount() {
+        return blockCount;
+    }
+
+    @Override
+    public long getPageSize(int pageIndex) {
+        return ColumnCompressor.getBlockValueCount(compressedPage, pageIndex) * Long.BYTES;
+    }
+
+    @Override
+    public void grow(long newSize) {
+        // compressed partitions are immutable, all values are available once file is open
+    }
+
+    @Override
+    public void growToFileSize() {
+    }
+
+    /**
+     * Unpins block that was handed out as address of the page. Address must not be used after this call.
+     *
+     * @param pageIndex index of page
+     */
+    public void releasePage(int pageIndex) {
+        if (pageAddresses.getQuick(pageIndex) != 0) {
+            cache.unpin(fileId, pageIndex);
+            pageAddresses.setQuick(pageIndex, 0);
+        }
+    }
+
+    /**
+     * Unpins blocks that were handed out as page addresses or read by offset. Addresses returned
+     * before this call must not be used after it.
+     */
+    public void releasePages() {
+        for (int i = 0, n = pageAddresses.size(); i < n; i++) {
+            releasePage(i);
+        }
+        if (rowBlock != -1) {
+            cache.unpin(fileId, rowBlock);
+            rowBlock = -1;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.vm;
+
+import io.questdb.std.IntList;
+import io.questdb.std.ObjList;
+
+/**
+ * Pages of compressed columns that frame cursor has handed out. Every column keeps the page of its
+ * current frame mapped, pages the cursor moved past are retired and stay pinned until consumer releases
+ * them, because consumers may still read earlier frames on other threads.
+ */
+public class CompressedPageTracker {
+    private final ObjList<CompressedColumnMemory> mappedColumns = new ObjList<>();
+    private final IntList mappedPages = new IntList();
+    private final ObjList<CompressedColumnMemory> retiredColumns = new ObjList<>();
+    private final IntList retiredPages = new IntList();
+
+    /**
+     * Forgets pages without releasing them, reader releases pages that are left pinned when it goes
+     * back to the pool.
+     *
+     * @param columnCount number of columns of the frame
+     */
+    public void of(int columnCount) {
+        mappedColumns.setAll(columnCount, null);
+        mappedPages.setAll(columnCount, -1);
+        retiredColumns.clear();
+        retiredPages.clear();
+    }
+
+    public int getRetiredPageCount() {
+        return retiredPages.size();
+    }
+
+    /**
+     * Returns address of the page and retires page that column was mapped to before.
+     *
+     * @param columnIndex index of column in the frame
+     * @param mem         column memory
+     * @param pageIndex   index of page
+     * @return page address
+     */
+    public long map(int columnIndex, ReadOnlyVirtualMemory mem, int pageIndex) {
+        final CompressedColumnMemory mapped = mappedColumns.getQuick(columnIndex);
+        if (mapped != mem || mappedPages.getQuick(columnIndex) != pageIndex) {
+            retire(columnIndex);
+            if (mem instanceof CompressedColumnMemory) {
+                mappedColumns.setQuick(columnIndex, (CompressedColumnMemory) mem);
+                mappedPages.setQuick(columnIndex, pageIndex);
+            }
+        }
+        return mem.getPageAddress(pageIndex);
+    }
+
+    /**
+     * Releases pages of all frames, including the current one.
+     */
+    public void releaseAll() {
+        for (int i = 0, n = mappedColumns.size(); i < n; i++) {
+            retire(i);
+        }
+        releaseRetired();
+    }
+
+    /**
+     * Releases retired pages. Pages that other columns of the frame are still mapped to stay pinned.
+     */
+    public void releaseRetired() {
+        for (int i = 0, n = retiredPages.size(); i < n; i++) {
+            final CompressedColumnMemory mem = retiredColumns.getQuick(i);
+            final int pageIndex = retiredPages.getQuick(i);
+            if (!isMapped(mem, pageIndex)) {
+                mem.releasePage(pageIndex);
+            }
+        }
+        retiredColumns.clear();
+        retiredPages.clear();
+    }
+
+    private boolean isMapped(CompressedColumnMemory mem, int pageIndex) {
+        for (int i = 0, n = mappedColumns.size(); i < n; i++) {
+            if (mappedColumns.getQuick(i) == mem && mappedPages.getQuick(i) == pageIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void retire(int columnIndex) {
+        final CompressedColumnMemory mem = mappedColumns.getQuick(columnIndex);
+        if (mem != null) {
+            retiredColumns.add(mem);
+            retiredPages.add(mappedPages.getQuick(columnIndex));
+            mappedColumns.setQuick(columnIndex, null);
+            mappedPages.setQuick(columnIndex, -1);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.vm;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.Path;
+
+/**
+ * A version of {@link ContiguousVirtualMemory} that is backed by a memory-mapped file rather than
+ * heap allocation. File is created in given directory when memory is first extended and it is removed
+ * when memory is released, which makes this memory suitable for temporary data that may not fit in RAM.
+ */
+public class ContiguousMappedVirtualMemory extends ContiguousVirtualMemory {
+    private final FilesFacade ff;
+    private final CharSequence dir;
+    private final CharSequence fileName;
+    private final int mkDirMode;
+    private long fd = -1;
+
+    public ContiguousMappedVirtualMemory(
+            FilesFacade ff,
+            CharSequence dir,
+            CharSequence fileName,
+            int mkDirMode,
+            long pageSize,
+            int maxPages
+    ) {
+        super(pageSize, maxPages);
+        this.ff = ff;
+        this.dir = dir;
+        this.fileName = fileName;
+        this.mkDirMode = mkDirMode;
+    }
+
+    @Override
+    protected long reallocateMemory(long currentBaseAddress, long currentSize, long newSize) {
+        if (fd == -1) {
+            openFile();
+        }
+
+        if (!ff.allocate(fd, newSize)) {
+            throw CairoException.instance(ff.errno()).put("No space left [size=").put(newSize).put(", fd=").put(fd).put(']');
+        }
+
+        final long address;
+        if (currentBaseAddress != 0) {
+            address = ff.mremap(fd, currentBaseAddress, currentSize, newSize, 0, Files.MAP_RW);
+        } else {
+            address = ff.mmap(fd, newSize, 0, Files.MAP_RW);
+        }
+        if (address == FilesFacade.MAP_FAILED) {
+            throw CairoException.instance(ff.errno()).put("could not mmap [fd=").put(fd).put(", previousSize=").put(currentSize).put(", newSize=").put(newSize).put(']');
+        }
+        return address;
+    }
+
+    @Override
+    protected void releaseMemory() {
+        final long size = getMemorySize();
+        if (size > 0) {
+            ff.munmap(addressOf(0), size);
+            handleMemoryReleased();
+        }
+
+        if (fd != -1) {
+            ff.close(fd);
+            fd = -1;
+            final Path path = Path.getThreadLocal(dir).concat(fileName).$();
+            if (!ff.remove(path)) {
+                throw CairoException.instance(ff.errno()).put("could not remove [file=").put(path).put(']');
+            }
+        }
+    }
+
+    private void openFile() {
+        final Path path = Path.getThreadLocal(dir);
+        if (ff.mkdirs(path.slash$(), mkDirMode) != 0) {
+            throw CairoException.instance(ff.errno()).put("could not create directory [path=").put(path).put(']');
+        }
+        fd = ff.openRW(path.chop$().concat(fileName).$());
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("could not open [file=").put(path).put(']');
+        }
+    }
+}
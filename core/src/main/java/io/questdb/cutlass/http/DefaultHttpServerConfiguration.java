@@ -106,6 +106,16 @@ public class DefaultHttpServerConfiguration implements HttpServerConfiguration {
             return Long.MAX_VALUE;
         }
 
+        @Override
+        public int getMaxOpenCursors() {
+            return 16;
+        }
+
+        @Override
+        public long getOpenCursorTimeout() {
+            return 60_000;
+        }
+
         @Override
         public SqlInterruptorConfiguration getInterruptorConfiguration() {
             return interruptorConfiguration;
@@ -34,8 +34,11 @@ import io.questdb.std.*;
 import io.questdb.std.str.DirectByteCharSequence;
 import io.questdb.std.str.StdoutSink;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class HttpConnectionContext implements IOContext, Locality, Mutable, Retry {
     private static final Log LOG = LogFactory.getLog(HttpConnectionContext.class);
+    private static final AtomicLong CONNECTION_ID = new AtomicLong();
     private final HttpHeaderParser headerParser;
     private final long recvBuffer;
     private final int recvBufferSize;
@@ -57,8 +60,10 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
     };
     private final boolean serverKeepAlive;
     private long fd;
+    private long connectionId;
     private HttpRequestProcessor resumeProcessor = null;
     private boolean pendingRetry = false;
+    private boolean retryWaitReset = false;
     private IODispatcher<HttpConnectionContext> dispatcher;
     private int nCompletedRequests;
     private long totalBytesSent;
@@ -98,6 +103,7 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
             LOG.error().$("Reused context with retry pending.").$();
         }
         this.pendingRetry = false;
+        this.retryWaitReset = false;
         this.multipartParserState.multipartRetry = false;
         this.retryAttemptAttributes.waitStartTimestamp = 0;
         this.retryAttemptAttributes.lastRunTimestamp = 0;
@@ -140,6 +146,13 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
         return dispatcher;
     }
 
+    /**
+     * @return id that is unique for each accepted connection, unlike fd and pooled context it is never reused
+     */
+    public long getConnectionId() {
+        return connectionId;
+    }
+
     public CairoSecurityContext getCairoSecurityContext() {
         return cairoSecurityContext;
     }
@@ -205,6 +218,7 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
 
     public HttpConnectionContext of(long fd, IODispatcher<HttpConnectionContext> dispatcher) {
         this.fd = fd;
+        this.connectionId = CONNECTION_ID.incrementAndGet();
         this.dispatcher = dispatcher;
         this.responseSink.of(fd);
         return this;
@@ -423,6 +437,9 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
                 LOG.info().$("retrying query [fd=").$(fd).$(']').$();
                 processor.onRequestRetry(this);
                 if (multipartParserState.multipartRetry) {
+                    // the flag is set again if parser is interrupted by another retry, it must not
+                    // stay set when the retry happens after the request body has been consumed
+                    multipartParserState.multipartRetry = false;
                     if (continueConsumeMultipart(
                             fd,
                             multipartParserState.start,
@@ -442,6 +459,11 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
                 }
             } catch (RetryOperationException e2) {
                 pendingRetry = true;
+                if (retryWaitReset) {
+                    retryWaitReset = false;
+                    scheduleRetry(processor, rescheduleContext);
+                    return true;
+                }
                 return false;
             } catch (PeerDisconnectedException ignore) {
                 handlePeerDisconnect();
@@ -611,6 +633,14 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable, Retr
         return busyRecv;
     }
 
+    /**
+     * Processor calls this when retried request made progress but has to be retried again.
+     * Next retry is scheduled after the shortest wait instead of the growing one.
+     */
+    public void resetRetryWait() {
+        retryWaitReset = true;
+    }
+
     @Override
     public RetryAttemptAttributes getAttemptDetails() {
         return retryAttemptAttributes;
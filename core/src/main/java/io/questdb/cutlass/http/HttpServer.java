@@ -31,8 +31,12 @@ import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.ColumnIndexerJob;
 import io.questdb.cairo.TableBlockWriter.TableBlockWriterJob;
 import io.questdb.cutlass.http.processors.*;
+import io.questdb.cutlass.line.tcp.LineTcpServer;
 import io.questdb.griffin.FunctionFactoryCache;
+import io.questdb.griffin.engine.groupby.ParallelGroupByJob;
 import io.questdb.griffin.engine.groupby.vect.GroupByJob;
+import io.questdb.griffin.engine.join.HashJoinJob;
+import io.questdb.griffin.engine.table.FilterJob;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.EagerThreadSetup;
@@ -116,6 +120,28 @@ public class HttpServer implements Closeable {
             MessageBus messageBus,
             HttpRequestProcessorBuilder jsonQueryProcessorBuilder,
             FunctionFactoryCache functionFactoryCache
+    ) {
+        addDefaultEndpoints(
+                server,
+                configuration,
+                cairoEngine,
+                workerPool,
+                messageBus,
+                jsonQueryProcessorBuilder,
+                functionFactoryCache,
+                null
+        );
+    }
+
+    public static void addDefaultEndpoints(
+            HttpServer server,
+            HttpServerConfiguration configuration,
+            CairoEngine cairoEngine,
+            WorkerPool workerPool,
+            MessageBus messageBus,
+            HttpRequestProcessorBuilder jsonQueryProcessorBuilder,
+            FunctionFactoryCache functionFactoryCache,
+            @Nullable LineTcpServer lineTcpServer
     ) {
         server.bind(new HttpRequestProcessorFactory() {
             @Override
@@ -171,6 +197,20 @@ public class HttpServer implements Closeable {
             }
         });
 
+        if (lineTcpServer != null) {
+            server.bind(new HttpRequestProcessorFactory() {
+                @Override
+                public HttpRequestProcessor newInstance() {
+                    return new LineHttpProcessor(lineTcpServer, configuration.getJsonQueryProcessorConfiguration());
+                }
+
+                @Override
+                public String getUrl() {
+                    return "/write";
+                }
+            });
+        }
+
         server.bind(new HttpRequestProcessorFactory() {
             @Override
             public HttpRequestProcessor newInstance() {
@@ -186,6 +226,9 @@ public class HttpServer implements Closeable {
         // jobs that help parallel execution of queries
         workerPool.assign(new ColumnIndexerJob(messageBus));
         workerPool.assign(new GroupByJob(messageBus));
+        workerPool.assign(new FilterJob(messageBus));
+        workerPool.assign(new ParallelGroupByJob(messageBus));
+        workerPool.assign(new HashJoinJob(messageBus));
         workerPool.assign(new TableBlockWriterJob(messageBus));
     }
 
@@ -241,6 +284,29 @@ public class HttpServer implements Closeable {
         );
     }
 
+    /**
+     * Creates server, which also accepts line protocol on "/write" endpoint when line TCP server is given.
+     * Line TCP server has to be created with worker count of this server.
+     */
+    @Nullable
+    public static HttpServer create(
+            HttpServerConfiguration configuration,
+            WorkerPool sharedWorkerPool,
+            Log workerPoolLog,
+            CairoEngine cairoEngine,
+            @Nullable FunctionFactoryCache functionFactoryCache,
+            @Nullable LineTcpServer lineTcpServer
+    ) {
+        return WorkerPoolAwareConfiguration.create(
+                configuration,
+                sharedWorkerPool,
+                workerPoolLog,
+                cairoEngine,
+                (conf, engine, workerPool, local, messageBus, cache) -> create0(conf, engine, workerPool, local, messageBus, cache, lineTcpServer),
+                functionFactoryCache
+        );
+    }
+
     @Nullable
     public static HttpServer createMin(
             HttpMinServerConfiguration configuration,
@@ -288,16 +354,30 @@ public class HttpServer implements Closeable {
             boolean localPool,
             MessageBus messageBus,
             FunctionFactoryCache functionFactoryCache
+    ) {
+        return create0(configuration, cairoEngine, workerPool, localPool, messageBus, functionFactoryCache, null);
+    }
+
+    private static HttpServer create0(
+            HttpServerConfiguration configuration,
+            CairoEngine cairoEngine,
+            WorkerPool workerPool,
+            boolean localPool,
+            MessageBus messageBus,
+            FunctionFactoryCache functionFactoryCache,
+            @Nullable LineTcpServer lineTcpServer
     ) {
         final HttpServer s = new HttpServer(configuration, workerPool, localPool);
         QueryCache.configure(configuration);
+        // closes open cursors that are not resumed in time
+        workerPool.assign(QueryCache.getInstance().getCursors());
         HttpRequestProcessorBuilder jsonQueryProcessorBuilder = () -> new JsonQueryProcessor(
                 configuration.getJsonQueryProcessorConfiguration(),
                 cairoEngine,
                 messageBus,
                 workerPool.getWorkerCount(),
                 functionFactoryCache);
-        addDefaultEndpoints(s, configuration, cairoEngine, workerPool, messageBus, jsonQueryProcessorBuilder, functionFactoryCache);
+        addDefaultEndpoints(s, configuration, cairoEngine, workerPool, messageBus, jsonQueryProcessorBuilder, functionFactoryCache, lineTcpServer);
         return s;
     }
 
@@ -61,6 +61,9 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
     private final Path path = new Path();
     private final NanosecondClock nanosecondClock;
     private final HttpSqlExecutionInterruptor interruptor;
+    private final CairoEngine engine;
+    private final MessageBus messageBus;
+    private final int workerCount;
 
     public JsonQueryProcessor(
             JsonQueryProcessorConfiguration configuration,
@@ -105,12 +108,16 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         this.queryExecutors.extendAndSet(CompiledQuery.COPY_REMOTE, JsonQueryProcessor::cannotCopyRemote);
         this.queryExecutors.extendAndSet(CompiledQuery.BACKUP_TABLE, sendConfirmation);
         this.sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount, messageBus);
+        this.engine = engine;
+        this.messageBus = messageBus;
+        this.workerCount = workerCount;
         this.nanosecondClock = engine.getConfiguration().getNanosecondClock();
         this.interruptor = new HttpSqlExecutionInterruptor(configuration.getInterruptorConfiguration());
     }
 
     @Override
     public void close() {
+        sqlExecutionContext.clearWalWriters();
         Misc.free(compiler);
         Misc.free(path);
         Misc.free(interruptor);
@@ -123,9 +130,22 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         // the only time we need to copy random from state is when we resume request execution
         sqlExecutionContext.with(context.getCairoSecurityContext(), null, null, context.getFd(), interruptor.of(context.getFd()));
         state.info().$("exec [q='").utf8(state.getQuery()).$("']").$();
-        final RecordCursorFactory factory = QueryCache.getInstance().poll(state.getQuery());
+        final QueryCursorCache cursors = QueryCache.getInstance().getCursors();
+        final QueryCursorCache.Entry openCursor = state.getResumeCursorId() != -1
+                ? cursors.poll(state.getResumeCursorId(), context.getConnectionId(), state.getQuery(), state.getSkip())
+                : null;
+        if (openCursor == null && state.isCursorRequested() && cursors.isEnabled() && state.getCursorEntry() == null) {
+            // cursor that may outlive the request must not share execution context of the worker
+            state.setCursorEntry(new QueryCursorCache.Entry(
+                    new SqlExecutionContextImpl(engine, workerCount, messageBus),
+                    new HttpSqlExecutionInterruptor(configuration.getInterruptorConfiguration())
+            ));
+        }
+        final RecordCursorFactory factory = openCursor == null ? QueryCache.getInstance().poll(state.getQuery()) : null;
         try {
-            if (factory != null) {
+            if (openCursor != null) {
+                executeOpenCursor(state, openCursor, configuration.getKeepAliveHeader());
+            } else if (factory != null) {
                 try {
                     sqlExecutionContext.storeTelemetry(CompiledQuery.SELECT, Telemetry.ORIGIN_HTTP_JSON);
                     executeCachedSelect(
@@ -133,7 +153,9 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
                             factory,
                             configuration.getKeepAliveHeader());
                 } catch (ReaderOutOfDateException e) {
+                    // idle copies of this query were compiled against the same table structure
                     Misc.free(factory);
+                    QueryCache.getInstance().remove(state.getQuery());
                     compileQuery(state);
                 }
             } else {
@@ -189,7 +211,7 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         final JsonQueryProcessorState state = LV.get(context);
         if (state != null) {
             // we are resuming request execution, we need to copy random to execution context
-            sqlExecutionContext.with(context.getCairoSecurityContext(), null, state.getRnd(), context.getFd(), interruptor.of(context.getFd()));
+            bindExecutionContext(state, state.getRnd());
             doResumeSend(state, context);
         }
     }
@@ -199,7 +221,8 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         final JsonQueryProcessorState state = LV.get(context);
         if (state != null) {
             // preserve random when we park the context
-            state.setRnd(sqlExecutionContext.getRandom());
+            final QueryCursorCache.Entry entry = state.getCursorEntry();
+            state.setRnd(entry != null ? entry.getExecutionContext().getRandom() : sqlExecutionContext.getRandom());
         }
     }
 
@@ -309,6 +332,15 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         );
     }
 
+    private SqlExecutionContextImpl bindExecutionContext(JsonQueryProcessorState state, @Nullable Rnd rnd) {
+        final HttpConnectionContext context = state.getHttpConnectionContext();
+        final QueryCursorCache.Entry entry = state.getCursorEntry();
+        if (entry != null) {
+            return entry.getExecutionContext().with(context.getCairoSecurityContext(), null, rnd, context.getFd(), entry.getInterruptor().of(context.getFd()));
+        }
+        return sqlExecutionContext.with(context.getCairoSecurityContext(), null, rnd, context.getFd(), interruptor.of(context.getFd()));
+    }
+
     private void executeCachedSelect(
             JsonQueryProcessorState state,
             RecordCursorFactory factory,
@@ -319,6 +351,25 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         executeSelect(state, factory, keepAliveHeader);
     }
 
+    private void executeOpenCursor(
+            JsonQueryProcessorState state,
+            QueryCursorCache.Entry entry,
+            CharSequence keepAliveHeader
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        state.setCompilerNanos(0);
+        state.logExecuteCursor();
+        final HttpConnectionContext context = state.getHttpConnectionContext();
+        state.setCursorEntry(entry);
+        // cursor was opened by previous request, it has to check this request for interruption
+        bindExecutionContext(state, null);
+        if (state.of(entry)) {
+            header(context.getChunkedResponseSocket(), keepAliveHeader);
+            doResumeSend(state, context);
+        } else {
+            readyForNextRequest(context);
+        }
+    }
+
     @Override
     public void onRequestRetry(
             HttpConnectionContext context
@@ -367,7 +418,7 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
         final HttpConnectionContext context = state.getHttpConnectionContext();
         try {
-            if (state.of(factory, sqlExecutionContext)) {
+            if (state.of(factory, bindExecutionContext(state, null))) {
                 header(context.getChunkedResponseSocket(), keepAliveHeader);
                 doResumeSend(state, context);
             } else {
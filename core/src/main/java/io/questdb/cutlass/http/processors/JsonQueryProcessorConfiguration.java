@@ -44,5 +44,9 @@ public interface JsonQueryProcessorConfiguration {
 
     long getMaxQueryResponseRowLimit();
 
+    int getMaxOpenCursors();
+
+    long getOpenCursorTimeout();
+
     SqlInterruptorConfiguration getInterruptorConfiguration();
 }
@@ -90,6 +90,18 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     private long compilerNanos;
     private boolean timings;
     private boolean queryCacheable = false;
+    // client asked to keep cursor open between pages
+    private boolean cursorRequested = false;
+    // id of the open cursor client wants to resume, -1 when there is none
+    private long resumeCursorId = -1;
+    // id of the cursor to be kept open after this page, -1 when cursor is closed
+    private long cursorId = -1;
+    private boolean cursorHasMore = false;
+    private boolean cursorResumed = false;
+    // resumed cursor is positioned at the first record of the page
+    private boolean cursorPositioned = false;
+    // execution context of the cursor client asked to keep open, kept for the next cursor once cursor is closed
+    private QueryCursorCache.Entry cursorEntry;
 
     public JsonQueryProcessorState(
             HttpConnectionContext httpConnectionContext,
@@ -149,6 +161,25 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         columnCount = 0;
         columnTypes.clear();
         columnNames.clear();
+        if (cursorId != -1) {
+            if (cursor != null && cursorEntry != null && QueryCache.getInstance().getCursors().push(
+                    cursorEntry,
+                    cursorId,
+                    httpConnectionContext.getConnectionId(),
+                    query,
+                    stop,
+                    recordCursorFactory,
+                    cursor
+            )) {
+                cursor = null;
+                recordCursorFactory = null;
+                cursorEntry = null;
+            }
+            cursorId = -1;
+        }
+        cursorHasMore = false;
+        cursorResumed = false;
+        cursorPositioned = false;
         cursor = Misc.free(cursor);
         record = null;
         if (null != recordCursorFactory) {
@@ -170,6 +201,7 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     public void close() {
         cursor = Misc.free(cursor);
         recordCursorFactory = Misc.free(recordCursorFactory);
+        cursorEntry = Misc.free(cursorEntry);
     }
 
     public void configure(
@@ -186,6 +218,16 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         this.noMeta = Chars.equalsNc("true", request.getUrlParam("nm"));
         this.countRows = Chars.equalsNc("true", request.getUrlParam("count"));
         this.timings = Chars.equalsNc("true", request.getUrlParam("timings"));
+        final DirectByteCharSequence cursorParam = request.getUrlParam("cursor");
+        this.cursorRequested = cursorParam != null;
+        this.resumeCursorId = -1;
+        if (cursorParam != null && !Chars.equals("true", cursorParam)) {
+            try {
+                this.resumeCursorId = Numbers.parseLong(cursorParam);
+            } catch (NumericException ignore) {
+                // new cursor will be opened
+            }
+        }
     }
 
     public LogRecord error() {
@@ -200,6 +242,25 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         return query;
     }
 
+    /**
+     * @return execution context holder of the cursor, null when client did not ask to keep cursor open
+     */
+    public QueryCursorCache.Entry getCursorEntry() {
+        return cursorRequested ? cursorEntry : null;
+    }
+
+    public long getResumeCursorId() {
+        return resumeCursorId;
+    }
+
+    public long getSkip() {
+        return skip;
+    }
+
+    public boolean isCursorRequested() {
+        return cursorRequested;
+    }
+
     public Rnd getRnd() {
         return rnd;
     }
@@ -220,6 +281,14 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         info().$("execute-cached ").$("[skip: ").$(skip).$(", stop: ").$(stop).$(']').$();
     }
 
+    public void logExecuteCursor() {
+        info().$("execute-cursor ").
+                $("[id: ").$(resumeCursorId).
+                $(", skip: ").$(skip).
+                $(", stop: ").$(stop).
+                $(']').$();
+    }
+
     public void logExecuteNew() {
         info().$("execute-new ").
                 $("[skip: ").$(skip).
@@ -240,6 +309,13 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
                 $("`]").$();
     }
 
+    public void setCursorEntry(QueryCursorCache.Entry entry) {
+        if (cursorEntry != entry) {
+            Misc.free(cursorEntry);
+            cursorEntry = entry;
+        }
+    }
+
     public void setCompilerNanos(long compilerNanos) {
         this.compilerNanos = compilerNanos;
     }
@@ -428,6 +504,7 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
             if (count < stop) {
                 return true;
             } else {
+                cursorHasMore = true;
                 onNoMoreData();
             }
         }
@@ -485,6 +562,12 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
             socket.bookmark();
             socket.put(']');
             socket.put(',').putQuoted("count").put(':').put(count);
+            if (cursorRequested && cursorHasMore && !countRows) {
+                if (cursorId == -1) {
+                    cursorId = cursorResumed ? resumeCursorId : QueryCache.getInstance().getCursors().nextId();
+                }
+                socket.put(',').putQuoted("cursor").put(':').put(cursorId);
+            }
             if (timings) {
                 socket.put(',').putQuoted("timings").put(':').put('{');
                 socket.putQuoted("compiler").put(':').put(compilerNanos).put(',');
@@ -524,7 +607,20 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         this.recordCursorFactory = factory;
         queryCacheable = true;
         this.cursor = factory.getCursor(sqlExecutionContext);
-        final RecordMetadata metadata = factory.getMetadata();
+        return of(factory.getMetadata());
+    }
+
+    boolean of(QueryCursorCache.Entry entry) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        this.recordCursorFactory = entry.getFactory();
+        queryCacheable = true;
+        this.cursor = entry.getCursor();
+        entry.clear();
+        this.cursorResumed = true;
+        this.cursorPositioned = true;
+        return of(recordCursorFactory.getMetadata());
+    }
+
+    private boolean of(RecordMetadata metadata) throws PeerDisconnectedException, PeerIsSlowToReadException {
         HttpRequestHeader header = httpConnectionContext.getRequestHeader();
         DirectByteCharSequence columnNames = header.getUrlParam("cols");
         this.valueWriters.clear();
@@ -643,7 +739,11 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     }
 
     private boolean onQuerySetupFirstRecord() {
-        if (skip > 0) {
+        if (cursorPositioned) {
+            // cursor stopped at the first record of this page when previous page was sent
+            cursorPositioned = false;
+            count = skip;
+        } else if (skip > 0) {
             final RecordCursor cursor = this.cursor;
             long target = skip + 1;
             while (target > 0 && cursor.hasNext()) {
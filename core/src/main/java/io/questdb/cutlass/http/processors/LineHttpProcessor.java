@@ -0,0 +1,197 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cutlass.http.*;
+import io.questdb.cutlass.http.ex.RetryOperationException;
+import io.questdb.cutlass.line.tcp.LineHttpBatch;
+import io.questdb.cutlass.line.tcp.LineHttpLoader;
+import io.questdb.cutlass.line.tcp.LineTcpServer;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.network.NetworkFacade;
+import io.questdb.network.PeerDisconnectedException;
+import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.network.ServerDisconnectException;
+import io.questdb.std.Chars;
+import io.questdb.std.Unsafe;
+
+import java.io.Closeable;
+
+/**
+ * Accepts line protocol in parts of multipart request body. Measurements are streamed chunk by chunk
+ * to writer threads of line TCP receiver. The response is sent once writer threads have committed
+ * the tables request has written to, so it acknowledges that the data is durable.
+ */
+public class LineHttpProcessor implements HttpRequestProcessor, HttpMultipartContentListener, Closeable {
+    static final int PHASE_LOAD = 0;
+    private static final int PHASE_FLUSH = 1;
+    private static final int PHASE_COMMIT = 2;
+    private final static Log LOG = LogFactory.getLog(LineHttpProcessor.class);
+    // Local value has to be static because each thread will have its own instance of
+    // processor. For different threads to lookup the same value from local value map the key,
+    // which is LV, has to be the same between processor instances
+    private static final LocalValue<LineHttpProcessorState> LV = new LocalValue<>();
+    private final LineHttpLoader loader;
+    private final String keepAliveHeader;
+    private final NetworkFacade nf;
+    private long peekBuffer;
+    private LineHttpProcessorState transientState;
+
+    public LineHttpProcessor(LineTcpServer lineTcpServer, JsonQueryProcessorConfiguration configuration) {
+        this.loader = lineTcpServer.newHttpLoader();
+        this.keepAliveHeader = Chars.toString(configuration.getKeepAliveHeader());
+        this.nf = configuration.getInterruptorConfiguration().getNetworkFacade();
+        this.peekBuffer = Unsafe.malloc(1);
+    }
+
+    @Override
+    public void close() {
+        if (peekBuffer != 0) {
+            Unsafe.free(peekBuffer, 1);
+            peekBuffer = 0;
+        }
+    }
+
+    @Override
+    public void onChunk(long lo, long hi) {
+        if (hi > lo && !loader.load(transientState.batch, lo, hi)) {
+            // writer queue is full, rest of the chunk is loaded on retry
+            throw RetryOperationException.INSTANCE;
+        }
+    }
+
+    @Override
+    public void onPartBegin(HttpRequestHeader partHeader) {
+        LOG.debug().$("part begin [name=").$(partHeader.getContentDispositionName()).$(']').$();
+    }
+
+    @Override
+    public void onPartEnd() {
+        // measurements do not span parts, last measurement of the part is published with the next chunk
+        loader.terminateLine(transientState.batch);
+    }
+
+    @Override
+    public void onRequestComplete(
+            HttpConnectionContext context
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+        transientState = LV.get(context);
+        complete(context, transientState);
+    }
+
+    @Override
+    public void onRequestRetry(
+            HttpConnectionContext context
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+        transientState = LV.get(context);
+        final LineHttpBatch batch = transientState.batch;
+        final long nLines = batch.getLineCount() + batch.getRejectedLineCount();
+        if (transientState.phase == PHASE_COMMIT && nf.peek(context.getFd(), peekBuffer, 1) < 0) {
+            // client is not waiting for the response, writer threads acknowledge the batch
+            // after the connection is gone
+            LOG.info().$("client disconnected while waiting for commit [fd=").$(context.getFd()).$(']').$();
+            throw PeerDisconnectedException.INSTANCE;
+        }
+        try {
+            if (transientState.phase == PHASE_LOAD) {
+                if (!loader.resume(batch)) {
+                    throw RetryOperationException.INSTANCE;
+                }
+            } else {
+                complete(context, transientState);
+            }
+        } catch (RetryOperationException e) {
+            if (batch.getLineCount() + batch.getRejectedLineCount() > nLines) {
+                // writer threads are keeping up, full queue should not delay the request more with every retry
+                context.resetRetryWait();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void failRequest(
+            HttpConnectionContext context,
+            HttpException e
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+        LOG.error().$("could not load line protocol [fd=").$(context.getFd()).$(", e=`").$(e.getFlyweightMessage()).$("`]").$();
+        context.simpleResponse().sendStatus(503, e.getFlyweightMessage());
+        throw ServerDisconnectException.INSTANCE;
+    }
+
+    @Override
+    public void resumeRecv(HttpConnectionContext context) {
+        this.transientState = LV.get(context);
+        if (this.transientState == null) {
+            LOG.debug().$("new line protocol state").$();
+            LV.set(context, this.transientState = new LineHttpProcessorState(loader));
+        }
+    }
+
+    private void complete(
+            HttpConnectionContext context,
+            LineHttpProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        final LineHttpBatch batch = state.batch;
+        switch (state.phase) {
+            case PHASE_LOAD:
+            case PHASE_FLUSH:
+                state.phase = PHASE_FLUSH;
+                if (!loader.flush(batch)) {
+                    throw RetryOperationException.INSTANCE;
+                }
+                state.phase = PHASE_COMMIT;
+                // fall through
+            case PHASE_COMMIT:
+                if (!loader.commit(batch)) {
+                    throw RetryOperationException.INSTANCE;
+                }
+                break;
+            default:
+                break;
+        }
+
+        final boolean commitFailed = batch.isCommitFailed();
+        final long nLines = batch.getLineCount();
+        final long nRejectedLines = batch.getRejectedLineCount();
+        final int nFailedRows = batch.getFailedRowCount();
+        state.clear();
+
+        HttpChunkedResponseSocket r = context.getChunkedResponseSocket();
+        r.status(commitFailed ? 500 : 200, "application/json");
+        r.headers().put(keepAliveHeader);
+        r.sendHeader();
+
+        r.put('{')
+                .putQuoted("status").put(':').putQuoted(commitFailed ? "commit failed" : "OK").put(',')
+                .putQuoted("linesAccepted").put(':').put(nLines).put(',')
+                .putQuoted("linesRejected").put(':').put(nRejectedLines).put(',')
+                .putQuoted("rowsFailed").put(':').put(nFailedRows)
+                .put('}');
+        r.sendChunk(true);
+    }
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cutlass.line.tcp.LineHttpBatch;
+import io.questdb.cutlass.line.tcp.LineHttpLoader;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+
+import java.io.Closeable;
+
+class LineHttpProcessorState implements Mutable, Closeable {
+    private final LineHttpLoader loader;
+    LineHttpBatch batch;
+    int phase = LineHttpProcessor.PHASE_LOAD;
+
+    LineHttpProcessorState(LineHttpLoader loader) {
+        this.loader = loader;
+        this.batch = loader.newBatch();
+    }
+
+    @Override
+    public void clear() {
+        phase = LineHttpProcessor.PHASE_LOAD;
+        if (batch.isInFlight()) {
+            // request was abandoned before writer threads acknowledged it, queued events keep
+            // referencing the batch, next request on this connection gets a new one
+            batch.close();
+            batch = loader.newBatch();
+        } else {
+            batch.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        batch = Misc.free(batch);
+    }
+}
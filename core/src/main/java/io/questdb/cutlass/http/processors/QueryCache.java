@@ -28,35 +28,72 @@ import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cutlass.http.HttpServerConfiguration;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
-import io.questdb.std.AssociativeCache;
-import io.questdb.std.ThreadLocal;
+import io.questdb.std.ConcurrentAssociativeCache;
+import io.questdb.std.Misc;
+import io.questdb.std.datetime.millitime.MillisecondClock;
 
 import java.io.Closeable;
+import java.security.SecureRandom;
+import java.util.Random;
 
+/**
+ * Factory cache shared by all HTTP worker threads. Factory is checked out of the cache
+ * for the duration of query execution and pushed back when the query is done, hence
+ * concurrent executions of the same SQL text compile their own factory and each copy
+ * is cached. Factories are validated against table structure version when cursor is
+ * obtained. Stale factory causes all idle copies of the SQL to be removed.
+ * <p>
+ * Cache also keeps open cursors of paged queries, see {@link QueryCursorCache}.
+ */
 public final class QueryCache implements Closeable {
 
     private static final Log LOG = LogFactory.getLog(QueryCache.class);
-    private static ThreadLocal<QueryCache> TL_QUERY_CACHE;
-    private final AssociativeCache<RecordCursorFactory> cache;
+    private static volatile QueryCache INSTANCE;
+    private final ConcurrentAssociativeCache<RecordCursorFactory> cache;
+    private final QueryCursorCache cursors;
 
-    public QueryCache(int blocks, int rows) {
-        this.cache = new AssociativeCache<>(blocks, rows);
+    public QueryCache(int blocks, int rows, int maxOpenCursors, long openCursorTimeout, MillisecondClock clock, Random cursorIdRnd) {
+        this.cache = new ConcurrentAssociativeCache<>(blocks, rows);
+        this.cursors = new QueryCursorCache(maxOpenCursors, openCursorTimeout, clock, cursorIdRnd, cache);
     }
 
     public static void configure(HttpServerConfiguration configuration) {
-        TL_QUERY_CACHE = new ThreadLocal<>(() -> new QueryCache(configuration.getQueryCacheBlocks(), configuration.getQueryCacheRows()));
+        configure(configuration, new SecureRandom());
+    }
+
+    /**
+     * @param cursorIdRnd source of open cursor ids, ids must not be predictable outside of tests
+     */
+    public static void configure(HttpServerConfiguration configuration, Random cursorIdRnd) {
+        final JsonQueryProcessorConfiguration jsonConfiguration = configuration.getJsonQueryProcessorConfiguration();
+        final QueryCache prev = INSTANCE;
+        INSTANCE = new QueryCache(
+                configuration.getQueryCacheBlocks(),
+                configuration.getQueryCacheRows(),
+                jsonConfiguration.getMaxOpenCursors(),
+                jsonConfiguration.getOpenCursorTimeout(),
+                jsonConfiguration.getClock(),
+                cursorIdRnd
+        );
+        Misc.free(prev);
     }
 
     public static QueryCache getInstance() {
-        return TL_QUERY_CACHE.get();
+        return INSTANCE;
     }
 
     @Override
     public void close() {
+        // closed cursors return their factories to the cache
+        cursors.close();
         cache.close();
         LOG.info().$("closed").$();
     }
 
+    public QueryCursorCache getCursors() {
+        return cursors;
+    }
+
     public RecordCursorFactory poll(CharSequence sql) {
         final RecordCursorFactory factory = cache.poll(sql);
         log(factory == null ? "miss" : "hit", sql);
@@ -71,7 +108,7 @@ public final class QueryCache implements Closeable {
     }
 
     public void remove(CharSequence sql) {
-        cache.put(sql, null);
+        cache.invalidate(sql);
         log("remove", sql);
     }
 
@@ -0,0 +1,319 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.HttpSqlExecutionInterruptor;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.Chars;
+import io.questdb.std.ConcurrentAssociativeCache;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.datetime.millitime.MillisecondClock;
+
+import java.io.Closeable;
+import java.util.Random;
+
+/**
+ * Open cursors of paged JSON queries. Client that asks for a cursor gets its id with
+ * the first page and supplies the id when fetching next page. Cursor is resumed at the
+ * row it stopped at instead of re-executing query and skipping rows of all previous pages.
+ * <p>
+ * Ids are random and cursor can only be resumed by the connection that opened it. Each
+ * cursor is created with its own execution context and interruptor, which are rebound
+ * to the connection whenever cursor is resumed.
+ * <p>
+ * Cursors pin table readers, hence number of open cursors is capped and cursors that
+ * are not resumed within timeout are closed. Cache runs as a job to close timed out
+ * cursors. When cap is reached the least recently used cursor is closed. Factory of
+ * closed cursor is returned to query cache.
+ */
+public final class QueryCursorCache extends SynchronizedJob implements Closeable, Mutable {
+    private static final Log LOG = LogFactory.getLog(QueryCursorCache.class);
+    private final Entry[] entries;
+    private final ConcurrentAssociativeCache<RecordCursorFactory> factoryCache;
+    private final MillisecondClock clock;
+    private final long timeout;
+    private final Random rnd;
+    // earliest deadline of open cursors, job does not lock the cache until then
+    private volatile long nextDeadline = Long.MAX_VALUE;
+
+    public QueryCursorCache(
+            int capacity,
+            long timeout,
+            MillisecondClock clock,
+            Random rnd,
+            ConcurrentAssociativeCache<RecordCursorFactory> factoryCache
+    ) {
+        this.entries = new Entry[Math.max(capacity, 0)];
+        this.timeout = timeout;
+        this.clock = clock;
+        this.rnd = rnd;
+        this.factoryCache = factoryCache;
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (int i = 0, n = entries.length; i < n; i++) {
+            free(i);
+        }
+        nextDeadline = Long.MAX_VALUE;
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    public boolean isEnabled() {
+        return entries.length > 0;
+    }
+
+    public synchronized long nextId() {
+        while (true) {
+            final long id = rnd.nextLong() & Long.MAX_VALUE;
+            if (indexOf(id) == -1) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Takes cursor out of the cache. Cursor is only returned to the connection that opened it
+     * when it was opened for the same query text and stopped at requested row. Otherwise cursor
+     * stays in the cache.
+     *
+     * @param id       cursor id sent to client
+     * @param owner    id of the connection requesting the cursor
+     * @param query    query text
+     * @param position index of the row next page starts at
+     * @return cursor entry or null if there is no such cursor or it cannot serve the page
+     */
+    public synchronized Entry poll(long id, long owner, CharSequence query, long position) {
+        releaseExpired();
+        final int index = indexOf(id);
+        if (index == -1) {
+            return null;
+        }
+        final Entry e = entries[index];
+        if (e.owner != owner) {
+            LOG.info().$("cursor belongs to another connection [id=").$(id).$(']').$();
+            return null;
+        }
+        if (e.position != position || !Chars.equals(e.query, query)) {
+            LOG.info().$("cursor mismatch [id=").$(id).$(", position=").$(e.position).$(", requested=").$(position).$(']').$();
+            return null;
+        }
+        entries[index] = null;
+        updateNextDeadline();
+        return e;
+    }
+
+    /**
+     * Keeps cursor open until it is resumed or timed out. Cache becomes the owner of the entry,
+     * cursor and factory.
+     *
+     * @return false when cursors are disabled, in which case caller remains the owner of entry, factory and cursor
+     */
+    public synchronized boolean push(
+            Entry entry,
+            long id,
+            long owner,
+            CharSequence query,
+            long position,
+            RecordCursorFactory factory,
+            RecordCursor cursor
+    ) {
+        final int n = entries.length;
+        if (n == 0) {
+            return false;
+        }
+
+        releaseExpired();
+        int index = -1;
+        long oldest = Long.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            final Entry e = entries[i];
+            if (e == null) {
+                index = i;
+                break;
+            }
+            if (e.deadline < oldest) {
+                oldest = e.deadline;
+                index = i;
+            }
+        }
+
+        if (entries[index] != null) {
+            LOG.info().$("too many open cursors, closing [id=").$(entries[index].id).$(']').$();
+            free(index);
+        }
+        entry.of(id, owner, Chars.toString(query), position, factory, cursor, clock.getTicks() + timeout);
+        entries[index] = entry;
+        updateNextDeadline();
+        return true;
+    }
+
+    public synchronized int size() {
+        int count = 0;
+        for (int i = 0, n = entries.length; i < n; i++) {
+            if (entries[i] != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    protected boolean runSerially() {
+        if (clock.getTicks() <= nextDeadline) {
+            return false;
+        }
+        synchronized (this) {
+            return releaseExpired();
+        }
+    }
+
+    private void free(int index) {
+        final Entry e = entries[index];
+        if (e != null) {
+            entries[index] = null;
+            Misc.free(e.cursor);
+            factoryCache.put(e.query, e.factory);
+            e.clear();
+            e.close();
+        }
+    }
+
+    private int indexOf(long id) {
+        for (int i = 0, n = entries.length; i < n; i++) {
+            final Entry e = entries[i];
+            if (e != null && e.id == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean releaseExpired() {
+        final long now = clock.getTicks();
+        boolean released = false;
+        for (int i = 0, n = entries.length; i < n; i++) {
+            final Entry e = entries[i];
+            if (e != null && e.deadline < now) {
+                LOG.info().$("cursor timed out [id=").$(e.id).$(']').$();
+                free(i);
+                released = true;
+            }
+        }
+        updateNextDeadline();
+        return released;
+    }
+
+    private void updateNextDeadline() {
+        long deadline = Long.MAX_VALUE;
+        for (int i = 0, n = entries.length; i < n; i++) {
+            final Entry e = entries[i];
+            if (e != null && e.deadline < deadline) {
+                deadline = e.deadline;
+            }
+        }
+        nextDeadline = deadline;
+    }
+
+    /**
+     * Open cursor together with the execution context and interruptor it was created with.
+     * Entry outlives its cursor, connection keeps the entry to open next cursor once previous
+     * one is exhausted.
+     */
+    public static final class Entry implements Closeable, Mutable {
+        private final SqlExecutionContextImpl executionContext;
+        private final HttpSqlExecutionInterruptor interruptor;
+        private long id;
+        private long owner;
+        private String query;
+        private long position;
+        private RecordCursorFactory factory;
+        private RecordCursor cursor;
+        private long deadline;
+
+        public Entry(SqlExecutionContextImpl executionContext, HttpSqlExecutionInterruptor interruptor) {
+            this.executionContext = executionContext;
+            this.interruptor = interruptor;
+        }
+
+        /**
+         * Releases references to cursor and factory, which are now owned by the caller.
+         */
+        @Override
+        public void clear() {
+            query = null;
+            factory = null;
+            cursor = null;
+        }
+
+        @Override
+        public void close() {
+            cursor = Misc.free(cursor);
+            factory = Misc.free(factory);
+            executionContext.clearWalWriters();
+            Misc.free(interruptor);
+        }
+
+        public RecordCursor getCursor() {
+            return cursor;
+        }
+
+        public SqlExecutionContextImpl getExecutionContext() {
+            return executionContext;
+        }
+
+        public RecordCursorFactory getFactory() {
+            return factory;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public HttpSqlExecutionInterruptor getInterruptor() {
+            return interruptor;
+        }
+
+        private void of(long id, long owner, String query, long position, RecordCursorFactory factory, RecordCursor cursor, long deadline) {
+            this.id = id;
+            this.owner = owner;
+            this.query = query;
+            this.position = position;
+            this.factory = factory;
+            this.cursor = cursor;
+            this.deadline = deadline;
+        }
+    }
+}
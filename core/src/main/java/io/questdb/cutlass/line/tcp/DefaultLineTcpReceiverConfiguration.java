@@ -72,6 +72,11 @@ public class DefaultLineTcpReceiverConfiguration implements LineTcpReceiverConfi
         return 2048;
     }
 
+    @Override
+    public int getMaxEventSize() {
+        return 4096;
+    }
+
     @Override
     public int getMaxMeasurementSize() {
         return 512;
@@ -0,0 +1,258 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cutlass.line.tcp.LineTcpMeasurementScheduler.TableUpdateDetails;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+import io.questdb.std.str.FloatingDirectCharSink;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Line protocol received in body of one HTTP request. Body chunks are copied into the batch buffer
+ * and parsed the same way TCP receive buffer is. Batch remembers tables it has written to,
+ * commit of the batch is acknowledged by writer threads once these tables are committed.
+ */
+public class LineHttpBatch implements Mutable, Closeable {
+    final NewLineProtoParser protoParser = new NewLineProtoParser();
+    final FloatingDirectCharSink charSink = new FloatingDirectCharSink();
+    private final ObjList<TableUpdateDetails> tables = new ObjList<>();
+    private final AtomicInteger nPendingCommits = new AtomicInteger();
+    private final AtomicInteger nFailedRows = new AtomicInteger();
+    private final int bufSize;
+    // number of commit events published to writer threads, commits are published
+    // table by table and publishing can be interrupted by a full queue
+    int nPublishedCommits;
+    boolean goodMeasurement;
+    long bufStartOfMeasurement;
+    long bufPos;
+    private long bufStart;
+    private long chunkLo;
+    private long chunkHi;
+    // set when measurement does not fit the buffer, the rest of it is skipped
+    private boolean skipLine;
+    private long nLines;
+    private long nRejectedLines;
+    private volatile boolean commitFailed;
+
+    LineHttpBatch(int bufSize) {
+        this.bufSize = bufSize;
+        this.bufStart = Unsafe.malloc(bufSize);
+        clear();
+    }
+
+    @Override
+    public void clear() {
+        resetBuffer();
+        chunkLo = chunkHi = 0;
+        skipLine = false;
+        nLines = 0;
+        nRejectedLines = 0;
+        tables.clear();
+        nPublishedCommits = 0;
+        nPendingCommits.set(0);
+        nFailedRows.set(0);
+        commitFailed = false;
+    }
+
+    @Override
+    public void close() {
+        if (bufStart != 0) {
+            Unsafe.free(bufStart, bufSize);
+            bufStart = bufPos = bufStartOfMeasurement = 0;
+        }
+        protoParser.close();
+        charSink.close();
+    }
+
+    /**
+     * @return number of rows writer threads could not append to their tables
+     */
+    public int getFailedRowCount() {
+        return nFailedRows.get();
+    }
+
+    /**
+     * @return number of measurements parsed and published to writer threads
+     */
+    public long getLineCount() {
+        return nLines;
+    }
+
+    /**
+     * @return number of measurements that could not be parsed
+     */
+    public long getRejectedLineCount() {
+        return nRejectedLines;
+    }
+
+    public boolean isCommitFailed() {
+        return commitFailed;
+    }
+
+    /**
+     * Events of the batch are queued until writer threads acknowledge its commits. Such batch is
+     * left to writer threads when request is abandoned, reusing it would mix up acknowledgements
+     * of two requests.
+     *
+     * @return true when writer threads can still process events of the batch
+     */
+    public boolean isInFlight() {
+        return nPublishedCommits < tables.size() || !isCommitted();
+    }
+
+    void addTable(TableUpdateDetails tableUpdateDetails) {
+        final int n = tables.size();
+        if (n > 0 && tables.getQuick(n - 1) == tableUpdateDetails) {
+            return;
+        }
+        for (int i = 0; i < n - 1; i++) {
+            if (tables.getQuick(i) == tableUpdateDetails) {
+                return;
+            }
+        }
+        tables.add(tableUpdateDetails);
+    }
+
+    ObjList<TableUpdateDetails> getTables() {
+        return tables;
+    }
+
+    boolean isCommitted() {
+        return nPendingCommits.get() == 0;
+    }
+
+    void of(long lo, long hi) {
+        chunkLo = lo;
+        chunkHi = hi;
+    }
+
+    void onCommitDone(boolean success) {
+        if (!success) {
+            commitFailed = true;
+        }
+        nPendingCommits.decrementAndGet();
+    }
+
+    void onCommitPublished() {
+        nPendingCommits.incrementAndGet();
+    }
+
+    void onLineParsed() {
+        nLines++;
+    }
+
+    void onLineRejected() {
+        nRejectedLines++;
+    }
+
+    void onWriteError() {
+        nFailedRows.incrementAndGet();
+    }
+
+    /**
+     * Copies next part of the current chunk to the buffer.
+     *
+     * @return false when chunk is exhausted
+     */
+    boolean read() {
+        if (bufPos == bufStart + bufSize && !compactBuffer()) {
+            // measurement is larger than the buffer
+            nRejectedLines++;
+            skipLine = true;
+            resetBuffer();
+        }
+        if (skipLine) {
+            while (chunkLo < chunkHi) {
+                if (Unsafe.getUnsafe().getByte(chunkLo++) == '\n') {
+                    skipLine = false;
+                    break;
+                }
+            }
+        }
+        final int len = (int) Math.min(chunkHi - chunkLo, bufStart + bufSize - bufPos);
+        if (len > 0) {
+            Vect.memcpy(chunkLo, bufPos, len);
+            chunkLo += len;
+            bufPos += len;
+            return true;
+        }
+        return false;
+    }
+
+    void startNextMeasurement() {
+        protoParser.startNextMeasurement();
+        bufStartOfMeasurement = protoParser.getBufferAddress();
+        if (bufStartOfMeasurement == bufPos) {
+            resetBuffer();
+        }
+    }
+
+    /**
+     * Ends measurement at the end of the buffer, if it misses new line. Measurements
+     * do not span HTTP request parts.
+     */
+    void terminateLine() {
+        if (skipLine) {
+            skipLine = false;
+            return;
+        }
+        if (bufPos > bufStartOfMeasurement && Unsafe.getUnsafe().getByte(bufPos - 1) != '\n') {
+            if (bufPos == bufStart + bufSize && !compactBuffer()) {
+                nRejectedLines++;
+                resetBuffer();
+                return;
+            }
+            Unsafe.getUnsafe().putByte(bufPos++, (byte) '\n');
+        }
+    }
+
+    private boolean compactBuffer() {
+        if (bufStartOfMeasurement > bufStart) {
+            final int len = (int) (bufPos - bufStartOfMeasurement);
+            if (len > 0) {
+                Vect.memcpy(bufStartOfMeasurement, bufStart, len);
+            }
+            bufPos = bufStart + len;
+            protoParser.of(bufStart);
+            goodMeasurement = true;
+            bufStartOfMeasurement = bufStart;
+            return true;
+        }
+        return false;
+    }
+
+    private void resetBuffer() {
+        bufPos = bufStart;
+        bufStartOfMeasurement = bufStart;
+        protoParser.of(bufStart);
+        goodMeasurement = true;
+    }
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.line.tcp;
+
+import io.questdb.cutlass.line.tcp.LineTcpMeasurementScheduler.HttpPublisher;
+import io.questdb.cutlass.line.tcp.NewLineProtoParser.ParseResult;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.str.DirectByteCharSequence;
+
+/**
+ * Publishes line protocol received over HTTP to writer threads of line TCP receiver. Loader
+ * is owned by a single HTTP worker and publishes measurements through its own publisher.
+ * Loader does not wait for writer threads, when their queue is full methods return false and
+ * have to be called again later, HTTP dispatcher does that through request retry.
+ */
+public class LineHttpLoader {
+    private static final Log LOG = LogFactory.getLog(LineHttpLoader.class);
+    private final LineTcpMeasurementScheduler scheduler;
+    private final HttpPublisher publisher;
+    private final int bufSize;
+    private final DirectByteCharSequence byteCharSequence = new DirectByteCharSequence();
+
+    LineHttpLoader(LineTcpReceiverConfiguration configuration, LineTcpMeasurementScheduler scheduler) {
+        this.scheduler = scheduler;
+        this.publisher = scheduler.acquireHttpPublisher();
+        this.bufSize = configuration.getNetMsgBufferSize();
+    }
+
+    /**
+     * Publishes commit of the tables batch has written to and checks whether writer threads
+     * have committed them.
+     */
+    public boolean commit(LineHttpBatch batch) {
+        return !scheduler.tryButCouldNotPublishCommits(batch) && batch.isCommitted();
+    }
+
+    /**
+     * Publishes the last measurement of request body.
+     */
+    public boolean flush(LineHttpBatch batch) {
+        batch.terminateLine();
+        return resume(batch);
+    }
+
+    public boolean load(LineHttpBatch batch, long lo, long hi) {
+        batch.of(lo, hi);
+        return resume(batch);
+    }
+
+    public LineHttpBatch newBatch() {
+        return new LineHttpBatch(bufSize);
+    }
+
+    /**
+     * Continues loading of the chunk interrupted by a full queue.
+     */
+    public boolean resume(LineHttpBatch batch) {
+        if (!publisher.tryLock()) {
+            // maintenance job is releasing idle tables of the publisher
+            return false;
+        }
+        try {
+            return parseMeasurements(batch);
+        } finally {
+            // open event must not hold up writer thread until the request is retried
+            scheduler.commitMeasurements(publisher);
+            publisher.unlock();
+        }
+    }
+
+    public void terminateLine(LineHttpBatch batch) {
+        batch.terminateLine();
+    }
+
+    private boolean parseMeasurements(LineHttpBatch batch) {
+        final NewLineProtoParser protoParser = batch.protoParser;
+        while (true) {
+            ParseResult rc = batch.goodMeasurement ? protoParser.parseMeasurement(batch.bufPos) : protoParser.skipMeasurement(batch.bufPos);
+            switch (rc) {
+                case MEASUREMENT_COMPLETE: {
+                    if (batch.goodMeasurement) {
+                        if (scheduler.tryButCouldNotCommit(publisher, protoParser, batch.charSink, batch)) {
+                            return false;
+                        }
+                        batch.onLineParsed();
+                    } else {
+                        int position = (int) (protoParser.getBufferAddress() - batch.bufStartOfMeasurement);
+                        LOG.error().$("could not parse measurement, code ").$(protoParser.getErrorCode()).$(" at ").$(position)
+                                .$(" line (may be mangled due to partial parsing) is ")
+                                .$(byteCharSequence.of(batch.bufStartOfMeasurement, protoParser.getBufferAddress())).$();
+                        batch.onLineRejected();
+                        batch.goodMeasurement = true;
+                    }
+                    batch.startNextMeasurement();
+                    continue;
+                }
+
+                case ERROR: {
+                    batch.goodMeasurement = false;
+                    continue;
+                }
+
+                case BUFFER_UNDERFLOW: {
+                    if (!batch.read()) {
+                        return true;
+                    }
+                    break;
+                }
+            }
+        }
+    }
+}
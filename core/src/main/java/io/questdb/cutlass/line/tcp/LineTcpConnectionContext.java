@@ -147,6 +147,16 @@ class LineTcpConnectionContext implements IOContext, Mutable {
     }
 
     protected final IOContextResult parseMeasurements(NetworkIOJob netIoJob) {
+        try {
+            return parseMeasurements0(netIoJob);
+        } finally {
+            // measurements of the same table are batched into one queue event, which
+            // must be published before this context gives up the IO thread
+            scheduler.commitMeasurements(netIoJob);
+        }
+    }
+
+    private IOContextResult parseMeasurements0(NetworkIOJob netIoJob) {
         while (true) {
             try {
                 ParseResult rc = goodMeasurement ? protoParser.parseMeasurement(recvBufPos) : protoParser.skipMeasurement(recvBufPos);
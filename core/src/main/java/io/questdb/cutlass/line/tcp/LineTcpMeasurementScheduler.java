@@ -49,6 +49,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.Closeable;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReadWriteLock;
 
 class LineTcpMeasurementScheduler implements Closeable {
@@ -58,12 +59,15 @@ class LineTcpMeasurementScheduler implements Closeable {
     // not able to populate it for some reason, the event needs to be committed to the
     // queue incomplete
     private static final int RELEASE_WRITER_EVENT_ID = -3;
+    // A commit event makes the writer thread commit the table and acknowledge the commit to an HTTP batch
+    private static final int COMMIT_EVENT_ID = -4;
     private static final int[] DEFAULT_COLUMN_TYPES = new int[NewLineProtoParser.N_ENTITY_TYPES];
     private final CairoEngine engine;
     private final CairoSecurityContext securityContext;
     private final CairoConfiguration cairoConfiguration;
     private final MillisecondClock milliClock;
-    private final RingQueue<LineTcpMeasurementEvent> queue;
+    // each writer thread has its own queue, measurements are routed by TableUpdateDetails.writerThreadId
+    private final ObjList<RingQueue<LineTcpMeasurementEvent>> queues;
     private final ReadWriteLock tableUpdateDetailsLock = new SimpleReadWriteLock();
     private final CharSequenceObjHashMap<TableUpdateDetails> tableUpdateDetailsByTableName;
     private final CharSequenceObjHashMap<TableUpdateDetails> idleTableUpdateDetailsByTableName;
@@ -73,11 +77,23 @@ class LineTcpMeasurementScheduler implements Closeable {
     private final long maintenanceInterval;
     private final long writerIdleTimeout;
     private final int defaultPartitionBy;
-    private final NetworkIOJob[] netIoJobs;
+    // network IO jobs followed by publishers of HTTP workers
+    private final MeasurementPublisher[] publishers;
+    // publishers of HTTP workers, they are not run by the IO worker pool, each one is
+    // used by a single HTTP worker while it parses line protocol request bodies
+    private final ObjList<HttpPublisher> httpPublishers;
+    private int nHttpPublishersInUse = 0;
+    // event each network IO job is appending measurements to, it is published when a measurement for
+    // another table arrives, when it is full or when the job has parsed all received data
+    private final long[] openEventSeqByIoWorker;
+    private final int[] openEventThreadIdByIoWorker;
     private final TableStructureAdapter tableStructureAdapter = new TableStructureAdapter();
     private final Path path = new Path();
     private final AppendOnlyVirtualMemory mem = new AppendOnlyVirtualMemory();
-    private Sequence pubSeq;
+    private ObjList<Sequence> pubSeqs;
+    private volatile boolean handoffInProgress = false;
+    // table that is being moved, while its rebalance event is not yet published
+    private volatile TableUpdateDetails pendingRebalanceTable;
     private int nLoadCheckCycles = 0;
     private int nRebalances = 0;
 
@@ -87,19 +103,40 @@ class LineTcpMeasurementScheduler implements Closeable {
             WorkerPool ioWorkerPool,
             IODispatcher<LineTcpConnectionContext> dispatcher,
             WorkerPool writerWorkerPool
+    ) {
+        this(lineConfiguration, engine, ioWorkerPool, dispatcher, writerWorkerPool, 0);
+    }
+
+    LineTcpMeasurementScheduler(
+            LineTcpReceiverConfiguration lineConfiguration,
+            CairoEngine engine,
+            WorkerPool ioWorkerPool,
+            IODispatcher<LineTcpConnectionContext> dispatcher,
+            WorkerPool writerWorkerPool,
+            int nHttpIoJobs
     ) {
         this.engine = engine;
         this.securityContext = lineConfiguration.getCairoSecurityContext();
         this.cairoConfiguration = engine.getConfiguration();
         this.milliClock = cairoConfiguration.getMillisecondClock();
 
-        this.netIoJobs = new NetworkIOJob[ioWorkerPool.getWorkerCount()];
-        for (int i = 0; i < ioWorkerPool.getWorkerCount(); i++) {
+        final int nIoWorkers = ioWorkerPool.getWorkerCount();
+        this.publishers = new MeasurementPublisher[nIoWorkers + nHttpIoJobs];
+        for (int i = 0; i < nIoWorkers; i++) {
             NetworkIOJob netIoJob = createNetworkIOJob(dispatcher, i);
-            netIoJobs[i] = netIoJob;
+            publishers[i] = netIoJob;
             ioWorkerPool.assign(i, netIoJob);
             ioWorkerPool.assign(i, netIoJob::close);
         }
+        httpPublishers = new ObjList<>(nHttpIoJobs);
+        for (int i = 0; i < nHttpIoJobs; i++) {
+            HttpPublisher httpPublisher = new HttpPublisher(nIoWorkers + i);
+            publishers[nIoWorkers + i] = httpPublisher;
+            httpPublishers.add(httpPublisher);
+        }
+        openEventSeqByIoWorker = new long[publishers.length];
+        Arrays.fill(openEventSeqByIoWorker, -1);
+        openEventThreadIdByIoWorker = new int[publishers.length];
 
         // Worker count is set to 1 because we do not use this execution context
         // in worker threads.
@@ -107,32 +144,28 @@ class LineTcpMeasurementScheduler implements Closeable {
         idleTableUpdateDetailsByTableName = new CharSequenceObjHashMap<>();
         loadByThread = new int[writerWorkerPool.getWorkerCount()];
         int maxMeasurementSize = lineConfiguration.getMaxMeasurementSize();
+        int maxEventSize = lineConfiguration.getMaxEventSize();
         int queueSize = lineConfiguration.getWriterQueueCapacity();
-        queue = new RingQueue<>(
-                () -> new LineTcpMeasurementEvent(
-                        maxMeasurementSize,
-                        lineConfiguration.getMicrosecondClock(),
-                        lineConfiguration.getTimestampAdapter()),
-                queueSize);
-        pubSeq = new MPSequence(queueSize);
-
         int nWriterThreads = writerWorkerPool.getWorkerCount();
-        if (nWriterThreads > 1) {
-            FanOut fanOut = new FanOut();
-            for (int n = 0; n < nWriterThreads; n++) {
-                SCSequence subSeq = new SCSequence();
-                fanOut.and(subSeq);
-                WriterJob writerJob = new WriterJob(n, subSeq);
-                writerWorkerPool.assign(n, writerJob);
-                writerWorkerPool.assign(n, writerJob::close);
-            }
-            pubSeq.then(fanOut).then(pubSeq);
-        } else {
+        queues = new ObjList<>(nWriterThreads);
+        pubSeqs = new ObjList<>(nWriterThreads);
+        for (int n = 0; n < nWriterThreads; n++) {
+            RingQueue<LineTcpMeasurementEvent> queue = new RingQueue<>(
+                    () -> new LineTcpMeasurementEvent(
+                            maxMeasurementSize,
+                            maxEventSize,
+                            lineConfiguration.getMicrosecondClock(),
+                            lineConfiguration.getTimestampAdapter()),
+                    queueSize);
+            MPSequence pubSeq = new MPSequence(queueSize);
             SCSequence subSeq = new SCSequence();
             pubSeq.then(subSeq).then(pubSeq);
-            WriterJob writerJob = new WriterJob(0, subSeq);
-            writerWorkerPool.assign(0, writerJob);
-            writerWorkerPool.assign(0, writerJob::close);
+            queues.add(queue);
+            pubSeqs.add(pubSeq);
+
+            WriterJob writerJob = new WriterJob(n, queue, subSeq);
+            writerWorkerPool.assign(n, writerJob);
+            writerWorkerPool.assign(n, writerJob::close);
         }
 
         nUpdatesPerLoadRebalance = lineConfiguration.getNUpdatesPerLoadRebalance();
@@ -145,8 +178,8 @@ class LineTcpMeasurementScheduler implements Closeable {
     @Override
     public void close() {
         // Both the writer and the net worker pools must have been closed so that their respective cleaners have run
-        if (null != pubSeq) {
-            pubSeq = null;
+        if (null != pubSeqs) {
+            pubSeqs = null;
             tableUpdateDetailsLock.writeLock().lock();
             try {
                 ObjList<CharSequence> tableNames = tableUpdateDetailsByTableName.keys();
@@ -161,8 +194,14 @@ class LineTcpMeasurementScheduler implements Closeable {
             } finally {
                 tableUpdateDetailsLock.writeLock().unlock();
             }
-            for (int n = 0; n < queue.getCapacity(); n++) {
-                queue.get(n).close();
+            for (int i = 0, n = queues.size(); i < n; i++) {
+                final RingQueue<LineTcpMeasurementEvent> queue = queues.getQuick(i);
+                for (int j = 0; j < queue.getCapacity(); j++) {
+                    queue.get(j).close();
+                }
+            }
+            for (int i = 0, n = httpPublishers.size(); i < n; i++) {
+                httpPublishers.getQuick(i).close();
             }
             path.close();
             mem.close();
@@ -181,12 +220,23 @@ class LineTcpMeasurementScheduler implements Closeable {
                 threadId = n;
             }
         }
-        tableUpdateDetails = new TableUpdateDetails(tableName, threadId, netIoJobs);
+        tableUpdateDetails = new TableUpdateDetails(tableName, threadId, publishers);
         tableUpdateDetailsByTableName.putAt(keyIndex, tableName, tableUpdateDetails);
         LOG.info().$("assigned ").$(tableName).$(" to thread ").$(threadId).$();
         return tableUpdateDetails;
     }
 
+    private static int countPendingHandoffs(CharSequenceObjHashMap<TableUpdateDetails> tables) {
+        int count = 0;
+        ObjList<CharSequence> tableNames = tables.keys();
+        for (int n = 0, sz = tableNames.size(); n < sz; n++) {
+            if (tables.get(tableNames.get(n)).handoffPending) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     private void calcThreadLoad() {
         Arrays.fill(loadByThread, 0);
         ObjList<CharSequence> tableNames = tableUpdateDetailsByTableName.keys();
@@ -200,6 +250,15 @@ class LineTcpMeasurementScheduler implements Closeable {
         return new NetworkIOJobImpl(dispatcher, workerId);
     }
 
+    HttpPublisher acquireHttpPublisher() {
+        synchronized (httpPublishers) {
+            if (nHttpPublishersInUse < httpPublishers.size()) {
+                return httpPublishers.getQuick(nHttpPublishersInUse++);
+            }
+        }
+        throw CairoException.instance(0).put("all line protocol HTTP publishers are in use [count=").put(httpPublishers.size()).put(']');
+    }
+
     int[] getLoadByThread() {
         return loadByThread;
     }
@@ -212,8 +271,34 @@ class LineTcpMeasurementScheduler implements Closeable {
         return nRebalances;
     }
 
-    long getNextPublisherEventSequence() {
+    /**
+     * @return number of tables moved to another writer thread, which did not get released by the old thread yet
+     */
+    int getNPendingHandoffs() {
+        tableUpdateDetailsLock.readLock().lock();
+        try {
+            return countPendingHandoffs(tableUpdateDetailsByTableName) + countPendingHandoffs(idleTableUpdateDetailsByTableName);
+        } finally {
+            tableUpdateDetailsLock.readLock().unlock();
+        }
+    }
+
+    boolean isHandoffInProgress() {
+        return handoffInProgress;
+    }
+
+    boolean isTableIdle(CharSequence tableName) {
+        tableUpdateDetailsLock.readLock().lock();
+        try {
+            return idleTableUpdateDetailsByTableName.keyIndex(tableName) < 0;
+        } finally {
+            tableUpdateDetailsLock.readLock().unlock();
+        }
+    }
+
+    long getNextPublisherEventSequence(int writerThreadId) {
         assert isOpen();
+        final Sequence pubSeq = pubSeqs.getQuick(writerThreadId);
         long seq;
         //noinspection StatementWithEmptyBody
         while ((seq = pubSeq.next()) == -2) {
@@ -222,11 +307,15 @@ class LineTcpMeasurementScheduler implements Closeable {
     }
 
     private boolean isOpen() {
-        return null != pubSeq;
+        return null != pubSeqs;
     }
 
     private void loadRebalance() {
         LOG.debug().$("load check [cycle=").$(++nLoadCheckCycles).$(']').$();
+        if (handoffInProgress) {
+            publishPendingRebalanceEvent();
+            return;
+        }
         calcThreadLoad();
         ObjList<CharSequence> tableNames = tableUpdateDetailsByTableName.keys();
         int fromThreadId = -1;
@@ -296,36 +385,71 @@ class LineTcpMeasurementScheduler implements Closeable {
         }
 
         if (null != tableToMove) {
-            long seq = getNextPublisherEventSequence();
-            if (seq >= 0) {
-                try {
-                    LineTcpMeasurementEvent event = queue.get(seq);
-                    event.threadId = INCOMPLETE_EVENT_ID;
-                    event.createRebalanceEvent(fromThreadId, toThreadId, tableToMove);
-                    tableToMove.writerThreadId = toThreadId;
-                    LOG.info()
-                            .$("rebalance cycle, requesting table move [cycle=").$(nLoadCheckCycles)
-                            .$(", nRebalances=").$(++nRebalances)
-                            .$(", table=").$(tableToMove.tableName)
-                            .$(", fromThreadId=").$(fromThreadId)
-                            .$(", toThreadId=").$(toThreadId)
-                            .$(']').$();
-                } finally {
-                    pubSeq.done(seq);
-                }
+            // Table handoff: measurements are routed to the new thread as soon as writerThreadId changes,
+            // the new thread holds them until the old thread has drained its queue up to the rebalance
+            // event and released the table. Only one handoff is in flight, otherwise two threads could
+            // wait on each other.
+            handoffInProgress = true;
+            tableToMove.handoffFromThreadId = fromThreadId;
+            tableToMove.handoffPending = true;
+            tableToMove.writerThreadId = toThreadId;
+            pendingRebalanceTable = tableToMove;
+            LOG.info()
+                    .$("rebalance cycle, requesting table move [cycle=").$(nLoadCheckCycles)
+                    .$(", nRebalances=").$(++nRebalances)
+                    .$(", table=").$(tableToMove.tableName)
+                    .$(", fromThreadId=").$(fromThreadId)
+                    .$(", toThreadId=").$(toThreadId)
+                    .$(']').$();
+            publishPendingRebalanceEvent();
+        }
+    }
+
+    // must be called under table lock
+    private void publishPendingRebalanceEvent() {
+        // Rebalance event is published after writerThreadId has changed. Publishers re-check
+        // writerThreadId after claiming queue slot, hence all measurements published to
+        // the old thread precede this event.
+        final TableUpdateDetails tableToMove = pendingRebalanceTable;
+        if (null == tableToMove) {
+            return;
+        }
+        final int fromThreadId = tableToMove.handoffFromThreadId;
+        final long seq = getNextPublisherEventSequence(fromThreadId);
+        if (seq < 0) {
+            // old thread queue is full, IO jobs will retry, writer and IO jobs
+            // can share threads so we must not wait here
+            return;
+        }
+        try {
+            LineTcpMeasurementEvent event = queues.getQuick(fromThreadId).get(seq);
+            event.threadId = INCOMPLETE_EVENT_ID;
+            event.createRebalanceEvent(fromThreadId, tableToMove.writerThreadId, tableToMove);
+        } finally {
+            pubSeqs.getQuick(fromThreadId).done(seq);
+        }
+        pendingRebalanceTable = null;
+    }
+
+    private void tryPublishPendingRebalanceEvent() {
+        if (null != pendingRebalanceTable && tableUpdateDetailsLock.writeLock().tryLock()) {
+            try {
+                publishPendingRebalanceEvent();
+            } finally {
+                tableUpdateDetailsLock.writeLock().unlock();
             }
         }
     }
 
-    private TableUpdateDetails startNewMeasurementEvent(NetworkIOJob netIoJob, NewLineProtoParser protoParser) {
-        final TableUpdateDetails tableUpdateDetails = netIoJob.getTableUpdateDetails(protoParser.getMeasurementName());
+    private TableUpdateDetails startNewMeasurementEvent(MeasurementPublisher publisher, NewLineProtoParser protoParser) {
+        final TableUpdateDetails tableUpdateDetails = publisher.getTableUpdateDetails(protoParser.getMeasurementName());
         if (null != tableUpdateDetails) {
             return tableUpdateDetails;
         }
-        return startNewMeasurementEvent0(netIoJob, protoParser);
+        return startNewMeasurementEvent0(publisher, protoParser);
     }
 
-    private TableUpdateDetails startNewMeasurementEvent0(NetworkIOJob netIoJob, NewLineProtoParser protoParser) {
+    private TableUpdateDetails startNewMeasurementEvent0(MeasurementPublisher publisher, NewLineProtoParser protoParser) {
         TableUpdateDetails tableUpdateDetails;
         tableUpdateDetailsLock.writeLock().lock();
         try {
@@ -352,17 +476,26 @@ class LineTcpMeasurementScheduler implements Closeable {
                 }
             }
 
-            netIoJob.addTableUpdateDetails(tableUpdateDetails);
+            publisher.addTableUpdateDetails(tableUpdateDetails);
             return tableUpdateDetails;
         } finally {
             tableUpdateDetailsLock.writeLock().unlock();
         }
     }
 
-    boolean tryButCouldNotCommit(NetworkIOJob netIoJob, NewLineProtoParser protoParser, FloatingDirectCharSink charSink) {
+    boolean tryButCouldNotCommit(MeasurementPublisher publisher, NewLineProtoParser protoParser, FloatingDirectCharSink charSink) {
+        return tryButCouldNotCommit(publisher, protoParser, charSink, null);
+    }
+
+    boolean tryButCouldNotCommit(
+            MeasurementPublisher publisher,
+            NewLineProtoParser protoParser,
+            FloatingDirectCharSink charSink,
+            LineHttpBatch batch
+    ) {
         TableUpdateDetails tableUpdateDetails;
         try {
-            tableUpdateDetails = startNewMeasurementEvent(netIoJob, protoParser);
+            tableUpdateDetails = startNewMeasurementEvent(publisher, protoParser);
         } catch (EntryUnavailableException ex) {
             // Table writer is locked
             LOG.info().$("could not get table writer [tableName=").$(protoParser.getMeasurementName()).$(", ex=").$(ex.getFlyweightMessage()).$(']').$();
@@ -373,32 +506,128 @@ class LineTcpMeasurementScheduler implements Closeable {
             return false;
         }
         if (null != tableUpdateDetails) {
-            long seq = getNextPublisherEventSequence();
-            if (seq >= 0) {
-                try {
-                    LineTcpMeasurementEvent event = queue.get(seq);
-                    event.threadId = INCOMPLETE_EVENT_ID;
-                    TableUpdateDetails.ThreadLocalDetails localDetails = tableUpdateDetails.startNewMeasurementEvent(netIoJob.getWorkerId());
-                    event.createMeasurementEvent(tableUpdateDetails, localDetails, protoParser, charSink);
-                    return false;
-                } finally {
-                    pubSeq.done(seq);
-                    if (++tableUpdateDetails.nUpdates > nUpdatesPerLoadRebalance) {
-                        if (tableUpdateDetailsLock.writeLock().tryLock()) {
-                            try {
-                                loadRebalance();
-                            } finally {
-                                tableUpdateDetailsLock.writeLock().unlock();
-                            }
-                        }
+            final int workerId = publisher.getWorkerId();
+            final TableUpdateDetails.ThreadLocalDetails localDetails = tableUpdateDetails.startNewMeasurementEvent(workerId);
+            LineTcpMeasurementEvent event = getOpenEvent(workerId);
+            if (
+                    null == event
+                            || event.tableUpdateDetails != tableUpdateDetails
+                            || event.batch != batch
+                            || !event.appendMeasurement(localDetails, protoParser, charSink)
+            ) {
+                commitOpenEvent(workerId);
+                event = openEvent(workerId, tableUpdateDetails, batch);
+                if (null == event) {
+                    // queue of the new thread can be full of events held until the handoff completes
+                    tryPublishPendingRebalanceEvent();
+                    return true;
+                }
+                event.appendMeasurement(localDetails, protoParser, charSink);
+            }
+            if (null != batch) {
+                batch.addTable(tableUpdateDetails);
+            }
+
+            if (++tableUpdateDetails.nUpdates > nUpdatesPerLoadRebalance) {
+                if (tableUpdateDetailsLock.writeLock().tryLock()) {
+                    try {
+                        loadRebalance();
+                    } finally {
+                        tableUpdateDetailsLock.writeLock().unlock();
                     }
                 }
+            } else {
+                tryPublishPendingRebalanceEvent();
             }
+            return false;
         }
         return true;
     }
 
-    interface NetworkIOJob extends Job {
+    void commitMeasurements(MeasurementPublisher publisher) {
+        commitOpenEvent(publisher.getWorkerId());
+    }
+
+    boolean tryButCouldNotPublishCommits(LineHttpBatch batch) {
+        final ObjList<TableUpdateDetails> tables = batch.getTables();
+        while (batch.nPublishedCommits < tables.size()) {
+            if (!publishCommitEvent(tables.getQuick(batch.nPublishedCommits), batch)) {
+                tryPublishPendingRebalanceEvent();
+                return true;
+            }
+            batch.nPublishedCommits++;
+        }
+        return false;
+    }
+
+    private boolean publishCommitEvent(TableUpdateDetails tableUpdateDetails, LineHttpBatch batch) {
+        while (true) {
+            final int writerThreadId = tableUpdateDetails.writerThreadId;
+            final long seq = getNextPublisherEventSequence(writerThreadId);
+            if (seq < 0) {
+                return false;
+            }
+            final LineTcpMeasurementEvent event = queues.getQuick(writerThreadId).get(seq);
+            event.threadId = INCOMPLETE_EVENT_ID;
+            if (tableUpdateDetails.writerThreadId == writerThreadId) {
+                // commit event follows measurements of the batch in the queue of the thread, or
+                // it is held by the new thread until the old one has handed the table over
+                batch.onCommitPublished();
+                event.createCommitEvent(tableUpdateDetails, batch);
+                pubSeqs.getQuick(writerThreadId).done(seq);
+                return true;
+            }
+            pubSeqs.getQuick(writerThreadId).done(seq);
+        }
+    }
+
+    private void commitOpenEvent(int workerId) {
+        final long seq = openEventSeqByIoWorker[workerId];
+        if (seq > -1) {
+            final int writerThreadId = openEventThreadIdByIoWorker[workerId];
+            queues.getQuick(writerThreadId).get(seq).commit(writerThreadId);
+            pubSeqs.getQuick(writerThreadId).done(seq);
+            openEventSeqByIoWorker[workerId] = -1;
+        }
+    }
+
+    private LineTcpMeasurementEvent getOpenEvent(int workerId) {
+        final long seq = openEventSeqByIoWorker[workerId];
+        if (seq > -1) {
+            return queues.getQuick(openEventThreadIdByIoWorker[workerId]).get(seq);
+        }
+        return null;
+    }
+
+    private LineTcpMeasurementEvent openEvent(int workerId, TableUpdateDetails tableUpdateDetails, LineHttpBatch batch) {
+        while (true) {
+            final int writerThreadId = tableUpdateDetails.writerThreadId;
+            final long seq = getNextPublisherEventSequence(writerThreadId);
+            if (seq < 0) {
+                return null;
+            }
+            final LineTcpMeasurementEvent event = queues.getQuick(writerThreadId).get(seq);
+            event.threadId = INCOMPLETE_EVENT_ID;
+            if (tableUpdateDetails.writerThreadId != writerThreadId) {
+                // table is being moved to another thread, the slot is released
+                // incomplete and measurement is published to the new thread
+                pubSeqs.getQuick(writerThreadId).done(seq);
+                continue;
+            }
+            // The slot stays claimed while measurements are appended, measurements appended after
+            // the table has been moved still precede the rebalance event in this queue
+            event.createMeasurementEvent(tableUpdateDetails, batch);
+            openEventSeqByIoWorker[workerId] = seq;
+            openEventThreadIdByIoWorker[workerId] = writerThreadId;
+            return event;
+        }
+    }
+
+    /**
+     * Parses measurements and publishes them to writer threads. Each publisher has its own open event
+     * and caches details of the tables it writes to.
+     */
+    interface MeasurementPublisher {
         void addTableUpdateDetails(TableUpdateDetails tableUpdateDetails);
 
         void close();
@@ -410,19 +639,27 @@ class LineTcpMeasurementScheduler implements Closeable {
         int getWorkerId();
     }
 
+    interface NetworkIOJob extends MeasurementPublisher, Job {
+    }
+
     private class LineTcpMeasurementEvent implements Closeable {
         private final MicrosecondClock clock;
         private final LineProtoTimestampAdapter timestampAdapter;
         private final long bufSize;
         private int threadId;
         private TableUpdateDetails tableUpdateDetails;
+        // HTTP batch measurements belong to or the batch to acknowledge commit to, null for TCP measurements
+        private LineHttpBatch batch;
         private long bufLo;
+        // Consecutive measurements for the same table are appended to the buffer, each one is
+        // prefixed with its length so that the writer can skip a measurement it could not write
+        private long bufPos;
+        private int nMeasurements;
         private int rebalanceFromThreadId;
         private int rebalanceToThreadId;
-        private volatile boolean rebalanceReleasedByFromThread;
 
-        private LineTcpMeasurementEvent(int maxMeasurementSize, MicrosecondClock clock, LineProtoTimestampAdapter timestampAdapter) {
-            bufSize = (long) (maxMeasurementSize / 4) * (Integer.BYTES + Double.BYTES + 1);
+        private LineTcpMeasurementEvent(int maxMeasurementSize, int maxEventSize, MicrosecondClock clock, LineProtoTimestampAdapter timestampAdapter) {
+            bufSize = Math.max((long) (maxMeasurementSize / 4) * (Integer.BYTES + Double.BYTES + 1), maxEventSize);
             bufLo = Unsafe.malloc(bufSize);
             this.clock = clock;
             this.timestampAdapter = timestampAdapter;
@@ -435,19 +672,21 @@ class LineTcpMeasurementScheduler implements Closeable {
             bufLo = 0;
         }
 
-        void createMeasurementEvent(
-                TableUpdateDetails tableUpdateDetails,
+        boolean appendMeasurement(
                 TableUpdateDetails.ThreadLocalDetails localDetails,
                 NewLineProtoParser protoParser,
                 FloatingDirectCharSink floatingCharSink
         ) {
-            threadId = INCOMPLETE_EVENT_ID;
-            this.tableUpdateDetails = tableUpdateDetails;
+            // the first measurement always goes in
+            if (nMeasurements > 0 && bufPos + getMeasurementSizeUpperBound(protoParser) > bufLo + bufSize) {
+                return false;
+            }
             long timestamp = protoParser.getTimestamp();
             if (timestamp != NewLineProtoParser.NULL_TIMESTAMP) {
                 timestamp = timestampAdapter.getMicros(timestamp);
             }
-            long bufPos = bufLo;
+            final long measurementLo = this.bufPos;
+            long bufPos = measurementLo + Integer.BYTES;
             Unsafe.getUnsafe().putLong(bufPos, timestamp);
             bufPos += Long.BYTES;
             int nEntities = protoParser.getnEntities();
@@ -532,7 +771,39 @@ class LineTcpMeasurementScheduler implements Closeable {
                     }
                 }
             }
-            threadId = tableUpdateDetails.writerThreadId;
+            Unsafe.getUnsafe().putInt(measurementLo, (int) (bufPos - measurementLo));
+            this.bufPos = bufPos;
+            nMeasurements++;
+            return true;
+        }
+
+        void commit(int writerThreadId) {
+            threadId = nMeasurements > 0 ? writerThreadId : INCOMPLETE_EVENT_ID;
+        }
+
+        void createCommitEvent(TableUpdateDetails tableUpdateDetails, LineHttpBatch batch) {
+            threadId = COMMIT_EVENT_ID;
+            this.tableUpdateDetails = tableUpdateDetails;
+            this.batch = batch;
+        }
+
+        void createMeasurementEvent(TableUpdateDetails tableUpdateDetails, LineHttpBatch batch) {
+            threadId = INCOMPLETE_EVENT_ID;
+            this.tableUpdateDetails = tableUpdateDetails;
+            this.batch = batch;
+            bufPos = bufLo;
+            nMeasurements = 0;
+        }
+
+        private long getMeasurementSizeUpperBound(NewLineProtoParser protoParser) {
+            long size = Integer.BYTES + Long.BYTES + Integer.BYTES;
+            for (int nEntity = 0, nEntities = protoParser.getnEntities(); nEntity < nEntities; nEntity++) {
+                ProtoEntity entity = protoParser.getEntity(nEntity);
+                // column index and name, entity type and value, tag and string values are stored as UTF16
+                size += Integer.BYTES + entity.getName().length() + Byte.BYTES
+                        + Math.max(Long.BYTES, Integer.BYTES + 2L * entity.getValue().length());
+            }
+            return size;
         }
 
         void createRebalanceEvent(int fromThreadId, int toThreadId, TableUpdateDetails tableUpdateDetails) {
@@ -540,20 +811,28 @@ class LineTcpMeasurementScheduler implements Closeable {
             rebalanceFromThreadId = fromThreadId;
             rebalanceToThreadId = toThreadId;
             this.tableUpdateDetails = tableUpdateDetails;
-            rebalanceReleasedByFromThread = false;
+            this.batch = null;
         }
 
         void createReleaseWriterEvent(TableUpdateDetails tableUpdateDetails) {
             threadId = RELEASE_WRITER_EVENT_ID;
             this.tableUpdateDetails = tableUpdateDetails;
+            this.batch = null;
         }
 
-        @SuppressWarnings("resource")
         void processMeasurementEvent(WriterJob job) {
+            long measurementLo = bufLo;
+            for (int n = 0; n < nMeasurements; n++) {
+                processMeasurement(job, measurementLo + Integer.BYTES);
+                measurementLo += Unsafe.getUnsafe().getInt(measurementLo);
+            }
+        }
+
+        @SuppressWarnings("resource")
+        private void processMeasurement(WriterJob job, long bufPos) {
             Row row = null;
             try {
                 TableWriter writer = tableUpdateDetails.getWriter();
-                long bufPos = bufLo;
                 long timestamp = Unsafe.getUnsafe().getLong(bufPos);
                 bufPos += Long.BYTES;
                 if (timestamp == NewLineProtoParser.NULL_TIMESTAMP) {
@@ -725,6 +1004,9 @@ class LineTcpMeasurementScheduler implements Closeable {
                 if (row != null) {
                     row.cancel();
                 }
+                if (null != batch) {
+                    batch.onWriteError();
+                }
             }
         }
     }
@@ -732,7 +1014,11 @@ class LineTcpMeasurementScheduler implements Closeable {
     class TableUpdateDetails implements Closeable {
         final String tableName;
         private final ThreadLocalDetails[] localDetailsArray;
-        private int writerThreadId;
+        private volatile int writerThreadId;
+        // Set while table is moved between writer threads, the new thread does not process table
+        // events until the old thread has released the table
+        private volatile boolean handoffPending = false;
+        private int handoffFromThreadId;
         // Number of updates since the last load rebalance, this is an estimate because its incremented by
         // multiple threads without synchronisation
         private int nUpdates = 0;
@@ -742,13 +1028,13 @@ class LineTcpMeasurementScheduler implements Closeable {
         private long lastCommitMillis;
         private int nNetworkIoWorkers = 0;
 
-        private TableUpdateDetails(String tableName, int writerThreadId, NetworkIOJob[] netIoJobs) {
+        private TableUpdateDetails(String tableName, int writerThreadId, MeasurementPublisher[] publishers) {
             this.tableName = tableName;
             this.writerThreadId = writerThreadId;
-            final int n = netIoJobs.length;
+            final int n = publishers.length;
             localDetailsArray = new ThreadLocalDetails[n];
             for (int i = 0; i < n; i++) {
-                localDetailsArray[i] = new ThreadLocalDetails(netIoJobs[i].getUnusedSymbolCaches());
+                localDetailsArray[i] = new ThreadLocalDetails(publishers[i].getUnusedSymbolCaches());
             }
             lastCommitMillis = milliClock.getTicks();
         }
@@ -784,6 +1070,13 @@ class LineTcpMeasurementScheduler implements Closeable {
             return writer = engine.getWriter(securityContext, tableName);
         }
 
+        void handleCommit() {
+            if (null != writer) {
+                writer.commit();
+                lastCommitMillis = milliClock.getTicks();
+            }
+        }
+
         void handleRowAppended() {
             if (writer.checkMaxAndCommitHysteresis()) {
                 lastCommitMillis = milliClock.getTicks();
@@ -913,6 +1206,7 @@ class LineTcpMeasurementScheduler implements Closeable {
 
     private class WriterJob implements Job {
         private final int workerId;
+        private final RingQueue<LineTcpMeasurementEvent> queue;
         private final Sequence sequence;
         private final AppendOnlyVirtualMemory appendMemory = new AppendOnlyVirtualMemory();
         private final Path path = new Path();
@@ -921,9 +1215,10 @@ class LineTcpMeasurementScheduler implements Closeable {
         private final ObjList<TableUpdateDetails> assignedTables = new ObjList<>();
         private long lastMaintenanceMillis = 0;
 
-        private WriterJob(int id, Sequence sequence) {
+        private WriterJob(int id, RingQueue<LineTcpMeasurementEvent> queue, Sequence sequence) {
             super();
             this.workerId = id;
+            this.queue = queue;
             this.sequence = sequence;
         }
 
@@ -977,6 +1272,10 @@ class LineTcpMeasurementScheduler implements Closeable {
                 final LineTcpMeasurementEvent event = queue.get(cursor);
                 boolean eventProcessed;
                 if (event.threadId == workerId) {
+                    if (event.tableUpdateDetails.handoffPending && event.tableUpdateDetails.handoffFromThreadId != workerId) {
+                        // table is still owned by the thread it is moved from
+                        return false;
+                    }
                     if (!event.tableUpdateDetails.assignedToJob) {
                         assignedTables.add(event.tableUpdateDetails);
                         event.tableUpdateDetails.assignedToJob = true;
@@ -994,6 +1293,10 @@ class LineTcpMeasurementScheduler implements Closeable {
                             eventProcessed = processReleaseWriter(event);
                             break;
 
+                        case COMMIT_EVENT_ID:
+                            eventProcessed = processCommit(event);
+                            break;
+
                         default:
                             eventProcessed = true;
                             break;
@@ -1010,22 +1313,31 @@ class LineTcpMeasurementScheduler implements Closeable {
             }
         }
 
-        private boolean processRebalance(LineTcpMeasurementEvent event) {
-            if (event.rebalanceToThreadId == workerId) {
-                // This thread is now a declared owner of the table, but it can only become actual
-                // owner when "old" owner is fully done. This is a volatile variable on the event, used by both threads
-                // to handover the table. The starting point is "false" and the "old" owner thread will eventually set this
-                // to "true". In the mean time current thread will not be processing the queue until the handover is
-                // complete
-                if (event.rebalanceReleasedByFromThread) {
-                    LOG.info().$("rebalance cycle, new thread ready [threadId=").$(workerId).$(", table=").$(event.tableUpdateDetails.tableName).$(']').$();
-                    return true;
-                }
-
+        private boolean processCommit(LineTcpMeasurementEvent event) {
+            final TableUpdateDetails tableUpdateDetails = event.tableUpdateDetails;
+            if (tableUpdateDetails.handoffPending && tableUpdateDetails.handoffFromThreadId != workerId) {
+                // measurements of the batch can still be in the queue of the thread the table is moved from
                 return false;
             }
+            try {
+                tableUpdateDetails.handleCommit();
+                event.batch.onCommitDone(true);
+            } catch (CairoException ex) {
+                LOG.error()
+                        .$("could not commit line protocol batch [tableName=").$(tableUpdateDetails.tableName)
+                        .$(", ex=").$(ex.getFlyweightMessage())
+                        .$(", errno=").$(ex.getErrno())
+                        .I$();
+                event.batch.onCommitDone(false);
+            }
+            return true;
+        }
 
+        private boolean processRebalance(LineTcpMeasurementEvent event) {
             if (event.rebalanceFromThreadId == workerId) {
+                // All measurements of the table published to this thread precede the rebalance event,
+                // the table can be handed over to the new thread, which is holding
+                // table measurements until the handoff is complete
                 for (int n = 0, sz = assignedTables.size(); n < sz; n++) {
                     if (assignedTables.get(n) == event.tableUpdateDetails) {
                         assignedTables.remove(n);
@@ -1035,15 +1347,21 @@ class LineTcpMeasurementScheduler implements Closeable {
                 LOG.info()
                         .$("rebalance cycle, old thread finished [threadId=").$(workerId)
                         .$(", table=").$(event.tableUpdateDetails.tableName)
+                        .$(", toThreadId=").$(event.rebalanceToThreadId)
                         .I$();
                 event.tableUpdateDetails.switchThreads();
-                event.rebalanceReleasedByFromThread = true;
+                event.tableUpdateDetails.handoffPending = false;
+                handoffInProgress = false;
             }
-
             return true;
         }
 
         private boolean processReleaseWriter(LineTcpMeasurementEvent event) {
+            if (event.tableUpdateDetails.handoffPending && event.tableUpdateDetails.handoffFromThreadId != workerId) {
+                // the thread the table is moved from has to get to the rebalance event behind this one,
+                // it skips the release below because the table is no longer assigned to it
+                return false;
+            }
             tableUpdateDetailsLock.readLock().lock();
             try {
                 if (event.tableUpdateDetails.writerThreadId != workerId) {
@@ -1067,11 +1385,9 @@ class LineTcpMeasurementScheduler implements Closeable {
         }
     }
 
-    class NetworkIOJobImpl implements NetworkIOJob, Job {
+    class NetworkIOJobImpl implements NetworkIOJob {
         private final IODispatcher<LineTcpConnectionContext> dispatcher;
-        private final int workerId;
-        private final CharSequenceObjHashMap<TableUpdateDetails> localTableUpdateDetailsByTableName = new CharSequenceObjHashMap<>();
-        private final ObjList<SymbolCache> unusedSymbolCaches = new ObjList<>();
+        private final PublisherState state;
         // Context blocked on LineTcpMeasurementScheduler queue
         private LineTcpConnectionContext busyContext = null;
         private final IORequestProcessor<LineTcpConnectionContext> onRequest = this::onRequest;
@@ -1080,41 +1396,39 @@ class LineTcpMeasurementScheduler implements Closeable {
         NetworkIOJobImpl(IODispatcher<LineTcpConnectionContext> dispatcher, int workerId) {
             super();
             this.dispatcher = dispatcher;
-            this.workerId = workerId;
+            this.state = new PublisherState(workerId);
         }
 
         @Override
         public void addTableUpdateDetails(TableUpdateDetails tableUpdateDetails) {
-            localTableUpdateDetailsByTableName.put(tableUpdateDetails.tableName, tableUpdateDetails);
-            tableUpdateDetails.nNetworkIoWorkers++;
-            LOG.info().$("network IO thread using table [workerId=").$(workerId).$(", tableName=").$(tableUpdateDetails.tableName).$(", nNetworkIoWorkers=")
-                    .$(tableUpdateDetails.nNetworkIoWorkers).$(']').$();
+            state.addTableUpdateDetails(tableUpdateDetails);
         }
 
         @Override
         public void close() {
-            Misc.freeObjList(unusedSymbolCaches);
+            state.close();
         }
 
         @Override
         public TableUpdateDetails getTableUpdateDetails(CharSequence tableName) {
-            return localTableUpdateDetailsByTableName.get(tableName);
+            return state.getTableUpdateDetails(tableName);
         }
 
         @Override
         public ObjList<SymbolCache> getUnusedSymbolCaches() {
-            return unusedSymbolCaches;
+            return state.getUnusedSymbolCaches();
         }
 
         @Override
         public int getWorkerId() {
-            return workerId;
+            return state.getWorkerId();
         }
 
         @Override
         public boolean run(int workerId) {
-            assert this.workerId == workerId;
+            assert state.getWorkerId() == workerId;
             boolean busy = false;
+            tryPublishPendingRebalanceEvent();
             if (busyContext != null) {
                 if (handleIO(busyContext)) {
                     return true;
@@ -1130,7 +1444,11 @@ class LineTcpMeasurementScheduler implements Closeable {
 
             long millis = milliClock.getTicks();
             if ((millis - lastMaintenanceJobMillis) > maintenanceInterval) {
-                busy = doMaintenance(millis);
+                busy = state.doMaintenance(millis);
+                if (workerId == 0 && doHttpPublisherMaintenance(millis)) {
+                    // HTTP publishers are idle between requests, the first IO job releases their idle tables
+                    busy = true;
+                }
                 if (!busy) {
                     lastMaintenanceJobMillis = millis;
                 }
@@ -1139,33 +1457,12 @@ class LineTcpMeasurementScheduler implements Closeable {
             return busy;
         }
 
-        private boolean doMaintenance(long millis) {
-            for (int n = 0, sz = localTableUpdateDetailsByTableName.size(); n < sz; n++) {
-                TableUpdateDetails tableUpdateDetails = localTableUpdateDetailsByTableName.get(localTableUpdateDetailsByTableName.keys().get(n));
-                if (millis - tableUpdateDetails.lastMeasurementMillis >= writerIdleTimeout) {
-                    tableUpdateDetailsLock.writeLock().lock();
-                    try {
-                        if (tableUpdateDetails.nNetworkIoWorkers == 1) {
-                            final long seq = getNextPublisherEventSequence();
-                            if (seq > -1) {
-                                LineTcpMeasurementEvent event = queue.get(seq);
-                                event.createReleaseWriterEvent(tableUpdateDetails);
-                                removeTableUpdateDetails(tableUpdateDetails);
-                                tableUpdateDetailsByTableName.remove(tableUpdateDetails.tableName);
-                                idleTableUpdateDetailsByTableName.put(tableUpdateDetails.tableName, tableUpdateDetails);
-                                pubSeq.done(seq);
-                            }
-                            return true;
-                        } else {
-                            removeTableUpdateDetails(tableUpdateDetails);
-                        }
-                        return sz > 1;
-                    } finally {
-                        tableUpdateDetailsLock.writeLock().unlock();
-                    }
-                }
+        private boolean doHttpPublisherMaintenance(long millis) {
+            boolean busy = false;
+            for (int i = 0, n = httpPublishers.size(); i < n; i++) {
+                busy |= httpPublishers.getQuick(i).tryMaintenance(millis);
             }
-            return false;
+            return busy;
         }
 
         private boolean handleIO(LineTcpConnectionContext context) {
@@ -1193,6 +1490,78 @@ class LineTcpMeasurementScheduler implements Closeable {
                 LOG.debug().$("context is waiting on a full queue [fd=").$(context.getFd()).$(']').$();
             }
         }
+    }
+
+    /**
+     * Tables a publisher writes to. Network IO job keeps them for the connections it serves,
+     * HTTP publisher for line protocol requests of its HTTP worker.
+     */
+    class PublisherState implements MeasurementPublisher {
+        private final int workerId;
+        private final CharSequenceObjHashMap<TableUpdateDetails> localTableUpdateDetailsByTableName = new CharSequenceObjHashMap<>();
+        private final ObjList<SymbolCache> unusedSymbolCaches = new ObjList<>();
+
+        private PublisherState(int workerId) {
+            this.workerId = workerId;
+        }
+
+        @Override
+        public void addTableUpdateDetails(TableUpdateDetails tableUpdateDetails) {
+            localTableUpdateDetailsByTableName.put(tableUpdateDetails.tableName, tableUpdateDetails);
+            tableUpdateDetails.nNetworkIoWorkers++;
+            LOG.info().$("network IO thread using table [workerId=").$(workerId).$(", tableName=").$(tableUpdateDetails.tableName).$(", nNetworkIoWorkers=")
+                    .$(tableUpdateDetails.nNetworkIoWorkers).$(']').$();
+        }
+
+        @Override
+        public void close() {
+            Misc.freeObjList(unusedSymbolCaches);
+        }
+
+        @Override
+        public TableUpdateDetails getTableUpdateDetails(CharSequence tableName) {
+            return localTableUpdateDetailsByTableName.get(tableName);
+        }
+
+        @Override
+        public ObjList<SymbolCache> getUnusedSymbolCaches() {
+            return unusedSymbolCaches;
+        }
+
+        @Override
+        public int getWorkerId() {
+            return workerId;
+        }
+
+        boolean doMaintenance(long millis) {
+            for (int n = 0, sz = localTableUpdateDetailsByTableName.size(); n < sz; n++) {
+                TableUpdateDetails tableUpdateDetails = localTableUpdateDetailsByTableName.get(localTableUpdateDetailsByTableName.keys().get(n));
+                if (millis - tableUpdateDetails.lastMeasurementMillis >= writerIdleTimeout) {
+                    tableUpdateDetailsLock.writeLock().lock();
+                    try {
+                        if (tableUpdateDetails.nNetworkIoWorkers == 1) {
+                            final int writerThreadId = tableUpdateDetails.writerThreadId;
+                            final long seq = getNextPublisherEventSequence(writerThreadId);
+                            if (seq > -1) {
+                                LineTcpMeasurementEvent event = queues.getQuick(writerThreadId).get(seq);
+                                event.createReleaseWriterEvent(tableUpdateDetails);
+                                removeTableUpdateDetails(tableUpdateDetails);
+                                tableUpdateDetailsByTableName.remove(tableUpdateDetails.tableName);
+                                idleTableUpdateDetailsByTableName.put(tableUpdateDetails.tableName, tableUpdateDetails);
+                                pubSeqs.getQuick(writerThreadId).done(seq);
+                            }
+                            return true;
+                        } else {
+                            removeTableUpdateDetails(tableUpdateDetails);
+                        }
+                        return sz > 1;
+                    } finally {
+                        tableUpdateDetailsLock.writeLock().unlock();
+                    }
+                }
+            }
+            return false;
+        }
 
         private void removeTableUpdateDetails(TableUpdateDetails tableUpdateDetails) {
             localTableUpdateDetailsByTableName.remove(tableUpdateDetails.tableName);
@@ -1206,6 +1575,33 @@ class LineTcpMeasurementScheduler implements Closeable {
         }
     }
 
+    class HttpPublisher extends PublisherState {
+        private final AtomicBoolean locked = new AtomicBoolean();
+
+        private HttpPublisher(int workerId) {
+            super(workerId);
+        }
+
+        boolean tryLock() {
+            return locked.compareAndSet(false, true);
+        }
+
+        void unlock() {
+            locked.set(false);
+        }
+
+        private boolean tryMaintenance(long millis) {
+            if (tryLock()) {
+                try {
+                    return doMaintenance(millis);
+                } finally {
+                    unlock();
+                }
+            }
+            return false;
+        }
+    }
+
     private class TableStructureAdapter implements TableStructure {
         private CharSequence tableName;
         private NewLineProtoParser protoParser;
@@ -53,6 +53,14 @@ public interface LineTcpReceiverConfiguration {
 
     double getMaxLoadRatio();
 
+    /**
+     * Size of the buffer of a writer queue event. Consecutive measurements for the same table
+     * are batched into one event, an event always fits at least one measurement regardless of this size.
+     *
+     * @return size in bytes
+     */
+    int getMaxEventSize();
+
     int getMaxMeasurementSize();
 
     MicrosecondClock getMicrosecondClock();
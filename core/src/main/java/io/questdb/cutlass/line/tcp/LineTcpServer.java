@@ -46,6 +46,7 @@ public class LineTcpServer implements Closeable {
     private final LineTcpConnectionContextFactory contextFactory;
     private final LineTcpMeasurementScheduler scheduler;
     private final ObjList<WorkerPool> dedicatedPools;
+    private final LineTcpReceiverConfiguration lineConfiguration;
 
     public LineTcpServer(
             LineTcpReceiverConfiguration lineConfiguration,
@@ -54,6 +55,18 @@ public class LineTcpServer implements Closeable {
             WorkerPool writerWorkerPool,
             ObjList<WorkerPool> dedicatedPools
     ) {
+        this(lineConfiguration, engine, ioWorkerPool, writerWorkerPool, dedicatedPools, 0);
+    }
+
+    public LineTcpServer(
+            LineTcpReceiverConfiguration lineConfiguration,
+            CairoEngine engine,
+            WorkerPool ioWorkerPool,
+            WorkerPool writerWorkerPool,
+            ObjList<WorkerPool> dedicatedPools,
+            int httpWorkerCount
+    ) {
+        this.lineConfiguration = lineConfiguration;
         this.contextFactory = new LineTcpConnectionContextFactory(lineConfiguration);
         this.dispatcher = IODispatchers.create(
                 lineConfiguration.getNetDispatcherConfiguration(),
@@ -61,7 +74,7 @@ public class LineTcpServer implements Closeable {
         );
         this.dedicatedPools = dedicatedPools;
         ioWorkerPool.assign(dispatcher);
-        scheduler = new LineTcpMeasurementScheduler(lineConfiguration, engine, ioWorkerPool, dispatcher, writerWorkerPool);
+        scheduler = new LineTcpMeasurementScheduler(lineConfiguration, engine, ioWorkerPool, dispatcher, writerWorkerPool, httpWorkerCount);
 
         final Closeable cleaner = contextFactory::closeContextPool;
         for (int i = 0, n = ioWorkerPool.getWorkerCount(); i < n; i++) {
@@ -77,6 +90,22 @@ public class LineTcpServer implements Closeable {
             WorkerPool sharedWorkerPool,
             Log log,
             CairoEngine cairoEngine
+    ) {
+        return create(lineConfiguration, sharedWorkerPool, log, cairoEngine, 0);
+    }
+
+    /**
+     * Creates server, which also accepts line protocol from HTTP workers.
+     *
+     * @param httpWorkerCount number of HTTP workers, each of them needs its own {@link LineHttpLoader}
+     */
+    @Nullable
+    public static LineTcpServer create(
+            LineTcpReceiverConfiguration lineConfiguration,
+            WorkerPool sharedWorkerPool,
+            Log log,
+            CairoEngine cairoEngine,
+            int httpWorkerCount
     ) {
         if (!lineConfiguration.isEnabled()) {
             return null;
@@ -93,7 +122,7 @@ public class LineTcpServer implements Closeable {
             writerWorkerPool.assignCleaner(Path.CLEANER);
             dedicatedPools.add(writerWorkerPool);
         }
-        LineTcpServer lineTcpServer = new LineTcpServer(lineConfiguration, cairoEngine, ioWorkerPool, writerWorkerPool, dedicatedPools);
+        LineTcpServer lineTcpServer = new LineTcpServer(lineConfiguration, cairoEngine, ioWorkerPool, writerWorkerPool, dedicatedPools, httpWorkerCount);
         if (ioWorkerPool != sharedWorkerPool) {
             ioWorkerPool.start(log);
         }
@@ -103,6 +132,18 @@ public class LineTcpServer implements Closeable {
         return lineTcpServer;
     }
 
+    LineTcpMeasurementScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Creates loader for an HTTP worker, number of loaders is limited by HTTP worker count
+     * the server was created with.
+     */
+    public LineHttpLoader newHttpLoader() {
+        return new LineHttpLoader(lineConfiguration, scheduler);
+    }
+
     @Override
     public void close() {
         for (int n = 0, sz = dedicatedPools.size(); n < sz; n++) {
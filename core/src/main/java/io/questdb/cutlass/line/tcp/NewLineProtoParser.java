@@ -52,6 +52,14 @@ public class NewLineProtoParser implements Closeable {
     public static final byte ENTITY_TYPE_LONG256 = 5;
     public static final byte ENTITY_TYPE_CACHED_TAG = 6;
     public static final int N_ENTITY_TYPES = ENTITY_TYPE_CACHED_TAG + 1;
+    private static final long LSB_BYTES = 0x0101010101010101L;
+    private static final long MSB_BYTES = 0x8080808080808080L;
+    private static final long NEW_LINE_BYTES = LSB_BYTES * '\n';
+    private static final long CARRIAGE_RETURN_BYTES = LSB_BYTES * '\r';
+    private static final long EQUALS_BYTES = LSB_BYTES * '=';
+    private static final long COMMA_BYTES = LSB_BYTES * ',';
+    private static final long SPACE_BYTES = LSB_BYTES * ' ';
+    private static final long BACKSLASH_BYTES = LSB_BYTES * '\\';
 
     private final DirectByteCharSequence measurementName = new DirectByteCharSequence();
     private final DirectByteCharSequence charSeq = new DirectByteCharSequence();
@@ -124,8 +132,10 @@ public class NewLineProtoParser implements Closeable {
                 default:
                     if (nEscapedChars > 0) {
                         Unsafe.getUnsafe().putByte(bufAt - nEscapedChars, b);
+                        bufAt++;
+                    } else {
+                        bufAt = skipEntityBytes(bufAt + 1, bufHi);
                     }
-                    bufAt++;
                     break;
             }
         }
@@ -146,6 +156,15 @@ public class NewLineProtoParser implements Closeable {
 
     public ParseResult skipMeasurement(long bufHi) {
         assert bufAt != 0 && bufHi >= bufAt;
+        while (bufAt + Long.BYTES <= bufHi) {
+            final long word = Unsafe.getUnsafe().getLong(bufAt);
+            final long mask = zeroByteMask(word ^ NEW_LINE_BYTES) | zeroByteMask(word ^ CARRIAGE_RETURN_BYTES);
+            if (mask != 0) {
+                bufAt += Long.numberOfTrailingZeros(mask) >>> 3;
+                return ParseResult.MEASUREMENT_COMPLETE;
+            }
+            bufAt += Long.BYTES;
+        }
         while (bufAt < bufHi) {
             byte b = Unsafe.getUnsafe().getByte(bufAt);
             if (b == (byte) '\n' || b == (byte) '\r') {
@@ -193,6 +212,39 @@ public class NewLineProtoParser implements Closeable {
     public void close() {
     }
 
+    /**
+     * Skips bytes that are neither separators, line ends nor escapes, 8 bytes at a time.
+     *
+     * @param lo address to start at
+     * @param hi end of the buffer
+     * @return address of the first byte the parser has to look at, this is either a special byte
+     * or a byte in the tail of the buffer that is shorter than 8 bytes
+     */
+    private static long skipEntityBytes(long lo, long hi) {
+        long p = lo;
+        while (p + Long.BYTES <= hi) {
+            final long word = Unsafe.getUnsafe().getLong(p);
+            final long mask = zeroByteMask(word ^ NEW_LINE_BYTES)
+                    | zeroByteMask(word ^ CARRIAGE_RETURN_BYTES)
+                    | zeroByteMask(word ^ EQUALS_BYTES)
+                    | zeroByteMask(word ^ COMMA_BYTES)
+                    | zeroByteMask(word ^ SPACE_BYTES)
+                    | zeroByteMask(word ^ BACKSLASH_BYTES);
+            if (mask != 0) {
+                // words are read little endian, the lowest marked byte is the first special byte
+                return p + (Long.numberOfTrailingZeros(mask) >>> 3);
+            }
+            p += Long.BYTES;
+        }
+        return p;
+    }
+
+    // Marks zero bytes of the word with their high bit. Bytes above a zero byte can be
+    // marked falsely, the lowest marked byte is always exact.
+    private static long zeroByteMask(long word) {
+        return (word - LSB_BYTES) & ~word & MSB_BYTES;
+    }
+
     private boolean expectTableName(byte endOfEntityByte) {
         tagsComplete = endOfEntityByte == (byte) ' ';
         if (endOfEntityByte == (byte) ',' || tagsComplete) {
@@ -49,6 +49,9 @@ public abstract class AbstractLineProtoReceiver extends SynchronizedJob implemen
     private final SOCountDownLatch started = new SOCountDownLatch();
     private final SOCountDownLatch halted = new SOCountDownLatch(1);
     private final LineUdpReceiverConfiguration configuration;
+    private final LineProtoRouter router;
+    private final int receiverId;
+    private volatile long droppedLineCount = 0;
     protected long fd;
     protected int commitRate;
     protected long totalCount = 0;
@@ -57,9 +60,13 @@ public abstract class AbstractLineProtoReceiver extends SynchronizedJob implemen
     public AbstractLineProtoReceiver(
             LineUdpReceiverConfiguration configuration,
             CairoEngine engine,
-            WorkerPool workerPool
+            WorkerPool workerPool,
+            LineProtoRouter router,
+            int receiverId
     ) {
         this.configuration = configuration;
+        this.router = router;
+        this.receiverId = receiverId;
         this.commitMode = configuration.getCommitMode();
         nf = configuration.getNetworkFacade();
         fd = nf.socketUdp();
@@ -70,6 +77,9 @@ public abstract class AbstractLineProtoReceiver extends SynchronizedJob implemen
         }
 
         try {
+            if (router != null && nf.setReusePort(fd) != 0) {
+                LOG.error().$("cannot set SO_REUSEPORT [fd=").$(fd).$(", errno=").$(nf.errno()).$(']').$();
+            }
             // when listening for multicast packets bind address must be 0
             bind(configuration);
             this.commitRate = configuration.getCommitRate();
@@ -102,15 +112,45 @@ public abstract class AbstractLineProtoReceiver extends SynchronizedJob implemen
                 LOG.info().$("closed [fd=").$(fd).$(']').$();
             }
             if (parser != null) {
+                drainRoutedLines();
                 parser.commitAll(commitMode);
                 parser.close();
             }
             Misc.free(lexer);
+            if (droppedLineCount > 0) {
+                LOG.info().$("dropped routed lines [receiverId=").$(receiverId).$(", count=").$(droppedLineCount).$(']').$();
+            }
             LOG.info().$("closed [fd=").$(fd).$(']').$();
             fd = -1;
         }
     }
 
+    /**
+     * Number of lines this receiver could not route to the receiver owning their table,
+     * because the queue of the owner was full.
+     *
+     * @return number of dropped lines
+     */
+    public long getDroppedLineCount() {
+        return droppedLineCount;
+    }
+
+    protected boolean drainRoutedLines() {
+        return router != null && router.drain(receiverId, lexer);
+    }
+
+    protected void parse(long lo, long hi) {
+        if (router == null) {
+            lexer.parse(lo, hi);
+            lexer.parseLast();
+        } else {
+            final int dropped = router.route(receiverId, lo, hi, lexer);
+            if (dropped > 0) {
+                droppedLineCount += dropped;
+            }
+        }
+    }
+
     protected void halt() {
         if (running.compareAndSet(true, false)) {
             started.await();
@@ -158,6 +198,7 @@ public abstract class AbstractLineProtoReceiver extends SynchronizedJob implemen
                     .$(':')
                     .$(configuration.getPort())
                     .$(" [fd=").$(fd)
+                    .$(", receiverId=").$(receiverId)
                     .$(", commitRate=").$(commitRate)
                     .$(']').$();
         } else {
@@ -80,6 +80,16 @@ public class DefaultLineUdpReceiverConfiguration implements LineUdpReceiverConfi
         return -1;
     }
 
+    @Override
+    public int getReceiverCount() {
+        return 1;
+    }
+
+    @Override
+    public int getRouterQueueCapacity() {
+        return 1024;
+    }
+
     @Override
     public CairoSecurityContext getCairoSecurityContext() {
         return AllowAllCairoSecurityContext.INSTANCE;
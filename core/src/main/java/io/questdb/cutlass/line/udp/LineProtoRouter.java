@@ -0,0 +1,203 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.udp;
+
+import io.questdb.cutlass.line.LineProtoLexer;
+import io.questdb.mp.MPSequence;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SCSequence;
+import io.questdb.mp.Sequence;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+
+import java.io.Closeable;
+
+/**
+ * Routes lines between UDP receivers sharing a port. Each table is owned by one receiver, which is
+ * the only one to write it. Lines of tables owned by other receivers are copied to the queues
+ * of their owners.
+ */
+public class LineProtoRouter implements Closeable {
+    private final int receiverCount;
+    private final ObjList<RingQueue<LineChunk>> queues;
+    private final ObjList<Sequence> pubSeqs;
+    private final ObjList<Sequence> subSeqs;
+
+    public LineProtoRouter(LineUdpReceiverConfiguration configuration) {
+        this.receiverCount = configuration.getReceiverCount();
+        final int msgBufferSize = configuration.getMsgBufferSize();
+        final int queueCapacity = configuration.getRouterQueueCapacity();
+        this.queues = new ObjList<>(receiverCount);
+        this.pubSeqs = new ObjList<>(receiverCount);
+        this.subSeqs = new ObjList<>(receiverCount);
+        for (int i = 0; i < receiverCount; i++) {
+            MPSequence pubSeq = new MPSequence(queueCapacity);
+            SCSequence subSeq = new SCSequence();
+            pubSeq.then(subSeq).then(pubSeq);
+            queues.add(new RingQueue<>(() -> new LineChunk(msgBufferSize), queueCapacity));
+            pubSeqs.add(pubSeq);
+            subSeqs.add(subSeq);
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(queues);
+        queues.clear();
+    }
+
+    private static int countLines(long lo, long hi) {
+        int count = 0;
+        for (long p = lo; p < hi; p++) {
+            if (Unsafe.getUnsafe().getByte(p) == '\n') {
+                count++;
+            }
+        }
+        // last line does not have to end with new line
+        return Unsafe.getUnsafe().getByte(hi - 1) == '\n' ? count : count + 1;
+    }
+
+    private int dispatch(int receiverId, int ownerId, long lo, long hi, LineProtoLexer lexer) {
+        if (ownerId == receiverId) {
+            lexer.parse(lo, hi);
+            lexer.parseLast();
+            return 0;
+        }
+
+        final Sequence pubSeq = pubSeqs.getQuick(ownerId);
+        long seq;
+        //noinspection StatementWithEmptyBody
+        while ((seq = pubSeq.next()) == -2) {
+        }
+        if (seq < 0) {
+            // receivers must not wait on each other, lines are dropped as datagrams would be
+            return countLines(lo, hi);
+        }
+        queues.getQuick(ownerId).get(seq).of(lo, hi);
+        pubSeq.done(seq);
+        return 0;
+    }
+
+    /**
+     * Parses lines routed to the receiver by other receivers.
+     *
+     * @param receiverId id of receiver
+     * @param lexer      lexer of the receiver
+     * @return true if there were lines to parse
+     */
+    boolean drain(int receiverId, LineProtoLexer lexer) {
+        final RingQueue<LineChunk> queue = queues.getQuick(receiverId);
+        final Sequence subSeq = subSeqs.getQuick(receiverId);
+        boolean busy = false;
+        while (true) {
+            long cursor = subSeq.next();
+            if (cursor == -1) {
+                return busy;
+            }
+            if (cursor > -1) {
+                LineChunk chunk = queue.get(cursor);
+                lexer.parse(chunk.lo, chunk.lo + chunk.len);
+                lexer.parseLast();
+                subSeq.done(cursor);
+                busy = true;
+            }
+        }
+    }
+
+    /**
+     * Parses lines of the tables owned by the receiver and routes other lines to their owners.
+     * Consecutive lines of the same owner are routed together.
+     *
+     * @param receiverId id of receiver
+     * @param lo         address of the first byte of the message
+     * @param hi         address of the byte after the message
+     * @param lexer      lexer of the receiver
+     * @return number of lines dropped because queue of their owner was full
+     */
+    int route(int receiverId, long lo, long hi, LineProtoLexer lexer) {
+        int dropped = 0;
+        int runOwnerId = -1;
+        long runLo = lo;
+        long p = lo;
+        while (p < hi) {
+            final long lineLo = p;
+            // the owner is picked by hash of unescaped table name
+            int h = 0;
+            while (p < hi) {
+                byte b = Unsafe.getUnsafe().getByte(p);
+                if (b == '\\' && p + 1 < hi) {
+                    b = Unsafe.getUnsafe().getByte(++p);
+                } else if (b == ',' || b == ' ' || b == '\n' || b == '\r') {
+                    break;
+                }
+                h = 31 * h + b;
+                p++;
+            }
+            //noinspection StatementWithEmptyBody
+            while (p < hi && Unsafe.getUnsafe().getByte(p++) != '\n') {
+            }
+
+            final int ownerId = (h & Integer.MAX_VALUE) % receiverCount;
+            if (ownerId != runOwnerId) {
+                if (runOwnerId != -1) {
+                    dropped += dispatch(receiverId, runOwnerId, runLo, lineLo, lexer);
+                }
+                runOwnerId = ownerId;
+                runLo = lineLo;
+            }
+        }
+        if (runOwnerId != -1) {
+            dropped += dispatch(receiverId, runOwnerId, runLo, hi, lexer);
+        }
+        return dropped;
+    }
+
+    private static class LineChunk implements Closeable {
+        private final int size;
+        private long lo;
+        private int len;
+
+        private LineChunk(int size) {
+            this.size = size;
+            this.lo = Unsafe.malloc(size);
+        }
+
+        @Override
+        public void close() {
+            if (lo != 0) {
+                Unsafe.free(lo, size);
+                lo = 0;
+            }
+        }
+
+        private void of(long lo, long hi) {
+            len = (int) (hi - lo);
+            assert len <= size;
+            Vect.memcpy(lo, this.lo, len);
+        }
+    }
+}
@@ -48,6 +48,21 @@ public interface LineUdpReceiverConfiguration {
 
     int getReceiveBufferSize();
 
+    /**
+     * Number of receivers bound to the same port with SO_REUSEPORT. Each table is written by one
+     * receiver, lines of other tables are routed to their receivers. Only unicast supports more than one receiver.
+     *
+     * @return number of receivers
+     */
+    int getReceiverCount();
+
+    /**
+     * Capacity of the queue of lines routed to a receiver, each queue entry holds up to a message buffer of lines.
+     *
+     * @return queue capacity, power of 2
+     */
+    int getRouterQueueCapacity();
+
     CairoSecurityContext getCairoSecurityContext();
 
     boolean isEnabled();
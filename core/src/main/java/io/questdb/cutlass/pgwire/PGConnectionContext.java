@@ -134,7 +134,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
     private RecordCursorFactory currentFactory = null;
     // these references are held by context only for a period of processing single request
     // in PF world this request can span multiple messages, but still, only for one request
-    // the rationale is to be able to return "selectAndTypes" instance to thread-local
+    // the rationale is to be able to return "selectAndTypes" instance to the shared
     // cache, which is "typesAndSelectCache". We typically do this after query results are
     // served to client or query errored out due to network issues
     private TypesAndSelect typesAndSelect = null;
@@ -151,8 +151,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
     private boolean isEmptyQuery;
     private int transactionState = NO_TRANSACTION;
     private NamedStatementWrapper wrapper;
-    private AssociativeCache<TypesAndSelect> typesAndSelectCache;
-    private WeakAutoClosableObjectPool<TypesAndSelect> typesAndSelectPool;
+    private ConcurrentAssociativeCache<TypesAndSelect> typesAndSelectCache;
     // this is a reference to types either from the context or named statement, where it is provided
     private IntList activeBindVariableTypes;
     private boolean sendParameterDescription;
@@ -283,6 +282,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
             Misc.free(pendingWriters.valueQuick(i));
         }
         pendingWriters.clear();
+        sqlExecutionContext.clearWalWriters();
     }
 
     @Override
@@ -292,7 +292,6 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
         sqlExecutionContext.with(AllowAllCairoSecurityContext.INSTANCE, null, null, -1, null);
         Unsafe.free(sendBuffer, sendBufferSize);
         Unsafe.free(recvBuffer, recvBufferSize);
-        Misc.free(typesAndSelectCache);
         Misc.free(path);
         Misc.free(utf8Sink);
     }
@@ -321,15 +320,23 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
         return engine.getWriter(context, name);
     }
 
+    @Override
+    public TableWriter getWalWriter(CairoSecurityContext context, CharSequence name, int tableId, long structureVersion) {
+        final int index = pendingWriters.keyIndex(name);
+        if (index < 0) {
+            return pendingWriters.valueAt(index);
+        }
+        // segment is kept open for subsequent statements of this connection
+        return sqlExecutionContext.getWriterSource().getWalWriter(context, name, tableId, structureVersion);
+    }
+
     public void handleClientOperation(
             @Transient SqlCompiler compiler,
-            @Transient AssociativeCache<TypesAndSelect> selectAndTypesCache,
-            @Transient WeakAutoClosableObjectPool<TypesAndSelect> selectAndTypesPool,
+            @Transient ConcurrentAssociativeCache<TypesAndSelect> selectAndTypesCache,
             int operation
     ) throws PeerDisconnectedException, PeerIsSlowToReadException, PeerIsSlowToWriteException, BadProtocolException {
 
         this.typesAndSelectCache = selectAndTypesCache;
-        this.typesAndSelectPool = selectAndTypesPool;
 
         try {
             if (bufferRemainingSize > 0) {
@@ -950,7 +957,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
 
             switch (cc.getType()) {
                 case CompiledQuery.SELECT:
-                    typesAndSelect = typesAndSelectPool.pop();
+                    typesAndSelect = new TypesAndSelect();
                     typesAndSelect.of(cc.getRecordCursorFactory(), bindVariableService);
                     queryTag = TAG_SELECT;
                     LOG.debug().$("cache select [sql=").$(queryText).$(", thread=").$(Thread.currentThread().getId()).$(']').$();
@@ -2075,6 +2082,11 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
                 currentCursor = currentFactory.getCursor(sqlExecutionContext);
                 // cache random if it was replaced
                 this.rnd = sqlExecutionContext.getRandom();
+            } catch (ReaderOutOfDateException e) {
+                // idle copies of this select were compiled against the same table structure
+                typesAndSelectCache.invalidate(queryText);
+                currentFactory = Misc.free(currentFactory);
+                throw e;
             } catch (Throwable e) {
                 currentFactory = Misc.free(currentFactory);
                 throw e;
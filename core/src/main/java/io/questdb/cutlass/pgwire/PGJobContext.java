@@ -31,34 +31,31 @@ import io.questdb.griffin.SqlCompiler;
 import io.questdb.network.PeerDisconnectedException;
 import io.questdb.network.PeerIsSlowToReadException;
 import io.questdb.network.PeerIsSlowToWriteException;
-import io.questdb.std.AssociativeCache;
+import io.questdb.std.ConcurrentAssociativeCache;
 import io.questdb.std.Misc;
-import io.questdb.std.WeakAutoClosableObjectPool;
 
 import java.io.Closeable;
 
 public class PGJobContext implements Closeable {
 
     private final SqlCompiler compiler;
-    private final AssociativeCache<TypesAndSelect> selectAndTypesCache;
-    private final WeakAutoClosableObjectPool<TypesAndSelect> selectAndTypesPool;
+    private final ConcurrentAssociativeCache<TypesAndSelect> selectAndTypesCache;
 
-    public PGJobContext(PGWireConfiguration configuration, CairoEngine engine, MessageBus messageBus, FunctionFactoryCache functionFactoryCache) {
+    public PGJobContext(
+            CairoEngine engine,
+            MessageBus messageBus,
+            FunctionFactoryCache functionFactoryCache,
+            ConcurrentAssociativeCache<TypesAndSelect> selectAndTypesCache
+    ) {
         this.compiler = new SqlCompiler(engine, messageBus, functionFactoryCache);
-        this.selectAndTypesCache = new AssociativeCache<>(
-                configuration.getFactoryCacheColumnCount(),
-                configuration.getFactoryCacheRowCount()
-        );
-        this.selectAndTypesPool = new WeakAutoClosableObjectPool<>(
-                TypesAndSelect::new,
-                configuration.getFactoryCacheColumnCount() * configuration.getFactoryCacheRowCount()
-        );
+        this.selectAndTypesCache = selectAndTypesCache;
     }
 
     @Override
     public void close() {
         Misc.free(compiler);
-        Misc.free(selectAndTypesCache);
+        // cache is shared by all workers, clearing it is idempotent
+        selectAndTypesCache.clear();
     }
 
     public void handleClientOperation(PGConnectionContext context, int operation)
@@ -66,6 +63,6 @@ public class PGJobContext implements Closeable {
             PeerIsSlowToReadException,
             PeerDisconnectedException,
             BadProtocolException {
-        context.handleClientOperation(compiler, selectAndTypesCache, selectAndTypesPool, operation);
+        context.handleClientOperation(compiler, selectAndTypesCache, operation);
     }
 }
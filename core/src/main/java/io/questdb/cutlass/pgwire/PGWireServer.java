@@ -34,6 +34,7 @@ import io.questdb.mp.EagerThreadSetup;
 import io.questdb.mp.Job;
 import io.questdb.mp.WorkerPool;
 import io.questdb.network.*;
+import io.questdb.std.ConcurrentAssociativeCache;
 import io.questdb.std.Misc;
 import io.questdb.std.ThreadLocal;
 import io.questdb.std.WeakObjectPool;
@@ -47,6 +48,7 @@ public class PGWireServer implements Closeable {
     private final PGConnectionContextFactory contextFactory;
     private final WorkerPool workerPool;
     private final MessageBus messageBus;
+    private final ConcurrentAssociativeCache<TypesAndSelect> selectAndTypesCache;
 
     public PGWireServer(
             PGWireConfiguration configuration,
@@ -65,8 +67,14 @@ public class PGWireServer implements Closeable {
 
         workerPool.assign(dispatcher);
 
+        // select factories are shared by all workers
+        this.selectAndTypesCache = new ConcurrentAssociativeCache<>(
+                configuration.getFactoryCacheColumnCount(),
+                configuration.getFactoryCacheRowCount()
+        );
+
         for (int i = 0, n = workerPool.getWorkerCount(); i < n; i++) {
-            final PGJobContext jobContext = new PGJobContext(configuration, engine, messageBus, functionFactoryCache);
+            final PGJobContext jobContext = new PGJobContext(engine, messageBus, functionFactoryCache, selectAndTypesCache);
             workerPool.assign(i, new Job() {
                 private final IORequestProcessor<PGConnectionContext> processor = (operation, context) -> {
                     try {
@@ -128,6 +136,7 @@ public class PGWireServer implements Closeable {
         }
         Misc.free(contextFactory);
         Misc.free(dispatcher);
+        Misc.free(selectAndTypesCache);
 
         // when worker pool is not null we will also have local message bus
         if (workerPool != null) {
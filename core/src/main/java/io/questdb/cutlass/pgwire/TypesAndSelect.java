@@ -27,13 +27,17 @@ package io.questdb.cutlass.pgwire;
 import io.questdb.cairo.sql.BindVariableService;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.std.Misc;
-import io.questdb.std.WeakAutoClosableObjectPool;
 
+/**
+ * Select factory along with bind variable types. Instances are shared between worker
+ * threads via select cache and can be closed by thread other than the one that created
+ * them, therefore they are not pooled.
+ */
 public class TypesAndSelect extends AbstractTypeContainer<TypesAndSelect> {
     private RecordCursorFactory factory;
 
-    public TypesAndSelect(WeakAutoClosableObjectPool<TypesAndSelect> parentPool) {
-        super(parentPool);
+    public TypesAndSelect() {
+        super(null);
     }
 
     @Override
@@ -0,0 +1,784 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ZoneMapFilter;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.engine.table.CompiledFilter;
+import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.griffin.model.IntervalUtils;
+import io.questdb.std.Chars;
+import io.questdb.std.IntList;
+import io.questdb.std.NumericException;
+import io.questdb.std.Numbers;
+import org.jetbrains.annotations.Nullable;
+
+import static io.questdb.cairo.ZoneMapFilter.*;
+import static io.questdb.griffin.SqlKeywords.*;
+import static io.questdb.griffin.engine.table.CompiledFilter.*;
+
+/**
+ * Translates filter expression into {@link CompiledFilter} program. Only simple predicates
+ * over fixed-width columns are supported, anything else makes compiler return null and
+ * the caller is expected to fall back to function-based filter. Type resolution mirrors
+ * the choice of function factories made by {@link FunctionParser}, so that compiled
+ * filter produces exactly the same result as the function tree would.
+ */
+public class FilterCompiler {
+    // static types of expression nodes
+    private static final int UNSUPPORTED = -1;
+    private static final int BOOLEAN = 0;
+    private static final int INT = 1;
+    // byte and short columns, arithmetic on these resolves to narrow functions
+    private static final int NARROW_INT = 2;
+    private static final int LONG = 3;
+    private static final int TIMESTAMP = 4;
+    private static final int DOUBLE = 5;
+    // float arithmetic resolves to float functions
+    private static final int FLOAT = 6;
+    private static final int SYMBOL = 7;
+    private static final int STRING_CONSTANT = 8;
+    private static final int NULL_CONSTANT = 9;
+    private static final int NAN_CONSTANT = 10;
+
+    // representation of values on evaluation stack
+    private static final int REP_INT = 0;
+    private static final int REP_LONG = 1;
+    private static final int REP_TIMESTAMP = 2;
+    private static final int REP_DOUBLE = 3;
+
+    private RecordMetadata metadata;
+    private IntList columnIndexes;
+    private CompiledFilter filter;
+
+    /**
+     * Compiles filter expression.
+     *
+     * @param node          filter expression
+     * @param metadata      metadata of the cursor filter applies to
+     * @param columnIndexes indexes of table reader columns for each metadata column
+     * @return compiled filter or null when expression cannot be compiled
+     */
+    @Nullable
+    public CompiledFilter compile(ExpressionNode node, RecordMetadata metadata, IntList columnIndexes) {
+        this.metadata = metadata;
+        this.columnIndexes = columnIndexes;
+        try {
+            if (typeOf(node) != BOOLEAN) {
+                return null;
+            }
+            filter = new CompiledFilter();
+            emitBoolean(node);
+            return filter;
+        } finally {
+            this.filter = null;
+            this.metadata = null;
+            this.columnIndexes = null;
+        }
+    }
+
+    /**
+     * Translates filter expression into {@link ZoneMapFilter}. Comparisons of a column with a constant
+     * become filter clauses, "and" and "or" are preserved and everything else is unknown to the filter.
+     *
+     * @param node     filter expression
+     * @param metadata metadata of the table filter applies to
+     * @return zone map filter or null when expression has no comparisons zone maps can evaluate
+     */
+    @Nullable
+    public ZoneMapFilter compileZoneMapFilter(ExpressionNode node, RecordMetadata metadata) {
+        this.metadata = metadata;
+        try {
+            final ZoneMapFilter zoneMapFilter = new ZoneMapFilter();
+            emitZoneMap(node, zoneMapFilter);
+            return zoneMapFilter.getClauseCount() > 0 ? zoneMapFilter : null;
+        } finally {
+            this.metadata = null;
+        }
+    }
+
+    private static int arithmeticType(int l, int r) {
+        if (!isArithmeticOperand(l) || !isArithmeticOperand(r)) {
+            return UNSUPPORTED;
+        }
+        if (l == DOUBLE || r == DOUBLE) {
+            return DOUBLE;
+        }
+        if (l == LONG || r == LONG) {
+            return LONG;
+        }
+        return INT;
+    }
+
+    private static int divisionType(int l, int r) {
+        final int type = arithmeticType(l, r);
+        // there is no int division, int operands resolve ambiguously
+        return type == INT ? UNSUPPORTED : type;
+    }
+
+    private static int equalityRep(int l, int r) {
+        if (!isNumeric(l) && l != STRING_CONSTANT || !isNumeric(r) && r != STRING_CONSTANT) {
+            return UNSUPPORTED;
+        }
+
+        final boolean timestamp = l == TIMESTAMP || r == TIMESTAMP;
+        if (l == STRING_CONSTANT || r == STRING_CONSTANT) {
+            // string can only be compared to timestamp
+            return timestamp && l != r ? REP_TIMESTAMP : UNSUPPORTED;
+        }
+
+        final boolean floating = l == DOUBLE || l == FLOAT || r == DOUBLE || r == FLOAT;
+        if (floating) {
+            return timestamp ? UNSUPPORTED : REP_DOUBLE;
+        }
+
+        if (timestamp) {
+            return REP_TIMESTAMP;
+        }
+
+        if (l == LONG || r == LONG) {
+            return REP_LONG;
+        }
+        return REP_INT;
+    }
+
+    private static boolean isArithmeticOperand(int type) {
+        return type == INT || type == LONG || type == DOUBLE;
+    }
+
+    private static boolean isConstant(ExpressionNode node) {
+        return node.type == ExpressionNode.CONSTANT || isUnaryMinus(node);
+    }
+
+    private static boolean isEqualityOperator(CharSequence token) {
+        return Chars.equals(token, '=') || isNotEqualOperator(token);
+    }
+
+    private static boolean isNotEqualOperator(CharSequence token) {
+        return Chars.equals(token, "!=") || Chars.equals(token, "<>");
+    }
+
+    private static boolean isNumeric(int type) {
+        switch (type) {
+            case INT:
+            case NARROW_INT:
+            case LONG:
+            case TIMESTAMP:
+            case DOUBLE:
+            case FLOAT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isOrderingOperator(CharSequence token) {
+        return Chars.equals(token, '<') || Chars.equals(token, "<=") || Chars.equals(token, '>') || Chars.equals(token, ">=");
+    }
+
+    private static boolean isQuotedString(CharSequence token) {
+        // two and three character tokens are char constants
+        return Chars.isQuoted(token) && token.length() > 3;
+    }
+
+    private static boolean isUnaryMinus(ExpressionNode node) {
+        return node.type == ExpressionNode.OPERATION
+                && node.paramCount == 1
+                && Chars.equals(node.token, '-')
+                && node.rhs != null
+                && node.rhs.type == ExpressionNode.CONSTANT;
+    }
+
+    private static int orderingRep(int l, int r) {
+        if (!isNumeric(l) && l != STRING_CONSTANT || !isNumeric(r) && r != STRING_CONSTANT) {
+            return UNSUPPORTED;
+        }
+
+        final boolean timestamp = l == TIMESTAMP || r == TIMESTAMP;
+        if (l == STRING_CONSTANT || r == STRING_CONSTANT) {
+            return timestamp && l != r ? REP_TIMESTAMP : UNSUPPORTED;
+        }
+
+        if (timestamp) {
+            // timestamp comparison with floating point resolves to double function
+            // and timestamp functions do not support double conversion
+            return l == DOUBLE || l == FLOAT || r == DOUBLE || r == FLOAT ? UNSUPPORTED : REP_TIMESTAMP;
+        }
+        // all other ordering comparisons resolve to double function
+        return REP_DOUBLE;
+    }
+
+    private static boolean nullMatches(int comparison, long nullValue, long value) {
+        switch (comparison) {
+            case CMP_EQ:
+                return nullValue == value;
+            case CMP_NE:
+                return nullValue != value;
+            case CMP_LT:
+                return nullValue < value;
+            case CMP_LE:
+                return nullValue <= value;
+            case CMP_GT:
+                return nullValue > value;
+            default:
+                return nullValue >= value;
+        }
+    }
+
+    private static int orderingComparison(CharSequence token, boolean swap) {
+        final boolean less = token.charAt(0) == '<' != swap;
+        if (token.length() == 1) {
+            return less ? CMP_LT : CMP_GT;
+        }
+        return less ? CMP_LE : CMP_GE;
+    }
+
+    private static int repOf(int type) {
+        switch (type) {
+            case LONG:
+                return REP_LONG;
+            case TIMESTAMP:
+                return REP_TIMESTAMP;
+            case DOUBLE:
+            case FLOAT:
+                return REP_DOUBLE;
+            default:
+                return REP_INT;
+        }
+    }
+
+    private static String unquote(CharSequence token) {
+        return Chars.toString(token, 1, token.length() - 1);
+    }
+
+    private int columnTypeOf(ExpressionNode node) {
+        final int index = metadata.getColumnIndexQuiet(node.token);
+        if (index < 0) {
+            return UNSUPPORTED;
+        }
+
+        switch (metadata.getColumnType(index)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+                return NARROW_INT;
+            case ColumnType.INT:
+                return INT;
+            case ColumnType.LONG:
+                return LONG;
+            case ColumnType.TIMESTAMP:
+                return TIMESTAMP;
+            case ColumnType.FLOAT:
+                return FLOAT;
+            case ColumnType.DOUBLE:
+                return DOUBLE;
+            case ColumnType.SYMBOL:
+                return SYMBOL;
+            default:
+                return UNSUPPORTED;
+        }
+    }
+
+    private int constantTypeOf(CharSequence token) {
+        if (isNullKeyword(token)) {
+            return NULL_CONSTANT;
+        }
+
+        if (isNanKeyword(token)) {
+            return NAN_CONSTANT;
+        }
+
+        if (Chars.isQuoted(token)) {
+            return isQuotedString(token) ? STRING_CONSTANT : UNSUPPORTED;
+        }
+
+        // constants that happen to be null values are left to function parser
+        try {
+            return Numbers.parseInt(token) == Numbers.INT_NaN ? UNSUPPORTED : INT;
+        } catch (NumericException ignore) {
+        }
+
+        try {
+            return Numbers.parseLong(token) == Numbers.LONG_NaN ? UNSUPPORTED : LONG;
+        } catch (NumericException ignore) {
+        }
+
+        try {
+            Numbers.parseDouble(token);
+            return DOUBLE;
+        } catch (NumericException ignore) {
+        }
+        return UNSUPPORTED;
+    }
+
+    private void convert(int from, int to) {
+        if (from == to) {
+            return;
+        }
+
+        switch (from) {
+            case REP_INT:
+                switch (to) {
+                    case REP_LONG:
+                        filter.emit(OP_INT_TO_LONG);
+                        break;
+                    case REP_DOUBLE:
+                        filter.emit(OP_INT_TO_DOUBLE);
+                        break;
+                    default:
+                        // int to timestamp conversion does not translate nulls
+                        break;
+                }
+                break;
+            case REP_LONG:
+                if (to == REP_DOUBLE) {
+                    filter.emit(OP_LONG_TO_DOUBLE);
+                }
+                break;
+            default:
+                assert false;
+                break;
+        }
+    }
+
+    private void emitBoolean(ExpressionNode node) {
+        final CharSequence token = node.token;
+        if (node.paramCount == 1) {
+            // "not" is the only unary boolean operator
+            emitBoolean(node.rhs);
+            filter.emit(OP_NOT);
+            return;
+        }
+
+        if (isInKeyword(token)) {
+            emitIn(node);
+            return;
+        }
+
+        if (isAndKeyword(token) || isOrKeyword(token)) {
+            emitBoolean(node.lhs);
+            emitBoolean(node.rhs);
+            filter.emit(isAndKeyword(token) ? OP_AND : OP_OR);
+            return;
+        }
+
+        final ExpressionNode lhs = node.lhs;
+        final ExpressionNode rhs = node.rhs;
+        final int l = typeOf(lhs);
+        final int r = typeOf(rhs);
+
+        if (isEqualityOperator(token)) {
+            if (l == SYMBOL || r == SYMBOL) {
+                emitSymbolEquals(l == SYMBOL ? lhs : rhs, l == SYMBOL ? rhs : lhs);
+            } else if (l == NAN_CONSTANT || r == NAN_CONSTANT) {
+                emitNullCheck(l == NAN_CONSTANT ? rhs : lhs, l == NAN_CONSTANT ? r : l);
+            } else if (l == NULL_CONSTANT || r == NULL_CONSTANT) {
+                emitNullCheck(l == NULL_CONSTANT ? rhs : lhs, INT);
+            } else {
+                final int rep = equalityRep(l, r);
+                emitValue(lhs, l, rep);
+                emitValue(rhs, r, rep);
+                filter.emit(rep == REP_DOUBLE ? OP_EQ_DOUBLE : OP_EQ_LONG);
+            }
+
+            if (isNotEqualOperator(token)) {
+                filter.emit(OP_NOT);
+            }
+            return;
+        }
+
+        // ordering operator
+        final int rep = orderingRep(l, r);
+        final boolean swap = token.charAt(0) == '>';
+        if (swap) {
+            emitValue(rhs, r, rep);
+            emitValue(lhs, l, rep);
+        } else {
+            emitValue(lhs, l, rep);
+            emitValue(rhs, r, rep);
+        }
+
+        if (token.length() == 1) {
+            filter.emit(rep == REP_DOUBLE ? OP_LT_DOUBLE : OP_LT_LONG);
+        } else {
+            filter.emit(rep == REP_DOUBLE ? OP_LE_DOUBLE : OP_LE_LONG);
+        }
+    }
+
+    private void emitColumn(ExpressionNode node, int rep) {
+        final int index = metadata.getColumnIndexQuiet(node.token);
+        final int columnType = metadata.getColumnType(index);
+        final int column = filter.addColumn(columnIndexes.getQuick(index), columnType);
+        switch (columnType) {
+            case ColumnType.BYTE:
+                filter.emit(OP_LOAD_BYTE, column);
+                break;
+            case ColumnType.SHORT:
+                filter.emit(OP_LOAD_SHORT, column);
+                break;
+            case ColumnType.INT:
+            case ColumnType.SYMBOL:
+                filter.emit(OP_LOAD_INT, column);
+                break;
+            case ColumnType.FLOAT:
+                filter.emit(OP_LOAD_FLOAT, column);
+                break;
+            case ColumnType.DOUBLE:
+                filter.emit(OP_LOAD_DOUBLE, column);
+                break;
+            default:
+                filter.emit(OP_LOAD_LONG, column);
+                break;
+        }
+        convert(repOf(columnTypeOf(node)), rep);
+    }
+
+    private static double constantAsDouble(ExpressionNode node, int type) {
+        final boolean negate = isUnaryMinus(node);
+        final CharSequence token = negate ? node.rhs.token : node.token;
+        try {
+            final double value = type == DOUBLE ? Numbers.parseDouble(token) : Numbers.parseLong(token);
+            return negate ? -value : value;
+        } catch (NumericException e) {
+            // constant types have been validated by typeOf()
+            throw new AssertionError(e);
+        }
+    }
+
+    private static long constantAsLong(ExpressionNode node, int type) {
+        final boolean negate = isUnaryMinus(node);
+        final CharSequence token = negate ? node.rhs.token : node.token;
+        try {
+            if (type == STRING_CONSTANT) {
+                return IntervalUtils.parseFloorPartialDate(unquote(token));
+            }
+            final long value = type == INT ? Numbers.parseInt(token) : Numbers.parseLong(token);
+            return negate ? -value : value;
+        } catch (NumericException e) {
+            // constant types have been validated by typeOf()
+            throw new AssertionError(e);
+        }
+    }
+
+    private void emitConstant(ExpressionNode node, int type, int rep) {
+        if (rep == REP_DOUBLE) {
+            filter.emit(OP_CONST_DOUBLE, filter.addConstant(constantAsDouble(node, type)));
+        } else {
+            assert type != STRING_CONSTANT || rep == REP_TIMESTAMP;
+            filter.emit(OP_CONST_LONG, filter.addConstant(constantAsLong(node, type)));
+        }
+    }
+
+    private void emitIn(ExpressionNode node) {
+        if (node.paramCount == 2) {
+            emitSymbolEquals(node.lhs, node.rhs);
+            return;
+        }
+
+        // arguments are in reverse order, column is the last one
+        final ExpressionNode column = node.args.getLast();
+        for (int i = node.paramCount - 2; i > -1; i--) {
+            emitSymbolEquals(column, node.args.getQuick(i));
+            if (i < node.paramCount - 2) {
+                filter.emit(OP_OR);
+            }
+        }
+    }
+
+    private void emitNullCheck(ExpressionNode node, int type) {
+        final int rep = repOf(type);
+        emitValue(node, type, rep);
+        switch (rep) {
+            case REP_INT:
+                filter.emit(OP_IS_NULL_INT);
+                break;
+            case REP_DOUBLE:
+                filter.emit(OP_IS_NULL_DOUBLE);
+                break;
+            default:
+                filter.emit(OP_IS_NULL_LONG);
+                break;
+        }
+    }
+
+    private void emitSymbolEquals(ExpressionNode column, ExpressionNode value) {
+        final int index = metadata.getColumnIndexQuiet(column.token);
+        final int readerIndex = columnIndexes.getQuick(index);
+        filter.emit(OP_LOAD_INT, filter.addColumn(readerIndex, ColumnType.SYMBOL));
+        filter.emit(OP_CONST_SYMBOL, filter.addSymbolConstant(readerIndex, isNullKeyword(value.token) ? null : unquote(value.token)));
+        filter.emit(OP_EQ_LONG);
+    }
+
+    private void emitValue(ExpressionNode node, int type, int rep) {
+        if (node.type == ExpressionNode.LITERAL) {
+            emitColumn(node, rep);
+        } else if (isConstant(node)) {
+            emitConstant(node, type, rep);
+        } else {
+            // arithmetic operation
+            final int l = typeOf(node.lhs);
+            final int r = typeOf(node.rhs);
+            final int opRep = repOf(type);
+            emitValue(node.lhs, l, opRep);
+            emitValue(node.rhs, r, opRep);
+            final char op = node.token.charAt(0);
+            switch (opRep) {
+                case REP_INT:
+                    filter.emit(op == '+' ? OP_ADD_INT : op == '-' ? OP_SUB_INT : OP_MUL_INT);
+                    break;
+                case REP_LONG:
+                    filter.emit(op == '+' ? OP_ADD_LONG : op == '-' ? OP_SUB_LONG : op == '*' ? OP_MUL_LONG : OP_DIV_LONG);
+                    break;
+                default:
+                    filter.emit(op == '+' ? OP_ADD_DOUBLE : op == '-' ? OP_SUB_DOUBLE : op == '*' ? OP_MUL_DOUBLE : OP_DIV_DOUBLE);
+                    break;
+            }
+            convert(opRep, rep);
+        }
+    }
+
+    private void emitZoneMap(ExpressionNode node, ZoneMapFilter zoneMapFilter) {
+        final CharSequence token = node.token;
+        if (node.type == ExpressionNode.OPERATION && node.paramCount == 2 && (isAndKeyword(token) || isOrKeyword(token))) {
+            emitZoneMap(node.lhs, zoneMapFilter);
+            emitZoneMap(node.rhs, zoneMapFilter);
+            if (isAndKeyword(token)) {
+                zoneMapFilter.addAnd();
+            } else {
+                zoneMapFilter.addOr();
+            }
+            return;
+        }
+
+        if (!emitZoneMapClause(node, zoneMapFilter)) {
+            zoneMapFilter.addUnknown();
+        }
+    }
+
+    private boolean emitZoneMapClause(ExpressionNode node, ZoneMapFilter zoneMapFilter) {
+        if (node.type != ExpressionNode.OPERATION || node.paramCount != 2) {
+            return false;
+        }
+
+        final CharSequence token = node.token;
+        final boolean equality = isEqualityOperator(token);
+        if (!equality && !isOrderingOperator(token)) {
+            return false;
+        }
+
+        final boolean swap = node.lhs.type != ExpressionNode.LITERAL;
+        final ExpressionNode column = swap ? node.rhs : node.lhs;
+        final ExpressionNode value = swap ? node.lhs : node.rhs;
+        if (column.type != ExpressionNode.LITERAL || !isConstant(value)) {
+            return false;
+        }
+
+        final int c = columnTypeOf(column);
+        final int v = typeOf(value);
+        if (!isNumeric(c) || v == UNSUPPORTED) {
+            return false;
+        }
+
+        final int index = metadata.getColumnIndexQuiet(column.token);
+        final CharSequence columnName = metadata.getColumnName(index);
+        final int columnType = metadata.getColumnType(index);
+
+        final int rep;
+        final int comparison;
+        if (equality) {
+            final boolean notEqual = isNotEqualOperator(token);
+            if (v == NAN_CONSTANT || v == NULL_CONSTANT && c == INT) {
+                // null check, does not depend on range of values
+                zoneMapFilter.addClause(columnName, columnType, notEqual ? CMP_ANY : CMP_NONE, 0L, !notEqual);
+                return true;
+            }
+            rep = equalityRep(c, v);
+            comparison = notEqual ? CMP_NE : CMP_EQ;
+        } else {
+            rep = orderingRep(c, v);
+            comparison = orderingComparison(token, swap);
+        }
+
+        if (rep == UNSUPPORTED || rep == REP_TIMESTAMP && !isTimestampConstantValid(node.lhs, swap ? v : c, node.rhs, swap ? c : v)) {
+            return false;
+        }
+
+        if (rep == REP_DOUBLE) {
+            // nulls compare as NaN, which satisfies "not equal" only
+            zoneMapFilter.addClause(columnName, columnType, comparison, constantAsDouble(value, v), comparison == CMP_NE);
+        } else {
+            final long constant = constantAsLong(value, v);
+            // null is a regular value when compared as integer, e.g. null timestamp is less than any other
+            final long nullValue = c == INT && rep != REP_LONG ? Numbers.INT_NaN : Numbers.LONG_NaN;
+            zoneMapFilter.addClause(columnName, columnType, comparison, constant, c != NARROW_INT && nullMatches(comparison, nullValue, constant));
+        }
+        return true;
+    }
+
+    private int inTypeOf(ExpressionNode node) {
+        final ExpressionNode column;
+        if (node.paramCount < 2) {
+            return UNSUPPORTED;
+        }
+
+        if (node.paramCount == 2) {
+            column = node.lhs;
+            if (!isSymbolValue(node.rhs)) {
+                return UNSUPPORTED;
+            }
+        } else {
+            column = node.args.getLast();
+            for (int i = 0, n = node.paramCount - 1; i < n; i++) {
+                if (!isSymbolValue(node.args.getQuick(i))) {
+                    return UNSUPPORTED;
+                }
+            }
+        }
+        return column.type == ExpressionNode.LITERAL && columnTypeOf(column) == SYMBOL ? BOOLEAN : UNSUPPORTED;
+    }
+
+    private boolean isSymbolValue(ExpressionNode node) {
+        return node.type == ExpressionNode.CONSTANT && isQuotedString(node.token);
+    }
+
+    private int operationTypeOf(ExpressionNode node) {
+        final CharSequence token = node.token;
+
+        if (isInKeyword(token)) {
+            return inTypeOf(node);
+        }
+
+        if (node.paramCount == 1) {
+            if (isNotKeyword(token)) {
+                return typeOf(node.rhs) == BOOLEAN ? BOOLEAN : UNSUPPORTED;
+            }
+
+            if (isUnaryMinus(node)) {
+                final int type = constantTypeOf(node.rhs.token);
+                return type == INT || type == LONG || type == DOUBLE ? type : UNSUPPORTED;
+            }
+            return UNSUPPORTED;
+        }
+
+        if (node.paramCount != 2) {
+            return UNSUPPORTED;
+        }
+
+        final ExpressionNode lhs = node.lhs;
+        final ExpressionNode rhs = node.rhs;
+        final int l = typeOf(lhs);
+        final int r = typeOf(rhs);
+        if (l == UNSUPPORTED || r == UNSUPPORTED) {
+            return UNSUPPORTED;
+        }
+
+        if (isAndKeyword(token) || isOrKeyword(token)) {
+            return l == BOOLEAN && r == BOOLEAN ? BOOLEAN : UNSUPPORTED;
+        }
+
+        if (isEqualityOperator(token) || isOrderingOperator(token)) {
+            // comparison of constants is left to function parser, which folds it
+            if (isConstant(lhs) && isConstant(rhs)) {
+                return UNSUPPORTED;
+            }
+        }
+
+        if (isEqualityOperator(token)) {
+            if (l == SYMBOL || r == SYMBOL) {
+                final ExpressionNode value = l == SYMBOL ? rhs : lhs;
+                final int valueType = l == SYMBOL ? r : l;
+                final ExpressionNode column = l == SYMBOL ? lhs : rhs;
+                return column.type == ExpressionNode.LITERAL
+                        && (valueType == NULL_CONSTANT || valueType == STRING_CONSTANT && isSymbolValue(value))
+                        ? BOOLEAN : UNSUPPORTED;
+            }
+
+            if (l == NAN_CONSTANT || r == NAN_CONSTANT) {
+                return isNumeric(l == NAN_CONSTANT ? r : l) ? BOOLEAN : UNSUPPORTED;
+            }
+
+            if (l == NULL_CONSTANT || r == NULL_CONSTANT) {
+                // only int columns compare to null via function, other types are not supported there
+                return (l == NULL_CONSTANT ? r : l) == INT ? BOOLEAN : UNSUPPORTED;
+            }
+
+            final int rep = equalityRep(l, r);
+            if (rep == UNSUPPORTED || rep == REP_TIMESTAMP && !isTimestampConstantValid(lhs, l, rhs, r)) {
+                return UNSUPPORTED;
+            }
+            return BOOLEAN;
+        }
+
+        if (isOrderingOperator(token)) {
+            final int rep = orderingRep(l, r);
+            if (rep == UNSUPPORTED || rep == REP_TIMESTAMP && !isTimestampConstantValid(lhs, l, rhs, r)) {
+                return UNSUPPORTED;
+            }
+            return BOOLEAN;
+        }
+
+        if (Chars.equals(token, '+') || Chars.equals(token, '-') || Chars.equals(token, '*')) {
+            return arithmeticType(l, r);
+        }
+
+        if (Chars.equals(token, '/')) {
+            return divisionType(l, r);
+        }
+
+        return UNSUPPORTED;
+    }
+
+    private boolean isTimestampConstantValid(ExpressionNode lhs, int l, ExpressionNode rhs, int r) {
+        final ExpressionNode node;
+        if (l == STRING_CONSTANT) {
+            node = lhs;
+        } else if (r == STRING_CONSTANT) {
+            node = rhs;
+        } else {
+            return true;
+        }
+
+        try {
+            IntervalUtils.parseFloorPartialDate(unquote(node.token));
+            return true;
+        } catch (NumericException e) {
+            return false;
+        }
+    }
+
+    private int typeOf(ExpressionNode node) {
+        switch (node.type) {
+            case ExpressionNode.LITERAL:
+                return columnTypeOf(node);
+            case ExpressionNode.CONSTANT:
+                return constantTypeOf(node.token);
+            case ExpressionNode.OPERATION:
+            case ExpressionNode.FUNCTION:
+                return isInKeyword(node.token) || node.type == ExpressionNode.OPERATION ? operationTypeOf(node) : UNSUPPORTED;
+            default:
+                return UNSUPPORTED;
+        }
+    }
+}
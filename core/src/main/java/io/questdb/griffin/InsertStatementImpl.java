@@ -24,7 +24,6 @@
 
 package io.questdb.griffin;
 
-import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.TableWriter;
@@ -43,17 +42,18 @@ public class InsertStatementImpl implements InsertStatement {
     private final long structureVersion;
     private final String tableName;
     private final InsertMethodImpl insertMethod = new InsertMethodImpl();
-    private final CairoEngine engine;
+    private final boolean walEnabled;
+    private final int tableId;
 
     public InsertStatementImpl(
-            CairoEngine engine,
             String tableName,
             VirtualRecord virtualRecord,
             SqlCompiler.RecordToRowCopier copier,
             Function timestampFunction,
-            long structureVersion
+            long structureVersion,
+            int tableId,
+            boolean walEnabled
     ) {
-        this.engine = engine;
         this.tableName = tableName;
         this.virtualRecord = virtualRecord;
         this.copier = copier;
@@ -68,7 +68,10 @@ public class InsertStatementImpl implements InsertStatement {
             rowFactory = this::getRowWithoutTimestamp;
         }
         this.structureVersion = structureVersion;
+        this.tableId = tableId;
+        this.walEnabled = walEnabled;
     }
+
     @Override
     public void close() {
         detachWriter();
@@ -76,14 +79,16 @@ public class InsertStatementImpl implements InsertStatement {
 
     @Override
     public InsertMethod createMethod(SqlExecutionContext executionContext) {
-        return createMethod(executionContext, engine);
+        return createMethod(executionContext, executionContext.getWriterSource());
     }
 
     @Override
     public InsertMethod createMethod(SqlExecutionContext executionContext, WriterSource writerSource) {
         initContext(executionContext);
         if (insertMethod.writer == null) {
-            final TableWriter writer = writerSource.getWriter(executionContext.getCairoSecurityContext(), tableName);
+            final TableWriter writer = walEnabled
+                    ? writerSource.getWalWriter(executionContext.getCairoSecurityContext(), tableName, tableId, structureVersion)
+                    : writerSource.getWriter(executionContext.getCairoSecurityContext(), tableName);
             if (writer.getStructureVersion() != getStructureVersion()) {
                 writer.close();
                 throw WriterOutOfDateException.INSTANCE;
@@ -40,6 +40,7 @@ import io.questdb.griffin.engine.groupby.*;
 import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.vect.*;
 import io.questdb.griffin.engine.join.*;
+import io.questdb.griffin.engine.orderby.LimitedSizeSortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
 import io.questdb.griffin.engine.orderby.SortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.SortedRecordCursorFactory;
@@ -51,6 +52,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import static io.questdb.griffin.SqlKeywords.*;
+import static io.questdb.griffin.model.ExpressionNode.CONSTANT;
 import static io.questdb.griffin.model.ExpressionNode.FUNCTION;
 import static io.questdb.griffin.model.ExpressionNode.LITERAL;
 
@@ -72,6 +74,7 @@ public class SqlCodeGenerator implements Mutable {
     private static final SetRecordCursorFactoryConstructor SET_INTERSECT_CONSTRUCTOR = IntersectRecordCursorFactory::new;
     private static final SetRecordCursorFactoryConstructor SET_EXCEPT_CONSTRUCTOR = ExceptRecordCursorFactory::new;
     private final WhereClauseParser whereClauseParser = new WhereClauseParser();
+    private final FilterCompiler filterCompiler = new FilterCompiler();
     private final FunctionParser functionParser;
     private final CairoEngine engine;
     private final BytecodeAssembler asm = new BytecodeAssembler();
@@ -172,8 +175,9 @@ public class SqlCodeGenerator implements Mutable {
             return sumConstructors.get(metadata.getColumnType(columnIndex));
         } else if (ast.type == FUNCTION && ast.paramCount == 0 && SqlKeywords.isCountKeyword(ast.token)) {
             // count() is a no-arg function
+            // key width is not known yet, constructor is resolved again once keys are assembled
             tempVecConstructorArgIndexes.add(-1);
-            return countConstructors.get(ColumnType.pow2SizeOf(tempKeyIndexesInBase.getQuick(0)));
+            return countConstructors.get(ColumnType.INT);
         } else if (isSingleColumnFunction(ast, "ksum")) {
             columnIndex = metadata.getColumnIndex(ast.rhs.token);
             tempVecConstructorArgIndexes.add(columnIndex);
@@ -228,6 +232,12 @@ public class SqlCodeGenerator implements Mutable {
                         tempSymbolSkewIndexes.extendAndSet(i, columnIndex);
                         arrayColumnTypes.add(ColumnType.SYMBOL);
                         tempKeyKinds.add(GKK_VANILLA_INT);
+                    } else if (isCompositeKeyType(type)) {
+                        // these keys are encoded into INT ids before they reach Rosti
+                        tempKeyIndexesInBase.add(columnIndex);
+                        tempKeyIndex.add(i);
+                        arrayColumnTypes.add(type);
+                        tempKeyKinds.add(GKK_VANILLA_INT);
                     } else {
                         return false;
                     }
@@ -242,6 +252,14 @@ public class SqlCodeGenerator implements Mutable {
                 }
             }
         }
+        if (tempKeyIndexesInBase.size() == 0) {
+            // count() derives row count from key column, it cannot be vectorized without keys
+            for (int i = 0, n = tempVecConstructorArgIndexes.size(); i < n; i++) {
+                if (tempVecConstructorArgIndexes.getQuick(i) == -1) {
+                    return false;
+                }
+            }
+        }
         return true;
     }
 
@@ -450,7 +468,8 @@ public class SqlCodeGenerator implements Mutable {
             RecordMetadata metadata,
             RecordCursorFactory master,
             RecordCursorFactory slave,
-            int joinType
+            int joinType,
+            int workerCount
     ) {
         /*
          * JoinContext provides the following information:
@@ -485,6 +504,22 @@ public class SqlCodeGenerator implements Mutable {
 
         if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
             if (joinType == QueryModel.JOIN_INNER) {
+                // parallel join revisits master rows by row id once their batch is probed
+                if (workerCount > 1 && master.recordCursorSupportsRandomAccess()) {
+                    return new ParallelHashJoinLightRecordCursorFactory(
+                            configuration,
+                            metadata,
+                            master,
+                            slave,
+                            keyTypes,
+                            asm,
+                            masterKeySink,
+                            slaveKeySink,
+                            masterMetadata.getColumnCount(),
+                            workerCount
+                    );
+                }
+
                 return new HashJoinLightRecordCursorFactory(
                         configuration,
                         metadata,
@@ -854,7 +889,8 @@ public class SqlCodeGenerator implements Mutable {
                                     createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                     master,
                                     slave,
-                                    joinType
+                                    joinType,
+                                    executionContext.getWorkerCount()
                             );
                             masterAlias = null;
                             break;
@@ -1116,6 +1152,106 @@ public class SqlCodeGenerator implements Mutable {
         return generateSubQuery(model, executionContext);
     }
 
+    /**
+     * Intersects index cursor of key column with index cursors of other symbol columns the filter
+     * restricts to constant values. Several values of the same column are unioned. Columns that have
+     * values missing from symbol table are left to the filter.
+     */
+    private RowCursorFactory generateIntersectRowCursorFactory(
+            TableReader reader,
+            IntrinsicModel intrinsicModel,
+            int keyColumnIndex,
+            int symbolKey,
+            Function f,
+            IntList columnIndexes
+    ) {
+        final ObjList<RowCursorFactory> cursorFactories = new ObjList<>();
+        cursorFactories.add(new SymbolIndexRowCursorFactory(keyColumnIndex, symbolKey, true, BitmapIndexReader.DIR_FORWARD, null));
+
+        final ObjList<CharSequence> columns = intrinsicModel.intersectKeyColumns;
+        final ObjList<CharSequence> values = intrinsicModel.intersectKeyValues;
+        int i = 0;
+        final int n = columns.size();
+        while (i < n) {
+            final CharSequence column = columns.getQuick(i);
+            final int columnIndex = reader.getMetadata().getColumnIndex(column);
+            final SymbolMapReader symbolMapReader = reader.getSymbolMapReader(columnIndex);
+            final ObjList<RowCursorFactory> valueFactories = new ObjList<>();
+            boolean resolved = true;
+            for (; i < n && Chars.equals(columns.getQuick(i), column); i++) {
+                final int key = symbolMapReader.keyOf(values.getQuick(i));
+                if (key == SymbolTable.VALUE_NOT_FOUND) {
+                    resolved = false;
+                } else {
+                    valueFactories.add(new SymbolIndexRowCursorFactory(columnIndex, key, valueFactories.size() == 0, BitmapIndexReader.DIR_FORWARD, null));
+                }
+            }
+
+            if (resolved) {
+                cursorFactories.add(valueFactories.size() == 1 ? valueFactories.getQuick(0) : new HeapRowCursorFactory(valueFactories));
+            }
+        }
+
+        if (cursorFactories.size() == 1) {
+            if (f == null) {
+                return cursorFactories.getQuick(0);
+            }
+            return new SymbolIndexFilteredRowCursorFactory(keyColumnIndex, symbolKey, f, true, BitmapIndexReader.DIR_FORWARD, columnIndexes, null);
+        }
+        return new IntersectRowCursorFactory(cursorFactories, f, columnIndexes);
+    }
+
+    /**
+     * Looks up INT and LONG values in bitmap index. Index keys are hash buckets, so values that share
+     * a bucket are looked up once and the filter, which retains key predicates, compares actual values.
+     */
+    private RecordCursorFactory generateNumericIndexQuery(
+            GenericRecordMetadata myMeta,
+            DataFrameCursorFactory dfcFactory,
+            TableReader reader,
+            IntrinsicModel intrinsicModel,
+            int keyColumnIndex,
+            IntList columnIndexes,
+            IntList columnSizes,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final Function f = compileFilter(intrinsicModel, myMeta, executionContext);
+        assert f != null;
+        final int keyColumnType = reader.getMetadata().getColumnType(keyColumnIndex);
+        final ObjList<RowCursorFactory> cursorFactories = new ObjList<>();
+        intHashSet.clear();
+        for (int i = 0, n = intrinsicModel.keyValues.size(); i < n; i++) {
+            final CharSequence value = intrinsicModel.keyValues.get(i);
+            final int indexKey;
+            try {
+                if (value == null) {
+                    indexKey = 0;
+                } else if (keyColumnType == ColumnType.INT) {
+                    indexKey = TableUtils.toIntIndexKey(Numbers.parseInt(value));
+                } else {
+                    indexKey = TableUtils.toLongIndexKey(Numbers.parseLong(value));
+                }
+            } catch (NumericException e) {
+                Misc.free(f);
+                throw SqlException.$(intrinsicModel.keyValuePositions.getQuick(i), "invalid index key");
+            }
+
+            if (intHashSet.add(indexKey)) {
+                cursorFactories.add(new NumericIndexFilteredRowCursorFactory(
+                        keyColumnIndex,
+                        indexKey,
+                        f,
+                        cursorFactories.size() == 0,
+                        BitmapIndexReader.DIR_FORWARD,
+                        columnIndexes
+                ));
+            }
+        }
+
+        final RowCursorFactory rcf = cursorFactories.size() == 1 ? cursorFactories.getQuick(0) : new HeapRowCursorFactory(cursorFactories);
+        return new DataFrameRecordCursorFactory(myMeta, dfcFactory, rcf, false, f, false, columnIndexes, columnSizes);
+    }
+
     private RecordCursorFactory generateOrderBy(RecordCursorFactory recordCursorFactory, QueryModel model) throws SqlException {
         if (recordCursorFactory.followedOrderByAdvice()) {
             return recordCursorFactory;
@@ -1181,6 +1317,16 @@ public class SqlCodeGenerator implements Mutable {
                 orderedMetadata = GenericRecordMetadata.copyOfSansTimestamp(metadata);
 
                 if (recordCursorFactory.recordCursorSupportsRandomAccess()) {
+                    final long topK = getOrderByTopK(model);
+                    if (topK > -1) {
+                        return new LimitedSizeSortedLightRecordCursorFactory(
+                                orderedMetadata,
+                                recordCursorFactory,
+                                recordComparatorCompiler.compile(metadata, listColumnFilterA),
+                                topK
+                        );
+                    }
+
                     return new SortedLightRecordCursorFactory(
                             configuration,
                             orderedMetadata,
@@ -1216,6 +1362,27 @@ public class SqlCodeGenerator implements Mutable {
         }
     }
 
+    // Number of leading rows of ordered result that constant LIMIT can return or -1 when
+    // the limit is not known upfront, is counted from the end or exceeds configured maximum.
+    private long getOrderByTopK(QueryModel model) {
+        final ExpressionNode limitLo = model.getLimitLo();
+        final ExpressionNode limitHi = model.getLimitHi();
+        if (limitLo == null || limitLo.type != CONSTANT || (limitHi != null && limitHi.type != CONSTANT)) {
+            return -1;
+        }
+
+        try {
+            final long lo = Numbers.parseLong(limitLo.token);
+            final long topK = limitHi == null ? lo : Numbers.parseLong(limitHi.token);
+            if (lo < 0 || topK < lo || topK > configuration.getSqlSortTopKMaxRows()) {
+                return -1;
+            }
+            return topK;
+        } catch (NumericException e) {
+            return -1;
+        }
+    }
+
     private RecordCursorFactory generateQuery(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
         RecordCursorFactory factory = generateQuery0(model, executionContext, processJoins);
         if (model.getUnionModel() != null) {
@@ -1798,6 +1965,62 @@ public class SqlCodeGenerator implements Mutable {
         }
     }
 
+    /**
+     * Generates plan for "select count(), min(ts), max(ts) from table" with optional interval filter
+     * on designated timestamp. Such aggregates are known from table metadata without scanning data.
+     *
+     * @param model   group by model, its columns have been checked by {@link #isSelectGroupByMetadata(QueryModel)}
+     * @param factory factory of nested model, ownership is taken only when this method returns non-null value
+     * @return factory or null when nested factory is not a plain table scan
+     */
+    @Nullable
+    private RecordCursorFactory generateSelectGroupByMetadata(QueryModel model, RecordCursorFactory factory) {
+        final ObjList<QueryColumn> columns = model.getColumns();
+        final RecordMetadata metadata = factory.getMetadata();
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (timestampIndex == -1) {
+            return null;
+        }
+
+        final GenericRecordMetadata meta = new GenericRecordMetadata();
+        final IntList functions = new IntList(columns.size());
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final QueryColumn column = columns.getQuick(i);
+            final ExpressionNode ast = column.getAst();
+            if (isCountFunction(ast)) {
+                meta.add(new TableColumnMetadata(Chars.toString(column.getName()), ColumnType.LONG, null));
+                functions.add(GroupByNotKeyedMetadataRecordCursorFactory.FUNC_COUNT);
+            } else if (metadata.getColumnIndexQuiet(ast.rhs.token) == timestampIndex) {
+                meta.add(new TableColumnMetadata(Chars.toString(column.getName()), ColumnType.TIMESTAMP, null));
+                functions.add(Chars.equals(ast.token, "min") ? GroupByNotKeyedMetadataRecordCursorFactory.FUNC_MIN : GroupByNotKeyedMetadataRecordCursorFactory.FUNC_MAX);
+            } else {
+                return null;
+            }
+        }
+
+        if (factory instanceof TableReaderRecordCursorFactory) {
+            final QueryModel nested = model.getNestedModel();
+            final DataFrameCursorFactory dfcFactory = new FullFwdDataFrameCursorFactory(
+                    engine,
+                    Chars.toString(nested.getTableName().token),
+                    nested.getTableVersion()
+            );
+            Misc.free(factory);
+            return new GroupByNotKeyedMetadataRecordCursorFactory(meta, null, dfcFactory, functions);
+        }
+
+        // page frames are supported when there is no filter other than intervals
+        if (factory instanceof DataFrameRecordCursorFactory && factory.supportPageFrameCursor()) {
+            return new GroupByNotKeyedMetadataRecordCursorFactory(
+                    meta,
+                    factory,
+                    ((DataFrameRecordCursorFactory) factory).getDataFrameCursorFactory(),
+                    functions
+            );
+        }
+        return null;
+    }
+
     private RecordCursorFactory generateSelectGroupBy(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
 
         // fail fast if we cannot create timestamp sampler
@@ -1812,6 +2035,15 @@ public class SqlCodeGenerator implements Mutable {
             ObjList<QueryColumn> columns;
             ExpressionNode columnExpr;
 
+            // "select count(), min(ts), max(ts) from table" is answered from table metadata
+            if (isSelectGroupByMetadata(model)) {
+                factory = generateSubQuery(model, executionContext);
+                final RecordCursorFactory metadataFactory = generateSelectGroupByMetadata(model, factory);
+                if (metadataFactory != null) {
+                    return metadataFactory;
+                }
+            }
+
             // generate special case plan for "select count() from somewhere"
             columns = model.getColumns();
             if (columns.size() == 1) {
@@ -1821,7 +2053,7 @@ public class SqlCodeGenerator implements Mutable {
                     // check if count() was not aliased, if it was, we need to generate new metadata, bummer
                     final RecordMetadata metadata = isCountKeyword(columnName) ? CountRecordCursorFactory.DEFAULT_COUNT_METADATA :
                             new GenericRecordMetadata().add(new TableColumnMetadata(Chars.toString(columnName), ColumnType.LONG, null));
-                    return new CountRecordCursorFactory(metadata, generateSubQuery(model, executionContext));
+                    return new CountRecordCursorFactory(metadata, factory != null ? factory : generateSubQuery(model, executionContext));
                 }
             }
 
@@ -1837,7 +2069,8 @@ public class SqlCodeGenerator implements Mutable {
             final QueryModel nested = model.getNestedModel();
             assert nested != null;
             // check if underlying model has reference to hour(column) function
-            if (nested.getSelectModelType() == QueryModel.SELECT_MODEL_VIRTUAL
+            if (factory == null
+                    && nested.getSelectModelType() == QueryModel.SELECT_MODEL_VIRTUAL
                     && (columnExpr = nested.getColumns().getQuick(0).getAst()).type == FUNCTION
                     && isHourKeyword(columnExpr.token)
                     && columnExpr.paramCount == 1
@@ -1877,12 +2110,19 @@ public class SqlCodeGenerator implements Mutable {
             if (factory == null) {
                 factory = generateSubQuery(model, executionContext);
                 pageFramingSupported = factory.supportPageFrameCursor();
+            } else if (!specialCaseKeys) {
+                // nested factory has been generated while checking for metadata plan
+                pageFramingSupported = factory.supportPageFrameCursor();
             }
 
             RecordMetadata metadata = factory.getMetadata();
 
             // inspect model for possibility of vector aggregate intrinsics
-            if (pageFramingSupported && assembleKeysAndFunctionReferences(columns, metadata, !specialCaseKeys)) {
+            if (
+                    pageFramingSupported
+                            && assembleKeysAndFunctionReferences(columns, metadata, !specialCaseKeys)
+                            && (specialCaseKeys || !isCompositeKeyIntegerSum())
+            ) {
                 // create metadata from everything we've gathered
                 GenericRecordMetadata meta = new GenericRecordMetadata();
 
@@ -1920,6 +2160,12 @@ public class SqlCodeGenerator implements Mutable {
                 for (int i = 0, n = tempVecConstructors.size(); i < n; i++) {
                     VectorAggregateFunctionConstructor constructor = tempVecConstructors.getQuick(i);
                     int indexInBase = tempVecConstructorArgIndexes.getQuick(i);
+                    if (indexInBase == -1) {
+                        // count() walks key column, hour() keys are timestamps, other keys are INT or encoded as INT
+                        constructor = countConstructors.get(
+                                specialCaseKeys ? metadata.getColumnType(tempKeyIndexesInBase.getQuick(0)) : ColumnType.INT
+                        );
+                    }
                     int indexInThis = tempAggIndex.getQuick(i);
                     VectorAggregateFunction vaf = constructor.create(0, tempKeyKinds.size() == 0 ? 0 : tempKeyKinds.getQuick(0), indexInBase, executionContext.getWorkerCount());
                     tempVaf.add(vaf);
@@ -1941,7 +2187,7 @@ public class SqlCodeGenerator implements Mutable {
                     );
                 }
 
-                if (tempKeyIndexesInBase.size() == 1) {
+                if (tempKeyIndexesInBase.size() == 1 && isRostiKeyType(arrayColumnTypes.getColumnType(0))) {
                     for (int i = 0, n = tempVaf.size(); i < n; i++) {
                         tempVaf.getQuick(i).pushValueTypes(arrayColumnTypes);
                     }
@@ -1960,6 +2206,21 @@ public class SqlCodeGenerator implements Mutable {
                             tempSymbolSkewIndexes
                     );
                 }
+
+                if (!specialCaseKeys) {
+                    GroupByUtils.validateGroupByColumns(model, tempKeyIndexesInBase.size());
+
+                    return new GroupByCompositeKeyVectorRecordCursorFactory(
+                            configuration,
+                            factory,
+                            meta,
+                            executionContext.getWorkerCount(),
+                            tempVaf,
+                            tempKeyIndexesInBase,
+                            tempKeyIndex,
+                            tempSymbolSkewIndexes
+                    );
+                }
             }
 
             if (specialCaseKeys) {
@@ -2015,6 +2276,23 @@ public class SqlCodeGenerator implements Mutable {
                 );
             }
 
+            if (executionContext.getWorkerCount() > 1
+                    && factory.supportPageFrameCursor()
+                    && isParallelGroupBySupported(columns, metadata, groupByFunctions)
+            ) {
+                return new ParallelGroupByRecordCursorFactory(
+                        configuration,
+                        factory,
+                        listColumnFilterA,
+                        asm,
+                        keyTypes,
+                        valueTypes,
+                        groupByMetadata,
+                        groupByFunctions,
+                        recordFunctions
+                );
+            }
+
             return new io.questdb.griffin.engine.groupby.GroupByRecordCursorFactory(
                     configuration,
                     factory,
@@ -2334,13 +2612,20 @@ public class SqlCodeGenerator implements Mutable {
 
                 // below code block generates index-based filter
 
+                // partitions that cannot satisfy the filter are skipped by data frame cursor
+                final ZoneMapFilter zoneMapFilter = intrinsicModel.filter != null
+                        && configuration.isZoneMapEnabled()
+                        && reader.getPartitionedBy() != PartitionBy.NONE
+                        ? filterCompiler.compileZoneMapFilter(intrinsicModel.filter, myMeta)
+                        : null;
+
                 final boolean intervalHitsOnlyOnePartition;
                 if (intrinsicModel.hasIntervalFilters()) {
                     RuntimeIntrinsicIntervalModel intervalModel = intrinsicModel.buildIntervalModel();
-                    dfcFactory = new IntervalFwdDataFrameCursorFactory(engine, tableName, model.getTableVersion(), intervalModel, readerTimestampIndex);
+                    dfcFactory = new IntervalFwdDataFrameCursorFactory(engine, tableName, model.getTableVersion(), intervalModel, readerTimestampIndex, zoneMapFilter);
                     intervalHitsOnlyOnePartition = intervalModel.allIntervalsHitOnePartition(reader.getPartitionedBy());
                 } else {
-                    dfcFactory = new FullFwdDataFrameCursorFactory(engine, tableName, model.getTableVersion());
+                    dfcFactory = new FullFwdDataFrameCursorFactory(engine, tableName, model.getTableVersion(), zoneMapFilter);
                     intervalHitsOnlyOnePartition = false;
                 }
 
@@ -2370,6 +2655,10 @@ public class SqlCodeGenerator implements Mutable {
                     }
                     assert nKeyValues > 0 || nKeyExcludedValues > 0;
 
+                    if (reader.getMetadata().getColumnType(keyColumnIndex) != ColumnType.SYMBOL) {
+                        return generateNumericIndexQuery(myMeta, dfcFactory, reader, intrinsicModel, keyColumnIndex, columnIndexes, columnSizes, executionContext);
+                    }
+
                     boolean orderByKeyColumn = false;
                     int indexDirection = BitmapIndexReader.DIR_FORWARD;
                     if (intervalHitsOnlyOnePartition) {
@@ -2426,6 +2715,8 @@ public class SqlCodeGenerator implements Mutable {
                                             columnIndexes
                                     );
                                 }
+                            } else if (indexDirection == BitmapIndexReader.DIR_FORWARD && intrinsicModel.intersectKeyColumns.size() > 0) {
+                                rcf = generateIntersectRowCursorFactory(reader, intrinsicModel, keyColumnIndex, symbolKey, f, columnIndexes);
                             } else {
                                 if (f == null) {
                                     rcf = new SymbolIndexRowCursorFactory(keyColumnIndex, symbolKey, true, indexDirection, null);
@@ -2504,7 +2795,7 @@ public class SqlCodeGenerator implements Mutable {
                         assert columnIndex > -1;
 
                         // this is our kind of column
-                        if (myMeta.isColumnIndexed(columnIndex)) {
+                        if (myMeta.isColumnIndexed(columnIndex) && myMeta.getColumnType(columnIndex) == ColumnType.SYMBOL) {
                             boolean orderByKeyColumn = false;
                             int indexDirection = BitmapIndexReader.DIR_FORWARD;
                             if (orderByAdviceSize == 1) {
@@ -2532,6 +2823,23 @@ public class SqlCodeGenerator implements Mutable {
                     }
                 }
 
+                if (intrinsicModel.filter != null && configuration.isSqlFilterCompilationEnabled()) {
+                    final CompiledFilter compiledFilter = filterCompiler.compile(intrinsicModel.filter, myMeta, columnIndexes);
+                    if (compiledFilter != null) {
+                        // rows are filtered by row cursor, page frames would bypass the filter
+                        return new DataFrameRecordCursorFactory(
+                                myMeta,
+                                dfcFactory,
+                                new CompiledFilterRowCursorFactory(configuration, compiledFilter),
+                                false,
+                                null,
+                                false,
+                                columnIndexes,
+                                columnSizes
+                        );
+                    }
+                }
+
                 model.setWhereClause(intrinsicModel.filter);
                 return new DataFrameRecordCursorFactory(myMeta, dfcFactory, new DataFrameRowCursorFactory(), false, null, framingSupported, columnIndexes, columnSizes);
             }
@@ -2553,7 +2861,11 @@ public class SqlCodeGenerator implements Mutable {
                 );
             }
 
-            if (latestByColumnCount == 1 && myMeta.isColumnIndexed(listColumnFilterA.getColumnIndexFactored(0))) {
+            if (
+                    latestByColumnCount == 1
+                            && myMeta.isColumnIndexed(listColumnFilterA.getColumnIndexFactored(0))
+                            && myMeta.getColumnType(listColumnFilterA.getColumnIndexFactored(0)) == ColumnType.SYMBOL
+            ) {
                 return new LatestByAllIndexedFilteredRecordCursorFactory(
                         configuration,
                         myMeta,
@@ -2661,6 +2973,105 @@ public class SqlCodeGenerator implements Mutable {
         return metadata.getTimestampIndex();
     }
 
+    private static boolean isCompositeKeyType(int type) {
+        switch (type) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // Rosti maps of workers are merged for composite keys and bundled native merge of integer
+    // sums (int, long, date and timestamp) loses values of keys one of the maps has seen only nulls for
+    private boolean isCompositeKeyIntegerSum() {
+        if (tempKeyIndexesInBase.size() == 0 || (tempKeyIndexesInBase.size() == 1 && isRostiKeyType(arrayColumnTypes.getColumnType(0)))) {
+            return false;
+        }
+        for (int i = 0, n = tempVecConstructors.size(); i < n; i++) {
+            final VectorAggregateFunctionConstructor constructor = tempVecConstructors.getQuick(i);
+            if (
+                    constructor == sumConstructors.get(ColumnType.INT)
+                            || constructor == sumConstructors.get(ColumnType.LONG)
+                            || constructor == sumConstructors.get(ColumnType.DATE)
+                            || constructor == sumConstructors.get(ColumnType.TIMESTAMP)
+            ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRostiKeyType(int type) {
+        return type == ColumnType.INT || type == ColumnType.SYMBOL;
+    }
+
+    private static boolean isPageFrameRecordType(int type) {
+        return type <= ColumnType.DOUBLE || type == ColumnType.SYMBOL;
+    }
+
+    private boolean isParallelGroupBySupported(
+            ObjList<QueryColumn> columns,
+            RecordMetadata metadata,
+            ObjList<GroupByFunction> groupByFunctions
+    ) {
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            if (!groupByFunctions.getQuick(i).supportsMerge()) {
+                return false;
+            }
+        }
+
+        // workers share functions, so keys and function arguments must be
+        // plain fixed-width columns, which are read without any state
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final ExpressionNode ast = columns.getQuick(i).getAst();
+            final ExpressionNode column;
+            if (ast.type == LITERAL) {
+                column = ast;
+            } else if (ast.type == FUNCTION && ast.paramCount == 0) {
+                continue;
+            } else if (ast.type == FUNCTION && ast.paramCount == 1 && ast.rhs.type == LITERAL) {
+                column = ast.rhs;
+            } else if (ast.type == FUNCTION && ast.paramCount == 2 && ast.lhs.type == LITERAL && ast.rhs.type == CONSTANT) {
+                column = ast.lhs;
+            } else {
+                return false;
+            }
+
+            final int columnIndex = metadata.getColumnIndexQuiet(column.token);
+            if (columnIndex == -1 || !isPageFrameRecordType(metadata.getColumnType(columnIndex))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isSelectGroupByMetadata(QueryModel model) {
+        final QueryModel nested = model.getNestedModel();
+        if (nested == null || nested.getTableName() == null) {
+            return false;
+        }
+
+        final ObjList<QueryColumn> columns = model.getColumns();
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final ExpressionNode ast = columns.getQuick(i).getAst();
+            if (!isCountFunction(ast) && !isSingleColumnFunction(ast, "min") && !isSingleColumnFunction(ast, "max")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isCountFunction(ExpressionNode ast) {
+        return ast.type == FUNCTION && ast.paramCount == 0 && isCountKeyword(ast.token);
+    }
+
     private boolean isSingleColumnFunction(ExpressionNode ast, CharSequence name) {
         return ast.type == FUNCTION && ast.paramCount == 1 && Chars.equals(ast.token, name) && ast.rhs.type == LITERAL;
     }
@@ -77,6 +77,7 @@ public class SqlCompiler implements Closeable {
     private final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
     private final IntIntHashMap typeCast = new IntIntHashMap();
     private final ObjList<TableWriter> tableWriters = new ObjList<>();
+    private final IntList dedupKeyColumns = new IntList();
     private final TableStructureAdapter tableStructureAdapter = new TableStructureAdapter();
     private final FunctionParser functionParser;
     private final ExecutableMethod insertAsSelectMethod = this::insertAsSelect;
@@ -806,6 +807,8 @@ public class SqlCompiler implements Closeable {
                         throw SqlException.$(lexer.lastTokenPosition(), "'column' or 'partition' expected");
                     }
 
+                } else if (SqlKeywords.isDedupKeyword(tok)) {
+                    alterTableDedup(tableNamePosition, writer);
                 } else if (SqlKeywords.isSetKeyword(tok)) {
                     tok = expectToken(lexer, "'param'");
                     if (SqlKeywords.isParamKeyword(tok)) {
@@ -823,7 +826,7 @@ public class SqlCompiler implements Closeable {
                         throw SqlException.$(lexer.lastTokenPosition(), "'param' expected");
                     }
                 } else {
-                    throw SqlException.$(lexer.lastTokenPosition(), "'add', 'drop', 'attach', 'set' or 'rename' expected");
+                    throw SqlException.$(lexer.lastTokenPosition(), "'add', 'drop', 'attach', 'dedup', 'set' or 'rename' expected");
                 }
             } catch (CairoException e) {
                 LOG.info().$("could not alter table [table=").$(tableName).$(", ex=").$((Sinkable) e).$();
@@ -871,6 +874,30 @@ public class SqlCompiler implements Closeable {
                 throw SqlException.$(paramNameNamePosition, "O3CommitHysteresis must be non negative");
             }
             writer.setMetaO3CommitHysteresis(o3CommitHysteresisInMicros);
+        } else if (isCompressAfterPartitionsParam(paramName)) {
+            int compressAfterPartitions;
+            try {
+                compressAfterPartitions = Numbers.parseInt(value);
+            } catch (NumericException e) {
+                throw SqlException.$(paramNameNamePosition, "invalid value [value=").put(value).put(",parameter=").put(paramName).put(']');
+            }
+            if (compressAfterPartitions < 0) {
+                throw SqlException.$(paramNameNamePosition, "compressAfterPartitions must be non negative");
+            }
+            writer.setMetaCompressAfterPartitions(compressAfterPartitions);
+        } else if (isWalEnabledParam(paramName)) {
+            final boolean walEnabled;
+            if (isTrueKeyword(value)) {
+                walEnabled = true;
+            } else if (isFalseKeyword(value)) {
+                walEnabled = false;
+            } else {
+                throw SqlException.$(paramNameNamePosition, "invalid value [value=").put(value).put(",parameter=").put(paramName).put(']');
+            }
+            if (walEnabled && (writer.getPartitionBy() == PartitionBy.NONE || writer.getMetadata().getTimestampIndex() < 0)) {
+                throw SqlException.$(paramNameNamePosition, "WAL requires partitioned table with designated timestamp");
+            }
+            writer.setMetaWalEnabled(walEnabled);
         } else {
             throw SqlException.$(paramNameNamePosition, "unknown parameter '").put(paramName).put('\'');
         }
@@ -986,9 +1013,24 @@ public class SqlCompiler implements Closeable {
                 }
 
                 cache = configuration.getDefaultSymbolCacheFlag();
-                indexValueBlockCapacity = configuration.getIndexValueBlockSize();
                 symbolCapacity = configuration.getDefaultSymbolCapacity();
-                indexed = false;
+                indexed = TableUtils.isIndexable(type) && Chars.equalsLowerCaseAsciiNc(tok, "index");
+                if (indexed) {
+                    tok = SqlUtil.fetchNext(lexer);
+                }
+
+                if (indexed && Chars.equalsLowerCaseAsciiNc(tok, "capacity")) {
+                    tok = expectToken(lexer, "index capacity");
+
+                    try {
+                        indexValueBlockCapacity = Numbers.parseInt(tok);
+                    } catch (NumericException e) {
+                        throw SqlException.$(lexer.lastTokenPosition(), "numeric capacity expected");
+                    }
+                    tok = SqlUtil.fetchNext(lexer);
+                } else {
+                    indexValueBlockCapacity = configuration.getIndexValueBlockSize();
+                }
             }
 
             try {
@@ -1023,13 +1065,54 @@ public class SqlCompiler implements Closeable {
             if (w.getMetadata().getColumnIndexQuiet(columnName) == -1) {
                 throw SqlException.invalidColumn(columnNamePosition, columnName);
             }
-            w.addIndex(columnName, configuration.getIndexValueBlockSize());
+            final CharSequence tok = SqlUtil.fetchNext(lexer);
+            final boolean compact = tok != null && SqlKeywords.isCompactKeyword(tok);
+            if (tok != null && !compact && !Chars.equals(tok, ';')) {
+                throw SqlException.$(lexer.lastTokenPosition(), "'compact' expected");
+            }
+            w.addIndex(columnName, configuration.getIndexValueBlockSize(), compact);
         } catch (CairoException e) {
             throw SqlException.position(tableNamePosition).put(e.getFlyweightMessage())
                     .put("[errno=").put(e.getErrno()).put(']');
         }
     }
 
+    private void alterTableDedup(int tableNamePosition, TableWriter writer) throws SqlException {
+        dedupKeyColumns.clear();
+        CharSequence tok = expectToken(lexer, "'enable' or 'disable'");
+        if (SqlKeywords.isEnableKeyword(tok)) {
+            final RecordMetadata metadata = writer.getMetadata();
+            final int timestampIndex = metadata.getTimestampIndex();
+            if (timestampIndex < 0 || writer.getPartitionBy() == PartitionBy.NONE) {
+                throw SqlException.$(tableNamePosition, "deduplication requires partitioned table with designated timestamp");
+            }
+            expectKeyword(lexer, "upsert");
+            expectKeyword(lexer, "keys");
+            expectKeyword(lexer, "(");
+            do {
+                tok = expectToken(lexer, "column name");
+                final int columnIndex = metadata.getColumnIndexQuiet(GenericLexer.unquote(tok));
+                if (columnIndex == -1) {
+                    throw SqlException.invalidColumn(lexer.lastTokenPosition(), tok);
+                }
+                if (columnIndex != timestampIndex && metadata.getColumnType(columnIndex) != ColumnType.SYMBOL) {
+                    throw SqlException.$(lexer.lastTokenPosition(), "deduplication key must be SYMBOL or designated timestamp column");
+                }
+                dedupKeyColumns.add(columnIndex);
+                tok = expectToken(lexer, "',' or ')'");
+            } while (Chars.equals(tok, ','));
+
+            if (!Chars.equals(tok, ')')) {
+                throw SqlException.$(lexer.lastTokenPosition(), "',' or ')' expected");
+            }
+            // designated timestamp is implicitly part of the key
+            dedupKeyColumns.add(timestampIndex);
+        } else if (!SqlKeywords.isDisableKeyword(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'enable' or 'disable' expected");
+        }
+        writer.setMetaDedupKeys(dedupKeyColumns);
+    }
+
     private void alterTableColumnCacheFlag(int tableNamePosition, CharSequence columnName, TableWriter writer, boolean cache) throws SqlException {
         try {
             RecordMetadata metadata = writer.getMetadata();
@@ -1766,7 +1849,17 @@ public class SqlCompiler implements Closeable {
 
             VirtualRecord record = new VirtualRecord(valueFunctions);
             RecordToRowCopier copier = assembleRecordToRowCopier(asm, record, metadata, listColumnFilter);
-            return compiledQuery.ofInsert(new InsertStatementImpl(engine, Chars.toString(name.token), record, copier, timestampFunction, structureVersion));
+            return compiledQuery.ofInsert(
+                    new InsertStatementImpl(
+                            Chars.toString(name.token),
+                            record,
+                            copier,
+                            timestampFunction,
+                            structureVersion,
+                            reader.getMetadata().getId(),
+                            reader.getMetadata().isWalEnabled()
+                    )
+            );
         } catch (SqlException e) {
             Misc.freeObjList(valueFunctions);
             throw e;
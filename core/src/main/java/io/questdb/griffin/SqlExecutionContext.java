@@ -29,6 +29,7 @@ import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.CairoSecurityContext;
 import io.questdb.cairo.ColumnTypes;
 import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.pool.WriterSource;
 import io.questdb.cairo.sql.BindVariableService;
 import io.questdb.cairo.sql.VirtualRecord;
 import io.questdb.griffin.engine.analytic.AnalyticContext;
@@ -61,6 +62,13 @@ public interface SqlExecutionContext extends Closeable {
 
     CairoEngine getCairoEngine();
 
+    /**
+     * @return source of writers for statements that run in this context
+     */
+    default WriterSource getWriterSource() {
+        return getCairoEngine();
+    }
+
     long getRequestFd();
 
     SqlExecutionInterruptor getSqlExecutionInterruptor();
@@ -26,6 +26,7 @@ package io.questdb.griffin;
 
 import io.questdb.MessageBus;
 import io.questdb.cairo.*;
+import io.questdb.cairo.pool.WriterSource;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.sql.BindVariableService;
 import io.questdb.cairo.sql.VirtualRecord;
@@ -51,6 +52,7 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
     private final MessageBus messageBus;
     private final MicrosecondClock clock;
     private final AnalyticContextImpl analyticContext = new AnalyticContextImpl();
+    private final WalWriterCache walWriters;
     private RingQueue<TelemetryTask> telemetryQueue;
     private Sequence telemetryPubSeq;
     private TelemetryMethod telemetryMethod = this::storeTelemetryNoop;
@@ -73,6 +75,7 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
         this.cairoEngine = cairoEngine;
         this.clock = cairoConfiguration.getMicrosecondClock();
         this.cairoSecurityContext = AllowAllCairoSecurityContext.INSTANCE;
+        this.walWriters = new WalWriterCache(cairoEngine);
 
         if (messageBus != null) {
             this.telemetryQueue = cairoEngine.getTelemetryQueue();
@@ -132,6 +135,19 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
         return cairoEngine;
     }
 
+    @Override
+    public WriterSource getWriterSource() {
+        return walWriters;
+    }
+
+    /**
+     * Closes write-ahead log segments that statements of this context appended to.
+     * Owner of the context calls it when connection is closed.
+     */
+    public void clearWalWriters() {
+        walWriters.clear();
+    }
+
     @Override
     public long getRequestFd() {
         return requestFd;
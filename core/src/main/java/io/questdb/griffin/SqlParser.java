@@ -493,7 +493,7 @@ public final class SqlParser {
         ExpressionNode partitionBy = parseCreateTablePartition(lexer, tok);
         if (partitionBy != null) {
             if (PartitionBy.fromString(partitionBy.token) == -1) {
-                throw SqlException.$(partitionBy.position, "'NONE', 'DAY', 'MONTH' or 'YEAR' expected");
+                throw SqlException.$(partitionBy.position, "'NONE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected");
             }
             model.setPartitionBy(partitionBy);
             tok = optTok(lexer);
@@ -667,6 +667,12 @@ public final class SqlParser {
                     TableUtils.validateSymbolCapacityCached(true, symbolCapacity, lexer.lastTokenPosition());
                 }
                 tok = parseCreateTableInlineIndexDef(lexer, model);
+            } else if (TableUtils.isIndexable(type)) {
+                tok = tok(lexer, "'index', ',' or ')'");
+                if (isIndexKeyword(tok)) {
+                    lexer.unparse();
+                    tok = parseCreateTableInlineIndexDef(lexer, model);
+                }
             } else {
                 tok = null;
             }
@@ -151,7 +151,7 @@ final class WhereClauseParser implements Mutable {
                     case ColumnType.LONG:
                     case ColumnType.INT:
                         final boolean preferred = Chars.equalsIgnoreCaseNc(preferredKeyColumn, column);
-                        final boolean indexed = m.isColumnIndexed(index);
+                        final boolean indexed = m.isColumnIndexed(index) && isIndexKeyValue(m.getColumnType(index), b);
                         if (preferred || (indexed && preferredKeyColumn == null)) {
                             CharSequence value = isNullKeyword(b.token) ? null : unquote(b.token);
                             if (Chars.equalsIgnoreCaseNc(model.keyColumn, column)) {
@@ -473,7 +473,7 @@ final class WhereClauseParser implements Mutable {
         int columnIndex = meta.getColumnIndex(columnName);
         boolean preferred = Chars.equalsIgnoreCaseNc(preferredKeyColumn, columnName);
 
-        if (preferred || (preferredKeyColumn == null && meta.isColumnIndexed(columnIndex))) {
+        if (preferred || (preferredKeyColumn == null && isSymbolIndexed(meta, columnIndex))) {
             if (preferredKeyColumn != null && !Chars.equalsIgnoreCase(columnName, preferredKeyColumn)) {
                 return false;
             }
@@ -601,6 +601,9 @@ final class WhereClauseParser implements Mutable {
                 if (node.rhs == null || (node.rhs.type != ExpressionNode.CONSTANT && node.rhs.type != ExpressionNode.BIND_VARIABLE)) {
                     return false;
                 }
+                if (!isIndexKeyValue(meta.getColumnType(columnIndex), node.rhs)) {
+                    return false;
+                }
                 if (tempKeys.add(unquote(node.rhs.token))) {
                     tempPos.add(node.position);
                 }
@@ -611,6 +614,10 @@ final class WhereClauseParser implements Mutable {
                         return false;
                     }
 
+                    if (!isIndexKeyValue(meta.getColumnType(columnIndex), c)) {
+                        return false;
+                    }
+
                     if (isNullKeyword(c.token)) {
                         if (tempKeys.add(null)) {
                             tempPos.add(c.position);
@@ -679,7 +686,7 @@ final class WhereClauseParser implements Mutable {
                     case ColumnType.STRING:
                     case ColumnType.LONG:
                     case ColumnType.INT:
-                        if (m.isColumnIndexed(index)) {
+                        if (isSymbolIndexed(m, index)) {
                             final boolean preferred = Chars.equalsIgnoreCaseNc(preferredKeyColumn, column);
                             final boolean indexed = m.isColumnIndexed(index);
                             if (indexed && preferredKeyColumn == null) {
@@ -807,7 +814,7 @@ final class WhereClauseParser implements Mutable {
         boolean newColumn = true;
         boolean preferred = Chars.equalsIgnoreCaseNc(preferredKeyColumn, columnName);
 
-        if (preferred || (preferredKeyColumn == null && meta.isColumnIndexed(columnIndex))) {
+        if (preferred || (preferredKeyColumn == null && isSymbolIndexed(meta, columnIndex))) {
 
 
             if (model.keyColumn != null
@@ -968,6 +975,9 @@ final class WhereClauseParser implements Mutable {
         // see: http://en.wikipedia.org/wiki/Tree_traversal
 
         if (removeAndIntrinsics(translator, model, node, m, functionParser, metadata, executionContext)) {
+            if (retainNumericKeyNodes(model, m)) {
+                model.filter = node;
+            }
             return model;
         }
         ExpressionNode root = node;
@@ -987,10 +997,143 @@ final class WhereClauseParser implements Mutable {
             }
         }
         applyKeyExclusions(translator, model);
+        retainNumericKeyNodes(model, m);
         model.filter = collapseIntrinsicNodes(root);
+        collectIntersectKeys(translator, model, m);
         return model;
     }
 
+    /**
+     * Collects "=" and "in" predicates on indexed symbol columns other than the key column from
+     * top level of the filter. Code generator intersects their index cursors with key column
+     * cursor. Predicates remain in the filter, so that query stays correct when intersection is not used.
+     */
+    private void collectIntersectKeys(AliasTranslator translator, IntrinsicModel model, RecordMetadata m) {
+        if (model.keyColumn == null
+                || model.keySubQuery != null
+                || model.filter == null
+                || model.intrinsicValue == IntrinsicModel.FALSE
+                || m.getColumnType(m.getColumnIndex(model.keyColumn)) != ColumnType.SYMBOL) {
+            return;
+        }
+
+        ExpressionNode node = model.filter;
+        while (!stack.isEmpty() || node != null) {
+            if (node != null) {
+                if (node.queryModel == null && isAndKeyword(node.token)) {
+                    stack.push(node.rhs);
+                    node = node.lhs;
+                } else {
+                    collectIntersectKey(translator, model, node, m);
+                    node = stack.poll();
+                }
+            } else {
+                node = stack.poll();
+            }
+        }
+    }
+
+    private void collectIntersectKey(AliasTranslator translator, IntrinsicModel model, ExpressionNode node, RecordMetadata m) {
+        final ExpressionNode col;
+        switch (intrinsicOps.get(node.token)) {
+            case INTRINSIC_OP_EQUAL:
+                if (node.lhs == null || node.rhs == null) {
+                    return;
+                }
+                if (node.lhs.type == ExpressionNode.LITERAL && node.rhs.type == ExpressionNode.CONSTANT) {
+                    col = node.lhs;
+                } else if (node.rhs.type == ExpressionNode.LITERAL && node.lhs.type == ExpressionNode.CONSTANT) {
+                    col = node.rhs;
+                } else {
+                    return;
+                }
+                break;
+            case INTRINSIC_OP_IN:
+                if (node.paramCount < 2) {
+                    return;
+                }
+                col = node.paramCount < 3 ? node.lhs : node.args.getLast();
+                if (col == null || col.type != ExpressionNode.LITERAL) {
+                    return;
+                }
+                break;
+            default:
+                return;
+        }
+
+        final CharSequence column = translator.translateAlias(col.token);
+        final int columnIndex = m.getColumnIndexQuiet(column);
+        if (columnIndex == -1
+                || !isSymbolIndexed(m, columnIndex)
+                || Chars.equalsIgnoreCase(column, model.keyColumn)
+                || isIntersectKeyColumn(model, column)) {
+            return;
+        }
+
+        tempK.clear();
+        if (node.paramCount < 3) {
+            final ExpressionNode value = col == node.lhs ? node.rhs : node.lhs;
+            if (value.type != ExpressionNode.CONSTANT) {
+                return;
+            }
+            tempK.add(isNullKeyword(value.token) ? null : unquote(value.token));
+        } else {
+            for (int i = node.paramCount - 2; i > -1; i--) {
+                final ExpressionNode value = node.args.getQuick(i);
+                if (value.type != ExpressionNode.CONSTANT) {
+                    return;
+                }
+                tempK.add(isNullKeyword(value.token) ? null : unquote(value.token));
+            }
+        }
+
+        for (int i = 0, n = tempK.size(); i < n; i++) {
+            model.intersectKeyColumns.add(column);
+            model.intersectKeyValues.add(tempK.get(i));
+        }
+    }
+
+    /**
+     * Values of INT and LONG index keys are hashed when cursor is created, they have to be integer constants.
+     */
+    private static boolean isIndexKeyValue(int columnType, ExpressionNode value) {
+        if (columnType != ColumnType.INT && columnType != ColumnType.LONG) {
+            return true;
+        }
+
+        if (value.type != ExpressionNode.CONSTANT) {
+            return false;
+        }
+
+        if (isNullKeyword(value.token)) {
+            return true;
+        }
+
+        try {
+            if (columnType == ColumnType.INT) {
+                Numbers.parseInt(value.token);
+            } else {
+                Numbers.parseLong(value.token);
+            }
+            return true;
+        } catch (NumericException e) {
+            return false;
+        }
+    }
+
+    private static boolean isIntersectKeyColumn(IntrinsicModel model, CharSequence column) {
+        for (int i = 0, n = model.intersectKeyColumns.size(); i < n; i++) {
+            if (Chars.equalsIgnoreCase(model.intersectKeyColumns.getQuick(i), column)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSymbolIndexed(RecordMetadata m, int columnIndex) {
+        return m.isColumnIndexed(columnIndex) && m.getColumnType(columnIndex) == ColumnType.SYMBOL;
+    }
+
     private boolean isTimestamp(ExpressionNode n) {
         return Chars.equalsNc(n.token, timestamp);
     }
@@ -1090,6 +1233,22 @@ final class WhereClauseParser implements Mutable {
         keyExclNodes.clear();
     }
 
+    /**
+     * Index of INT and LONG column returns rows of all values that hash to the same key,
+     * key predicates stay in the filter to compare values.
+     */
+    private boolean retainNumericKeyNodes(IntrinsicModel model, RecordMetadata m) {
+        if (model.keyColumn != null
+                && model.intrinsicValue != IntrinsicModel.FALSE
+                && m.getColumnType(m.getColumnIndex(model.keyColumn)) != ColumnType.SYMBOL) {
+            for (int i = 0, n = keyNodes.size(); i < n; i++) {
+                keyNodes.getQuick(i).intrinsicValue = IntrinsicModel.UNDEFINED;
+            }
+            return keyNodes.size() > 0;
+        }
+        return false;
+    }
+
     private boolean revertProcessedNodes(ObjList<ExpressionNode> nodes, IntrinsicModel model, CharSequence columnName, ExpressionNode node) {
         for (int n = 0, k = nodes.size(); n < k; n++) {
             nodes.getQuick(n).intrinsicValue = IntrinsicModel.UNDEFINED;
@@ -39,6 +39,10 @@ public class LimitRecordCursorFactory extends AbstractRecordCursorFactory {
         this.cursor = new LimitRecordCursor(loFunction, hiFunction);
     }
 
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) {
         cursor.of(base.getCursor(executionContext), executionContext);
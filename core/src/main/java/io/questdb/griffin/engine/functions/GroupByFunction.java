@@ -53,6 +53,18 @@ public interface GroupByFunction extends Function {
         return true;
     }
 
+    /**
+     * Combines partial aggregate, computed over later rows, into destination value.
+     * Both values must have been produced by this function instance, which is
+     * only possible when {@link #supportsMerge()} returns true.
+     *
+     * @param destValue map value that accumulates aggregate of earlier rows
+     * @param srcValue  map value with aggregate of rows that follow destination rows
+     */
+    default void merge(MapValue destValue, MapValue srcValue) {
+        throw new UnsupportedOperationException();
+    }
+
     void pushValueTypes(ArrayColumnTypes columnTypes);
 
     default void setByte(MapValue mapValue, byte value) {
@@ -77,6 +89,10 @@ public interface GroupByFunction extends Function {
 
     void setNull(MapValue mapValue);
 
+    default boolean supportsMerge() {
+        return false;
+    }
+
     default void setShort(MapValue mapValue, short value) {
         throw new UnsupportedOperationException();
     }
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.functions.LongFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Exact distinct count of symbol values. Symbol keys are dense integers, so each group
+ * keeps a bitset with one bit per key rather than a hash set of values. Null symbols
+ * are not counted.
+ * <p>
+ * Bitsets are kept off-heap and reused by the next execution, once the map is cleared
+ * the function is reset with {@link #toTop()}.
+ */
+public class CountDistinctSymbolGroupByFunction extends LongFunction implements GroupByFunction, UnaryFunction {
+    private final Function arg;
+    private final ObjList<DirectLongList> sets = new ObjList<>();
+    private int valueIndex;
+    private int setIndex;
+
+    public CountDistinctSymbolGroupByFunction(int position, @NotNull Function arg) {
+        super(position);
+        this.arg = arg;
+    }
+
+    @Override
+    public void computeFirst(MapValue mapValue, Record record) {
+        final DirectLongList set;
+        if (sets.size() <= setIndex) {
+            sets.extendAndSet(setIndex, set = new DirectLongList(1));
+        } else {
+            set = sets.getQuick(setIndex);
+            set.clear();
+        }
+        mapValue.putLong(valueIndex, 0);
+        mapValue.putInt(valueIndex + 1, setIndex);
+        setIndex++;
+        computeNext(mapValue, record);
+    }
+
+    @Override
+    public void close() {
+        UnaryFunction.super.close();
+        Misc.freeObjList(sets);
+        sets.clear();
+        setIndex = 0;
+    }
+
+    @Override
+    public void computeNext(MapValue mapValue, Record record) {
+        final int key = arg.getInt(record);
+        if (key < 0) {
+            return;
+        }
+        final DirectLongList set = sets.getQuick(mapValue.getInt(valueIndex + 1));
+        final int wordIndex = key >>> 6;
+        while (set.size() <= wordIndex) {
+            set.add(0);
+        }
+        final long word = set.get(wordIndex);
+        final long bit = 1L << key;
+        if ((word & bit) == 0) {
+            set.set(wordIndex, word | bit);
+            mapValue.addLong(valueIndex, 1);
+        }
+    }
+
+    @Override
+    public Function getArg() {
+        return arg;
+    }
+
+    @Override
+    public long getLong(Record rec) {
+        return rec.getLong(valueIndex);
+    }
+
+    @Override
+    public boolean isConstant() {
+        return false;
+    }
+
+    @Override
+    public void pushValueTypes(ArrayColumnTypes columnTypes) {
+        this.valueIndex = columnTypes.getColumnCount();
+        columnTypes.add(ColumnType.LONG);
+        columnTypes.add(ColumnType.INT);
+    }
+
+    @Override
+    public void setLong(MapValue mapValue, long value) {
+        mapValue.putLong(valueIndex, value);
+    }
+
+    @Override
+    public void setNull(MapValue mapValue) {
+        mapValue.putLong(valueIndex, 0);
+    }
+
+    @Override
+    public void toTop() {
+        UnaryFunction.super.toTop();
+        setIndex = 0;
+    }
+}
@@ -36,7 +36,7 @@ import org.jetbrains.annotations.NotNull;
 
 public class FirstByteGroupByFunction extends ByteFunction implements GroupByFunction, UnaryFunction {
     private final Function arg;
-    private int valueIndex;
+    protected int valueIndex;
 
     public FirstByteGroupByFunction(int position, @NotNull Function arg) {
         super(position);
@@ -53,6 +53,16 @@ public class FirstByteGroupByFunction extends ByteFunction implements GroupByFun
         // empty
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        // destination holds values of earlier rows
+    }
+
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public Function getArg() {
         return this.arg;
@@ -37,7 +37,7 @@ import org.jetbrains.annotations.NotNull;
 
 public class FirstDateGroupByFunction extends DateFunction implements GroupByFunction, UnaryFunction {
     private final Function arg;
-    private int valueIndex;
+    protected int valueIndex;
 
     public FirstDateGroupByFunction(int position, @NotNull Function arg) {
         super(position);
@@ -54,6 +54,16 @@ public class FirstDateGroupByFunction extends DateFunction implements GroupByFun
         // empty
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        // destination holds values of earlier rows
+    }
+
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public Function getArg() {
         return this.arg;
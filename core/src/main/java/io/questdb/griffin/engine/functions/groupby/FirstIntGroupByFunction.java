@@ -37,7 +37,7 @@ import org.jetbrains.annotations.NotNull;
 
 public class FirstIntGroupByFunction extends IntFunction implements GroupByFunction, UnaryFunction {
     private final Function arg;
-    private int valueIndex;
+    protected int valueIndex;
 
     public FirstIntGroupByFunction(int position, @NotNull Function arg) {
         super(position);
@@ -58,6 +58,16 @@ public class FirstIntGroupByFunction extends IntFunction implements GroupByFunct
         return this.arg;
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        // destination holds values of earlier rows
+    }
+
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public int getInt(Record rec) {
         return rec.getInt(valueIndex);
@@ -37,7 +37,7 @@ import org.jetbrains.annotations.NotNull;
 
 public class FirstSymbolGroupByFunction extends SymbolFunction implements GroupByFunction, UnaryFunction {
     private final SymbolFunction arg;
-    private int valueIndex;
+    protected int valueIndex;
 
     public FirstSymbolGroupByFunction(int position, @NotNull SymbolFunction arg) {
         super(position);
@@ -59,6 +59,16 @@ public class FirstSymbolGroupByFunction extends SymbolFunction implements GroupB
         columnTypes.add(ColumnType.INT);
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        // destination holds values of earlier rows
+    }
+
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public void setNull(MapValue mapValue) {
         mapValue.putInt(this.valueIndex, SymbolTable.VALUE_IS_NULL);
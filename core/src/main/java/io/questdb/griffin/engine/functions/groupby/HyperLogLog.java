@@ -0,0 +1,125 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+
+/**
+ * HyperLogLog sketch stored inline in map value. Registers are one byte each and are
+ * packed eight to a LONG value column, so the sketch is fixed size and lives off-heap
+ * together with the rest of the group's values. Two sketches built over different rows
+ * of the same group merge by taking register-wise maximum.
+ * <p>
+ * Precision of 10 bits gives 1024 registers (1KB per group) and standard error of about 3.25%.
+ * Small cardinalities are estimated via linear counting, which is exact for all practical
+ * purposes while most registers are still empty.
+ */
+final class HyperLogLog {
+    static final int PRECISION = 10;
+    static final int REGISTER_COUNT = 1 << PRECISION;
+    static final int WORD_COUNT = REGISTER_COUNT / Long.BYTES;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTER_COUNT);
+    private static final double[] INVERSE_POWERS = new double[Long.SIZE - PRECISION + 2];
+
+    static {
+        for (int i = 0; i < INVERSE_POWERS.length; i++) {
+            INVERSE_POWERS[i] = Math.scalb(1.0, -i);
+        }
+    }
+
+    private HyperLogLog() {
+    }
+
+    static void add(MapValue value, int valueIndex, long hash) {
+        final int register = (int) (hash >>> (Long.SIZE - PRECISION));
+        // sentinel bit caps the rank when remaining hash bits are all zero
+        final long rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        final int wordIndex = valueIndex + (register >>> 3);
+        final int shift = (register & 7) << 3;
+        final long word = value.getLong(wordIndex);
+        if (rank > ((word >>> shift) & 0xff)) {
+            value.putLong(wordIndex, (word & ~(0xffL << shift)) | (rank << shift));
+        }
+    }
+
+    static void clear(MapValue value, int valueIndex) {
+        for (int i = 0; i < WORD_COUNT; i++) {
+            value.putLong(valueIndex + i, 0);
+        }
+    }
+
+    static long estimate(Record record, int valueIndex) {
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < WORD_COUNT; i++) {
+            long word = record.getLong(valueIndex + i);
+            if (word == 0) {
+                sum += Long.BYTES;
+                zeros += Long.BYTES;
+                continue;
+            }
+            for (int j = 0; j < Long.BYTES; j++) {
+                final int rank = (int) (word & 0xff);
+                sum += INVERSE_POWERS[rank];
+                if (rank == 0) {
+                    zeros++;
+                }
+                word >>>= 8;
+            }
+        }
+
+        final double estimate = ALPHA * REGISTER_COUNT * REGISTER_COUNT / sum;
+        if (estimate <= 2.5 * REGISTER_COUNT && zeros > 0) {
+            return Math.round(REGISTER_COUNT * Math.log((double) REGISTER_COUNT / zeros));
+        }
+        return Math.round(estimate);
+    }
+
+    static void merge(MapValue destValue, MapValue srcValue, int valueIndex) {
+        for (int i = 0; i < WORD_COUNT; i++) {
+            final int index = valueIndex + i;
+            final long src = srcValue.getLong(index);
+            if (src == 0) {
+                continue;
+            }
+            final long dest = destValue.getLong(index);
+            long merged = 0;
+            for (int shift = 0; shift < Long.SIZE; shift += 8) {
+                merged |= Math.max((dest >>> shift) & 0xff, (src >>> shift) & 0xff) << shift;
+            }
+            destValue.putLong(index, merged);
+        }
+    }
+
+    static void pushValueTypes(ArrayColumnTypes columnTypes) {
+        for (int i = 0; i < WORD_COUNT; i++) {
+            columnTypes.add(ColumnType.LONG);
+        }
+    }
+}
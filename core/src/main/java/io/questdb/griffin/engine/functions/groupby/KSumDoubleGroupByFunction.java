@@ -71,6 +71,24 @@ public class KSumDoubleGroupByFunction extends DoubleFunction implements GroupBy
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        // compensated value of source is its sum corrected by its own error term
+        final double value = srcValue.getDouble(valueIndex) - srcValue.getDouble(valueIndex + 1);
+        double sum = destValue.getDouble(valueIndex);
+        double c = destValue.getDouble(valueIndex + 1);
+        double y = value - c;
+        double t = sum + y;
+        destValue.putDouble(valueIndex, t);
+        destValue.putDouble(valueIndex + 1, t - sum - y);
+        destValue.addLong(valueIndex + 2, srcValue.getLong(valueIndex + 2));
+    }
+
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
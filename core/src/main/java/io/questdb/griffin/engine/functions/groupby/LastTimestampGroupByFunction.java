@@ -39,4 +39,9 @@ public class LastTimestampGroupByFunction extends FirstTimestampGroupByFunction
     public void computeNext(MapValue mapValue, Record record) {
         super.computeFirst(mapValue, record);
     }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        destValue.putTimestamp(valueIndex, srcValue.getTimestamp(valueIndex));
+    }
 }
@@ -58,6 +58,19 @@ public class MaxDateGroupByFunction extends DateFunction implements GroupByFunct
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        final long next = srcValue.getDate(valueIndex);
+        if (next > destValue.getDate(valueIndex)) {
+            destValue.putDate(valueIndex, next);
+        }
+    }
+
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -58,6 +58,19 @@ public class MaxTimestampGroupByFunction extends TimestampFunction implements Gr
         }
     }
 
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        final long next = srcValue.getTimestamp(valueIndex);
+        if (next > destValue.getTimestamp(valueIndex)) {
+            destValue.putTimestamp(valueIndex, next);
+        }
+    }
+
+    @Override
+    public boolean supportsMerge() {
+        return true;
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
@@ -0,0 +1,254 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+
+/**
+ * Bounded t-digest stored inline in map value. The digest is a sorted list of at most
+ * {@link #CENTROID_COUNT} centroids, each holding mean and weight of the values it absorbed.
+ * Centroids near the tails are kept small, which makes extreme percentiles accurate, while
+ * centroids around the median are allowed to grow. Digests merge by feeding centroids of
+ * one digest into another.
+ * <p>
+ * Value layout: total weight (LONG), centroid count (INT), min (DOUBLE), max (DOUBLE), followed by
+ * centroid means (DOUBLE) and centroid weights (LONG). This is about 1KB per group. Up to
+ * {@link #CENTROID_COUNT} distinct values are kept exactly.
+ */
+final class TDigest {
+    static final int CENTROID_COUNT = 64;
+    private static final int COUNT_OFFSET = 1;
+    private static final int MIN_OFFSET = 2;
+    private static final int MAX_OFFSET = 3;
+    private static final int MEANS_OFFSET = 4;
+    private static final int WEIGHTS_OFFSET = MEANS_OFFSET + CENTROID_COUNT;
+
+    private TDigest() {
+    }
+
+    static void add(MapValue value, int valueIndex, double x, long w) {
+        final long total = value.getLong(valueIndex) + w;
+        value.putLong(valueIndex, total);
+        final int n = value.getInt(valueIndex + COUNT_OFFSET);
+        if (n == 0) {
+            value.putDouble(valueIndex + MIN_OFFSET, x);
+            value.putDouble(valueIndex + MAX_OFFSET, x);
+            insert(value, valueIndex, 0, 0, x, w);
+            return;
+        }
+
+        if (x < value.getDouble(valueIndex + MIN_OFFSET)) {
+            value.putDouble(valueIndex + MIN_OFFSET, x);
+        }
+        if (x > value.getDouble(valueIndex + MAX_OFFSET)) {
+            value.putDouble(valueIndex + MAX_OFFSET, x);
+        }
+
+        int pos = search(value, valueIndex, n, x);
+        final int nearest = nearest(value, valueIndex, n, pos, x);
+        if (mean(value, valueIndex, nearest) == x) {
+            addWeight(value, valueIndex, nearest, x, w);
+            return;
+        }
+
+        final long nearestWeight = weight(value, valueIndex, nearest);
+        final double q = (weightBefore(value, valueIndex, n, nearest, total - w) + nearestWeight / 2.0) / total;
+        if (nearestWeight + w <= limit(q, total)) {
+            addWeight(value, valueIndex, nearest, x, w);
+            return;
+        }
+
+        int count = n;
+        if (count == CENTROID_COUNT) {
+            compress(value, valueIndex, count, total - w);
+            count--;
+            pos = search(value, valueIndex, count, x);
+        }
+        insert(value, valueIndex, count, pos, x, w);
+    }
+
+    static void clear(MapValue value, int valueIndex) {
+        value.putLong(valueIndex, 0);
+        value.putInt(valueIndex + COUNT_OFFSET, 0);
+    }
+
+    static void merge(MapValue destValue, MapValue srcValue, int valueIndex) {
+        final int n = srcValue.getInt(valueIndex + COUNT_OFFSET);
+        if (n == 0) {
+            return;
+        }
+        final double min = Math.min(srcValue.getDouble(valueIndex + MIN_OFFSET), destValue.getInt(valueIndex + COUNT_OFFSET) > 0 ? destValue.getDouble(valueIndex + MIN_OFFSET) : Double.POSITIVE_INFINITY);
+        final double max = Math.max(srcValue.getDouble(valueIndex + MAX_OFFSET), destValue.getInt(valueIndex + COUNT_OFFSET) > 0 ? destValue.getDouble(valueIndex + MAX_OFFSET) : Double.NEGATIVE_INFINITY);
+        for (int i = 0; i < n; i++) {
+            add(destValue, valueIndex, srcValue.getDouble(valueIndex + MEANS_OFFSET + i), srcValue.getLong(valueIndex + WEIGHTS_OFFSET + i));
+        }
+        destValue.putDouble(valueIndex + MIN_OFFSET, min);
+        destValue.putDouble(valueIndex + MAX_OFFSET, max);
+    }
+
+    static void pushValueTypes(ArrayColumnTypes columnTypes) {
+        columnTypes.add(ColumnType.LONG);
+        columnTypes.add(ColumnType.INT);
+        columnTypes.add(ColumnType.DOUBLE);
+        columnTypes.add(ColumnType.DOUBLE);
+        for (int i = 0; i < CENTROID_COUNT; i++) {
+            columnTypes.add(ColumnType.DOUBLE);
+        }
+        for (int i = 0; i < CENTROID_COUNT; i++) {
+            columnTypes.add(ColumnType.LONG);
+        }
+    }
+
+    static double quantile(Record record, int valueIndex, double p) {
+        final int n = record.getInt(valueIndex + COUNT_OFFSET);
+        if (n == 0) {
+            return Double.NaN;
+        }
+
+        final double min = record.getDouble(valueIndex + MIN_OFFSET);
+        final double max = record.getDouble(valueIndex + MAX_OFFSET);
+        final double target = p * record.getLong(valueIndex);
+
+        // rank of the centroid mean is taken to be in the middle of its weight
+        double mean = record.getDouble(valueIndex + MEANS_OFFSET);
+        double center = record.getLong(valueIndex + WEIGHTS_OFFSET) / 2.0;
+        if (target <= center) {
+            return min + (mean - min) * (center > 0 ? target / center : 0);
+        }
+
+        double cumulative = center * 2;
+        for (int i = 1; i < n; i++) {
+            final double nextMean = record.getDouble(valueIndex + MEANS_OFFSET + i);
+            final long nextWeight = record.getLong(valueIndex + WEIGHTS_OFFSET + i);
+            final double nextCenter = cumulative + nextWeight / 2.0;
+            if (target <= nextCenter) {
+                return mean + (nextMean - mean) * (target - center) / (nextCenter - center);
+            }
+            mean = nextMean;
+            center = nextCenter;
+            cumulative += nextWeight;
+        }
+        return mean + (max - mean) * (target - center) / (cumulative - center);
+    }
+
+    private static void addWeight(MapValue value, int valueIndex, int index, double x, long w) {
+        final long weight = weight(value, valueIndex, index);
+        final double mean = mean(value, valueIndex, index);
+        value.putDouble(valueIndex + MEANS_OFFSET + index, mean + (x - mean) * w / (weight + w));
+        value.putLong(valueIndex + WEIGHTS_OFFSET + index, weight + w);
+    }
+
+    // merges adjacent pair of centroids that is smallest relative to size allowed at its quantile
+    private static void compress(MapValue value, int valueIndex, int n, long total) {
+        int best = 0;
+        double bestCost = Double.MAX_VALUE;
+        long cumulative = 0;
+        long weight = weight(value, valueIndex, 0);
+        for (int i = 0; i < n - 1; i++) {
+            final long nextWeight = weight(value, valueIndex, i + 1);
+            final long pairWeight = weight + nextWeight;
+            final double cost = pairWeight / limit((cumulative + pairWeight / 2.0) / total, total);
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = i;
+            }
+            cumulative += weight;
+            weight = nextWeight;
+        }
+
+        addWeight(value, valueIndex, best, mean(value, valueIndex, best + 1), weight(value, valueIndex, best + 1));
+        for (int i = best + 1; i < n - 1; i++) {
+            value.putDouble(valueIndex + MEANS_OFFSET + i, mean(value, valueIndex, i + 1));
+            value.putLong(valueIndex + WEIGHTS_OFFSET + i, weight(value, valueIndex, i + 1));
+        }
+        value.putInt(valueIndex + COUNT_OFFSET, n - 1);
+    }
+
+    private static void insert(MapValue value, int valueIndex, int n, int pos, double x, long w) {
+        for (int i = n; i > pos; i--) {
+            value.putDouble(valueIndex + MEANS_OFFSET + i, mean(value, valueIndex, i - 1));
+            value.putLong(valueIndex + WEIGHTS_OFFSET + i, weight(value, valueIndex, i - 1));
+        }
+        value.putDouble(valueIndex + MEANS_OFFSET + pos, x);
+        value.putLong(valueIndex + WEIGHTS_OFFSET + pos, w);
+        value.putInt(valueIndex + COUNT_OFFSET, n + 1);
+    }
+
+    private static double limit(double q, long total) {
+        return Math.max(1, 4 * total * q * (1 - q) / CENTROID_COUNT);
+    }
+
+    private static double mean(MapValue value, int valueIndex, int index) {
+        return value.getDouble(valueIndex + MEANS_OFFSET + index);
+    }
+
+    private static int nearest(MapValue value, int valueIndex, int n, int pos, double x) {
+        if (pos == 0) {
+            return 0;
+        }
+        if (pos == n) {
+            return n - 1;
+        }
+        return x - mean(value, valueIndex, pos - 1) <= mean(value, valueIndex, pos) - x ? pos - 1 : pos;
+    }
+
+    // index of the first centroid with mean greater than x
+    private static int search(MapValue value, int valueIndex, int n, double x) {
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (mean(value, valueIndex, mid) <= x) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static long weight(MapValue value, int valueIndex, int index) {
+        return value.getLong(valueIndex + WEIGHTS_OFFSET + index);
+    }
+
+    // sums weights from whichever end is closer to the centroid
+    private static long weightBefore(MapValue value, int valueIndex, int n, int index, long total) {
+        long sum = 0;
+        if (index < n / 2) {
+            for (int i = 0; i < index; i++) {
+                sum += weight(value, valueIndex, i);
+            }
+            return sum;
+        }
+        for (int i = index; i < n; i++) {
+            sum += weight(value, valueIndex, i);
+        }
+        return total - sum;
+    }
+}
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.IntervalFwdDataFrameCursorFactory;
+import io.questdb.cairo.PartitionBy;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.vm.ReadOnlyVirtualMemory;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.str.CharSink;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Answers count(), min() and max() of designated timestamp without scanning table. When partitioned
+ * table is queried without interval filter, values come from table transaction. Otherwise, data frame
+ * cursor finds row boundaries in each partition and values are taken from the boundaries of the first
+ * and the last data frame.
+ */
+public class GroupByNotKeyedMetadataRecordCursorFactory extends AbstractRecordCursorFactory {
+    public static final int FUNC_COUNT = 0;
+    public static final int FUNC_MIN = 1;
+    public static final int FUNC_MAX = 2;
+    private final RecordCursorFactory base;
+    private final DataFrameCursorFactory dataFrameCursorFactory;
+    private final boolean fullScan;
+    private final MetadataRecordCursor cursor;
+
+    /**
+     * @param metadata               metadata of aggregate values
+     * @param base                   factory that owns data frame cursor factory, null when data frame cursor
+     *                               factory is owned by this factory
+     * @param dataFrameCursorFactory factory of frames to aggregate
+     * @param functions              function of each column of metadata, one of FUNC_* constants
+     */
+    public GroupByNotKeyedMetadataRecordCursorFactory(
+            RecordMetadata metadata,
+            @Nullable RecordCursorFactory base,
+            DataFrameCursorFactory dataFrameCursorFactory,
+            IntList functions
+    ) {
+        super(metadata);
+        this.base = base;
+        this.dataFrameCursorFactory = dataFrameCursorFactory;
+        this.fullScan = !(dataFrameCursorFactory instanceof IntervalFwdDataFrameCursorFactory);
+        this.cursor = new MetadataRecordCursor(functions);
+    }
+
+    @Override
+    public void close() {
+        // base factory, when present, owns data frame cursor factory
+        Misc.free(base != null ? base : dataFrameCursorFactory);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        try (DataFrameCursor dataFrameCursor = dataFrameCursorFactory.getCursor(executionContext)) {
+            final TableReader reader = dataFrameCursor.getTableReader();
+            // minimum timestamp is not maintained for tables without partitions
+            if (fullScan && reader.getPartitionedBy() != PartitionBy.NONE) {
+                final long count = reader.size();
+                cursor.of(
+                        count,
+                        count > 0 ? reader.getMinTimestamp() : Numbers.LONG_NaN,
+                        count > 0 ? reader.getMaxTimestamp() : Numbers.LONG_NaN
+                );
+                return cursor;
+            }
+
+            final int timestampIndex = reader.getMetadata().getTimestampIndex();
+            long count = 0;
+            long min = Numbers.LONG_NaN;
+            long max = Numbers.LONG_NaN;
+            DataFrame frame;
+            while ((frame = dataFrameCursor.next()) != null) {
+                final long lo = frame.getRowLo();
+                final long hi = frame.getRowHi();
+                if (hi > lo) {
+                    final ReadOnlyVirtualMemory column = reader.getColumn(
+                            TableReader.getPrimaryColumnIndex(reader.getColumnBase(frame.getPartitionIndex()), timestampIndex)
+                    );
+                    if (count == 0) {
+                        min = column.getLong(lo * Long.BYTES);
+                    }
+                    max = column.getLong((hi - 1) * Long.BYTES);
+                    count += hi - lo;
+                }
+            }
+            cursor.of(count, min, max);
+            return cursor;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        sink.put("{\"name\":\"GroupByNotKeyedMetadataRecordCursorFactory\", \"cursorFactory\":");
+        dataFrameCursorFactory.toSink(sink);
+        sink.put('}');
+    }
+
+    private static class MetadataRecordCursor implements NoRandomAccessRecordCursor {
+        private final IntList functions;
+        private final LongList values = new LongList();
+        private final MetadataRecord record = new MetadataRecord();
+        private boolean hasNext = true;
+
+        private MetadataRecordCursor(IntList functions) {
+            this.functions = functions;
+            this.values.setPos(functions.size());
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (hasNext) {
+                hasNext = false;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void toTop() {
+            hasNext = true;
+        }
+
+        @Override
+        public long size() {
+            return 1;
+        }
+
+        private void of(long count, long min, long max) {
+            for (int i = 0, n = functions.size(); i < n; i++) {
+                switch (functions.getQuick(i)) {
+                    case FUNC_COUNT:
+                        values.setQuick(i, count);
+                        break;
+                    case FUNC_MIN:
+                        values.setQuick(i, min);
+                        break;
+                    default:
+                        values.setQuick(i, max);
+                        break;
+                }
+            }
+            toTop();
+        }
+
+        private class MetadataRecord implements Record {
+            @Override
+            public long getLong(int col) {
+                return values.getQuick(col);
+            }
+
+            @Override
+            public long getTimestamp(int col) {
+                return values.getQuick(col);
+            }
+        }
+    }
+}
@@ -85,6 +85,8 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) {
         dataMap.clear();
+        // functions that keep per-key state outside the map start over with the map
+        GroupByUtils.toTop(groupByFunctions);
         final RecordCursor baseCursor = base.getCursor(executionContext);
 
         try {
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+
+/**
+ * Record over fixed-width columns of a page frame. Frame addresses are held in a list
+ * shared by all records, each record only keeps its own position. Column tops have
+ * zero address and read as nulls.
+ */
+class PageFrameRecord implements Record {
+    private final IntList columnSizeShifts = new IntList();
+    private LongList frameAddresses;
+    private int frameBase;
+    private long row;
+
+    PageFrameRecord(RecordMetadata metadata) {
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            columnSizeShifts.add(ColumnType.pow2SizeOf(metadata.getColumnType(i)));
+        }
+    }
+
+    @Override
+    public boolean getBool(int col) {
+        final long address = getAddress(col);
+        return address != 0 && Unsafe.getUnsafe().getByte(address) == 1;
+    }
+
+    @Override
+    public byte getByte(int col) {
+        final long address = getAddress(col);
+        return address != 0 ? Unsafe.getUnsafe().getByte(address) : 0;
+    }
+
+    @Override
+    public char getChar(int col) {
+        final long address = getAddress(col);
+        return address != 0 ? Unsafe.getUnsafe().getChar(address) : 0;
+    }
+
+    @Override
+    public long getDate(int col) {
+        return getLong(col);
+    }
+
+    @Override
+    public double getDouble(int col) {
+        final long address = getAddress(col);
+        return address != 0 ? Unsafe.getUnsafe().getDouble(address) : Double.NaN;
+    }
+
+    @Override
+    public float getFloat(int col) {
+        final long address = getAddress(col);
+        return address != 0 ? Unsafe.getUnsafe().getFloat(address) : Float.NaN;
+    }
+
+    @Override
+    public int getInt(int col) {
+        final long address = getAddress(col);
+        return address != 0 ? Unsafe.getUnsafe().getInt(address) : Numbers.INT_NaN;
+    }
+
+    @Override
+    public long getLong(int col) {
+        final long address = getAddress(col);
+        return address != 0 ? Unsafe.getUnsafe().getLong(address) : Numbers.LONG_NaN;
+    }
+
+    @Override
+    public short getShort(int col) {
+        final long address = getAddress(col);
+        return address != 0 ? Unsafe.getUnsafe().getShort(address) : 0;
+    }
+
+    @Override
+    public long getTimestamp(int col) {
+        return getLong(col);
+    }
+
+    void of(LongList frameAddresses, int frameBase) {
+        this.frameAddresses = frameAddresses;
+        this.frameBase = frameBase;
+    }
+
+    void setRow(long row) {
+        this.row = row;
+    }
+
+    private long getAddress(int col) {
+        final long address = frameAddresses.getQuick(frameBase + col);
+        return address != 0 ? address + (row << columnSizeShifts.getQuick(col)) : 0;
+    }
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.AbstractLockable;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+import java.io.Closeable;
+
+/**
+ * Contiguous range of rows aggregated by a single task into entry's own map. Ranges
+ * follow each other in the order of entries, which lets owner merge maps in row order.
+ */
+public class ParallelGroupByEntry extends AbstractLockable implements Closeable {
+    private final Map map;
+    private final RecordSink mapSink;
+    private final ObjList<GroupByFunction> groupByFunctions;
+    private final PageFrameRecord record;
+    private LongList frameAddresses;
+    private LongList frameRowLos;
+    private final int columnCount;
+    private long rowLo;
+    private long rowHi;
+    private CountDownLatchSPI doneLatch;
+    private Throwable error;
+
+    ParallelGroupByEntry(Map map, RecordSink mapSink, ObjList<GroupByFunction> groupByFunctions, RecordMetadata metadata) {
+        this.map = map;
+        this.mapSink = mapSink;
+        this.groupByFunctions = groupByFunctions;
+        this.record = new PageFrameRecord(metadata);
+        this.columnCount = metadata.getColumnCount();
+    }
+
+    @Override
+    public void close() {
+        Misc.free(map);
+    }
+
+    public boolean run() {
+        if (tryLock()) {
+            try {
+                aggregate();
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                doneLatch.countDown();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void aggregate() {
+        final int n = groupByFunctions.size();
+        int frameIndex = 0;
+        while (frameRowLos.getQuick(frameIndex + 1) <= rowLo) {
+            frameIndex++;
+        }
+
+        long row = rowLo;
+        while (row < rowHi) {
+            final long frameLo = frameRowLos.getQuick(frameIndex);
+            final long hi = Math.min(rowHi, frameRowLos.getQuick(frameIndex + 1));
+            record.of(frameAddresses, frameIndex * columnCount);
+            for (long r = row - frameLo, rn = hi - frameLo; r < rn; r++) {
+                record.setRow(r);
+                final MapKey key = map.withKey();
+                mapSink.copy(record, key);
+                final MapValue value = key.createValue();
+                GroupByUtils.updateFunctions(groupByFunctions, n, value, record);
+            }
+            row = hi;
+            frameIndex++;
+        }
+    }
+
+    Throwable getError() {
+        return error;
+    }
+
+    Map getMap() {
+        return map;
+    }
+
+    void of(int sequence, LongList frameAddresses, LongList frameRowLos, long rowLo, long rowHi, CountDownLatchSPI doneLatch) {
+        this.map.clear();
+        this.frameAddresses = frameAddresses;
+        this.frameRowLos = frameRowLos;
+        this.rowLo = rowLo;
+        this.rowHi = rowHi;
+        this.doneLatch = doneLatch;
+        this.error = null;
+        // entry becomes available to workers only after its state is set up
+        of(sequence);
+    }
+}
@@ -0,0 +1,303 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.*;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.AbstractVirtualFunctionRecordCursor;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.tasks.GroupByTask;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Keyed group by that splits rows of base page frames into contiguous ranges, one per
+ * worker. Each range is aggregated into its own map on the worker pool, then owner
+ * thread merges maps in range order using {@link GroupByFunction#merge(MapValue, MapValue)}.
+ * Merging in row order keeps first() and last() semantics of single-threaded group by.
+ */
+public class ParallelGroupByRecordCursorFactory implements RecordCursorFactory {
+    private static final Log LOG = LogFactory.getLog(ParallelGroupByRecordCursorFactory.class);
+    private final CairoConfiguration configuration;
+    private final RecordCursorFactory base;
+    private final RecordMetadata metadata;
+    private final ObjList<Function> recordFunctions;
+    private final ObjList<GroupByFunction> groupByFunctions;
+    private final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
+    private final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+    private final RecordSink mapSink;
+    // this sink copies keys of partial maps into the map that accumulates result
+    private final RecordSink mergeSink;
+    private final ObjList<ParallelGroupByEntry> entries = new ObjList<>();
+    private final LongList frameAddresses = new LongList();
+    private final LongList frameRowLos = new LongList();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final ParallelGroupByRecordCursor cursor;
+    private final int firstColumnSizeShift;
+
+    public ParallelGroupByRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            @Transient @NotNull ListColumnFilter listColumnFilter,
+            @Transient @NotNull BytecodeAssembler asm,
+            @Transient @NotNull ArrayColumnTypes keyTypes,
+            @Transient @NotNull ArrayColumnTypes valueTypes,
+            RecordMetadata groupByMetadata,
+            ObjList<GroupByFunction> groupByFunctions,
+            ObjList<Function> recordFunctions
+    ) {
+        try {
+            this.configuration = configuration;
+            this.base = base;
+            this.metadata = groupByMetadata;
+            this.groupByFunctions = groupByFunctions;
+            this.recordFunctions = recordFunctions;
+            this.mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false);
+
+            // map record lists values ahead of keys
+            final ArrayColumnTypes mapRecordTypes = new ArrayColumnTypes();
+            final ListColumnFilter mapKeyFilter = new ListColumnFilter();
+            final int valueCount = valueTypes.getColumnCount();
+            for (int i = 0; i < valueCount; i++) {
+                final int type = valueTypes.getColumnType(i);
+                this.valueTypes.add(type);
+                mapRecordTypes.add(type);
+            }
+            for (int i = 0, n = keyTypes.getColumnCount(); i < n; i++) {
+                final int type = keyTypes.getColumnType(i);
+                this.keyTypes.add(type);
+                mapRecordTypes.add(type);
+                mapKeyFilter.add(valueCount + i + 1);
+            }
+            this.mergeSink = RecordSinkFactory.getInstance(asm, mapRecordTypes, mapKeyFilter, false);
+            this.firstColumnSizeShift = ColumnType.pow2SizeOf(base.getMetadata().getColumnType(0));
+            this.cursor = new ParallelGroupByRecordCursor(recordFunctions);
+        } catch (Throwable e) {
+            Misc.freeObjList(recordFunctions);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(recordFunctions);
+        Misc.freeObjList(entries);
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        final PageFrameCursor pageFrameCursor = base.getPageFrameCursor(executionContext);
+        try {
+            final long rowCount = collectFrames(pageFrameCursor);
+            // init all record function for this cursor, group-by functions read their
+            // arguments on worker threads and require symbol tables up front
+            Function.init(recordFunctions, pageFrameCursor::getSymbolMapReader, executionContext);
+            executionContext.getSqlExecutionInterruptor().checkInterrupted();
+
+            final long minTaskRows = Math.max(1, configuration.getSqlParallelGroupByMinTaskRows());
+            final int taskCount = (int) Math.max(1, Math.min(executionContext.getWorkerCount(), rowCount / minTaskRows));
+            final Map dataMap = aggregate(executionContext.getMessageBus(), rowCount, taskCount);
+            // tasks read ranges of all frames at once, pages of earlier frames can go only once they are done
+            pageFrameCursor.releaseFrames();
+            cursor.of(pageFrameCursor, dataMap.getCursor());
+            return cursor;
+        } catch (Throwable e) {
+            pageFrameCursor.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    private static void copyValue(MapValue destValue, MapValue srcValue, ColumnTypes valueTypes) {
+        for (int i = 0, n = valueTypes.getColumnCount(); i < n; i++) {
+            switch (valueTypes.getColumnType(i)) {
+                case ColumnType.BOOLEAN:
+                    destValue.putBool(i, srcValue.getBool(i));
+                    break;
+                case ColumnType.BYTE:
+                    destValue.putByte(i, srcValue.getByte(i));
+                    break;
+                case ColumnType.SHORT:
+                    destValue.putShort(i, srcValue.getShort(i));
+                    break;
+                case ColumnType.CHAR:
+                    destValue.putChar(i, srcValue.getChar(i));
+                    break;
+                case ColumnType.INT:
+                case ColumnType.SYMBOL:
+                    destValue.putInt(i, srcValue.getInt(i));
+                    break;
+                case ColumnType.FLOAT:
+                    destValue.putFloat(i, srcValue.getFloat(i));
+                    break;
+                case ColumnType.DOUBLE:
+                    destValue.putDouble(i, srcValue.getDouble(i));
+                    break;
+                default:
+                    destValue.putLong(i, srcValue.getLong(i));
+                    break;
+            }
+        }
+    }
+
+    private Map aggregate(MessageBus messageBus, long rowCount, int taskCount) {
+        for (int i = entries.size(); i < taskCount; i++) {
+            entries.add(
+                    new ParallelGroupByEntry(
+                            MapFactory.createMap(configuration, keyTypes, valueTypes),
+                            mapSink,
+                            groupByFunctions,
+                            base.getMetadata()
+                    )
+            );
+        }
+
+        final Map dataMap = entries.getQuick(0).getMap();
+        if (rowCount == 0) {
+            dataMap.clear();
+            return dataMap;
+        }
+
+        final RingQueue<GroupByTask> queue = messageBus.getGroupByQueue();
+        final Sequence pubSeq = messageBus.getGroupByPubSeq();
+        final long taskRows = (rowCount + taskCount - 1) / taskCount;
+
+        doneLatch.reset();
+        int queuedCount = 0;
+        for (int i = 0; i < taskCount; i++) {
+            final ParallelGroupByEntry entry = entries.getQuick(i);
+            final long lo = i * taskRows;
+            entry.of(i, frameAddresses, frameRowLos, lo, Math.min(lo + taskRows, rowCount), doneLatch);
+
+            final long seq = pubSeq.next();
+            if (seq < 0) {
+                // queue is full, aggregate the range ourselves
+                entry.run();
+            } else {
+                queue.get(seq).entry = entry;
+                pubSeq.done(seq);
+                queuedCount++;
+            }
+        }
+
+        // help workers with ranges they have not picked up yet, starting at the back
+        // to reduce chance of clashing
+        for (int i = taskCount - 1; i > -1 && doneLatch.getCount() > -taskCount; i--) {
+            entries.getQuick(i).run();
+        }
+        doneLatch.await(taskCount);
+        LOG.debug().$("aggregated [tasks=").$(taskCount).$(", queued=").$(queuedCount).$(", rows=").$(rowCount).$(']').$();
+
+        for (int i = 0; i < taskCount; i++) {
+            final Throwable error = entries.getQuick(i).getError();
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error != null) {
+                throw (Error) error;
+            }
+        }
+
+        final int n = groupByFunctions.size();
+        for (int i = 1; i < taskCount; i++) {
+            final RecordCursor srcCursor = entries.getQuick(i).getMap().getCursor();
+            final MapRecord srcRecord = (MapRecord) srcCursor.getRecord();
+            while (srcCursor.hasNext()) {
+                final MapKey key = dataMap.withKey();
+                key.put(srcRecord, mergeSink);
+                final MapValue destValue = key.createValue();
+                final MapValue srcValue = srcRecord.getValue();
+                if (destValue.isNew()) {
+                    copyValue(destValue, srcValue, valueTypes);
+                } else {
+                    for (int j = 0; j < n; j++) {
+                        groupByFunctions.getQuick(j).merge(destValue, srcValue);
+                    }
+                }
+            }
+        }
+        return dataMap;
+    }
+
+    private long collectFrames(PageFrameCursor pageFrameCursor) {
+        final int columnCount = base.getMetadata().getColumnCount();
+        frameAddresses.clear();
+        frameRowLos.clear();
+        frameRowLos.add(0);
+
+        long rowCount = 0;
+        PageFrame frame;
+        while ((frame = pageFrameCursor.next()) != null) {
+            final long size = frame.getPageSize(0);
+            // page size of column top is the number of rows rather than bytes
+            final long frameRows = frame.getPageAddress(0) != 0 ? size >>> firstColumnSizeShift : size;
+            if (frameRows > 0) {
+                for (int i = 0; i < columnCount; i++) {
+                    frameAddresses.add(frame.getPageAddress(i));
+                }
+                rowCount += frameRows;
+                frameRowLos.add(rowCount);
+            }
+        }
+        return rowCount;
+    }
+
+    private static class ParallelGroupByRecordCursor extends AbstractVirtualFunctionRecordCursor {
+        private PageFrameCursor pageFrameCursor;
+
+        public ParallelGroupByRecordCursor(ObjList<Function> functions) {
+            super(functions, true);
+        }
+
+        @Override
+        public void close() {
+            pageFrameCursor = Misc.free(pageFrameCursor);
+        }
+
+        void of(PageFrameCursor pageFrameCursor, RecordCursor mapCursor) {
+            this.pageFrameCursor = pageFrameCursor;
+            of(mapCursor);
+        }
+    }
+}
@@ -0,0 +1,527 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.mp.Worker;
+import io.questdb.std.*;
+import io.questdb.tasks.VectorAggregateTask;
+
+/**
+ * Vector aggregation keyed on several columns or on a column that does not fit INT storage of Rosti.
+ * Key values of each page frame are encoded into dense INT ids using a hash map, after which
+ * aggregation runs on the worker pool through the same keyed INT kernels that single symbol keys use.
+ * Each worker aggregates into its own Rosti; maps are merged once all frames are done.
+ */
+public class GroupByCompositeKeyVectorRecordCursorFactory implements RecordCursorFactory {
+
+    private static final Log LOG = LogFactory.getLog(GroupByCompositeKeyVectorRecordCursorFactory.class);
+    // number of frames whose encoded keys can be in flight before we wait for workers to catch up
+    private static final int KEY_BUFFER_COUNT = 2;
+
+    private final RecordCursorFactory base;
+    private final ObjList<VectorAggregateFunction> vafList;
+    private final ObjectPool<VectorAggregateEntry> entryPool;
+    private final ObjList<VectorAggregateEntry> activeEntries;
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final RecordMetadata metadata;
+    private final long[] pRosti;
+    private final IntList keyColumnIndexes;
+    private final IntList keyColumnTypes;
+    private final IntList valueSizeShifts;
+    private final Map keyMap;
+    private final ObjList<LongList> keyValues;
+    private final long[] keyScratch;
+    private final long[] keyAddresses;
+    private final long[] keyBufferAddresses = new long[KEY_BUFFER_COUNT];
+    private final long[] keyBufferSizes = new long[KEY_BUFFER_COUNT];
+    private final CompositeKeyRecordCursor cursor;
+
+    public GroupByCompositeKeyVectorRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            RecordMetadata metadata,
+            int workerCount,
+            @Transient ObjList<VectorAggregateFunction> vafList,
+            @Transient IntList keyColumnIndexesInBase,
+            @Transient IntList keyColumnIndexesInThisCursor,
+            @Transient IntList symbolTableSkewIndex
+    ) {
+        this.entryPool = new ObjectPool<>(VectorAggregateEntry::new, configuration.getGroupByPoolCapacity());
+        this.activeEntries = new ObjList<>(configuration.getGroupByPoolCapacity());
+        this.base = base;
+        this.metadata = metadata;
+
+        final int keyCount = keyColumnIndexesInBase.size();
+        this.keyColumnIndexes = new IntList(keyCount);
+        this.keyColumnIndexes.addAll(keyColumnIndexesInBase);
+        this.keyColumnTypes = new IntList(keyCount);
+        this.keyValues = new ObjList<>(keyCount);
+        final ArrayColumnTypes mapKeyTypes = new ArrayColumnTypes();
+        for (int i = 0; i < keyCount; i++) {
+            keyColumnTypes.add(metadata.getColumnType(keyColumnIndexesInThisCursor.getQuick(i)));
+            keyValues.add(new LongList());
+            // all supported key types widen to long without loss
+            mapKeyTypes.add(ColumnType.LONG);
+        }
+        final ArrayColumnTypes mapValueTypes = new ArrayColumnTypes();
+        mapValueTypes.add(ColumnType.INT);
+        this.keyMap = MapFactory.createMap(configuration, mapKeyTypes, mapValueTypes);
+        this.keyScratch = new long[keyCount];
+        this.keyAddresses = new long[keyCount];
+
+        // Rosti is keyed on encoded key id
+        final ArrayColumnTypes rostiTypes = new ArrayColumnTypes();
+        rostiTypes.add(ColumnType.INT);
+        final int vafCount = vafList.size();
+        for (int i = 0; i < vafCount; i++) {
+            vafList.getQuick(i).pushValueTypes(rostiTypes);
+        }
+
+        this.valueSizeShifts = new IntList(vafCount);
+        final RecordMetadata baseMetadata = base.getMetadata();
+        for (int i = 0; i < vafCount; i++) {
+            final int columnIndex = vafList.getQuick(i).getColumnIndex();
+            valueSizeShifts.add(columnIndex > -1 ? ColumnType.pow2SizeOf(baseMetadata.getColumnType(columnIndex)) : 0);
+        }
+
+        this.pRosti = new long[workerCount];
+        this.vafList = new ObjList<>(vafCount);
+        for (int i = 0; i < workerCount; i++) {
+            pRosti[i] = Rosti.alloc(rostiTypes, configuration.getGroupByMapCapacity());
+            Unsafe.getUnsafe().putInt(Rosti.getInitialValueSlot(pRosti[i], 0), Numbers.INT_NaN);
+            for (int j = 0; j < vafCount; j++) {
+                vafList.getQuick(j).initRosti(pRosti[i]);
+            }
+        }
+
+        // key columns take their positions in the cursor, aggregates fill the remaining positions in order
+        final long columnOffsets = Rosti.getValueOffsets(pRosti[0]);
+        final int columnCount = metadata.getColumnCount();
+        final IntList keyIndex = new IntList(columnCount);
+        final IntList valueOffsets = new IntList(columnCount);
+        for (int i = 0, v = 0; i < columnCount; i++) {
+            int k = -1;
+            for (int j = 0; j < keyCount; j++) {
+                if (keyColumnIndexesInThisCursor.getQuick(j) == i) {
+                    k = j;
+                    break;
+                }
+            }
+            keyIndex.add(k);
+            if (k > -1) {
+                valueOffsets.add(-1);
+            } else {
+                valueOffsets.add(Unsafe.getUnsafe().getInt(columnOffsets + vafList.getQuick(v++).getValueOffset() * 4L));
+            }
+        }
+
+        this.vafList.addAll(vafList);
+        final IntList symbolSkew = new IntList(symbolTableSkewIndex.size());
+        symbolSkew.addAll(symbolTableSkewIndex);
+        this.cursor = new CompositeKeyRecordCursor(pRosti[0], keyIndex, valueOffsets, symbolSkew);
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(vafList);
+        for (int i = 0, n = pRosti.length; i < n; i++) {
+            Rosti.free(pRosti[i]);
+        }
+        for (int i = 0; i < KEY_BUFFER_COUNT; i++) {
+            if (keyBufferAddresses[i] != 0) {
+                Unsafe.free(keyBufferAddresses[i], keyBufferSizes[i]);
+                keyBufferAddresses[i] = 0;
+                keyBufferSizes[i] = 0;
+            }
+        }
+        Misc.free(keyMap);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        for (int i = 0, n = pRosti.length; i < n; i++) {
+            Rosti.clear(pRosti[i]);
+        }
+        keyMap.clear();
+        for (int i = 0, n = keyValues.size(); i < n; i++) {
+            keyValues.getQuick(i).clear();
+        }
+
+        final MessageBus bus = executionContext.getMessageBus();
+        assert bus != null;
+
+        final PageFrameCursor cursor = base.getPageFrameCursor(executionContext);
+        final int vafCount = vafList.size();
+
+        for (int i = 0; i < vafCount; i++) {
+            vafList.getQuick(i).clear();
+        }
+
+        final RingQueue<VectorAggregateTask> queue = bus.getVectorAggregateQueue();
+        final Sequence pubSeq = bus.getVectorAggregatePubSeq();
+
+        this.entryPool.clear();
+        this.activeEntries.clear();
+        int queuedCount = 0;
+        int ownCount = 0;
+        int reclaimed = 0;
+        int total = 0;
+        int frameCount = 0;
+
+        doneLatch.reset();
+
+        final Thread thread = Thread.currentThread();
+        final int workerId;
+        if (thread instanceof Worker) {
+            workerId = ((Worker) thread).getWorkerId();
+        } else {
+            workerId = 0;
+        }
+
+        PageFrame frame;
+        while ((frame = cursor.next()) != null) {
+            final long rowCount = getRowCount(frame);
+            if (rowCount == 0) {
+                continue;
+            }
+
+            // key buffer we are about to reuse may still be read by workers
+            if (frameCount >= KEY_BUFFER_COUNT) {
+                reclaimed = GroupByNotKeyedVectorRecordCursorFactory.getRunWhatsLeft(queuedCount, reclaimed, workerId, activeEntries, doneLatch, LOG);
+                // so may be earlier frames, pages behind them can go once workers are done
+                cursor.releaseFrames();
+            }
+            final long keyAddress = encodeKeys(frame, rowCount, frameCount++ % KEY_BUFFER_COUNT);
+
+            for (int i = 0; i < vafCount; i++) {
+                final VectorAggregateFunction vaf = vafList.getQuick(i);
+                final int columnIndex = vaf.getColumnIndex();
+                final long valueAddress;
+                final long valueAddressSize;
+
+                if (columnIndex > -1) {
+                    valueAddress = frame.getPageAddress(columnIndex);
+                    // column top has no values, functions will only register keys
+                    valueAddressSize = valueAddress != 0 ? frame.getPageSize(columnIndex) : rowCount << valueSizeShifts.getQuick(i);
+                } else {
+                    valueAddress = 0;
+                    valueAddressSize = rowCount << ColumnType.pow2SizeOf(ColumnType.INT);
+                }
+
+                long seq = pubSeq.next();
+                if (seq < 0) {
+                    vaf.aggregate(pRosti[workerId], keyAddress, valueAddress, valueAddressSize, workerId);
+                    ownCount++;
+                } else {
+                    final VectorAggregateEntry entry = entryPool.next();
+                    entry.of(queuedCount++, vaf, pRosti, keyAddress, valueAddress, valueAddressSize, doneLatch);
+                    activeEntries.add(entry);
+                    queue.get(seq).entry = entry;
+                    pubSeq.done(seq);
+                }
+                total++;
+            }
+        }
+
+        reclaimed = GroupByNotKeyedVectorRecordCursorFactory.getRunWhatsLeft(queuedCount, reclaimed, workerId, activeEntries, doneLatch, LOG);
+        cursor.releaseFrames();
+        final long pRosti0 = pRosti[0];
+
+        if (pRosti.length > 1) {
+            LOG.debug().$("merging").$();
+            for (int j = 0; j < vafCount; j++) {
+                final VectorAggregateFunction vaf = vafList.getQuick(j);
+                for (int i = 1, n = pRosti.length; i < n; i++) {
+                    vaf.merge(pRosti0, pRosti[i]);
+                }
+                vaf.wrapUp(pRosti0);
+            }
+        } else {
+            for (int j = 0; j < vafCount; j++) {
+                vafList.getQuick(j).wrapUp(pRosti0);
+            }
+        }
+
+        LOG.info().$("done [total=").$(total).$(", ownCount=").$(ownCount).$(", reclaimed=").$(reclaimed).$(", queuedCount=").$(queuedCount).$(", keys=").$(keyMap.size()).$(']').$();
+        return this.cursor.of(cursor);
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    private static long readKey(long address, int type, long row) {
+        switch (type) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+                return address != 0 ? Unsafe.getUnsafe().getByte(address + row) : 0;
+            case ColumnType.SHORT:
+                return address != 0 ? Unsafe.getUnsafe().getShort(address + (row << 1)) : 0;
+            case ColumnType.CHAR:
+                return address != 0 ? Unsafe.getUnsafe().getChar(address + (row << 1)) : 0;
+            case ColumnType.INT:
+            case ColumnType.SYMBOL:
+                return address != 0 ? Unsafe.getUnsafe().getInt(address + (row << 2)) : Numbers.INT_NaN;
+            default:
+                return address != 0 ? Unsafe.getUnsafe().getLong(address + (row << 3)) : Numbers.LONG_NaN;
+        }
+    }
+
+    private long encodeKeys(PageFrame frame, long rowCount, int bufferIndex) {
+        final long size = rowCount << ColumnType.pow2SizeOf(ColumnType.INT);
+        if (keyBufferSizes[bufferIndex] < size) {
+            if (keyBufferAddresses[bufferIndex] == 0) {
+                keyBufferAddresses[bufferIndex] = Unsafe.malloc(size);
+            } else {
+                keyBufferAddresses[bufferIndex] = Unsafe.realloc(keyBufferAddresses[bufferIndex], keyBufferSizes[bufferIndex], size);
+            }
+            keyBufferSizes[bufferIndex] = size;
+        }
+        final long keyBuffer = keyBufferAddresses[bufferIndex];
+
+        final int keyCount = keyColumnIndexes.size();
+        for (int k = 0; k < keyCount; k++) {
+            keyAddresses[k] = frame.getPageAddress(keyColumnIndexes.getQuick(k));
+        }
+
+        for (long r = 0; r < rowCount; r++) {
+            final MapKey key = keyMap.withKey();
+            for (int k = 0; k < keyCount; k++) {
+                final long value = readKey(keyAddresses[k], keyColumnTypes.getQuick(k), r);
+                keyScratch[k] = value;
+                key.putLong(value);
+            }
+
+            final MapValue value = key.createValue();
+            final int id;
+            if (value.isNew()) {
+                id = (int) keyMap.size() - 1;
+                value.putInt(0, id);
+                for (int k = 0; k < keyCount; k++) {
+                    keyValues.getQuick(k).add(keyScratch[k]);
+                }
+            } else {
+                id = value.getInt(0);
+            }
+            Unsafe.getUnsafe().putInt(keyBuffer + (r << 2), id);
+        }
+        return keyBuffer;
+    }
+
+    private long getRowCount(PageFrame frame) {
+        final int columnIndex = keyColumnIndexes.getQuick(0);
+        final long size = frame.getPageSize(columnIndex);
+        // page size of column top is the number of rows rather than bytes
+        return frame.getPageAddress(columnIndex) != 0 ? size >>> ColumnType.pow2SizeOf(keyColumnTypes.getQuick(0)) : size;
+    }
+
+    private class CompositeKeyRecordCursor implements RecordCursor {
+        private final CompositeKeyRecord record;
+        private final long pRosti;
+        private final IntList keyIndex;
+        private final IntList valueOffsets;
+        private final IntList symbolTableSkewIndex;
+        private CompositeKeyRecord recordB;
+        private long ctrlStart;
+        private long ctrl;
+        private long slots;
+        private long shift;
+        private long size;
+        private long count;
+        private PageFrameCursor parent;
+
+        public CompositeKeyRecordCursor(long pRosti, IntList keyIndex, IntList valueOffsets, IntList symbolTableSkewIndex) {
+            this.pRosti = pRosti;
+            this.keyIndex = keyIndex;
+            this.valueOffsets = valueOffsets;
+            this.symbolTableSkewIndex = symbolTableSkewIndex;
+            this.record = new CompositeKeyRecord();
+        }
+
+        @Override
+        public void close() {
+            Misc.free(parent);
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return parent.getSymbolMapReader(symbolTableSkewIndex.getQuick(columnIndex));
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (count < size) {
+                byte b = Unsafe.getUnsafe().getByte(ctrl);
+                if ((b & 0x80) != 0) {
+                    ctrl++;
+                    continue;
+                }
+                count++;
+                record.of(slots + ((ctrl - ctrlStart) << shift));
+                ctrl++;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Record getRecordB() {
+            if (recordB != null) {
+                return recordB;
+            }
+            return (recordB = new CompositeKeyRecord());
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            ((CompositeKeyRecord) record).of(atRowId);
+        }
+
+        @Override
+        public void toTop() {
+            this.ctrl = this.ctrlStart = Rosti.getCtrl(pRosti);
+            this.slots = Rosti.getSlots(pRosti);
+            this.size = Rosti.getSize(pRosti);
+            this.shift = Rosti.getSlotShift(pRosti);
+            this.count = 0;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        private CompositeKeyRecordCursor of(PageFrameCursor parent) {
+            this.parent = parent;
+            toTop();
+            return this;
+        }
+
+        private class CompositeKeyRecord implements Record {
+            private long pRow;
+
+            @Override
+            public boolean getBool(int col) {
+                return getKey(col) != 0;
+            }
+
+            @Override
+            public byte getByte(int col) {
+                return (byte) getKey(col);
+            }
+
+            @Override
+            public char getChar(int col) {
+                return (char) getKey(col);
+            }
+
+            @Override
+            public long getDate(int col) {
+                return getLong(col);
+            }
+
+            @Override
+            public double getDouble(int col) {
+                return Unsafe.getUnsafe().getDouble(pRow + valueOffsets.getQuick(col));
+            }
+
+            @Override
+            public int getInt(int col) {
+                if (keyIndex.getQuick(col) > -1) {
+                    return (int) getKey(col);
+                }
+                return Unsafe.getUnsafe().getInt(pRow + valueOffsets.getQuick(col));
+            }
+
+            @Override
+            public long getLong(int col) {
+                if (keyIndex.getQuick(col) > -1) {
+                    return getKey(col);
+                }
+                return Unsafe.getUnsafe().getLong(pRow + valueOffsets.getQuick(col));
+            }
+
+            @Override
+            public long getRowId() {
+                return pRow;
+            }
+
+            @Override
+            public short getShort(int col) {
+                return (short) getKey(col);
+            }
+
+            @Override
+            public CharSequence getSym(int col) {
+                return parent.getSymbolMapReader(symbolTableSkewIndex.getQuick(col)).valueOf(getInt(col));
+            }
+
+            @Override
+            public CharSequence getSymB(int col) {
+                return parent.getSymbolMapReader(symbolTableSkewIndex.getQuick(col)).valueBOf(getInt(col));
+            }
+
+            @Override
+            public long getTimestamp(int col) {
+                return getLong(col);
+            }
+
+            private long getKey(int col) {
+                // Rosti key is the id of composite key
+                return keyValues.getQuick(keyIndex.getQuick(col)).getQuick(Unsafe.getUnsafe().getInt(pRow));
+            }
+
+            private void of(long pRow) {
+                this.pRow = pRow;
+            }
+        }
+    }
+}
@@ -100,8 +100,14 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
             workerId = 0;
         }
 
+        // frames of compressed partitions pin decompressed blocks, about a frame per worker is kept in flight
+        final int retiredPageLimit = Math.max(1, executionContext.getWorkerCount()) * base.getMetadata().getColumnCount();
         PageFrame frame;
         while ((frame = cursor.next()) != null) {
+            if (cursor.getRetiredPageCount() > retiredPageLimit) {
+                reclaimed = getRunWhatsLeft(queuedCount, reclaimed, workerId, activeEntries, doneLatch, LOG);
+                cursor.releaseFrames();
+            }
             for (int i = 0; i < vafCount; i++) {
                 final VectorAggregateFunction vaf = vafList.getQuick(i);
                 final int columnIndex = vaf.getColumnIndex();
@@ -133,6 +139,7 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
 
         // start at the back to reduce chance of clashing
         reclaimed = getRunWhatsLeft(queuedCount, reclaimed, workerId, activeEntries, doneLatch, LOG);
+        cursor.releaseFrames();
 
         LOG.info().$("done [total=").$(total).$(", ownCount=").$(ownCount).$(", reclaimed=").$(reclaimed).$(", queuedCount=").$(queuedCount).$(']').$();
         return this.cursor.of(cursor);
@@ -196,8 +196,14 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
             workerId = 0;
         }
 
+        // frames of compressed partitions pin decompressed blocks, about a frame per worker is kept in flight
+        final int retiredPageLimit = Math.max(1, executionContext.getWorkerCount()) * base.getMetadata().getColumnCount();
         PageFrame frame;
         while ((frame = cursor.next()) != null) {
+            if (cursor.getRetiredPageCount() > retiredPageLimit) {
+                reclaimed = GroupByNotKeyedVectorRecordCursorFactory.getRunWhatsLeft(queuedCount, reclaimed, workerId, activeEntries, doneLatch, LOG);
+                cursor.releaseFrames();
+            }
             final long keyAddress = frame.getPageAddress(keyColumnIndex);
             for (int i = 0; i < vafCount; i++) {
                 final VectorAggregateFunction vaf = vafList.getQuick(i);
@@ -246,6 +252,7 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
 
         // start at the back to reduce chance of clashing
         reclaimed = GroupByNotKeyedVectorRecordCursorFactory.getRunWhatsLeft(queuedCount, reclaimed, workerId, activeEntries, doneLatch, LOG);
+        cursor.releaseFrames();
         long pRosti0 = pRosti[0];
 
         if (pRosti.length > 1) {
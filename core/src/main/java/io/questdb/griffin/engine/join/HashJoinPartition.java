@@ -0,0 +1,319 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordChain;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.vm.ContiguousMappedVirtualMemory;
+import io.questdb.cairo.vm.ContiguousVirtualMemory;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.AbstractLockable;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+
+import java.io.Closeable;
+
+/**
+ * Slice of hash join whose keys hash to the same partition. Owner thread stages keys of both
+ * sides into partition chains, after which the partition is processed by a single thread,
+ * so that its map is never shared. Staged record is key columns followed by two longs, row id
+ * for build side and master sequence and row id for grace probe side.
+ */
+public class HashJoinPartition extends AbstractLockable implements Closeable, Mutable {
+    static final int PHASE_BUILD = 0;
+    static final int PHASE_PROBE = 1;
+    static final int PHASE_GRACE = 2;
+    private static final ArrayColumnTypes VALUE_TYPES = new ArrayColumnTypes();
+    private static final ArrayColumnTypes RESULT_TYPES = new ArrayColumnTypes();
+    private final CairoConfiguration configuration;
+    private final ColumnTypes keyTypes;
+    private final ArrayColumnTypes chainTypes = new ArrayColumnTypes();
+    private final RecordSink chainKeySink;
+    private final int keyCount;
+    private final String spillDir;
+    private final long spillId;
+    private final int index;
+    private final RecordChain buildChain;
+    private final RecordChain probeChain;
+    private final LongChain slaveChain;
+    private final LongList probeHeads = new LongList();
+    private RecordChain graceProbeChain;
+    private RecordChain resultChain;
+    private Map map;
+    private long buildTail = -1;
+    private long probeTail = -1;
+    private long graceProbeTail = -1;
+    private long resultTail = -1;
+    private int probeHeadIndex;
+    private int phase;
+    private CountDownLatchSPI doneLatch;
+    private Throwable error;
+
+    HashJoinPartition(
+            CairoConfiguration configuration,
+            ColumnTypes keyTypes,
+            RecordSink chainKeySink,
+            String spillDir,
+            long spillId,
+            int index
+    ) {
+        this.configuration = configuration;
+        this.keyTypes = keyTypes;
+        this.chainKeySink = chainKeySink;
+        this.keyCount = keyTypes.getColumnCount();
+        this.spillDir = spillDir;
+        this.spillId = spillId;
+        this.index = index;
+        for (int i = 0; i < keyCount; i++) {
+            chainTypes.add(keyTypes.getColumnType(i));
+        }
+        chainTypes.add(ColumnType.LONG);
+        chainTypes.add(ColumnType.LONG);
+
+        final boolean spill = configuration.getSqlHashJoinMemoryBudget() > 0;
+        this.buildChain = spill ? createSpillChain(chainTypes, "build") : createChain(chainTypes);
+        this.probeChain = createChain(chainTypes);
+        this.slaveChain = new LongChain(configuration.getSqlHashJoinLightValuePageSize(), configuration.getSqlHashJoinLightValueMaxPages());
+    }
+
+    @Override
+    public void clear() {
+        buildChain.clear();
+        probeChain.clear();
+        slaveChain.clear();
+        probeHeads.clear();
+        if (graceProbeChain != null) {
+            graceProbeChain.clear();
+        }
+        if (resultChain != null) {
+            resultChain.clear();
+        }
+        buildTail = probeTail = graceProbeTail = resultTail = -1;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(buildChain);
+        Misc.free(probeChain);
+        Misc.free(slaveChain);
+        graceProbeChain = Misc.free(graceProbeChain);
+        resultChain = Misc.free(resultChain);
+        map = Misc.free(map);
+    }
+
+    public boolean run() {
+        if (tryLock()) {
+            try {
+                switch (phase) {
+                    case PHASE_BUILD:
+                        build();
+                        break;
+                    case PHASE_PROBE:
+                        probe();
+                        break;
+                    default:
+                        joinGrace();
+                        break;
+                }
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                doneLatch.countDown();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    long getBuildSize() {
+        return buildChain.getMemorySize();
+    }
+
+    Throwable getError() {
+        return error;
+    }
+
+    RecordChain getResultChain() {
+        return resultChain;
+    }
+
+    LongChain.TreeCursor getSlaveChainCursor(long head) {
+        return slaveChain.getCursor(head);
+    }
+
+    long nextProbeHead() {
+        return probeHeads.getQuick(probeHeadIndex++);
+    }
+
+    void of(int sequence, int phase, CountDownLatchSPI doneLatch) {
+        this.phase = phase;
+        this.doneLatch = doneLatch;
+        this.error = null;
+        // partition becomes available to workers only after its state is set up
+        of(sequence);
+    }
+
+    void putBuildRecord(Record record, RecordSink keySink, long rowId) {
+        buildTail = buildChain.beginRecord(buildTail);
+        keySink.copy(record, buildChain);
+        buildChain.putLong(rowId);
+    }
+
+    void putGraceProbeRecord(Record record, RecordSink keySink, long seq, long rowId) {
+        if (graceProbeChain == null) {
+            graceProbeChain = createSpillChain(chainTypes, "probe");
+        }
+        graceProbeTail = graceProbeChain.beginRecord(graceProbeTail);
+        keySink.copy(record, graceProbeChain);
+        graceProbeChain.putLong(seq);
+        graceProbeChain.putLong(rowId);
+    }
+
+    void putProbeRecord(Record record, RecordSink keySink) {
+        probeTail = probeChain.beginRecord(probeTail);
+        keySink.copy(record, probeChain);
+    }
+
+    void resetProbe() {
+        probeChain.clear();
+        probeTail = -1;
+        probeHeads.clear();
+        probeHeadIndex = 0;
+    }
+
+    private void build() {
+        if (map == null) {
+            map = MapFactory.createMap(configuration, keyTypes, VALUE_TYPES);
+        } else {
+            map.clear();
+        }
+        slaveChain.clear();
+
+        buildChain.toTop();
+        final Record record = buildChain.getRecord();
+        while (buildChain.hasNext()) {
+            final MapKey key = map.withKey();
+            key.put(record, chainKeySink);
+            final MapValue value = key.createValue();
+            final long rowId = record.getLong(keyCount);
+            if (value.isNew()) {
+                final long offset = slaveChain.put(rowId, -1);
+                value.putLong(0, offset);
+                value.putLong(1, offset);
+            } else {
+                value.putLong(1, slaveChain.put(rowId, value.getLong(1)));
+            }
+        }
+    }
+
+    private RecordChain createChain(ColumnTypes types) {
+        return new RecordChain(types, null, configuration.getSqlHashJoinValuePageSize(), configuration.getSqlHashJoinValueMaxPages());
+    }
+
+    private RecordChain createSpillChain(ColumnTypes types, String prefix) {
+        final ContiguousVirtualMemory mem = new ContiguousMappedVirtualMemory(
+                configuration.getFilesFacade(),
+                spillDir,
+                prefix + '-' + spillId + '-' + index + ".d",
+                configuration.getMkDirMode(),
+                configuration.getSqlHashJoinValuePageSize(),
+                configuration.getSqlHashJoinValueMaxPages()
+        );
+        return new RecordChain(types, null, mem);
+    }
+
+    private void joinGrace() {
+        if (resultChain == null) {
+            resultChain = createSpillChain(RESULT_TYPES, "result");
+        }
+        resultChain.clear();
+        resultTail = -1;
+
+        if (graceProbeChain != null && buildChain.getMemorySize() > 0) {
+            build();
+            graceProbeChain.toTop();
+            final Record record = graceProbeChain.getRecord();
+            while (graceProbeChain.hasNext()) {
+                final MapKey key = map.withKey();
+                key.put(record, chainKeySink);
+                final MapValue value = key.findValue();
+                if (value != null) {
+                    final long seq = record.getLong(keyCount);
+                    final long masterRowId = record.getLong(keyCount + 1);
+                    final LongChain.TreeCursor cursor = slaveChain.getCursor(value.getLong(0));
+                    while (cursor.hasNext()) {
+                        resultTail = resultChain.beginRecord(resultTail);
+                        resultChain.putLong(seq);
+                        resultChain.putLong(masterRowId);
+                        resultChain.putLong(cursor.next());
+                    }
+                }
+            }
+        }
+
+        // only results are needed from now on, release the rest
+        // for other partitions to use the memory
+        map = Misc.free(map);
+        slaveChain.close();
+        buildChain.clear();
+        buildTail = -1;
+        if (graceProbeChain != null) {
+            graceProbeChain.clear();
+            graceProbeTail = -1;
+        }
+    }
+
+    private void probe() {
+        probeChain.toTop();
+        final Record record = probeChain.getRecord();
+        while (probeChain.hasNext()) {
+            final MapKey key = map.withKey();
+            key.put(record, chainKeySink);
+            final MapValue value = key.findValue();
+            probeHeads.add(value != null ? value.getLong(0) : -1);
+        }
+    }
+
+    static {
+        // head and tail of slave row id chain
+        VALUE_TYPES.add(ColumnType.LONG);
+        VALUE_TYPES.add(ColumnType.LONG);
+        // master sequence, master row id and slave row id
+        RESULT_TYPES.add(ColumnType.LONG);
+        RESULT_TYPES.add(ColumnType.LONG);
+        RESULT_TYPES.add(ColumnType.LONG);
+    }
+}
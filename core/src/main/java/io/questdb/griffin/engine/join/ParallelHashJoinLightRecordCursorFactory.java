@@ -0,0 +1,515 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.tasks.HashJoinTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inner hash join that splits both sides into partitions by hash of join key. Owner thread
+ * stages keys of slave rows into partitions and workers build one map per partition
+ * concurrently. Master rows are then staged in batches and each partition probes its own
+ * map on a worker, which keeps maps single-threaded. Join output follows master order.
+ * <p>
+ * When staged slave keys exceed hash join memory budget, join switches to grace mode.
+ * Entire master is staged into temporary files alongside slave keys and partitions are
+ * joined independently, as many at a time as the budget allows. Results of each partition
+ * are in master order and are merged back into master order by the cursor.
+ */
+public class ParallelHashJoinLightRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final Log LOG = LogFactory.getLog(ParallelHashJoinLightRecordCursorFactory.class);
+    private static final AtomicLong SPILL_ID = new AtomicLong();
+    private final CairoConfiguration configuration;
+    private final RecordCursorFactory masterFactory;
+    private final RecordCursorFactory slaveFactory;
+    private final RecordSink masterKeySink;
+    private final RecordSink slaveKeySink;
+    private final ObjList<HashJoinPartition> partitions = new ObjList<>();
+    private final KeyHashSink hashSink = new KeyHashSink();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final ParallelHashJoinRecordCursor cursor;
+    private final int partitionMask;
+    private final long memoryBudget;
+
+    public ParallelHashJoinLightRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordMetadata metadata,
+            RecordCursorFactory masterFactory,
+            RecordCursorFactory slaveFactory,
+            @Transient @NotNull ColumnTypes joinColumnTypes,
+            @Transient @NotNull BytecodeAssembler asm,
+            RecordSink masterKeySink,
+            RecordSink slaveKeySink,
+            int columnSplit,
+            int workerCount
+    ) {
+        super(metadata);
+        this.configuration = configuration;
+        this.masterFactory = masterFactory;
+        this.slaveFactory = slaveFactory;
+        this.masterKeySink = masterKeySink;
+        this.slaveKeySink = slaveKeySink;
+        this.memoryBudget = configuration.getSqlHashJoinMemoryBudget();
+
+        // staged records start with key columns, partitions use this sink
+        // to copy them into their maps
+        final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
+        final ArrayColumnTypes chainTypes = new ArrayColumnTypes();
+        final ListColumnFilter keyFilter = new ListColumnFilter();
+        for (int i = 0, n = joinColumnTypes.getColumnCount(); i < n; i++) {
+            keyTypes.add(joinColumnTypes.getColumnType(i));
+            chainTypes.add(joinColumnTypes.getColumnType(i));
+            keyFilter.add(i + 1);
+        }
+        chainTypes.add(ColumnType.LONG);
+        chainTypes.add(ColumnType.LONG);
+        final RecordSink chainKeySink = RecordSinkFactory.getInstance(asm, chainTypes, keyFilter, false);
+
+        final int partitionCount = Numbers.ceilPow2(Math.max(2, workerCount));
+        this.partitionMask = partitionCount - 1;
+        final String spillDir = configuration.getRoot() + "/.join";
+        final long spillId = SPILL_ID.incrementAndGet();
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new HashJoinPartition(configuration, keyTypes, chainKeySink, spillDir, spillId, i));
+        }
+        this.cursor = new ParallelHashJoinRecordCursor(columnSplit);
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(partitions);
+        ((JoinRecordMetadata) getMetadata()).close();
+        masterFactory.close();
+        slaveFactory.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        RecordCursor slaveCursor = slaveFactory.getCursor(executionContext);
+        RecordCursor masterCursor = null;
+        try {
+            final boolean grace = stageSlave(slaveCursor, executionContext.getSqlExecutionInterruptor());
+            if (!grace) {
+                dispatch(executionContext.getMessageBus(), 0, partitions.size(), HashJoinPartition.PHASE_BUILD);
+            }
+            masterCursor = masterFactory.getCursor(executionContext);
+            cursor.of(masterCursor, slaveCursor, executionContext, grace);
+            return cursor;
+        } catch (Throwable e) {
+            Misc.free(masterCursor);
+            slaveCursor.close();
+            clearPartitions();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    private void clearPartitions() {
+        for (int i = 0, n = partitions.size(); i < n; i++) {
+            partitions.getQuick(i).clear();
+        }
+    }
+
+    private void dispatch(MessageBus messageBus, int lo, int hi, int phase) {
+        final RingQueue<HashJoinTask> queue = messageBus.getHashJoinQueue();
+        final Sequence pubSeq = messageBus.getHashJoinPubSeq();
+        final int taskCount = hi - lo;
+
+        doneLatch.reset();
+        for (int i = lo; i < hi; i++) {
+            final HashJoinPartition partition = partitions.getQuick(i);
+            partition.of(i, phase, doneLatch);
+
+            final long seq = pubSeq.next();
+            if (seq < 0) {
+                // queue is full, process partition ourselves
+                partition.run();
+            } else {
+                queue.get(seq).partition = partition;
+                pubSeq.done(seq);
+            }
+        }
+
+        // help workers with partitions they have not picked up yet
+        for (int i = hi - 1; i >= lo && doneLatch.getCount() > -taskCount; i--) {
+            partitions.getQuick(i).run();
+        }
+        doneLatch.await(taskCount);
+
+        for (int i = lo; i < hi; i++) {
+            final Throwable error = partitions.getQuick(i).getError();
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error != null) {
+                throw (Error) error;
+            }
+        }
+    }
+
+    private int partitionOf(Record record, RecordSink keySink) {
+        hashSink.reset();
+        keySink.copy(record, hashSink);
+        return hashSink.getPartition(partitionMask);
+    }
+
+    private boolean stageSlave(RecordCursor slaveCursor, SqlExecutionInterruptor interruptor) {
+        clearPartitions();
+        final Record record = slaveCursor.getRecord();
+        while (slaveCursor.hasNext()) {
+            interruptor.checkInterrupted();
+            partitions.getQuick(partitionOf(record, slaveKeySink)).putBuildRecord(record, slaveKeySink, record.getRowId());
+        }
+
+        if (memoryBudget > 0) {
+            long size = 0;
+            for (int i = 0, n = partitions.size(); i < n; i++) {
+                size += partitions.getQuick(i).getBuildSize();
+            }
+            return size > memoryBudget;
+        }
+        return false;
+    }
+
+    /**
+     * Hashes key values the same way for master and slave records. Key sinks of both sides
+     * write values of the same types in the same order, symbols are written as strings.
+     */
+    private static class KeyHashSink implements RecordSinkSPI {
+        private long hash;
+
+        @Override
+        public void putBin(BinarySequence value) {
+            if (value == null) {
+                putLong(-1);
+            } else {
+                final long len = value.length();
+                putLong(len);
+                for (long i = 0; i < len; i++) {
+                    putByte(value.byteAt(i));
+                }
+            }
+        }
+
+        @Override
+        public void putBool(boolean value) {
+            putLong(value ? 1 : 0);
+        }
+
+        @Override
+        public void putByte(byte value) {
+            putLong(value);
+        }
+
+        @Override
+        public void putDate(long value) {
+            putLong(value);
+        }
+
+        @Override
+        public void putDouble(double value) {
+            putLong(Double.doubleToRawLongBits(value));
+        }
+
+        @Override
+        public void putFloat(float value) {
+            putLong(Float.floatToRawIntBits(value));
+        }
+
+        @Override
+        public void putInt(int value) {
+            putLong(value);
+        }
+
+        @Override
+        public void putLong(long value) {
+            hash = hash * 31 + value;
+        }
+
+        @Override
+        public void putLong256(Long256 value) {
+            putLong(value.getLong0());
+            putLong(value.getLong1());
+            putLong(value.getLong2());
+            putLong(value.getLong3());
+        }
+
+        @Override
+        public void putShort(short value) {
+            putLong(value);
+        }
+
+        @Override
+        public void putChar(char value) {
+            putLong(value);
+        }
+
+        @Override
+        public void putStr(CharSequence value) {
+            putLong(value == null ? -1 : Chars.hashCode(value));
+        }
+
+        @Override
+        public void putStr(CharSequence value, int lo, int hi) {
+            putLong(Chars.hashCode(value, lo, hi));
+        }
+
+        @Override
+        public void putRecord(Record value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void putTimestamp(long value) {
+            putLong(value);
+        }
+
+        @Override
+        public void skip(int bytes) {
+        }
+
+        int getPartition(int mask) {
+            return (int) (Hash.hashLong64(hash) & mask);
+        }
+
+        void reset() {
+            hash = 0;
+        }
+    }
+
+    private class ParallelHashJoinRecordCursor implements NoRandomAccessRecordCursor {
+        private final JoinRecord record;
+        private final int columnSplit;
+        private final LongList batchRowIds = new LongList();
+        private final IntList batchPartitions = new IntList();
+        private final IntList activeResults = new IntList();
+        private RecordCursor masterCursor;
+        private RecordCursor slaveCursor;
+        private Record masterRecord;
+        private Record masterRecordB;
+        private Record slaveRecord;
+        private SqlExecutionContext executionContext;
+        private LongChain.TreeCursor slaveChainCursor;
+        private int batchIndex;
+        private boolean grace;
+
+        public ParallelHashJoinRecordCursor(int columnSplit) {
+            this.record = new JoinRecord(columnSplit);
+            this.columnSplit = columnSplit;
+        }
+
+        @Override
+        public void close() {
+            masterCursor = Misc.free(masterCursor);
+            slaveCursor = Misc.free(slaveCursor);
+            clearPartitions();
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            if (columnIndex < columnSplit) {
+                return masterCursor.getSymbolTable(columnIndex);
+            }
+            return slaveCursor.getSymbolTable(columnIndex - columnSplit);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return grace ? nextGraceResult() : nextProbeResult();
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            if (grace) {
+                startGraceResults();
+            } else {
+                masterCursor.toTop();
+                batchRowIds.clear();
+                batchPartitions.clear();
+                batchIndex = 0;
+                slaveChainCursor = null;
+            }
+        }
+
+        private boolean nextGraceResult() {
+            final int n = activeResults.size();
+            if (n == 0) {
+                return false;
+            }
+
+            // partition results are in master order, pick the earliest master row
+            int best = 0;
+            Record bestRecord = partitions.getQuick(activeResults.getQuick(0)).getResultChain().getRecord();
+            for (int i = 1; i < n; i++) {
+                final Record r = partitions.getQuick(activeResults.getQuick(i)).getResultChain().getRecord();
+                if (r.getLong(0) < bestRecord.getLong(0)) {
+                    best = i;
+                    bestRecord = r;
+                }
+            }
+
+            masterCursor.recordAt(masterRecordB, bestRecord.getLong(1));
+            slaveCursor.recordAt(slaveRecord, bestRecord.getLong(2));
+            if (!partitions.getQuick(activeResults.getQuick(best)).getResultChain().hasNext()) {
+                activeResults.removeIndex(best);
+            }
+            return true;
+        }
+
+        private boolean nextProbeResult() {
+            if (slaveChainCursor != null && slaveChainCursor.hasNext()) {
+                slaveCursor.recordAt(slaveRecord, slaveChainCursor.next());
+                return true;
+            }
+
+            while (true) {
+                while (batchIndex < batchRowIds.size()) {
+                    final HashJoinPartition partition = partitions.getQuick(batchPartitions.getQuick(batchIndex));
+                    final long rowId = batchRowIds.getQuick(batchIndex++);
+                    final long head = partition.nextProbeHead();
+                    if (head != -1) {
+                        masterCursor.recordAt(masterRecordB, rowId);
+                        slaveChainCursor = partition.getSlaveChainCursor(head);
+                        // we know cursor has values
+                        // advance to get first value
+                        slaveChainCursor.hasNext();
+                        slaveCursor.recordAt(slaveRecord, slaveChainCursor.next());
+                        return true;
+                    }
+                }
+
+                if (!probeNextBatch()) {
+                    return false;
+                }
+            }
+        }
+
+        private boolean probeNextBatch() {
+            final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
+            final long batchRows = configuration.getSqlParallelHashJoinBatchRows();
+            for (int i = 0, n = partitions.size(); i < n; i++) {
+                partitions.getQuick(i).resetProbe();
+            }
+            batchRowIds.clear();
+            batchPartitions.clear();
+            batchIndex = 0;
+            slaveChainCursor = null;
+
+            while (batchRowIds.size() < batchRows && masterCursor.hasNext()) {
+                interruptor.checkInterrupted();
+                final int partitionIndex = partitionOf(masterRecord, masterKeySink);
+                partitions.getQuick(partitionIndex).putProbeRecord(masterRecord, masterKeySink);
+                batchPartitions.add(partitionIndex);
+                batchRowIds.add(masterRecord.getRowId());
+            }
+
+            if (batchRowIds.size() == 0) {
+                return false;
+            }
+            dispatch(executionContext.getMessageBus(), 0, partitions.size(), HashJoinPartition.PHASE_PROBE);
+            return true;
+        }
+
+        private void joinGrace() {
+            final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
+            long seq = 0;
+            while (masterCursor.hasNext()) {
+                interruptor.checkInterrupted();
+                partitions.getQuick(partitionOf(masterRecord, masterKeySink)).putGraceProbeRecord(masterRecord, masterKeySink, seq++, masterRecord.getRowId());
+            }
+
+            // join as many partitions at a time as memory budget allows, map size
+            // follows the size of staged keys
+            long maxBuildSize = 1;
+            final int n = partitions.size();
+            for (int i = 0; i < n; i++) {
+                maxBuildSize = Math.max(maxBuildSize, partitions.getQuick(i).getBuildSize());
+            }
+            final int step = (int) Math.max(1, Math.min(n, memoryBudget / maxBuildSize));
+            for (int lo = 0; lo < n; lo += step) {
+                dispatch(executionContext.getMessageBus(), lo, Math.min(n, lo + step), HashJoinPartition.PHASE_GRACE);
+            }
+            LOG.info().$("grace hash join [partitions=").$(n).$(", rows=").$(seq).$(", step=").$(step).$(']').$();
+            startGraceResults();
+        }
+
+        private void startGraceResults() {
+            activeResults.clear();
+            for (int i = 0, n = partitions.size(); i < n; i++) {
+                final RecordChain results = partitions.getQuick(i).getResultChain();
+                results.toTop();
+                if (results.hasNext()) {
+                    activeResults.add(i);
+                }
+            }
+        }
+
+        void of(RecordCursor masterCursor, RecordCursor slaveCursor, SqlExecutionContext executionContext, boolean grace) {
+            this.masterCursor = masterCursor;
+            this.slaveCursor = slaveCursor;
+            this.executionContext = executionContext;
+            this.grace = grace;
+            this.masterRecord = masterCursor.getRecord();
+            this.masterRecordB = masterCursor.getRecordB();
+            this.slaveRecord = slaveCursor.getRecordB();
+            record.of(masterRecordB, slaveRecord);
+            batchRowIds.clear();
+            batchPartitions.clear();
+            batchIndex = 0;
+            slaveChainCursor = null;
+            if (grace) {
+                joinGrace();
+            }
+        }
+    }
+}
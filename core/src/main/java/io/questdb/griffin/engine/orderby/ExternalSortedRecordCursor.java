@@ -0,0 +1,302 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordChain;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.sql.DelegatingRecordCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.cairo.vm.ContiguousMappedVirtualMemory;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.StringSink;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sorts base cursor in memory until the tree chain outgrows memory budget. Every time budget is exceeded
+ * sorted content of the tree is written out to a run backed by temporary file and the tree is cleared.
+ * Runs are then merged into single file-backed chain, which is what this cursor iterates. When all rows
+ * fit the budget no files are created and cursor behaves exactly like {@link SortedRecordCursor}.
+ * <p>
+ * Value page limit applies to the in-memory tree chain only, file-backed chains are bounded by disk space.
+ */
+class ExternalSortedRecordCursor implements DelegatingRecordCursor {
+    private static final AtomicLong SORT_ID = new AtomicLong();
+    private final RecordTreeChain chain;
+    private final RecordComparator comparator;
+    private final ColumnTypes columnTypes;
+    private final RecordSink recordSink;
+    private final FilesFacade ff;
+    private final String dir;
+    private final int mkDirMode;
+    private final long pageSize;
+    private final long runPageSize;
+    private final long memoryBudget;
+    private final long sortId = SORT_ID.incrementAndGet();
+    private final ObjList<RecordChain> runs = new ObjList<>();
+    private final IntList activeRuns = new IntList();
+    private final StringSink fileNameSink = new StringSink();
+    private RecordChain sorted;
+    private RecordTreeChain.TreeCursor chainCursor;
+    private RecordCursor base;
+    private int runCount;
+    private boolean merged;
+    private long rowCount;
+
+    public ExternalSortedRecordCursor(
+            CairoConfiguration configuration,
+            RecordTreeChain chain,
+            ColumnTypes columnTypes,
+            RecordSink recordSink,
+            RecordComparator comparator
+    ) {
+        this.chain = chain;
+        this.comparator = comparator;
+        this.columnTypes = columnTypes;
+        this.recordSink = recordSink;
+        this.ff = configuration.getFilesFacade();
+        this.dir = configuration.getRoot() + "/.sort";
+        this.mkDirMode = configuration.getMkDirMode();
+        this.pageSize = configuration.getSqlSortValuePageSize();
+        this.memoryBudget = configuration.getSqlSortMemoryBudget();
+        // runs are roughly the size of memory budget, there is no need to extend their files by entire value page
+        this.runPageSize = Math.max(ff.getPageSize(), Math.min(pageSize, memoryBudget));
+    }
+
+    @Override
+    public void close() {
+        Misc.free(base);
+        base = null;
+        chain.clear();
+        clearRuns();
+        if (sorted != null) {
+            sorted.clear();
+        }
+    }
+
+    @Override
+    public Record getRecord() {
+        return merged ? sorted.getRecord() : chainCursor.getRecord();
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return merged ? sorted.hasNext() : chainCursor.hasNext();
+    }
+
+    @Override
+    public Record getRecordB() {
+        return merged ? sorted.getRecordB() : chainCursor.getRecordB();
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        if (merged) {
+            sorted.recordAt(record, atRowId);
+        } else {
+            chainCursor.recordAt(record, atRowId);
+        }
+    }
+
+    @Override
+    public void toTop() {
+        if (merged) {
+            sorted.toTop();
+        } else {
+            chainCursor.toTop();
+        }
+    }
+
+    @Override
+    public long size() {
+        return rowCount;
+    }
+
+    @Override
+    public void of(RecordCursor base, SqlExecutionContext executionContext) {
+        try {
+            this.base = base;
+            this.chainCursor = chain.getCursor(base);
+            this.merged = false;
+            this.rowCount = 0;
+            final Record record = base.getRecord();
+            final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
+
+            chain.clear();
+            clearRuns();
+            while (base.hasNext()) {
+                interruptor.checkInterrupted();
+                chain.put(record);
+                rowCount++;
+                if (chain.getMemorySize() >= memoryBudget) {
+                    spill();
+                }
+            }
+
+            if (runCount > 0) {
+                spill();
+                merge(interruptor);
+                merged = true;
+                sorted.toTop();
+            } else {
+                chainCursor.toTop();
+            }
+        } catch (Throwable ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    private void clearRuns() {
+        for (int i = 0; i < runCount; i++) {
+            runs.getQuick(i).clear();
+        }
+        runCount = 0;
+    }
+
+    private RecordChain createFileChain(CharSequence prefix, int index, long pageSize) {
+        fileNameSink.clear();
+        fileNameSink.put(prefix).put('-').put(sortId).put('-').put(index).put(".d");
+        RecordChain chain = new RecordChain(
+                columnTypes,
+                recordSink,
+                new ContiguousMappedVirtualMemory(ff, dir, fileNameSink.toString(), mkDirMode, pageSize, Integer.MAX_VALUE)
+        );
+        chain.setSymbolTableResolver(base);
+        return chain;
+    }
+
+    private void merge(SqlExecutionInterruptor interruptor) {
+        if (sorted == null) {
+            sorted = createFileChain("sorted", 0, pageSize);
+        }
+        sorted.setSymbolTableResolver(base);
+        sorted.clear();
+
+        // active runs are binary min-heap of run indexes ordered by their current records
+        activeRuns.clear();
+        for (int i = 0; i < runCount; i++) {
+            RecordChain run = runs.getQuick(i);
+            run.toTop();
+            if (run.hasNext()) {
+                activeRuns.add(i);
+            }
+        }
+        for (int i = activeRuns.size() / 2 - 1; i > -1; i--) {
+            siftDown(i);
+        }
+
+        long prev = -1L;
+        while (activeRuns.size() > 0) {
+            interruptor.checkInterrupted();
+            final RecordChain run = runs.getQuick(activeRuns.getQuick(0));
+            prev = sorted.put(run.getRecord(), prev);
+            if (!run.hasNext()) {
+                final int last = activeRuns.size() - 1;
+                activeRuns.setQuick(0, activeRuns.getQuick(last));
+                activeRuns.setPos(last);
+            }
+            siftDown(0);
+        }
+        clearRuns();
+    }
+
+    private boolean precedes(int runA, int runB) {
+        comparator.setLeft(runs.getQuick(runA).getRecord());
+        final int cmp = comparator.compare(runs.getQuick(runB).getRecord());
+        // runs are in spill order, ties go to the earlier run to keep sort stable
+        return cmp < 0 || (cmp == 0 && runA < runB);
+    }
+
+    private void siftDown(int pos) {
+        final int n = activeRuns.size();
+        if (pos >= n) {
+            return;
+        }
+        final int run = activeRuns.getQuick(pos);
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= n) {
+                break;
+            }
+            int childRun = activeRuns.getQuick(child);
+            if (child + 1 < n) {
+                final int rightRun = activeRuns.getQuick(child + 1);
+                if (precedes(rightRun, childRun)) {
+                    child++;
+                    childRun = rightRun;
+                }
+            }
+            if (!precedes(childRun, run)) {
+                break;
+            }
+            activeRuns.setQuick(pos, childRun);
+            pos = child;
+        }
+        activeRuns.setQuick(pos, run);
+    }
+
+    private void spill() {
+        final RecordChain run;
+        if (runCount < runs.size()) {
+            run = runs.getQuick(runCount);
+            run.setSymbolTableResolver(base);
+        } else {
+            run = createFileChain("run", runCount, runPageSize);
+            runs.add(run);
+        }
+        runCount++;
+
+        final RecordTreeChain.TreeCursor cursor = chain.getCursor(base);
+        final Record record = cursor.getRecord();
+        long prev = -1L;
+        while (cursor.hasNext()) {
+            prev = run.put(record, prev);
+        }
+        chain.clear();
+    }
+
+    void free() {
+        Misc.freeObjList(runs);
+        runs.clear();
+        sorted = Misc.free(sorted);
+    }
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.sql.DelegatingRecordCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.std.DirectLongList;
+
+class LimitedSizeSortedLightRecordCursor implements DelegatingRecordCursor {
+    private final DirectLongList rows;
+    private final RecordComparator comparator;
+    private final long limit;
+    private RecordCursor base;
+    private Record baseRecord;
+    private long index;
+
+    public LimitedSizeSortedLightRecordCursor(DirectLongList rows, RecordComparator comparator, long limit) {
+        this.rows = rows;
+        this.comparator = comparator;
+        this.limit = limit;
+    }
+
+    @Override
+    public void close() {
+        rows.clear();
+        base.close();
+    }
+
+    @Override
+    public long size() {
+        return rows.size();
+    }
+
+    @Override
+    public Record getRecord() {
+        return baseRecord;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (index < rows.size()) {
+            base.recordAt(baseRecord, rows.get(index++));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return base.getRecordB();
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        base.recordAt(record, atRowId);
+    }
+
+    @Override
+    public void toTop() {
+        index = 0;
+    }
+
+    @Override
+    public void of(RecordCursor base, SqlExecutionContext executionContext) {
+        this.base = base;
+        this.baseRecord = base.getRecord();
+        final Record placeHolderRecord = base.getRecordB();
+        final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
+
+        rows.clear();
+        if (limit > 0) {
+            while (base.hasNext()) {
+                interruptor.checkInterrupted();
+                comparator.setLeft(baseRecord);
+                put(placeHolderRecord);
+            }
+        }
+        toTop();
+    }
+
+    // Rows are kept in sort order. Row that compares equal to rows already in the list goes
+    // in front of them, which is the order LongTreeChain returns rows with equal keys.
+    private void put(Record placeHolderRecord) {
+        final long size = rows.size();
+        if (size == limit) {
+            base.recordAt(placeHolderRecord, rows.get(size - 1));
+            if (comparator.compare(placeHolderRecord) > 0) {
+                return;
+            }
+            rows.setPos(size - 1);
+        }
+
+        long lo = 0;
+        long hi = rows.size();
+        while (lo < hi) {
+            final long mid = (lo + hi) >>> 1;
+            base.recordAt(placeHolderRecord, rows.get(mid));
+            if (comparator.compare(placeHolderRecord) > 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        rows.insert(lo, baseRecord.getRowId());
+    }
+}
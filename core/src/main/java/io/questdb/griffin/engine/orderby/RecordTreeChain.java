@@ -157,6 +157,10 @@ public class RecordTreeChain implements Closeable, Mutable {
         Misc.free(mem);
     }
 
+    public long getMemorySize() {
+        return mem.size() + recordChain.getMemorySize();
+    }
+
     public TreeCursor getCursor(RecordCursor base) {
         cursor.of(base);
         return cursor;
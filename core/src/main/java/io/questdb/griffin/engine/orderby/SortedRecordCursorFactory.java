@@ -28,6 +28,7 @@ import io.questdb.cairo.AbstractRecordCursorFactory;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ColumnTypes;
 import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.sql.DelegatingRecordCursor;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
@@ -37,7 +38,7 @@ import io.questdb.griffin.engine.RecordComparator;
 public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
     private final RecordCursorFactory base;
     private final RecordTreeChain chain;
-    private final SortedRecordCursor cursor;
+    private final DelegatingRecordCursor cursor;
 
     public SortedRecordCursorFactory(
             CairoConfiguration configuration,
@@ -58,13 +59,20 @@ public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
                 configuration.getSqlSortValueMaxPages()
         );
         this.base = base;
-        this.cursor = new SortedRecordCursor(chain);
+        if (configuration.getSqlSortMemoryBudget() > 0) {
+            this.cursor = new ExternalSortedRecordCursor(configuration, chain, columnTypes, recordSink, comparator);
+        } else {
+            this.cursor = new SortedRecordCursor(chain);
+        }
     }
 
     @Override
     public void close() {
         base.close();
         chain.close();
+        if (cursor instanceof ExternalSortedRecordCursor) {
+            ((ExternalSortedRecordCursor) cursor).free();
+        }
     }
 
     @Override
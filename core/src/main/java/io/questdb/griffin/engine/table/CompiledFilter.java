@@ -0,0 +1,661 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.vm.CompressedColumnMemory;
+import io.questdb.cairo.vm.ReadOnlyVirtualMemory;
+import io.questdb.std.*;
+import io.questdb.std.ThreadLocal;
+
+/**
+ * Filter program produced by {@link io.questdb.griffin.FilterCompiler}. Program is a list
+ * of stack machine instructions, each of which operates on a batch of rows at a time rather
+ * than on a single record. Column values are read directly from partition memory, which
+ * removes virtual function calls from the inner loop of the scan.
+ */
+public class CompiledFilter {
+    public static final int BATCH_SIZE = 1024;
+
+    // load column value, operand is index of column in the column list
+    public static final int OP_LOAD_BYTE = 1;
+    public static final int OP_LOAD_SHORT = 2;
+    public static final int OP_LOAD_INT = 3;
+    public static final int OP_LOAD_LONG = 4;
+    public static final int OP_LOAD_FLOAT = 5;
+    public static final int OP_LOAD_DOUBLE = 6;
+    // load constant, operand is index of constant
+    public static final int OP_CONST_LONG = 7;
+    public static final int OP_CONST_DOUBLE = 8;
+    public static final int OP_CONST_SYMBOL = 9;
+    // null-aware conversions
+    public static final int OP_INT_TO_LONG = 10;
+    public static final int OP_INT_TO_DOUBLE = 11;
+    public static final int OP_LONG_TO_DOUBLE = 12;
+    // arithmetic
+    public static final int OP_ADD_INT = 13;
+    public static final int OP_SUB_INT = 14;
+    public static final int OP_MUL_INT = 15;
+    public static final int OP_ADD_LONG = 16;
+    public static final int OP_SUB_LONG = 17;
+    public static final int OP_MUL_LONG = 18;
+    public static final int OP_DIV_LONG = 19;
+    public static final int OP_ADD_DOUBLE = 20;
+    public static final int OP_SUB_DOUBLE = 21;
+    public static final int OP_MUL_DOUBLE = 22;
+    public static final int OP_DIV_DOUBLE = 23;
+    // comparison
+    public static final int OP_EQ_LONG = 24;
+    public static final int OP_LT_LONG = 25;
+    public static final int OP_LE_LONG = 26;
+    public static final int OP_EQ_DOUBLE = 27;
+    public static final int OP_LT_DOUBLE = 28;
+    public static final int OP_LE_DOUBLE = 29;
+    public static final int OP_IS_NULL_INT = 30;
+    public static final int OP_IS_NULL_LONG = 31;
+    public static final int OP_IS_NULL_DOUBLE = 32;
+    // logic
+    public static final int OP_AND = 33;
+    public static final int OP_OR = 34;
+    public static final int OP_NOT = 35;
+
+    private final IntList code = new IntList();
+    private final LongList constants = new LongList();
+    private final IntList columnIndexes = new IntList();
+    private final IntList columnTypes = new IntList();
+    private final ObjList<CharSequence> symbolValues = new ObjList<>();
+    private final IntList symbolColumnIndexes = new IntList();
+    private final IntList symbolKeys = new IntList();
+    private final LongList columnAddresses = new LongList();
+    private final LongList columnTops = new LongList();
+    // columns of compressed partitions are split into pages of 2^shift rows, shift is 0 for contiguous columns
+    private final IntList columnPageRowShifts = new IntList();
+    private final IntList columnPageOffsets = new IntList();
+    private final LongList pageAddresses = new LongList();
+    // compressed columns of the partition that is being filtered, their pages are released with the next partition
+    private final ObjList<CompressedColumnMemory> pinnedColumns = new ObjList<>();
+    // evaluation stack is per thread, the same program can filter several slices of a frame concurrently
+    private final ThreadLocal<EvaluationStack> tlStack = new ThreadLocal<>(this::newStack);
+    private TableReader reader;
+
+    public int addColumn(int columnIndex, int columnType) {
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            if (columnIndexes.getQuick(i) == columnIndex) {
+                return i;
+            }
+        }
+        columnIndexes.add(columnIndex);
+        columnTypes.add(columnType);
+        return columnIndexes.size() - 1;
+    }
+
+    public int addConstant(long value) {
+        constants.add(value);
+        return constants.size() - 1;
+    }
+
+    public int addConstant(double value) {
+        constants.add(Double.doubleToRawLongBits(value));
+        return constants.size() - 1;
+    }
+
+    public int addSymbolConstant(int columnIndex, CharSequence value) {
+        symbolColumnIndexes.add(columnIndex);
+        symbolValues.add(value);
+        return symbolValues.size() - 1;
+    }
+
+    public void emit(int opcode) {
+        code.add(opcode);
+    }
+
+    public void emit(int opcode, int operand) {
+        code.add(opcode);
+        code.add(operand);
+    }
+
+    /**
+     * Evaluates filter for rows of current partition and stores indexes of matching rows
+     * in the supplied buffer.
+     *
+     * @param rowLo first row of the batch, inclusive
+     * @param count number of rows in the batch, must not exceed {@link #BATCH_SIZE}
+     * @param rows  buffer to receive matching row indexes
+     * @return number of matching rows
+     */
+    public int filter(long rowLo, int count, long[] rows) {
+        final EvaluationStack stack = tlStack.get();
+        final long[][] longStack = stack.longStack;
+        final double[][] doubleStack = stack.doubleStack;
+        int sp = 0;
+        for (int pc = 0, n = code.size(); pc < n; pc++) {
+            switch (code.getQuick(pc)) {
+                case OP_LOAD_BYTE:
+                case OP_LOAD_SHORT:
+                case OP_LOAD_INT:
+                case OP_LOAD_LONG:
+                    loadLong(longStack[sp++], code.getQuick(++pc), rowLo, count);
+                    break;
+                case OP_LOAD_FLOAT:
+                case OP_LOAD_DOUBLE:
+                    loadDouble(doubleStack[sp++], code.getQuick(++pc), rowLo, count);
+                    break;
+                case OP_CONST_LONG:
+                    fill(longStack[sp++], constants.getQuick(code.getQuick(++pc)), count);
+                    break;
+                case OP_CONST_DOUBLE:
+                    fill(doubleStack[sp++], Double.longBitsToDouble(constants.getQuick(code.getQuick(++pc))), count);
+                    break;
+                case OP_CONST_SYMBOL:
+                    fill(longStack[sp++], symbolKeys.getQuick(code.getQuick(++pc)), count);
+                    break;
+                case OP_INT_TO_LONG:
+                    intToLong(longStack[sp - 1], count);
+                    break;
+                case OP_INT_TO_DOUBLE:
+                    intToDouble(longStack[sp - 1], doubleStack[sp - 1], count);
+                    break;
+                case OP_LONG_TO_DOUBLE:
+                    longToDouble(longStack[sp - 1], doubleStack[sp - 1], count);
+                    break;
+                case OP_ADD_INT:
+                    addInt(longStack[sp - 2], longStack[--sp], count);
+                    break;
+                case OP_SUB_INT:
+                    subInt(longStack[sp - 2], longStack[--sp], count);
+                    break;
+                case OP_MUL_INT:
+                    mulInt(longStack[sp - 2], longStack[--sp], count);
+                    break;
+                case OP_ADD_LONG:
+                    addLong(longStack[sp - 2], longStack[--sp], count);
+                    break;
+                case OP_SUB_LONG:
+                    subLong(longStack[sp - 2], longStack[--sp], count);
+                    break;
+                case OP_MUL_LONG:
+                    mulLong(longStack[sp - 2], longStack[--sp], count);
+                    break;
+                case OP_DIV_LONG:
+                    divLong(longStack[sp - 2], longStack[--sp], count);
+                    break;
+                case OP_ADD_DOUBLE:
+                    addDouble(doubleStack[sp - 2], doubleStack[--sp], count);
+                    break;
+                case OP_SUB_DOUBLE:
+                    subDouble(doubleStack[sp - 2], doubleStack[--sp], count);
+                    break;
+                case OP_MUL_DOUBLE:
+                    mulDouble(doubleStack[sp - 2], doubleStack[--sp], count);
+                    break;
+                case OP_DIV_DOUBLE:
+                    divDouble(doubleStack[sp - 2], doubleStack[--sp], count);
+                    break;
+                case OP_EQ_LONG:
+                    eqLong(longStack[sp - 2], longStack[--sp], count);
+                    break;
+                case OP_LT_LONG:
+                    ltLong(longStack[sp - 2], longStack[--sp], count);
+                    break;
+                case OP_LE_LONG:
+                    leLong(longStack[sp - 2], longStack[--sp], count);
+                    break;
+                case OP_EQ_DOUBLE:
+                    sp--;
+                    eqDouble(doubleStack[sp - 1], doubleStack[sp], longStack[sp - 1], count);
+                    break;
+                case OP_LT_DOUBLE:
+                    sp--;
+                    ltDouble(doubleStack[sp - 1], doubleStack[sp], longStack[sp - 1], count);
+                    break;
+                case OP_LE_DOUBLE:
+                    sp--;
+                    leDouble(doubleStack[sp - 1], doubleStack[sp], longStack[sp - 1], count);
+                    break;
+                case OP_IS_NULL_INT:
+                    isNull(longStack[sp - 1], Numbers.INT_NaN, count);
+                    break;
+                case OP_IS_NULL_LONG:
+                    isNull(longStack[sp - 1], Numbers.LONG_NaN, count);
+                    break;
+                case OP_IS_NULL_DOUBLE:
+                    isNaN(doubleStack[sp - 1], longStack[sp - 1], count);
+                    break;
+                case OP_AND:
+                    and(longStack[sp - 2], longStack[--sp], count);
+                    break;
+                case OP_OR:
+                    or(longStack[sp - 2], longStack[--sp], count);
+                    break;
+                case OP_NOT:
+                    not(longStack[sp - 1], count);
+                    break;
+                default:
+                    assert false;
+                    break;
+            }
+        }
+
+        assert sp == 1;
+        final long[] result = longStack[0];
+        int matched = 0;
+        for (int i = 0; i < count; i++) {
+            if (result[i] != 0) {
+                rows[matched++] = rowLo + i;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Resolves symbol constants. Must be called once per cursor before frames are filtered.
+     *
+     * @param reader table reader that cursor is using
+     */
+    public void of(TableReader reader) {
+        this.reader = reader;
+        pinnedColumns.clear();
+        symbolKeys.clear();
+        for (int i = 0, n = symbolValues.size(); i < n; i++) {
+            symbolKeys.add(reader.getSymbolMapReader(symbolColumnIndexes.getQuick(i)).keyOf(symbolValues.getQuick(i)));
+        }
+    }
+
+    /**
+     * Sets up column addresses for the partition that is about to be filtered.
+     *
+     * @param partitionIndex index of partition in table reader
+     */
+    public void ofPartition(int partitionIndex) {
+        releasePages();
+        final int base = reader.getColumnBase(partitionIndex);
+        columnAddresses.clear();
+        columnTops.clear();
+        columnPageRowShifts.clear();
+        columnPageOffsets.clear();
+        pageAddresses.clear();
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            final int columnIndex = columnIndexes.getQuick(i);
+            final ReadOnlyVirtualMemory mem = reader.getColumn(TableReader.getPrimaryColumnIndex(base, columnIndex));
+            final int pageCount = mem.getPageCount();
+            columnAddresses.add(pageCount > 0 ? mem.getPageAddress(0) : 0);
+            columnTops.add(reader.getColumnTop(base, columnIndex));
+            columnPageOffsets.add(pageAddresses.size());
+            if (pageCount > 1) {
+                // slices of the partition are filtered concurrently, pages are mapped up front
+                columnPageRowShifts.add(Numbers.msb(mem.getPageSize(0) >> 3));
+                for (int page = 0; page < pageCount; page++) {
+                    pageAddresses.add(mem.getPageAddress(page));
+                }
+            } else {
+                columnPageRowShifts.add(0);
+            }
+            if (mem instanceof CompressedColumnMemory) {
+                pinnedColumns.add((CompressedColumnMemory) mem);
+            }
+        }
+    }
+
+    private void releasePages() {
+        for (int i = 0, n = pinnedColumns.size(); i < n; i++) {
+            final CompressedColumnMemory mem = pinnedColumns.getQuick(i);
+            for (int page = 0, pageCount = mem.getPageCount(); page < pageCount; page++) {
+                mem.releasePage(page);
+            }
+        }
+        pinnedColumns.clear();
+    }
+
+    private static void addDouble(double[] l, double[] r, int count) {
+        for (int i = 0; i < count; i++) {
+            l[i] = l[i] + r[i];
+        }
+    }
+
+    private static void addInt(long[] l, long[] r, int count) {
+        for (int i = 0; i < count; i++) {
+            final long a = l[i];
+            final long b = r[i];
+            l[i] = a == Numbers.INT_NaN || b == Numbers.INT_NaN ? Numbers.INT_NaN : (int) (a + b);
+        }
+    }
+
+    private static void addLong(long[] l, long[] r, int count) {
+        for (int i = 0; i < count; i++) {
+            final long a = l[i];
+            final long b = r[i];
+            l[i] = a == Numbers.LONG_NaN || b == Numbers.LONG_NaN ? Numbers.LONG_NaN : a + b;
+        }
+    }
+
+    private static void and(long[] l, long[] r, int count) {
+        for (int i = 0; i < count; i++) {
+            l[i] = l[i] & r[i];
+        }
+    }
+
+    private static void divDouble(double[] l, double[] r, int count) {
+        for (int i = 0; i < count; i++) {
+            l[i] = l[i] / r[i];
+        }
+    }
+
+    private static void divLong(long[] l, long[] r, int count) {
+        for (int i = 0; i < count; i++) {
+            final long a = l[i];
+            final long b = r[i];
+            l[i] = a == Numbers.LONG_NaN || b == Numbers.LONG_NaN || b == 0 ? Numbers.LONG_NaN : a / b;
+        }
+    }
+
+    private static void eqDouble(double[] l, double[] r, long[] result, int count) {
+        for (int i = 0; i < count; i++) {
+            final double a = l[i];
+            final double b = r[i];
+            result[i] = a != a && b != b || Math.abs(a - b) < 0.0000000001 ? 1 : 0;
+        }
+    }
+
+    private static void eqLong(long[] l, long[] r, int count) {
+        for (int i = 0; i < count; i++) {
+            l[i] = l[i] == r[i] ? 1 : 0;
+        }
+    }
+
+    private static void fill(long[] dst, long value, int count) {
+        for (int i = 0; i < count; i++) {
+            dst[i] = value;
+        }
+    }
+
+    private static void fill(double[] dst, double value, int count) {
+        for (int i = 0; i < count; i++) {
+            dst[i] = value;
+        }
+    }
+
+    private static void intToDouble(long[] src, double[] dst, int count) {
+        for (int i = 0; i < count; i++) {
+            dst[i] = Numbers.intToDouble((int) src[i]);
+        }
+    }
+
+    private static void intToLong(long[] v, int count) {
+        for (int i = 0; i < count; i++) {
+            v[i] = Numbers.intToLong((int) v[i]);
+        }
+    }
+
+    private static void isNaN(double[] v, long[] result, int count) {
+        for (int i = 0; i < count; i++) {
+            result[i] = Double.isNaN(v[i]) ? 1 : 0;
+        }
+    }
+
+    private static void isNull(long[] v, long nullValue, int count) {
+        for (int i = 0; i < count; i++) {
+            v[i] = v[i] == nullValue ? 1 : 0;
+        }
+    }
+
+    private static void leDouble(double[] l, double[] r, long[] result, int count) {
+        for (int i = 0; i < count; i++) {
+            result[i] = l[i] <= r[i] ? 1 : 0;
+        }
+    }
+
+    private static void leLong(long[] l, long[] r, int count) {
+        for (int i = 0; i < count; i++) {
+            l[i] = l[i] <= r[i] ? 1 : 0;
+        }
+    }
+
+    private static void longToDouble(long[] src, double[] dst, int count) {
+        for (int i = 0; i < count; i++) {
+            dst[i] = Numbers.longToDouble(src[i]);
+        }
+    }
+
+    private static void ltDouble(double[] l, double[] r, long[] result, int count) {
+        for (int i = 0; i < count; i++) {
+            result[i] = l[i] < r[i] ? 1 : 0;
+        }
+    }
+
+    private static void ltLong(long[] l, long[] r, int count) {
+        for (int i = 0; i < count; i++) {
+            l[i] = l[i] < r[i] ? 1 : 0;
+        }
+    }
+
+    private static void mulDouble(double[] l, double[] r, int count) {
+        for (int i = 0; i < count; i++) {
+            l[i] = l[i] * r[i];
+        }
+    }
+
+    private static void mulInt(long[] l, long[] r, int count) {
+        for (int i = 0; i < count; i++) {
+            l[i] = (int) (l[i] * r[i]);
+        }
+    }
+
+    private static void mulLong(long[] l, long[] r, int count) {
+        for (int i = 0; i < count; i++) {
+            l[i] = l[i] * r[i];
+        }
+    }
+
+    private static void not(long[] v, int count) {
+        for (int i = 0; i < count; i++) {
+            v[i] = v[i] ^ 1;
+        }
+    }
+
+    private static void or(long[] l, long[] r, int count) {
+        for (int i = 0; i < count; i++) {
+            l[i] = l[i] | r[i];
+        }
+    }
+
+    private static void subDouble(double[] l, double[] r, int count) {
+        for (int i = 0; i < count; i++) {
+            l[i] = l[i] - r[i];
+        }
+    }
+
+    private static void subInt(long[] l, long[] r, int count) {
+        for (int i = 0; i < count; i++) {
+            final long a = l[i];
+            final long b = r[i];
+            l[i] = a == Numbers.INT_NaN || b == Numbers.INT_NaN ? Numbers.INT_NaN : (int) (a - b);
+        }
+    }
+
+    private static void subLong(long[] l, long[] r, int count) {
+        for (int i = 0; i < count; i++) {
+            final long a = l[i];
+            final long b = r[i];
+            l[i] = a == Numbers.LONG_NaN || b == Numbers.LONG_NaN ? Numbers.LONG_NaN : a - b;
+        }
+    }
+
+    private void loadDouble(double[] dst, int column, long rowLo, int count) {
+        final long top = columnTops.getQuick(column);
+        final long address = columnAddresses.getQuick(column);
+        int i = 0;
+        // rows above column top are nulls
+        if (rowLo < top || address == 0) {
+            final int nulls = address == 0 ? count : (int) Math.min(count, top - rowLo);
+            for (; i < nulls; i++) {
+                dst[i] = Double.NaN;
+            }
+        }
+
+        if (i < count) {
+            final long offset = rowLo + i - top;
+            final int pageRowShift = columnPageRowShifts.getQuick(column);
+            if (pageRowShift > 0) {
+                for (long o = offset; i < count; i++, o++) {
+                    dst[i] = Unsafe.getUnsafe().getDouble(pagedAddress(column, pageRowShift, o));
+                }
+            } else if (columnTypes.getQuick(column) == ColumnType.FLOAT) {
+                final long p = address + (offset << 2);
+                for (int j = 0; i < count; i++, j++) {
+                    dst[i] = Unsafe.getUnsafe().getFloat(p + ((long) j << 2));
+                }
+            } else {
+                final long p = address + (offset << 3);
+                for (int j = 0; i < count; i++, j++) {
+                    dst[i] = Unsafe.getUnsafe().getDouble(p + ((long) j << 3));
+                }
+            }
+        }
+    }
+
+    private long pagedAddress(int column, int pageRowShift, long offset) {
+        final long page = pageAddresses.getQuick(columnPageOffsets.getQuick(column) + (int) (offset >>> pageRowShift));
+        return page + ((offset & ((1L << pageRowShift) - 1)) << 3);
+    }
+
+    private void loadLong(long[] dst, int column, long rowLo, int count) {
+        final int columnType = columnTypes.getQuick(column);
+        final long top = columnTops.getQuick(column);
+        final long address = columnAddresses.getQuick(column);
+        int i = 0;
+        // rows above column top are nulls
+        if (rowLo < top || address == 0) {
+            final long nullValue;
+            switch (columnType) {
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                    nullValue = 0;
+                    break;
+                case ColumnType.INT:
+                case ColumnType.SYMBOL:
+                    nullValue = Numbers.INT_NaN;
+                    break;
+                default:
+                    nullValue = Numbers.LONG_NaN;
+                    break;
+            }
+            final int nulls = address == 0 ? count : (int) Math.min(count, top - rowLo);
+            for (; i < nulls; i++) {
+                dst[i] = nullValue;
+            }
+        }
+
+        if (i < count) {
+            final long offset = rowLo + i - top;
+            switch (columnType) {
+                case ColumnType.BYTE: {
+                    final long p = address + offset;
+                    for (int j = 0; i < count; i++, j++) {
+                        dst[i] = Unsafe.getUnsafe().getByte(p + j);
+                    }
+                    break;
+                }
+                case ColumnType.SHORT: {
+                    final long p = address + (offset << 1);
+                    for (int j = 0; i < count; i++, j++) {
+                        dst[i] = Unsafe.getUnsafe().getShort(p + ((long) j << 1));
+                    }
+                    break;
+                }
+                case ColumnType.INT:
+                case ColumnType.SYMBOL: {
+                    final long p = address + (offset << 2);
+                    for (int j = 0; i < count; i++, j++) {
+                        dst[i] = Unsafe.getUnsafe().getInt(p + ((long) j << 2));
+                    }
+                    break;
+                }
+                default: {
+                    final int pageRowShift = columnPageRowShifts.getQuick(column);
+                    if (pageRowShift > 0) {
+                        for (long o = offset; i < count; i++, o++) {
+                            dst[i] = Unsafe.getUnsafe().getLong(pagedAddress(column, pageRowShift, o));
+                        }
+                    } else {
+                        final long p = address + (offset << 3);
+                        for (int j = 0; i < count; i++, j++) {
+                            dst[i] = Unsafe.getUnsafe().getLong(p + ((long) j << 3));
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    private EvaluationStack newStack() {
+        return new EvaluationStack(maxStackDepth());
+    }
+
+    private int maxStackDepth() {
+        int sp = 0;
+        int max = 0;
+        for (int pc = 0, n = code.size(); pc < n; pc++) {
+            switch (code.getQuick(pc)) {
+                case OP_LOAD_BYTE:
+                case OP_LOAD_SHORT:
+                case OP_LOAD_INT:
+                case OP_LOAD_LONG:
+                case OP_LOAD_FLOAT:
+                case OP_LOAD_DOUBLE:
+                case OP_CONST_LONG:
+                case OP_CONST_DOUBLE:
+                case OP_CONST_SYMBOL:
+                    pc++;
+                    max = Math.max(max, ++sp);
+                    break;
+                case OP_INT_TO_LONG:
+                case OP_INT_TO_DOUBLE:
+                case OP_LONG_TO_DOUBLE:
+                case OP_IS_NULL_INT:
+                case OP_IS_NULL_LONG:
+                case OP_IS_NULL_DOUBLE:
+                case OP_NOT:
+                    break;
+                default:
+                    // binary operators
+                    sp--;
+                    break;
+            }
+        }
+        return max;
+    }
+
+    private static class EvaluationStack {
+        private final long[][] longStack;
+        private final double[][] doubleStack;
+
+        private EvaluationStack(int depth) {
+            this.longStack = new long[depth][BATCH_SIZE];
+            this.doubleStack = new double[depth][BATCH_SIZE];
+        }
+    }
+}
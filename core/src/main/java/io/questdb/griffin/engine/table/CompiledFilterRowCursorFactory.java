@@ -0,0 +1,215 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.cairo.sql.RowCursorFactory;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.LongList;
+import io.questdb.std.ObjList;
+import io.questdb.tasks.FilterTask;
+
+public class CompiledFilterRowCursorFactory implements RowCursorFactory {
+    private final CompiledFilter filter;
+    private final CompiledFilterRowCursor cursor;
+    private final ParallelCompiledFilterRowCursor parallelCursor;
+    private final long frameRows;
+    private MessageBus messageBus;
+
+    public CompiledFilterRowCursorFactory(CairoConfiguration configuration, CompiledFilter filter) {
+        this.filter = filter;
+        this.cursor = new CompiledFilterRowCursor(filter);
+        this.parallelCursor = new ParallelCompiledFilterRowCursor(filter);
+        this.frameRows = configuration.getSqlParallelFilterFrameRows();
+    }
+
+    @Override
+    public RowCursor getCursor(DataFrame dataFrame) {
+        // small frames are not worth the dispatch
+        if (messageBus != null && dataFrame.getRowHi() - dataFrame.getRowLo() > frameRows) {
+            parallelCursor.of(dataFrame, messageBus, frameRows);
+            return parallelCursor;
+        }
+        cursor.of(dataFrame);
+        return cursor;
+    }
+
+    @Override
+    public void prepareCursor(TableReader tableReader, SqlExecutionContext sqlExecutionContext) {
+        filter.of(tableReader);
+        if (sqlExecutionContext.getWorkerCount() > 1) {
+            messageBus = sqlExecutionContext.getMessageBus();
+        } else {
+            messageBus = null;
+        }
+    }
+
+    @Override
+    public boolean isEntity() {
+        return false;
+    }
+
+    private static class CompiledFilterRowCursor implements RowCursor {
+        private final CompiledFilter filter;
+        private final long[] rows = new long[CompiledFilter.BATCH_SIZE];
+        private long batchLo;
+        private long hi;
+        private int rowCount;
+        private int rowIndex;
+
+        public CompiledFilterRowCursor(CompiledFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (rowIndex == rowCount) {
+                if (batchLo >= hi) {
+                    return false;
+                }
+                final int count = (int) Math.min(CompiledFilter.BATCH_SIZE, hi - batchLo);
+                rowCount = filter.filter(batchLo, count, rows);
+                rowIndex = 0;
+                batchLo += count;
+            }
+            return true;
+        }
+
+        @Override
+        public long next() {
+            return rows[rowIndex++];
+        }
+
+        void of(DataFrame frame) {
+            filter.ofPartition(frame.getPartitionIndex());
+            this.batchLo = frame.getRowLo();
+            this.hi = frame.getRowHi();
+            this.rowCount = 0;
+            this.rowIndex = 0;
+        }
+    }
+
+    /**
+     * Splits data frame into slices and publishes them on filter queue. Slices are dispatched in
+     * rounds of up to queue capacity; rows of a round are returned in slice order once every slice of
+     * the round is done, which keeps rows in timestamp order.
+     */
+    private static class ParallelCompiledFilterRowCursor implements RowCursor {
+        private static final LongList EMPTY = new LongList(0);
+        private final CompiledFilter filter;
+        private final ObjList<FilterEntry> entries = new ObjList<>();
+        private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+        private RingQueue<FilterTask> queue;
+        private Sequence pubSeq;
+        private long frameRows;
+        private long dispatchLo;
+        private long hi;
+        private int entryCount;
+        private int entryIndex;
+        private LongList rows;
+        private int rowIndex;
+
+        public ParallelCompiledFilterRowCursor(CompiledFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (rowIndex == rows.size()) {
+                if (++entryIndex < entryCount) {
+                    rows = entries.getQuick(entryIndex).getRows();
+                } else if (dispatchLo < hi) {
+                    dispatch();
+                } else {
+                    return false;
+                }
+                rowIndex = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public long next() {
+            return rows.getQuick(rowIndex++);
+        }
+
+        private void dispatch() {
+            final int maxEntries = queue.getCapacity();
+            doneLatch.reset();
+            entryCount = 0;
+            while (dispatchLo < hi && entryCount < maxEntries) {
+                final FilterEntry entry;
+                if (entryCount < entries.size()) {
+                    entry = entries.getQuick(entryCount);
+                } else {
+                    entry = new FilterEntry();
+                    entries.add(entry);
+                }
+                final long lo = dispatchLo;
+                dispatchLo = Math.min(lo + frameRows, hi);
+                entry.of(entryCount++, filter, lo, dispatchLo, doneLatch);
+
+                final long seq = pubSeq.next();
+                if (seq < 0) {
+                    // queue is full, filter the slice ourselves
+                    entry.run();
+                } else {
+                    queue.get(seq).entry = entry;
+                    pubSeq.done(seq);
+                }
+            }
+
+            // help workers with slices they have not picked up yet, starting at the back
+            // to reduce chance of clashing
+            for (int i = entryCount - 1; i > -1 && doneLatch.getCount() > -entryCount; i--) {
+                entries.getQuick(i).run();
+            }
+            doneLatch.await(entryCount);
+
+            entryIndex = 0;
+            rows = entries.getQuick(0).getRows();
+        }
+
+        void of(DataFrame frame, MessageBus messageBus, long frameRows) {
+            filter.ofPartition(frame.getPartitionIndex());
+            this.queue = messageBus.getFilterQueue();
+            this.pubSeq = messageBus.getFilterPubSeq();
+            this.frameRows = frameRows;
+            this.dispatchLo = frame.getRowLo();
+            this.hi = frame.getRowHi();
+            this.entryCount = 0;
+            this.entryIndex = 0;
+            this.rows = EMPTY;
+            this.rowIndex = 0;
+        }
+    }
+}
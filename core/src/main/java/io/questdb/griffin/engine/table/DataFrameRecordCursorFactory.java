@@ -26,6 +26,7 @@ package io.questdb.griffin.engine.table;
 
 import io.questdb.cairo.*;
 import io.questdb.cairo.sql.*;
+import io.questdb.cairo.vm.CompressedPageTracker;
 import io.questdb.cairo.vm.ReadOnlyVirtualMemory;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.IntList;
@@ -76,6 +77,10 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         return followsOrderByAdvice;
     }
 
+    public DataFrameCursorFactory getDataFrameCursorFactory() {
+        return dataFrameCursorFactory;
+    }
+
     @Override
     public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext) {
         DataFrameCursor dataFrameCursor = dataFrameCursorFactory.getCursor(executionContext);
@@ -129,6 +134,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         private final IntList columnSizes;
         private final LongList pageNRowsRemaining = new LongList();
         private final LongList pageSizes = new LongList();
+        private final CompressedPageTracker compressedPages = new CompressedPageTracker();
         private TableReader reader;
         private int partitionIndex;
         private long partitionRemaining = 0L;
@@ -144,9 +150,15 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
 
         @Override
         public void close() {
+            compressedPages.of(columnCount);
             dataFrameCursor = Misc.free(dataFrameCursor);
         }
 
+        @Override
+        public int getRetiredPageCount() {
+            return compressedPages.getRetiredPageCount();
+        }
+
         @Override
         public @Nullable PageFrame next() {
 
@@ -196,15 +208,27 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
                             } else {
                                 int page = pages.getQuick(i);
                                 long pageSize = col.getPageSize(page) >> columnSizes.getQuick(i);
+                                final int pageCount = col.getPageCount();
+                                // columns of compressed partitions have a page per block, skip to the block of the first row
+                                while (pageSize <= loRemaining && page < pageCount - 1) {
+                                    loRemaining -= pageSize;
+                                    pageSize = col.getPageSize(++page) >> columnSizes.getQuick(i);
+                                }
                                 if (pageSize < loRemaining) {
                                     throw CairoException.instance(0).put("partition is not mapped as single page, cannot perform vector calculation");
                                 }
-                                long addr = col.getPageAddress(page);
+                                long addr = compressedPages.map(i, col, page);
                                 addr += loRemaining << columnSizes.getQuick(i);
                                 columnPageNextAddress.setQuick(i, addr);
-                                long pageHi = Math.min(partitionHi, pageSize);
-                                pageNRowsRemaining.setQuick(i, pageHi - partitionLo);
-                                pages.setQuick(i, page);
+                                if (pageCount > 1) {
+                                    // next page is mapped once rows of this one are consumed
+                                    pageNRowsRemaining.setQuick(i, Math.min(pageSize - loRemaining, partitionHi - partitionLo));
+                                    pages.setQuick(i, page + 1);
+                                } else {
+                                    long pageHi = Math.min(partitionHi, pageSize);
+                                    pageNRowsRemaining.setQuick(i, pageHi - partitionLo);
+                                    pages.setQuick(i, page);
+                                }
                             }
                         }
                     }
@@ -214,8 +238,14 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
             return null;
         }
 
+        @Override
+        public void releaseFrames() {
+            compressedPages.releaseRetired();
+        }
+
         @Override
         public void toTop() {
+            compressedPages.releaseAll();
             this.partitionIndex = -1;
             this.dataFrameCursor.toTop();
             pages.setAll(columnCount, 0);
@@ -239,6 +269,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         public TableReaderPageFrameCursor of(DataFrameCursor dataFrameCursor) {
             this.reader = dataFrameCursor.getTableReader();
             this.dataFrameCursor = dataFrameCursor;
+            compressedPages.of(columnCount);
             toTop();
             return this;
         }
@@ -293,7 +324,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
                         final ReadOnlyVirtualMemory col = reader.getColumn(TableReader.getPrimaryColumnIndex(base, columnIndexes.getQuick(i)));
                         // page size is liable to change after it is mapped
                         // it is important to map page first and call pageSize() after
-                        columnPageNextAddress.setQuick(i, col.getPageAddress(page));
+                        columnPageNextAddress.setQuick(i, compressedPages.map(i, col, page));
                         psz = !(col instanceof NullColumn) ? col.getPageSize(page) >> columnSizes.getQuick(i) : partitionRemaining;
                         final long m = Math.min(psz, partitionRemaining);
                         pageNRowsRemaining.setQuick(i, m);
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.AbstractLockable;
+import io.questdb.std.LongList;
+import io.questdb.std.Mutable;
+
+/**
+ * Slice of data frame filtered by a single task. Matching row ids are collected
+ * into entry's own list, so that owner of the entry can stitch slices back together
+ * in the order they were published.
+ */
+public class FilterEntry extends AbstractLockable implements Mutable {
+    private final long[] batch = new long[CompiledFilter.BATCH_SIZE];
+    private final LongList rows = new LongList();
+    private CompiledFilter filter;
+    private long rowLo;
+    private long rowHi;
+    private CountDownLatchSPI doneLatch;
+
+    @Override
+    public void clear() {
+        rows.clear();
+        filter = null;
+    }
+
+    public LongList getRows() {
+        return rows;
+    }
+
+    public boolean run() {
+        if (tryLock()) {
+            long lo = rowLo;
+            while (lo < rowHi) {
+                final int count = (int) Math.min(CompiledFilter.BATCH_SIZE, rowHi - lo);
+                final int matched = filter.filter(lo, count, batch);
+                for (int i = 0; i < matched; i++) {
+                    rows.add(batch[i]);
+                }
+                lo += count;
+            }
+            doneLatch.countDown();
+            return true;
+        }
+        return false;
+    }
+
+    void of(int sequence, CompiledFilter filter, long rowLo, long rowHi, CountDownLatchSPI doneLatch) {
+        this.rows.clear();
+        this.filter = filter;
+        this.rowLo = rowLo;
+        this.rowHi = rowHi;
+        this.doneLatch = doneLatch;
+        // entry becomes available to workers only after its state is set up
+        of(sequence);
+    }
+}
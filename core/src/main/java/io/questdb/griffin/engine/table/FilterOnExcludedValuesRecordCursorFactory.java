@@ -78,6 +78,7 @@ public class FilterOnExcludedValuesRecordCursorFactory extends AbstractDataFrame
     @Override
     public void close() {
         Misc.free(filter);
+        Misc.free(dataFrameCursorFactory);
         Misc.free(includedValues);
         Misc.free(keyExcludedValueFunctions);
     }
@@ -70,6 +70,7 @@ public class FilterOnSubQueryRecordCursorFactory extends AbstractDataFrameRecord
     @Override
     public void close() {
         Misc.free(filter);
+        Misc.free(dataFrameCursorFactory);
         recordCursorFactory.close();
         factoriesA.clear();
         factoriesB.clear();
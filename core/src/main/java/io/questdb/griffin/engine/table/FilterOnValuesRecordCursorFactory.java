@@ -85,6 +85,7 @@ public class FilterOnValuesRecordCursorFactory extends AbstractDataFrameRecordCu
     @Override
     public void close() {
         Misc.free(filter);
+        Misc.free(dataFrameCursorFactory);
     }
 
     @Override
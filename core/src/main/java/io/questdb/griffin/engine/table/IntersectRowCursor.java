@@ -0,0 +1,137 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableReaderSelectedColumnRecord;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.ObjList;
+
+/**
+ * Returns row ids present in all of ascending row cursors. Cursors leapfrog each other, the one
+ * behind skips forward to the largest row id seen so far. Optional filter is applied to intersected rows.
+ */
+class IntersectRowCursor implements RowCursor {
+    private final LongList heads = new LongList();
+    private final Function filter;
+    private final TableReaderSelectedColumnRecord record;
+    private ObjList<RowCursor> cursors;
+    private boolean exhausted;
+    private long rowid;
+
+    public IntersectRowCursor(Function filter, IntList columnIndexes) {
+        this.filter = filter;
+        this.record = filter != null ? new TableReaderSelectedColumnRecord(columnIndexes) : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!exhausted && intersect()) {
+            // advance first cursor past matched row, others catch up on next call
+            final RowCursor cursor = cursors.getQuick(0);
+            if (cursor.hasNext()) {
+                heads.setQuick(0, cursor.next());
+            } else {
+                exhausted = true;
+            }
+
+            if (filter == null) {
+                return true;
+            }
+
+            record.setRecordIndex(rowid);
+            if (filter.getBool(record)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long next() {
+        return rowid;
+    }
+
+    public IntersectRowCursor of(ObjList<RowCursor> cursors, DataFrame dataFrame) {
+        this.cursors = cursors;
+        this.exhausted = false;
+        heads.clear();
+        for (int i = 0, n = cursors.size(); i < n; i++) {
+            final RowCursor cursor = cursors.getQuick(i);
+            if (!cursor.hasNext()) {
+                exhausted = true;
+                break;
+            }
+            heads.add(cursor.next());
+        }
+        if (record != null) {
+            record.jumpTo(dataFrame.getPartitionIndex(), 0);
+        }
+        return this;
+    }
+
+    void prepare(TableReader tableReader) {
+        if (record != null) {
+            record.of(tableReader);
+        }
+    }
+
+    private boolean intersect() {
+        final int n = cursors.size();
+        long max = heads.getQuick(0);
+        int matched = 0;
+        int i = 0;
+        while (matched < n) {
+            final RowCursor cursor = cursors.getQuick(i);
+            long head = heads.getQuick(i);
+            while (head < max) {
+                if (!cursor.hasNext()) {
+                    exhausted = true;
+                    return false;
+                }
+                head = cursor.next();
+            }
+            heads.setQuick(i, head);
+
+            if (head > max) {
+                max = head;
+                matched = 1;
+            } else {
+                matched++;
+            }
+
+            if (++i == n) {
+                i = 0;
+            }
+        }
+        rowid = max;
+        return true;
+    }
+}
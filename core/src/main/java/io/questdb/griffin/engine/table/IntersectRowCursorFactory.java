@@ -0,0 +1,71 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.cairo.sql.RowCursorFactory;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.ObjList;
+import org.jetbrains.annotations.Nullable;
+
+public class IntersectRowCursorFactory implements RowCursorFactory {
+    private final ObjList<? extends RowCursorFactory> cursorFactories;
+    private final ObjList<RowCursor> cursors;
+    private final IntersectRowCursor cursor;
+
+    public IntersectRowCursorFactory(
+            ObjList<? extends RowCursorFactory> cursorFactories,
+            @Nullable Function filter,
+            IntList columnIndexes
+    ) {
+        this.cursorFactories = cursorFactories;
+        this.cursors = new ObjList<>();
+        this.cursor = new IntersectRowCursor(filter, columnIndexes);
+    }
+
+    @Override
+    public RowCursor getCursor(DataFrame dataFrame) {
+        for (int i = 0, n = cursorFactories.size(); i < n; i++) {
+            cursors.extendAndSet(i, cursorFactories.getQuick(i).getCursor(dataFrame));
+        }
+        return cursor.of(cursors, dataFrame);
+    }
+
+    @Override
+    public void prepareCursor(TableReader tableReader, SqlExecutionContext sqlExecutionContext) {
+        RowCursorFactory.prepareCursor(cursorFactories, tableReader, sqlExecutionContext);
+        cursor.prepare(tableReader);
+    }
+
+    @Override
+    public boolean isEntity() {
+        return false;
+    }
+}
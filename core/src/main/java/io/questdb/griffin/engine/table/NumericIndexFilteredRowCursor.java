@@ -0,0 +1,93 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableReaderSelectedColumnRecord;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.std.IntList;
+
+/**
+ * Iterates rows of INT or LONG index key. Key is a hash bucket shared by several
+ * values, filter has to compare column value to the value looked up.
+ */
+class NumericIndexFilteredRowCursor implements RowCursor {
+    private final Function filter;
+    private final TableReaderSelectedColumnRecord record;
+    private final int columnIndex;
+    private final int indexKey;
+    private final boolean cachedIndexReaderCursor;
+    private final int indexDirection;
+    private RowCursor rowCursor;
+    private long rowid;
+
+    public NumericIndexFilteredRowCursor(
+            int columnIndex,
+            int indexKey,
+            Function filter,
+            boolean cachedIndexReaderCursor,
+            int indexDirection,
+            IntList columnIndexes
+    ) {
+        this.columnIndex = columnIndex;
+        this.indexKey = indexKey;
+        this.filter = filter;
+        this.cachedIndexReaderCursor = cachedIndexReaderCursor;
+        this.indexDirection = indexDirection;
+        this.record = new TableReaderSelectedColumnRecord(columnIndexes);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (rowCursor.hasNext()) {
+            final long rowid = rowCursor.next();
+            record.setRecordIndex(rowid);
+            if (filter.getBool(record)) {
+                this.rowid = rowid;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long next() {
+        return rowid;
+    }
+
+    public NumericIndexFilteredRowCursor of(DataFrame dataFrame) {
+        this.rowCursor = dataFrame
+                .getBitmapIndexReader(columnIndex, indexDirection)
+                .getCursor(cachedIndexReaderCursor, indexKey, dataFrame.getRowLo(), dataFrame.getRowHi() - 1);
+        record.jumpTo(dataFrame.getPartitionIndex(), 0);
+        return this;
+    }
+
+    void prepare(TableReader tableReader) {
+        this.record.of(tableReader);
+    }
+}
@@ -40,6 +40,10 @@ public class IntrinsicModel implements Mutable {
     public final CharSequenceHashSet keyExcludedValues = new CharSequenceHashSet();
     public final IntList keyValuePositions = new IntList();
     public final IntList keyExcludedValuePositions = new IntList();
+    // indexed symbol columns, other than key column, that filter requires to equal one of the values;
+    // values of the same column are unioned, columns are intersected with key column
+    public final ObjList<CharSequence> intersectKeyColumns = new ObjList<>();
+    public final ObjList<CharSequence> intersectKeyValues = new ObjList<>();
     public CharSequence keyColumn;
     public ExpressionNode filter;
     public int intrinsicValue = UNDEFINED;
@@ -53,6 +57,8 @@ public class IntrinsicModel implements Mutable {
         keyExcludedValues.clear();
         keyValuePositions.clear();
         keyExcludedValuePositions.clear();
+        intersectKeyColumns.clear();
+        intersectKeyValues.clear();
         runtimeIntervalBuilder.clear();
         filter = null;
         intrinsicValue = UNDEFINED;
@@ -81,6 +81,10 @@ public class RuntimeIntervalModel implements RuntimeIntrinsicIntervalModel {
                 return allIntervalsHitOnePartition(Timestamps.FLOOR_MM);
             case PartitionBy.YEAR:
                 return allIntervalsHitOnePartition(Timestamps.FLOOR_YYYY);
+            case PartitionBy.HOUR:
+                return allIntervalsHitOnePartition(Timestamps.FLOOR_HH);
+            case PartitionBy.WEEK:
+                return allIntervalsHitOnePartition(Timestamps.FLOOR_WW);
             default:
                 return true;
         }
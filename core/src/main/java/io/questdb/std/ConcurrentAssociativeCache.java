@@ -0,0 +1,150 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Associative cache that can be shared between threads. Values are checked out
+ * with {@link #poll(CharSequence)}, which removes them from the cache, so that a
+ * value is only ever used by one thread at a time. Once the thread is done with the
+ * value it is returned to the cache via {@link #put(CharSequence, Closeable)}.
+ * <p>
+ * Cache is a set of rows, each having fixed number of slots. Key hash selects the
+ * row and same key can occupy several slots of the row, one per idle copy of the
+ * value. Slots are claimed and released with CAS, there are no locks. When row
+ * is full, the last slot of the row is evicted and its value is closed.
+ */
+public class ConcurrentAssociativeCache<V extends Closeable> implements Closeable, Mutable {
+
+    private static final int MIN_BLOCKS = 2;
+    private static final int MINROWS = 16;
+    private final AtomicReferenceArray<Entry<V>> entries;
+    private final int rmask;
+    private final int bmask;
+    private final int blocks;
+    private final int bshift;
+
+    public ConcurrentAssociativeCache(int blocks, int rows) {
+        this.blocks = Math.max(MIN_BLOCKS, Numbers.ceilPow2(blocks));
+        rows = Math.max(MINROWS, Numbers.ceilPow2(rows));
+
+        int size = rows * this.blocks;
+        if (size < 0) {
+            throw new OutOfMemoryError();
+        }
+        this.entries = new AtomicReferenceArray<>(size);
+        this.rmask = rows - 1;
+        this.bmask = this.blocks - 1;
+        this.bshift = Numbers.msb(this.blocks);
+    }
+
+    /**
+     * Closes all idle values. Values checked out by other threads are not affected
+     * and can still be returned to the cache.
+     */
+    @Override
+    public void clear() {
+        for (int i = 0, n = entries.length(); i < n; i++) {
+            free(entries.getAndSet(i, null));
+        }
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    /**
+     * Closes all idle values cached under given key. Used when cached values
+     * become stale, for example after table structure change.
+     *
+     * @param key cache key
+     * @return number of values closed
+     */
+    public int invalidate(CharSequence key) {
+        int count = 0;
+        for (int i = lo(key), hi = i + blocks; i < hi; i++) {
+            final Entry<V> e = entries.get(i);
+            if (e != null && Chars.equals(e.key, key) && entries.compareAndSet(i, e, null)) {
+                free(e);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks value out of the cache. Returned value is exclusively owned by
+     * calling thread until it is put back.
+     *
+     * @param key cache key
+     * @return idle value or null if there is none
+     */
+    public V poll(CharSequence key) {
+        for (int i = lo(key), hi = i + blocks; i < hi; i++) {
+            final Entry<V> e = entries.get(i);
+            if (e != null && Chars.equals(e.key, key) && entries.compareAndSet(i, e, null)) {
+                return e.value;
+            }
+        }
+        return null;
+    }
+
+    public void put(CharSequence key, V value) {
+        if (value == null) {
+            return;
+        }
+        final Entry<V> entry = new Entry<>(Chars.toString(key), value);
+        final int lo = lo(key);
+        for (int i = lo, hi = lo + blocks; i < hi; i++) {
+            if (entries.get(i) == null && entries.compareAndSet(i, null, entry)) {
+                return;
+            }
+        }
+        free(entries.getAndSet(lo + bmask, entry));
+    }
+
+    private static <V extends Closeable> void free(Entry<V> e) {
+        if (e != null) {
+            Misc.free(e.value);
+        }
+    }
+
+    private int lo(CharSequence key) {
+        return (Hash.spread(Chars.hashCode(key)) & rmask) << bshift;
+    }
+
+    private static class Entry<V> {
+        private final String key;
+        private final V value;
+
+        private Entry(String key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
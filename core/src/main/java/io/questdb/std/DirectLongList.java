@@ -111,6 +111,24 @@ public class DirectLongList implements Mutable, Closeable {
         return Unsafe.getUnsafe().getLong(start + (p << 3));
     }
 
+    /**
+     * Inserts value at given index, shifting values at and after the index to the right.
+     *
+     * @param p index, must not be greater than size()
+     * @param x value to insert
+     */
+    public void insert(long p, long x) {
+        assert p >= 0 && p <= size();
+        ensureCapacity();
+        final long address = start + (p << 3);
+        final long len = pos - address;
+        if (len > 0) {
+            Vect.memmove(address + Long.BYTES, address, len);
+        }
+        Unsafe.getUnsafe().putLong(address, x);
+        pos += Long.BYTES;
+    }
+
     public long scanSearch(long v, long low, long high) {
         for (long i = low; i < high; i++) {
             long f = get(i);
@@ -41,6 +41,23 @@ public final class Hash {
         return s == null ? -1 : (Chars.hashCode(s) & 0xFFFFFFF) & max;
     }
 
+    /**
+     * Mixes bits of 64-bit value using the murmur3 finalizer. Every input bit affects
+     * every output bit, which makes the result suitable for probabilistic sketches
+     * that rely on uniformly distributed hashes.
+     *
+     * @param k value to mix
+     * @return 64-bit hash
+     */
+    public static long hashLong64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
     /**
      * Calculates positive integer hash of memory pointer using Java hashcode() algorithm.
      *
@@ -127,6 +127,8 @@ public class PropServerConfigurationTest {
 
         Assert.assertFalse(configuration.getHttpServerConfiguration().getHttpContextConfiguration().readOnlySecurityContext());
         Assert.assertEquals(Long.MAX_VALUE, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getMaxQueryResponseRowLimit());
+        Assert.assertEquals(16, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getMaxOpenCursors());
+        Assert.assertEquals(60_000, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getOpenCursorTimeout());
         Assert.assertTrue(configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getInterruptorConfiguration().isEnabled());
         Assert.assertEquals(2_000_000, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getInterruptorConfiguration().getCountOfIterationsPerCheck());
         Assert.assertEquals(64, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getInterruptorConfiguration().getBufferSize());
@@ -167,6 +169,8 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortKeyMaxPages());
         Assert.assertEquals(8 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortLightValuePageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortLightValueMaxPages());
+        Assert.assertEquals(10_000, configuration.getCairoConfiguration().getSqlSortTopKMaxRows());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getSqlSortMemoryBudget());
         Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinValuePageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlHashJoinValueMaxPages());
         Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlLatestByRowCount());
@@ -176,6 +180,18 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
         Assert.assertEquals(10000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
         Assert.assertTrue(configuration.getCairoConfiguration().isParallelIndexingEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlFilterCompilationEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isZoneMapEnabled());
+        Assert.assertEquals(65536, configuration.getCairoConfiguration().getSqlParallelFilterFrameRows());
+        Assert.assertEquals(64, configuration.getCairoConfiguration().getFilterQueueCapacity());
+        Assert.assertEquals(100_000, configuration.getCairoConfiguration().getSqlParallelGroupByMinTaskRows());
+        Assert.assertEquals(64, configuration.getCairoConfiguration().getGroupByQueueCapacity());
+        Assert.assertEquals(100_000, configuration.getCairoConfiguration().getSqlParallelHashJoinBatchRows());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getSqlHashJoinMemoryBudget());
+        Assert.assertEquals(256 * 1024 * 1024, configuration.getCairoConfiguration().getColumnBlockCacheSize());
+        Assert.assertEquals(64, configuration.getCairoConfiguration().getPartitionCompressionQueueCapacity());
+        Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getWalSegmentRolloverRowCount());
+        Assert.assertEquals(64, configuration.getCairoConfiguration().getHashJoinQueueCapacity());
         Assert.assertEquals(16 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlJoinMetadataMaxResizes());
         Assert.assertEquals(64, configuration.getCairoConfiguration().getAnalyticColumnPoolCapacity());
@@ -194,6 +210,8 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(2048, configuration.getLineUdpReceiverConfiguration().getMsgBufferSize());
         Assert.assertEquals(10000, configuration.getLineUdpReceiverConfiguration().getMsgCount());
         Assert.assertEquals(8388608, configuration.getLineUdpReceiverConfiguration().getReceiveBufferSize());
+        Assert.assertEquals(1, configuration.getLineUdpReceiverConfiguration().getReceiverCount());
+        Assert.assertEquals(1024, configuration.getLineUdpReceiverConfiguration().getRouterQueueCapacity());
         Assert.assertSame(AllowAllCairoSecurityContext.INSTANCE, configuration.getLineUdpReceiverConfiguration().getCairoSecurityContext());
         Assert.assertTrue(configuration.getLineUdpReceiverConfiguration().isEnabled());
         Assert.assertEquals(-1, configuration.getLineUdpReceiverConfiguration().ownThreadAffinity());
@@ -236,6 +254,7 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(32768, configuration.getLineTcpReceiverConfiguration().getNetMsgBufferSize());
         Assert.assertEquals(4096, configuration.getLineTcpReceiverConfiguration().getMaxMeasurementSize());
         Assert.assertEquals(128, configuration.getLineTcpReceiverConfiguration().getWriterQueueCapacity());
+        Assert.assertEquals(32768, configuration.getLineTcpReceiverConfiguration().getMaxEventSize());
         Assert.assertEquals(1, configuration.getLineTcpReceiverConfiguration().getWriterWorkerPoolConfiguration().getWorkerCount());
         Assert.assertEquals(10, configuration.getLineTcpReceiverConfiguration().getWriterWorkerPoolConfiguration().getYieldThreshold());
         Assert.assertEquals(10_000, configuration.getLineTcpReceiverConfiguration().getWriterWorkerPoolConfiguration().getSleepThreshold());
@@ -349,6 +368,24 @@ public class PropServerConfigurationTest {
         new PropServerConfiguration(root, properties, null, LOG, new BuildInformationHolder());
     }
 
+    @Test(expected = ServerConfigurationException.class)
+    public void testInvalidLineUdpMulticastReceiverCount() throws ServerConfigurationException, JsonException {
+        Properties properties = new Properties();
+        properties.setProperty("line.udp.receiver.count", "2");
+        new PropServerConfiguration(root, properties, null, LOG, new BuildInformationHolder());
+    }
+
+    @Test
+    public void testLineUdpUnicastReceiverCount() throws ServerConfigurationException, JsonException {
+        Properties properties = new Properties();
+        properties.setProperty("line.udp.unicast", "true");
+        properties.setProperty("line.udp.receiver.count", "4");
+        properties.setProperty("line.udp.router.queue.capacity", "1000");
+        PropServerConfiguration configuration = new PropServerConfiguration(root, properties, null, LOG, new BuildInformationHolder());
+        Assert.assertEquals(4, configuration.getLineUdpReceiverConfiguration().getReceiverCount());
+        Assert.assertEquals(1024, configuration.getLineUdpReceiverConfiguration().getRouterQueueCapacity());
+    }
+
     @Test(expected = ServerConfigurationException.class)
     public void testInvalidIPv4Address() throws ServerConfigurationException, JsonException {
         Properties properties = new Properties();
@@ -433,6 +470,8 @@ public class PropServerConfigurationTest {
 
             Assert.assertTrue(configuration.getHttpServerConfiguration().getHttpContextConfiguration().readOnlySecurityContext());
             Assert.assertEquals(50000, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getMaxQueryResponseRowLimit());
+            Assert.assertEquals(8, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getMaxOpenCursors());
+            Assert.assertEquals(30_000, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getOpenCursorTimeout());
             Assert.assertFalse(configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getInterruptorConfiguration().isEnabled());
             Assert.assertEquals(500, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getInterruptorConfiguration().getCountOfIterationsPerCheck());
             Assert.assertEquals(32, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getInterruptorConfiguration().getBufferSize());
@@ -507,6 +546,8 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(256, configuration.getCairoConfiguration().getSqlSortKeyMaxPages());
             Assert.assertEquals(3 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortLightValuePageSize());
             Assert.assertEquals(1027, configuration.getCairoConfiguration().getSqlSortLightValueMaxPages());
+            Assert.assertEquals(500, configuration.getCairoConfiguration().getSqlSortTopKMaxRows());
+            Assert.assertEquals(64 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortMemoryBudget());
             Assert.assertEquals(8 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinValuePageSize());
             Assert.assertEquals(1024, configuration.getCairoConfiguration().getSqlHashJoinValueMaxPages());
             Assert.assertEquals(10000, configuration.getCairoConfiguration().getSqlLatestByRowCount());
@@ -516,6 +557,18 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(1028, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
             Assert.assertEquals(1000000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
             Assert.assertFalse(configuration.getCairoConfiguration().isParallelIndexingEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlFilterCompilationEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isZoneMapEnabled());
+            Assert.assertEquals(100000, configuration.getCairoConfiguration().getSqlParallelFilterFrameRows());
+            Assert.assertEquals(32, configuration.getCairoConfiguration().getFilterQueueCapacity());
+            Assert.assertEquals(50000, configuration.getCairoConfiguration().getSqlParallelGroupByMinTaskRows());
+            Assert.assertEquals(32, configuration.getCairoConfiguration().getGroupByQueueCapacity());
+            Assert.assertEquals(20000, configuration.getCairoConfiguration().getSqlParallelHashJoinBatchRows());
+            Assert.assertEquals(256 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinMemoryBudget());
+            Assert.assertEquals(32 * 1024 * 1024, configuration.getCairoConfiguration().getColumnBlockCacheSize());
+            Assert.assertEquals(128, configuration.getCairoConfiguration().getPartitionCompressionQueueCapacity());
+            Assert.assertEquals(5000, configuration.getCairoConfiguration().getWalSegmentRolloverRowCount());
+            Assert.assertEquals(128, configuration.getCairoConfiguration().getHashJoinQueueCapacity());
             Assert.assertEquals(8 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
             Assert.assertEquals(10_000, configuration.getCairoConfiguration().getSqlJoinMetadataMaxResizes());
             Assert.assertEquals(16, configuration.getCairoConfiguration().getBindVariablePoolSize());
@@ -556,6 +609,7 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(2049, configuration.getLineTcpReceiverConfiguration().getNetMsgBufferSize());
             Assert.assertEquals(128, configuration.getLineTcpReceiverConfiguration().getMaxMeasurementSize());
             Assert.assertEquals(256, configuration.getLineTcpReceiverConfiguration().getWriterQueueCapacity());
+            Assert.assertEquals(8192, configuration.getLineTcpReceiverConfiguration().getMaxEventSize());
             Assert.assertEquals(2, configuration.getLineTcpReceiverConfiguration().getWriterWorkerPoolConfiguration().getWorkerCount());
             Assert.assertArrayEquals(new int[]{1, 2}, configuration.getLineTcpReceiverConfiguration().getWriterWorkerPoolConfiguration().getWorkerAffinity());
             Assert.assertEquals(20, configuration.getLineTcpReceiverConfiguration().getWriterWorkerPoolConfiguration().getYieldThreshold());
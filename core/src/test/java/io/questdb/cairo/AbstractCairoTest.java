@@ -59,6 +59,16 @@ public class AbstractCairoTest {
     protected static FilesFacade ff;
     protected static long configOverrideO3CommitHysteresisInMicros = -1;
     protected static int configOverrideMaxUncommittedRows = -1;
+    protected static boolean configOverrideSqlFilterCompilationEnabled = true;
+    protected static boolean configOverrideZoneMapEnabled = true;
+    protected static long configOverrideSqlParallelFilterFrameRows = -1;
+    protected static long configOverrideSqlParallelGroupByMinTaskRows = -1;
+    protected static int configOverrideSqlSortTopKMaxRows = -1;
+    protected static long configOverrideSqlSortMemoryBudget = -1;
+    protected static int configOverrideSqlSortValuePageSize = -1;
+    protected static int configOverrideSqlSortValueMaxPages = -1;
+    protected static long configOverrideSqlParallelHashJoinBatchRows = -1;
+    protected static long configOverrideSqlHashJoinMemoryBudget = -1;
 
     @Rule
     public TestName testName = new TestName();
@@ -105,6 +115,64 @@ public class AbstractCairoTest {
                 if (configOverrideMaxUncommittedRows >= 0) return configOverrideMaxUncommittedRows;
                 return super.getO3MaxUncommittedRows();
             }
+
+            @Override
+            public boolean isSqlFilterCompilationEnabled() {
+                return configOverrideSqlFilterCompilationEnabled;
+            }
+
+            @Override
+            public boolean isZoneMapEnabled() {
+                return configOverrideZoneMapEnabled;
+            }
+
+            @Override
+            public long getSqlParallelFilterFrameRows() {
+                if (configOverrideSqlParallelFilterFrameRows > 0) return configOverrideSqlParallelFilterFrameRows;
+                return super.getSqlParallelFilterFrameRows();
+            }
+
+            @Override
+            public long getSqlParallelGroupByMinTaskRows() {
+                if (configOverrideSqlParallelGroupByMinTaskRows > 0) return configOverrideSqlParallelGroupByMinTaskRows;
+                return super.getSqlParallelGroupByMinTaskRows();
+            }
+
+            @Override
+            public int getSqlSortTopKMaxRows() {
+                if (configOverrideSqlSortTopKMaxRows >= 0) return configOverrideSqlSortTopKMaxRows;
+                return super.getSqlSortTopKMaxRows();
+            }
+
+            @Override
+            public long getSqlSortMemoryBudget() {
+                if (configOverrideSqlSortMemoryBudget >= 0) return configOverrideSqlSortMemoryBudget;
+                return super.getSqlSortMemoryBudget();
+            }
+
+            @Override
+            public int getSqlSortValuePageSize() {
+                if (configOverrideSqlSortValuePageSize > 0) return configOverrideSqlSortValuePageSize;
+                return super.getSqlSortValuePageSize();
+            }
+
+            @Override
+            public int getSqlSortValueMaxPages() {
+                if (configOverrideSqlSortValueMaxPages > 0) return configOverrideSqlSortValueMaxPages;
+                return super.getSqlSortValueMaxPages();
+            }
+
+            @Override
+            public long getSqlParallelHashJoinBatchRows() {
+                if (configOverrideSqlParallelHashJoinBatchRows > 0) return configOverrideSqlParallelHashJoinBatchRows;
+                return super.getSqlParallelHashJoinBatchRows();
+            }
+
+            @Override
+            public long getSqlHashJoinMemoryBudget() {
+                if (configOverrideSqlHashJoinMemoryBudget >= 0) return configOverrideSqlHashJoinMemoryBudget;
+                return super.getSqlHashJoinMemoryBudget();
+            }
         };
         engine = new CairoEngine(configuration);
         messageBus = engine.getMessageBus();
@@ -131,6 +199,16 @@ public class AbstractCairoTest {
         TestUtils.removeTestPath(root);
         configOverrideMaxUncommittedRows = -1;
         configOverrideO3CommitHysteresisInMicros = -1;
+        configOverrideSqlFilterCompilationEnabled = true;
+        configOverrideZoneMapEnabled = true;
+        configOverrideSqlParallelFilterFrameRows = -1;
+        configOverrideSqlParallelGroupByMinTaskRows = -1;
+        configOverrideSqlSortTopKMaxRows = -1;
+        configOverrideSqlSortMemoryBudget = -1;
+        configOverrideSqlSortValuePageSize = -1;
+        configOverrideSqlSortValueMaxPages = -1;
+        configOverrideSqlParallelHashJoinBatchRows = -1;
+        configOverrideSqlHashJoinMemoryBudget = -1;
         currentMicros = -1;
     }
 
@@ -47,11 +47,15 @@ public class BitmapIndexTest extends AbstractCairoTest {
     private int plen;
 
     public static void create(CairoConfiguration configuration, Path path, CharSequence name, int valueBlockCapacity) {
+        create(configuration, path, name, valueBlockCapacity, false);
+    }
+
+    public static void create(CairoConfiguration configuration, Path path, CharSequence name, int valueBlockCapacity, boolean compact) {
         int plen = path.length();
         try {
             FilesFacade ff = configuration.getFilesFacade();
             try (AppendOnlyVirtualMemory mem = new AppendOnlyVirtualMemory(ff, BitmapIndexUtils.keyFileName(path, name), ff.getPageSize())) {
-                BitmapIndexWriter.initKeyMemory(mem, Numbers.ceilPow2(valueBlockCapacity));
+                BitmapIndexWriter.initKeyMemory(mem, Numbers.ceilPow2(valueBlockCapacity), compact);
             }
             ff.touch(BitmapIndexUtils.valueFileName(path.trimTo(plen), name));
         } finally {
@@ -345,6 +349,99 @@ public class BitmapIndexTest extends AbstractCairoTest {
         }
     }
 
+    @Test
+    public void testCompactAdd() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            LongList list = new LongList();
+            create(configuration, path.trimTo(plen), "x", 4, true);
+            try (BitmapIndexWriter writer = new BitmapIndexWriter(configuration, path, "x")) {
+                writer.add(0, 1000);
+                writer.add(256, 1_000_001_234L);
+                writer.add(64, 10);
+                writer.add(64, 987);
+                writer.add(256, 5_000_005_567L);
+                writer.add(64, 4_000_000_091L);
+                writer.add(64, 4_000_000_092L);
+                writer.add(64, 4_000_000_093L);
+
+                assertThat("[5000005567,1000001234]", writer.getCursor(256), list);
+                assertThat("[4000000093,4000000092,4000000091,987,10]", writer.getCursor(64), list);
+                assertThat("[1000]", writer.getCursor(0), list);
+            }
+
+            try (BitmapIndexBwdReader reader = new BitmapIndexBwdReader(configuration, path.trimTo(plen), "x", 0)) {
+                assertThat("[5000005567,1000001234]", reader.getCursor(true, 256, 0, Long.MAX_VALUE), list);
+                assertThat("[4000000093,4000000092,4000000091,987,10]", reader.getCursor(true, 64, 0, Long.MAX_VALUE), list);
+                assertThat("[4000000091,987]", reader.getCursor(true, 64, 11, 4_000_000_091L), list);
+            }
+
+            try (BitmapIndexFwdReader reader = new BitmapIndexFwdReader(configuration, path.trimTo(plen), "x", 0)) {
+                assertThat("[1000001234,5000005567]", reader.getCursor(true, 256, 0, Long.MAX_VALUE), list);
+                assertThat("[10,987,4000000091,4000000092,4000000093]", reader.getCursor(true, 64, 0, Long.MAX_VALUE), list);
+                assertThat("[987,4000000091]", reader.getCursor(true, 64, 11, 4_000_000_091L), list);
+            }
+        });
+    }
+
+    @Test
+    public void testCompactDeltaOutOfRange() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            create(configuration, path.trimTo(plen), "x", 4, true);
+            try (BitmapIndexWriter writer = new BitmapIndexWriter(configuration, path, "x")) {
+                writer.add(0, 10);
+                try {
+                    writer.add(0, 5_000_000_000L);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "value is out of compact index block range");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testCompactRollback() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int maxKeys = 16;
+            final int N = 100000;
+            final int CUTOFF = 60000;
+
+            create(configuration, path.trimTo(plen), "x", 128, true);
+            try (BitmapIndexWriter writer = new BitmapIndexWriter(configuration, path.trimTo(plen), "x")) {
+                for (int i = 0; i < N; i++) {
+                    writer.add(i % maxKeys, i);
+                }
+                writer.rollbackValues(CUTOFF);
+                for (int i = CUTOFF + 1; i < N; i++) {
+                    writer.add(i % maxKeys, i + N);
+                }
+            }
+
+            try (
+                    BitmapIndexFwdReader fwdReader = new BitmapIndexFwdReader(configuration, path.trimTo(plen), "x", 0);
+                    BitmapIndexBwdReader bwdReader = new BitmapIndexBwdReader(configuration, path.trimTo(plen), "x", 0)
+            ) {
+                for (int key = 0; key < maxKeys; key++) {
+                    RowCursor cursor = fwdReader.getCursor(true, key, 0, Long.MAX_VALUE);
+                    long expected = key;
+                    while (cursor.hasNext()) {
+                        Assert.assertEquals(expected > CUTOFF ? expected + N : expected, cursor.next());
+                        expected += maxKeys;
+                    }
+                    // every value of the key has been read
+                    Assert.assertTrue(expected >= N && expected < N + maxKeys);
+
+                    cursor = bwdReader.getCursor(true, key, 0, Long.MAX_VALUE);
+                    while (cursor.hasNext()) {
+                        expected -= maxKeys;
+                        Assert.assertEquals(expected > CUTOFF ? expected + N : expected, cursor.next());
+                    }
+                    Assert.assertEquals(key, expected);
+                }
+            }
+        });
+    }
+
     @Test
     public void testConcurrentWriterAndBackwardReadBreadth() throws Exception {
         testConcurrentBackwardRW(10000000, 1024);
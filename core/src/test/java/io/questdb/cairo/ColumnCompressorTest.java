@@ -0,0 +1,281 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.CompressedColumnMemory;
+import io.questdb.cairo.vm.CompressedPageTracker;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Files;
+import io.questdb.std.Numbers;
+import io.questdb.std.Rnd;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ColumnCompressorTest extends AbstractCairoTest {
+    private static final Log LOG = LogFactory.getLog(ColumnCompressorTest.class);
+
+    @Test
+    public void testBlockCache() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int blockValueCount = 1 << ColumnCompressor.BLOCK_VALUE_COUNT_SHIFT;
+            final int count = 4 * blockValueCount;
+            final long blockSize = blockValueCount * 8L;
+            final long src = Unsafe.malloc(count * 8L);
+            try (
+                    Path path = new Path().of(root).concat("col").put(ColumnCompressor.FILE_SUFFIX).$();
+                    ColumnCompressor compressor = new ColumnCompressor();
+                    ColumnBlockCache cache = new ColumnBlockCache(2 * blockSize)
+            ) {
+                for (int i = 0; i < count; i++) {
+                    Unsafe.getUnsafe().putLong(src + i * 8L, i * 3L);
+                }
+                compressor.compress(configuration.getFilesFacade(), path, configuration.getFilesFacade().getPageSize(), ColumnType.LONG, src, count);
+
+                final long fd = TableUtils.openRO(configuration.getFilesFacade(), path, LOG);
+                final long fileSize = configuration.getFilesFacade().length(fd);
+                final long mem = configuration.getFilesFacade().mmap(fd, fileSize, 0, Files.MAP_RO);
+                try {
+                    final long fileId = ColumnCompressor.getFileId(mem);
+                    // released blocks are reused once cache is full
+                    for (int block = 0; block < 4; block++) {
+                        final long address = cache.pin(mem, block);
+                        Assert.assertEquals(block * blockValueCount * 3L, Unsafe.getUnsafe().getLong(address));
+                        cache.unpin(fileId, block);
+                        Assert.assertTrue(cache.getAllocatedSize() <= 2 * blockSize);
+                    }
+                    Assert.assertEquals(4, cache.getMissCount());
+
+                    // most recently used block is a hit
+                    cache.pin(mem, 3);
+                    cache.unpin(fileId, 3);
+                    Assert.assertEquals(4, cache.getMissCount());
+
+                    // pinned blocks are never reused, cache grows over capacity and shrinks back on release
+                    for (int block = 0; block < 4; block++) {
+                        final long address = cache.pin(mem, block);
+                        Assert.assertEquals((block * blockValueCount + 1) * 3L, Unsafe.getUnsafe().getLong(address + 8));
+                    }
+                    Assert.assertEquals(4 * blockSize, cache.getAllocatedSize());
+                    for (int block = 0; block < 4; block++) {
+                        cache.unpin(fileId, block);
+                    }
+                    Assert.assertEquals(2 * blockSize, cache.getAllocatedSize());
+
+                    cache.clear();
+                    Assert.assertEquals(0, cache.getAllocatedSize());
+                } finally {
+                    configuration.getFilesFacade().munmap(mem, fileSize);
+                    configuration.getFilesFacade().close(fd);
+                }
+                Assert.assertTrue(configuration.getFilesFacade().remove(path));
+            } finally {
+                Unsafe.free(src, count * 8L);
+            }
+        });
+    }
+
+    @Test
+    public void testCompressedPageTracker() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int blockValueCount = 1 << ColumnCompressor.BLOCK_VALUE_COUNT_SHIFT;
+            final int count = 8 * blockValueCount;
+            final long blockSize = blockValueCount * 8L;
+            final long src = Unsafe.malloc(count * 8L);
+            try (
+                    Path path = new Path().of(root).concat("col").put(ColumnCompressor.FILE_SUFFIX).$();
+                    ColumnCompressor compressor = new ColumnCompressor();
+                    ColumnBlockCache cache = new ColumnBlockCache(2 * blockSize)
+            ) {
+                for (int i = 0; i < count; i++) {
+                    Unsafe.getUnsafe().putLong(src + i * 8L, i * 5L);
+                }
+                compressor.compress(configuration.getFilesFacade(), path, configuration.getFilesFacade().getPageSize(), ColumnType.LONG, src, count);
+
+                try (CompressedColumnMemory mem = new CompressedColumnMemory(configuration.getFilesFacade(), path, cache)) {
+                    Assert.assertEquals(8, mem.getPageCount());
+                    final CompressedPageTracker tracker = new CompressedPageTracker();
+                    tracker.of(2);
+
+                    // frames of two columns that read the same file, pages are released as scan moves past them
+                    for (int page = 0; page < 8; page++) {
+                        final long a = tracker.map(0, mem, page);
+                        final long b = tracker.map(1, mem, page);
+                        Assert.assertEquals(a, b);
+                        Assert.assertEquals(page * blockValueCount * 5L, Unsafe.getUnsafe().getLong(a));
+                        tracker.releaseRetired();
+                        Assert.assertEquals(0, tracker.getRetiredPageCount());
+                        Assert.assertTrue(cache.getAllocatedSize() <= 2 * blockSize);
+                    }
+                    Assert.assertEquals(8, cache.getMissCount());
+
+                    // retired pages are kept until consumer releases them, page that is still mapped stays pinned
+                    tracker.map(0, mem, 0);
+                    tracker.map(0, mem, 1);
+                    tracker.map(0, mem, 2);
+                    tracker.map(1, mem, 2);
+                    Assert.assertEquals(4, tracker.getRetiredPageCount());
+                    Assert.assertEquals(4 * blockSize, cache.getAllocatedSize());
+                    tracker.releaseRetired();
+                    Assert.assertEquals(2 * blockSize, cache.getAllocatedSize());
+                    Assert.assertEquals((2L * blockValueCount + 10) * 5L, Unsafe.getUnsafe().getLong(mem.getPageAddress(2) + 80));
+
+                    tracker.releaseAll();
+                    cache.clear();
+                    Assert.assertEquals(0, cache.getAllocatedSize());
+                }
+                Assert.assertTrue(configuration.getFilesFacade().remove(path));
+            } finally {
+                Unsafe.free(src, count * 8L);
+            }
+        });
+    }
+
+    @Test
+    public void testDoubles() throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(ColumnType.DOUBLE, 10_000, (i, prev) -> {
+            switch (rnd.nextInt(4)) {
+                case 0:
+                    return Double.doubleToLongBits(Double.NaN);
+                case 1:
+                    return Double.doubleToLongBits(rnd.nextDouble());
+                case 2:
+                    return prev;
+                default:
+                    return Double.doubleToLongBits(i * 0.25);
+            }
+        });
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertRoundTrip(ColumnType.LONG, 0, (i, prev) -> 0);
+        assertRoundTrip(ColumnType.DOUBLE, 0, (i, prev) -> 0);
+    }
+
+    @Test
+    public void testExtremeLongs() throws Exception {
+        final long[] values = {Long.MIN_VALUE, Long.MAX_VALUE, 0, Long.MIN_VALUE, -1, Long.MAX_VALUE, 1};
+        assertRoundTrip(ColumnType.LONG, values.length, (i, prev) -> values[i]);
+    }
+
+    @Test
+    public void testMultipleBlocks() throws Exception {
+        final Rnd rnd = new Rnd();
+        final int count = (7 << ColumnCompressor.BLOCK_VALUE_COUNT_SHIFT) / 2;
+        assertRoundTrip(ColumnType.TIMESTAMP, count, (i, prev) -> i == 0 ? 1_600_000_000_000_000L : prev + rnd.nextInt(1000));
+        assertRoundTrip(ColumnType.LONG, count, (i, prev) -> rnd.nextInt(100) == 0 ? rnd.nextLong() : prev + 1);
+        assertRoundTrip(ColumnType.DOUBLE, count, (i, prev) -> Double.doubleToLongBits(rnd.nextInt(20) == 0 ? Double.NaN : i * 0.5));
+    }
+
+    @Test
+    public void testRandomLongs() throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(ColumnType.LONG, 10_000, (i, prev) -> rnd.nextInt(10) == 0 ? Numbers.LONG_NaN : rnd.nextLong());
+    }
+
+    @Test
+    public void testSingleValue() throws Exception {
+        assertRoundTrip(ColumnType.TIMESTAMP, 1, (i, prev) -> 1_600_000_000_000_000L);
+        assertRoundTrip(ColumnType.DOUBLE, 1, (i, prev) -> Double.doubleToLongBits(-12.5));
+    }
+
+    @Test
+    public void testTimestamps() throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(ColumnType.TIMESTAMP, 100_000, (i, prev) -> i == 0 ? 1_600_000_000_000_000L : prev + 1000 + rnd.nextInt(3));
+    }
+
+    @Test
+    public void testTypes() {
+        Assert.assertTrue(ColumnCompressor.isCompressible(ColumnType.LONG));
+        Assert.assertTrue(ColumnCompressor.isCompressible(ColumnType.DATE));
+        Assert.assertTrue(ColumnCompressor.isCompressible(ColumnType.TIMESTAMP));
+        Assert.assertTrue(ColumnCompressor.isCompressible(ColumnType.DOUBLE));
+        Assert.assertFalse(ColumnCompressor.isCompressible(ColumnType.INT));
+        Assert.assertFalse(ColumnCompressor.isCompressible(ColumnType.STRING));
+        Assert.assertFalse(ColumnCompressor.isCompressible(ColumnType.SYMBOL));
+    }
+
+    private void assertRoundTrip(int columnType, int count, ValueGenerator generator) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final long size = count * 8L;
+            final long src = Unsafe.malloc(Math.max(size, 8));
+            try (
+                    Path path = new Path().of(root).concat("col").put(ColumnCompressor.FILE_SUFFIX).$();
+                    ColumnCompressor compressor = new ColumnCompressor()
+            ) {
+                long prev = 0;
+                for (int i = 0; i < count; i++) {
+                    prev = generator.next(i, prev);
+                    Unsafe.getUnsafe().putLong(src + i * 8L, prev);
+                }
+                compressor.compress(configuration.getFilesFacade(), path, configuration.getFilesFacade().getPageSize(), columnType, src, count);
+
+                final long fd = TableUtils.openRO(configuration.getFilesFacade(), path, LOG);
+                final long fileSize = configuration.getFilesFacade().length(fd);
+                final long mem = configuration.getFilesFacade().mmap(fd, fileSize, 0, Files.MAP_RO);
+                final long dst = Unsafe.malloc(Math.max(size, 8));
+                try {
+                    Assert.assertEquals(count, ColumnCompressor.getValueCount(mem));
+                    ColumnCompressor.decompress(mem, dst);
+                    for (int i = 0; i < count; i++) {
+                        Assert.assertEquals("at " + i, Unsafe.getUnsafe().getLong(src + i * 8L), Unsafe.getUnsafe().getLong(dst + i * 8L));
+                    }
+
+                    // blocks decode independently of each other, last one is shorter
+                    final int shift = ColumnCompressor.getBlockShift(mem);
+                    final int blockCount = ColumnCompressor.getBlockCount(mem);
+                    Assert.assertEquals((count + (1 << shift) - 1) >> shift, blockCount);
+                    for (int block = blockCount - 1; block > -1; block--) {
+                        final long lo = (long) block << shift;
+                        final long valueCount = ColumnCompressor.getBlockValueCount(mem, block);
+                        Assert.assertEquals(Math.min(1L << shift, count - lo), valueCount);
+                        ColumnCompressor.decompressBlock(mem, block, dst);
+                        for (long i = 0; i < valueCount; i++) {
+                            Assert.assertEquals("at " + (lo + i), Unsafe.getUnsafe().getLong(src + (lo + i) * 8L), Unsafe.getUnsafe().getLong(dst + i * 8L));
+                        }
+                    }
+                } finally {
+                    Unsafe.free(dst, Math.max(size, 8));
+                    configuration.getFilesFacade().munmap(mem, fileSize);
+                    configuration.getFilesFacade().close(fd);
+                }
+                Assert.assertTrue(configuration.getFilesFacade().remove(path));
+            } finally {
+                Unsafe.free(src, Math.max(size, 8));
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface ValueGenerator {
+        long next(int index, long prev);
+    }
+}
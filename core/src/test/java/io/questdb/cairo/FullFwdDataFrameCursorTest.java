@@ -2556,6 +2556,21 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
             return null;
         }
 
+        @Override
+        public MPSequence getPartitionCompressionPubSeq() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<PartitionCompressionTask> getPartitionCompressionQueue() {
+            return null;
+        }
+
+        @Override
+        public MCSequence getPartitionCompressionSubSeq() {
+            return null;
+        }
+
         @Override
         public Sequence getVectorAggregatePubSeq() {
             return null;
@@ -2570,5 +2585,50 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
         public Sequence getVectorAggregateSubSeq() {
             return null;
         }
+
+        @Override
+        public Sequence getFilterPubSeq() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<FilterTask> getFilterQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getFilterSubSeq() {
+            return null;
+        }
+
+        @Override
+        public Sequence getGroupByPubSeq() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<GroupByTask> getGroupByQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getGroupBySubSeq() {
+            return null;
+        }
+
+        @Override
+        public Sequence getHashJoinPubSeq() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<HashJoinTask> getHashJoinQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getHashJoinSubSeq() {
+            return null;
+        }
     }
 }
@@ -40,6 +40,7 @@ import org.jetbrains.annotations.Nullable;
 import org.junit.rules.TemporaryFolder;
 
 import java.util.Arrays;
+import java.util.Random;
 
 import static io.questdb.test.tools.TestUtils.assertMemoryLeak;
 
@@ -53,6 +54,7 @@ public class HttpQueryTestBuilder {
                                     int workerCount);
     }
 
+    public static final long CURSOR_ID_SEED = 0;
     private static final Log LOG = LogFactory.getLog(HttpQueryTestBuilder.class);
     private boolean telemetry;
     private TemporaryFolder temp;
@@ -223,7 +225,9 @@ public class HttpQueryTestBuilder {
                     }
                 });
 
-                QueryCache.configure(httpConfiguration);
+                // seeded ids let tests assert ids of open cursors
+                QueryCache.configure(httpConfiguration, new Random(CURSOR_ID_SEED));
+                workerPool.assign(QueryCache.getInstance().getCursors());
 
                 workerPool.start(LOG);
 
@@ -38,6 +38,8 @@ import io.questdb.std.StationaryMillisClock;
 import io.questdb.std.datetime.millitime.MillisecondClock;
 import io.questdb.std.datetime.millitime.MillisecondClockImpl;
 
+import java.util.Arrays;
+
 public class HttpServerConfigurationBuilder {
     private NetworkFacade nf = NetworkFacadeImpl.INSTANCE;
     private String baseDir;
@@ -51,6 +53,7 @@ public class HttpServerConfigurationBuilder {
     private int receiveBufferSize = 1024 * 1024;
     private long multipartIdleSpinCount = -1;
     private Runnable onPeerDisconnect = HttpContextConfiguration.NONE;
+    private int workerCount = 2;
 
     public HttpServerConfigurationBuilder withNetwork(NetworkFacade nf) {
         this.nf = nf;
@@ -102,6 +105,11 @@ public class HttpServerConfigurationBuilder {
         return this;
     }
 
+    public HttpServerConfigurationBuilder withWorkerCount(int workerCount) {
+        this.workerCount = workerCount;
+        return this;
+    }
+
     public HttpServerConfigurationBuilder withReceiveBufferSize(int receiveBufferSize) {
         this.receiveBufferSize = receiveBufferSize;
         return this;
@@ -186,6 +194,16 @@ public class HttpServerConfigurationBuilder {
                     return configuredMaxQueryResponseRowLimit;
                 }
 
+                @Override
+                public int getMaxOpenCursors() {
+                    return 16;
+                }
+
+                @Override
+                public long getOpenCursorTimeout() {
+                    return 60_000;
+                }
+
                 @Override
                 public SqlInterruptorConfiguration getInterruptorConfiguration() {
                     return sqlInterruptorConfiguration;
@@ -286,6 +304,18 @@ public class HttpServerConfigurationBuilder {
             public JsonQueryProcessorConfiguration getJsonQueryProcessorConfiguration() {
                 return jsonQueryProcessorConfiguration;
             }
+
+            @Override
+            public int[] getWorkerAffinity() {
+                final int[] affinity = new int[workerCount];
+                Arrays.fill(affinity, -1);
+                return affinity;
+            }
+
+            @Override
+            public int getWorkerCount() {
+                return workerCount;
+            }
         };
     }
 }
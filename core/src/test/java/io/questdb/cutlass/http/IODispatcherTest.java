@@ -57,6 +57,8 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -2102,6 +2104,87 @@ public class IODispatcherTest {
         );
     }
 
+    @Test
+    public void testJsonQueryCursorPaging() throws Exception {
+        testJsonQuery0(1, engine -> {
+            final Random ids = new Random(HttpQueryTestBuilder.CURSOR_ID_SEED);
+            final long firstCursorId = ids.nextLong() & Long.MAX_VALUE;
+            final long secondCursorId = ids.nextLong() & Long.MAX_VALUE;
+            try {
+                // cursor can only be resumed by the connection that opened it
+                new SendAndReceiveRequestBuilder().executeMany(requester -> {
+                    requester.execute(
+                            "GET /query?query=create%20table%20xx%20as%20(select%20x%20from%20long_sequence(10)) HTTP/1.1\r\n" +
+                                    "Host: localhost:9001\r\n" +
+                                    "Connection: keep-alive\r\n" +
+                                    "\r\n",
+                            jsonResponse("{\"ddl\":\"OK\"}")
+                    );
+
+                    // first page opens cursor
+                    requester.execute(
+                            "GET /query?query=xx&limit=1,4&cursor=true HTTP/1.1\r\n" +
+                                    "Host: localhost:9001\r\n" +
+                                    "Connection: keep-alive\r\n" +
+                                    "\r\n",
+                            jsonResponse("{\"query\":\"xx\",\"columns\":[{\"name\":\"x\",\"type\":\"LONG\"}],\"dataset\":[[1],[2],[3],[4]],\"count\":4,\"cursor\":" + firstCursorId + "}")
+                    );
+
+                    // open cursor keeps reading table as of the first page
+                    requester.execute(
+                            "GET /query?query=insert%20into%20xx%20values(11) HTTP/1.1\r\n" +
+                                    "Host: localhost:9001\r\n" +
+                                    "Connection: keep-alive\r\n" +
+                                    "\r\n",
+                            jsonResponse("{\"ddl\":\"OK\"}")
+                    );
+
+                    // next page resumes cursor
+                    requester.execute(
+                            "GET /query?query=xx&limit=5,8&cursor=" + firstCursorId + " HTTP/1.1\r\n" +
+                                    "Host: localhost:9001\r\n" +
+                                    "Connection: keep-alive\r\n" +
+                                    "\r\n",
+                            jsonResponse("{\"query\":\"xx\",\"columns\":[{\"name\":\"x\",\"type\":\"LONG\"}],\"dataset\":[[5],[6],[7],[8]],\"count\":8,\"cursor\":" + firstCursorId + "}")
+                    );
+
+                    // another connection cannot resume the cursor, query is executed again
+                    sendAndReceive(
+                            NetworkFacadeImpl.INSTANCE,
+                            "GET /query?query=xx&limit=9,12&cursor=" + firstCursorId + " HTTP/1.1\r\n" +
+                                    "Host: localhost:9001\r\n" +
+                                    "Connection: keep-alive\r\n" +
+                                    "\r\n",
+                            jsonResponse("{\"query\":\"xx\",\"columns\":[{\"name\":\"x\",\"type\":\"LONG\"}],\"dataset\":[[9],[10],[11]],\"count\":11}"),
+                            1,
+                            0,
+                            false
+                    );
+
+                    // last page closes cursor
+                    requester.execute(
+                            "GET /query?query=xx&limit=9,12&cursor=" + firstCursorId + " HTTP/1.1\r\n" +
+                                    "Host: localhost:9001\r\n" +
+                                    "Connection: keep-alive\r\n" +
+                                    "\r\n",
+                            jsonResponse("{\"query\":\"xx\",\"columns\":[{\"name\":\"x\",\"type\":\"LONG\"}],\"dataset\":[[9],[10]],\"count\":10}")
+                    );
+
+                    // closed cursor, query is executed again and new cursor is opened
+                    requester.execute(
+                            "GET /query?query=xx&limit=3,4&cursor=" + firstCursorId + " HTTP/1.1\r\n" +
+                                    "Host: localhost:9001\r\n" +
+                                    "Connection: keep-alive\r\n" +
+                                    "\r\n",
+                            jsonResponse("{\"query\":\"xx\",\"columns\":[{\"name\":\"x\",\"type\":\"LONG\"}],\"dataset\":[[3],[4]],\"count\":4,\"cursor\":" + secondCursorId + "}")
+                    );
+                });
+            } catch (BrokenBarrierException e) {
+                throw new AssertionError(e);
+            }
+        }, false);
+    }
+
     @Test
     public void testJsonQueryDataError() throws Exception {
         assertMemoryLeak(() -> {
@@ -5492,6 +5575,22 @@ public class IODispatcherTest {
         Assert.assertEquals(requestLen, Net.send(fd, buffer, requestLen));
     }
 
+    private static String jsonResponse(String json) {
+        final StringSink chunkSize = new StringSink();
+        Numbers.appendHex(chunkSize, json.length());
+        return "HTTP/1.1 200 OK\r\n" +
+                "Server: questDB/1.0\r\n" +
+                "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                "Transfer-Encoding: chunked\r\n" +
+                "Content-Type: application/json; charset=utf-8\r\n" +
+                "Keep-Alive: timeout=5, max=10000\r\n" +
+                "\r\n" +
+                chunkSize + "\r\n" +
+                json + "\r\n" +
+                "00\r\n" +
+                "\r\n";
+    }
+
     private static void sendAndReceive(
             NetworkFacade nf,
             String request,
@@ -0,0 +1,359 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http;
+
+import io.questdb.WorkerPoolAwareConfiguration;
+import io.questdb.cairo.AbstractCairoTest;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.pool.PoolListener;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cutlass.line.tcp.DefaultLineTcpReceiverConfiguration;
+import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
+import io.questdb.cutlass.line.tcp.LineTcpServer;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.WorkerPool;
+import io.questdb.mp.WorkerPoolConfiguration;
+import io.questdb.network.DefaultIODispatcherConfiguration;
+import io.questdb.network.IODispatcherConfiguration;
+import io.questdb.network.Net;
+import io.questdb.network.NetworkError;
+import io.questdb.std.Chars;
+import io.questdb.std.Misc;
+import io.questdb.std.Os;
+import io.questdb.std.Unsafe;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+public class LineHttpProcessorTest extends AbstractCairoTest {
+    private static final Log LOG = LogFactory.getLog(LineHttpProcessorTest.class);
+    private static final String BOUNDARY = "------------------------27d997ca93d2689d";
+    private static final String RequestHeader = "POST /write HTTP/1.1\r\n" +
+            "Host: localhost:9001\r\n" +
+            "User-Agent: curl/7.64.0\r\n" +
+            "Accept: */*\r\n" +
+            "Content-Length: 437760673\r\n" +
+            "Content-Type: multipart/form-data; boundary=" + BOUNDARY + "\r\n" +
+            "Expect: 100-continue\r\n" +
+            "\r\n";
+    private static final String RequestFooter = "\r\n" +
+            "--" + BOUNDARY + "--";
+    private static final String ResponseHeader = "HTTP/1.1 200 OK\r\n" +
+            "Server: questDB/1.0\r\n" +
+            "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+            "Transfer-Encoding: chunked\r\n" +
+            "Content-Type: application/json\r\n" +
+            "Keep-Alive: timeout=5, max=10000\r\n" +
+            "\r\n";
+
+    private final WorkerPool sharedWorkerPool = new WorkerPool(new WorkerPoolConfiguration() {
+        private final int[] affinity = {-1, -1};
+
+        @Override
+        public int[] getWorkerAffinity() {
+            return affinity;
+        }
+
+        @Override
+        public int getWorkerCount() {
+            return 2;
+        }
+
+        @Override
+        public boolean haltOnError() {
+            return true;
+        }
+    });
+    private final IODispatcherConfiguration ioDispatcherConfiguration = new DefaultIODispatcherConfiguration() {
+        @Override
+        public int getBindIPv4Address() {
+            return 0;
+        }
+
+        @Override
+        public int getBindPort() {
+            // Dont clash with other tests since they may run in parallel
+            return 9003;
+        }
+    };
+    private final LineTcpReceiverConfiguration lineConfiguration = new DefaultLineTcpReceiverConfiguration() {
+        @Override
+        public IODispatcherConfiguration getNetDispatcherConfiguration() {
+            return ioDispatcherConfiguration;
+        }
+
+        @Override
+        public int getNetMsgBufferSize() {
+            // measurements are moved to the start of the buffer as the request is parsed
+            return 256;
+        }
+
+        @Override
+        public int getWriterQueueCapacity() {
+            // request is retried when queue is full
+            return 4;
+        }
+    };
+    private Runnable onPeerDisconnect = HttpContextConfiguration.NONE;
+
+    @Test
+    public void testLargeRequest() throws Exception {
+        final int nRows = 1000;
+        final String[] tables = {"weather1", "weather2", "weather3"};
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < nRows; i++) {
+            body.append(tables[i % tables.length])
+                    .append(",location=london temperature=").append(i)
+                    .append(' ').append(1465839830100400200L + i * 1000L)
+                    .append('\n');
+        }
+
+        runInContext(() -> {
+            new SendAndReceiveRequestBuilder().execute(
+                    RequestHeader +
+                            partHeader("weather.txt") +
+                            body +
+                            RequestFooter,
+                    ResponseHeader +
+                            "45\r\n" +
+                            "{\"status\":\"OK\",\"linesAccepted\":1000,\"linesRejected\":0,\"rowsFailed\":0}\r\n" +
+                            "00\r\n" +
+                            "\r\n"
+            );
+
+            // response is sent once the rows are committed
+            for (int i = 0; i < tables.length; i++) {
+                try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, tables[i])) {
+                    Assert.assertEquals((nRows + tables.length - 1 - i) / tables.length, reader.size());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testDisconnectInCommitPhase() throws Exception {
+        final SOCountDownLatch disconnected = new SOCountDownLatch(1);
+        final SOCountDownLatch weatherWriterRequested = new SOCountDownLatch(1);
+        final SOCountDownLatch weatherWriterAllowed = new SOCountDownLatch(1);
+        final SOCountDownLatch cpuTableOpened = new SOCountDownLatch(1);
+        final SOCountDownLatch cpuWriterRequested = new SOCountDownLatch(1);
+        final SOCountDownLatch cpuWriterAllowed = new SOCountDownLatch(1);
+        onPeerDisconnect = disconnected::countDown;
+        runInContext(() -> {
+            // writer thread is held when it opens table writers, commits wait for it
+            engine.setPoolListener((factoryType, thread, name, event, segment, position) -> {
+                if (factoryType == PoolListener.SRC_READER && Chars.equals(name, "cpu")) {
+                    cpuTableOpened.countDown();
+                } else if (factoryType == PoolListener.SRC_WRITER && (event == PoolListener.EV_CREATE || event == PoolListener.EV_GET)) {
+                    if (Chars.equals(name, "weather")) {
+                        weatherWriterRequested.countDown();
+                        weatherWriterAllowed.await();
+                    } else if (Chars.equals(name, "cpu")) {
+                        cpuWriterRequested.countDown();
+                        cpuWriterAllowed.await();
+                    }
+                }
+            });
+
+            final AtomicLong nCpuRowsOnResponse = new AtomicLong(-1);
+            final AtomicReference<Throwable> error = new AtomicReference<>();
+            final Thread client = new Thread(() -> {
+                try {
+                    new SendAndReceiveRequestBuilder().execute(
+                            RequestHeader +
+                                    partHeader("cpu.txt") +
+                                    "cpu,host=a usage=1.5 1465839830100800200\n" +
+                                    RequestFooter,
+                            ResponseHeader +
+                                    "42\r\n" +
+                                    "{\"status\":\"OK\",\"linesAccepted\":1,\"linesRejected\":0,\"rowsFailed\":0}\r\n" +
+                                    "00\r\n" +
+                                    "\r\n"
+                    );
+                    nCpuRowsOnResponse.set(countRows("cpu"));
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            });
+            try {
+                // first client gives up while its request waits for the commit
+                final long fd = connectAndSend(
+                        RequestHeader +
+                                partHeader("weather.txt") +
+                                "weather,location=london temperature=10 1465839830100400200\n" +
+                                RequestFooter
+                );
+                weatherWriterRequested.await();
+                Net.close(fd);
+                disconnected.await();
+
+                // second request is served by the same connection context, acknowledgements
+                // of the abandoned request must not complete it
+                client.start();
+                cpuTableOpened.await();
+                // let the second request publish its commit before the first one is acknowledged
+                LockSupport.parkNanos(200_000_000L);
+                weatherWriterAllowed.countDown();
+                cpuWriterRequested.await();
+                LockSupport.parkNanos(200_000_000L);
+                Assert.assertEquals(-1, nCpuRowsOnResponse.get());
+            } finally {
+                weatherWriterAllowed.countDown();
+                cpuWriterAllowed.countDown();
+                client.join();
+                engine.setPoolListener(null);
+            }
+            Assert.assertNull(error.get());
+            Assert.assertEquals(1, nCpuRowsOnResponse.get());
+            Assert.assertEquals(1, countRows("weather"));
+        });
+    }
+
+    @Test
+    public void testMultipleParts() throws Exception {
+        runInContext(() -> {
+            new SendAndReceiveRequestBuilder().execute(
+                    RequestHeader +
+                            partHeader("weather.txt") +
+                            "weather,location=london temperature=10 1465839830100400200\n" +
+                            "weather,location=paris temperature=12 1465839830100500200\n" +
+                            "weather,location=rome temperature=11 yesterday\n" +
+                            // last measurement of the part does not end with new line
+                            "weather,location=rome temperature=13 1465839830100700200" +
+                            "\r\n" +
+                            partHeader("cpu.txt") +
+                            "cpu,host=a usage=1.5 1465839830100800200\n" +
+                            RequestFooter,
+                    ResponseHeader +
+                            "42\r\n" +
+                            "{\"status\":\"OK\",\"linesAccepted\":4,\"linesRejected\":1,\"rowsFailed\":0}\r\n" +
+                            "00\r\n" +
+                            "\r\n"
+            );
+
+            assertTable(
+                    "location\ttemperature\ttimestamp\n" +
+                            "london\t10.0\t2016-06-13T17:43:50.100400Z\n" +
+                            "paris\t12.0\t2016-06-13T17:43:50.100500Z\n" +
+                            "rome\t13.0\t2016-06-13T17:43:50.100700Z\n",
+                    "weather"
+            );
+            assertTable(
+                    "host\tusage\ttimestamp\n" +
+                            "a\t1.5\t2016-06-13T17:43:50.100800Z\n",
+                    "cpu"
+            );
+        });
+    }
+
+    private static String partHeader(String fileName) {
+        return "--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"data\"; filename=\"" + fileName + "\"\r\n" +
+                "Content-Type: application/octet-stream\r\n" +
+                "\r\n";
+    }
+
+    private static long connectAndSend(String request) {
+        final long fd = Net.socketTcp(true);
+        final long sockaddr = Net.sockaddr(Net.parseIPv4("127.0.0.1"), 9001);
+        final byte[] bytes = request.getBytes(StandardCharsets.UTF_8);
+        final long buf = Unsafe.malloc(bytes.length);
+        try {
+            if (Net.connect(fd, sockaddr) != 0) {
+                Net.close(fd);
+                throw NetworkError.instance(Os.errno(), "could not connect");
+            }
+            for (int i = 0; i < bytes.length; i++) {
+                Unsafe.getUnsafe().putByte(buf + i, bytes[i]);
+            }
+            Assert.assertEquals(bytes.length, Net.send(fd, buf, bytes.length));
+            return fd;
+        } finally {
+            Unsafe.free(buf, bytes.length);
+            Net.freeSockAddr(sockaddr);
+        }
+    }
+
+    private long countRows(CharSequence tableName) {
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            return reader.size();
+        } catch (CairoException e) {
+            // table is not created yet
+            return 0;
+        }
+    }
+
+    private void assertTable(CharSequence expected, CharSequence tableName) {
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            assertCursorTwoPass(expected, reader.getCursor(), reader.getMetadata());
+        }
+    }
+
+    private void runInContext(LineHttpTestCode code) throws Exception {
+        assertMemoryLeak(() -> {
+            final DefaultHttpServerConfiguration httpConfiguration = new HttpServerConfigurationBuilder()
+                    .withBaseDir(temp.getRoot().getAbsolutePath())
+                    .withOnPeerDisconnect(onPeerDisconnect)
+                    // single HTTP worker reuses connection context of the closed connection for the next one
+                    .withWorkerCount(1)
+                    .build();
+            final LineTcpServer lineTcpServer = LineTcpServer.create(
+                    lineConfiguration,
+                    sharedWorkerPool,
+                    LOG,
+                    engine,
+                    WorkerPoolAwareConfiguration.configuredWorkerCount(httpConfiguration, sharedWorkerPool)
+            );
+            final HttpServer httpServer = HttpServer.create(
+                    httpConfiguration,
+                    sharedWorkerPool,
+                    LOG,
+                    engine,
+                    null,
+                    lineTcpServer
+            );
+            sharedWorkerPool.start(LOG);
+            try {
+                code.run();
+            } finally {
+                sharedWorkerPool.halt();
+                Misc.free(httpServer);
+                Misc.free(lineTcpServer);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface LineHttpTestCode {
+        void run() throws InterruptedException;
+    }
+}
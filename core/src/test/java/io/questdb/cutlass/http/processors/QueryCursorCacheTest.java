@@ -0,0 +1,239 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.cairo.AbstractCairoTest;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.sql.NoRandomAccessRecordCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.DefaultSqlInterruptorConfiguration;
+import io.questdb.griffin.HttpSqlExecutionInterruptor;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.EmptyTableRecordCursorFactory;
+import io.questdb.std.ConcurrentAssociativeCache;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class QueryCursorCacheTest extends AbstractCairoTest {
+    private static final long OWNER = 1;
+    private long now = 0;
+
+    @Test
+    public void testCapacity() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final ConcurrentAssociativeCache<RecordCursorFactory> factories = new ConcurrentAssociativeCache<>(4, 4);
+            try (QueryCursorCache cache = new QueryCursorCache(2, 1000, () -> now, new Random(0), factories)) {
+                final TestCursor c0 = new TestCursor();
+                final TestCursor c1 = new TestCursor();
+                final TestCursor c2 = new TestCursor();
+                Assert.assertTrue(cache.push(newEntry(), 0, OWNER, "a", 10, newFactory(), c0));
+                now = 1;
+                Assert.assertTrue(cache.push(newEntry(), 1, OWNER, "b", 10, newFactory(), c1));
+                now = 2;
+                // least recently used cursor is closed to make room
+                Assert.assertTrue(cache.push(newEntry(), 2, OWNER, "c", 10, newFactory(), c2));
+                Assert.assertTrue(c0.closed);
+                Assert.assertFalse(c1.closed);
+                Assert.assertFalse(c2.closed);
+                Assert.assertEquals(2, cache.size());
+                Assert.assertNull(cache.poll(0, OWNER, "a", 10));
+                final RecordCursorFactory factory = factories.poll("a");
+                Assert.assertNotNull(factory);
+                factory.close();
+            } finally {
+                factories.close();
+            }
+        });
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final ConcurrentAssociativeCache<RecordCursorFactory> factories = new ConcurrentAssociativeCache<>(4, 4);
+            try (
+                    QueryCursorCache cache = new QueryCursorCache(0, 1000, () -> now, new Random(0), factories);
+                    QueryCursorCache.Entry entry = newEntry()
+            ) {
+                Assert.assertFalse(cache.isEnabled());
+                Assert.assertFalse(cache.push(entry, 0, OWNER, "a", 10, null, new TestCursor()));
+            } finally {
+                factories.close();
+            }
+        });
+    }
+
+    @Test
+    public void testIds() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final ConcurrentAssociativeCache<RecordCursorFactory> factories = new ConcurrentAssociativeCache<>(4, 4);
+            try (QueryCursorCache cache = new QueryCursorCache(4, 1000, () -> now, new Random(42), factories)) {
+                final Random expected = new Random(42);
+                for (int i = 0; i < 4; i++) {
+                    final long id = cache.nextId();
+                    Assert.assertEquals(expected.nextLong() & Long.MAX_VALUE, id);
+                    Assert.assertTrue(id >= 0);
+                }
+            } finally {
+                factories.close();
+            }
+        });
+    }
+
+    @Test
+    public void testPoll() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final ConcurrentAssociativeCache<RecordCursorFactory> factories = new ConcurrentAssociativeCache<>(4, 4);
+            try (QueryCursorCache cache = new QueryCursorCache(4, 1000, () -> now, new Random(0), factories)) {
+                final QueryCursorCache.Entry pushed = newEntry();
+                final RecordCursorFactory factory = newFactory();
+                final TestCursor cursor = new TestCursor();
+                final long id = cache.nextId();
+                Assert.assertTrue(cache.push(pushed, id, OWNER, "select * from x", 100, factory, cursor));
+
+                // different connection, query text or page that does not continue the cursor
+                Assert.assertNull(cache.poll(id, OWNER + 1, "select * from x", 100));
+                Assert.assertNull(cache.poll(id, OWNER, "select * from y", 100));
+                Assert.assertNull(cache.poll(id, OWNER, "select * from x", 50));
+                Assert.assertNull(cache.poll(id + 1, OWNER, "select * from x", 100));
+                Assert.assertEquals(1, cache.size());
+
+                try (QueryCursorCache.Entry entry = cache.poll(id, OWNER, "select * from x", 100)) {
+                    Assert.assertSame(pushed, entry);
+                    Assert.assertEquals(id, entry.getId());
+                    Assert.assertSame(factory, entry.getFactory());
+                    Assert.assertSame(cursor, entry.getCursor());
+                    Assert.assertEquals(0, cache.size());
+                    Assert.assertFalse(cursor.closed);
+                }
+                Assert.assertTrue(cursor.closed);
+            } finally {
+                factories.close();
+            }
+        });
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final ConcurrentAssociativeCache<RecordCursorFactory> factories = new ConcurrentAssociativeCache<>(4, 4);
+            try (QueryCursorCache cache = new QueryCursorCache(4, 1000, () -> now, new Random(0), factories)) {
+                final TestCursor cursor = new TestCursor();
+                Assert.assertTrue(cache.push(newEntry(), 0, OWNER, "a", 10, newFactory(), cursor));
+                now = 1001;
+                Assert.assertNull(cache.poll(0, OWNER, "a", 10));
+                Assert.assertTrue(cursor.closed);
+                // factory of timed out cursor is returned to query cache
+                final RecordCursorFactory factory = factories.poll("a");
+                Assert.assertNotNull(factory);
+                factory.close();
+            } finally {
+                factories.close();
+            }
+        });
+    }
+
+    @Test
+    public void testTimeoutJob() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final ConcurrentAssociativeCache<RecordCursorFactory> factories = new ConcurrentAssociativeCache<>(4, 4);
+            try (QueryCursorCache cache = new QueryCursorCache(4, 1000, () -> now, new Random(0), factories)) {
+                final TestCursor c0 = new TestCursor();
+                final TestCursor c1 = new TestCursor();
+                Assert.assertTrue(cache.push(newEntry(), 0, OWNER, "a", 10, newFactory(), c0));
+                now = 500;
+                Assert.assertTrue(cache.push(newEntry(), 1, OWNER, "b", 10, newFactory(), c1));
+
+                now = 1000;
+                Assert.assertFalse(cache.run(0));
+                Assert.assertEquals(2, cache.size());
+
+                // job closes timed out cursor without anyone touching the cache
+                now = 1001;
+                Assert.assertTrue(cache.run(0));
+                Assert.assertTrue(c0.closed);
+                Assert.assertFalse(c1.closed);
+                Assert.assertEquals(1, cache.size());
+
+                now = 1501;
+                Assert.assertTrue(cache.run(0));
+                Assert.assertTrue(c1.closed);
+                Assert.assertEquals(0, cache.size());
+                Assert.assertFalse(cache.run(0));
+
+                RecordCursorFactory factory = factories.poll("a");
+                Assert.assertNotNull(factory);
+                factory.close();
+                factory = factories.poll("b");
+                Assert.assertNotNull(factory);
+                factory.close();
+            } finally {
+                factories.close();
+            }
+        });
+    }
+
+    private static RecordCursorFactory newFactory() {
+        return new EmptyTableRecordCursorFactory(new GenericRecordMetadata());
+    }
+
+    private static QueryCursorCache.Entry newEntry() {
+        return new QueryCursorCache.Entry(
+                new SqlExecutionContextImpl(engine, 1),
+                new HttpSqlExecutionInterruptor(new DefaultSqlInterruptorConfiguration())
+        );
+    }
+
+    private static class TestCursor implements NoRandomAccessRecordCursor {
+        private boolean closed = false;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public Record getRecord() {
+            return null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return false;
+        }
+
+        @Override
+        public void toTop() {
+        }
+
+        @Override
+        public long size() {
+            return 0;
+        }
+    }
+}
@@ -42,6 +42,7 @@ import io.questdb.cairo.TableModel;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.TableReaderRecordCursor;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cutlass.line.tcp.LineTcpMeasurementScheduler.MeasurementPublisher;
 import io.questdb.cutlass.line.tcp.LineTcpMeasurementScheduler.NetworkIOJob;
 import io.questdb.cutlass.line.tcp.LineTcpMeasurementScheduler.TableUpdateDetails;
 import io.questdb.griffin.SqlCompiler;
@@ -955,6 +956,37 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testMultipleMeasurementsSpanningEvents() throws Exception {
+        final long initialTimestampNanos = 1465839830100400200L;
+        final int nWeatherRows = 300;
+        final int nRainRows = 5;
+        runInContext(() -> {
+            StringBuilder sb = new StringBuilder();
+            long timestamp = initialTimestampNanos;
+            for (int n = 0; n < nWeatherRows; n++) {
+                sb.append("weather,location=us-midwest temperature=").append(n % 100).append(' ').append(timestamp).append('\n');
+                timestamp += 1000;
+                if (n == nWeatherRows / 2) {
+                    long rainTimestamp = initialTimestampNanos;
+                    for (int i = 0; i < nRainRows; i++) {
+                        sb.append("rain,location=us-eastcoast amount=").append(i).append(' ').append(rainTimestamp).append('\n');
+                        rainTimestamp += 1000;
+                    }
+                }
+            }
+            recvBuffer = sb.toString();
+            do {
+                handleContextIO();
+                Assert.assertFalse(disconnected);
+            } while (recvBuffer.length() > 0);
+            waitForIOCompletion();
+            closeContext();
+            assertTableCount("weather", nWeatherRows, initialTimestampNanos + (nWeatherRows - 1) * 1000L);
+            assertTableCount("rain", nRainRows, initialTimestampNanos + (nRainRows - 1) * 1000L);
+        });
+    }
+
     @Test
     public void testOverflow() throws Exception {
         runInContext(() -> {
@@ -1238,11 +1270,11 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
 
         scheduler = new LineTcpMeasurementScheduler(lineTcpConfiguration, engine, netIoWorkerPool, null, workerPool) {
             @Override
-            boolean tryButCouldNotCommit(NetworkIOJob netIoJob, NewLineProtoParser protoParser, FloatingDirectCharSink charSink) {
+            boolean tryButCouldNotCommit(MeasurementPublisher publisher, NewLineProtoParser protoParser, FloatingDirectCharSink charSink) {
                 if (null != onCommitNewEvent) {
                     onCommitNewEvent.run();
                 }
-                return super.tryButCouldNotCommit(netIoJob, protoParser, charSink);
+                return super.tryButCouldNotCommit(publisher, protoParser, charSink);
             }
 
             @Override
@@ -49,6 +49,7 @@ import org.junit.Test;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.security.PrivateKey;
+import java.util.Arrays;
 import java.util.concurrent.locks.LockSupport;
 
 public class LineTcpServerTest extends AbstractCairoTest {
@@ -92,6 +93,7 @@ public class LineTcpServerTest extends AbstractCairoTest {
     };
     private String authKeyId = null;
     private int msgBufferSize = 1024;
+    private int writerQueueCapacity = 4;
     private long minIdleMsBeforeWriterRelease = 30000;
     private final LineTcpReceiverConfiguration lineConfiguration = new DefaultLineTcpReceiverConfiguration() {
         @Override
@@ -111,7 +113,7 @@ public class LineTcpServerTest extends AbstractCairoTest {
 
         @Override
         public int getWriterQueueCapacity() {
-            return 4;
+            return writerQueueCapacity;
         }
 
         @Override
@@ -168,6 +170,79 @@ public class LineTcpServerTest extends AbstractCairoTest {
         test(AUTH_KEY_ID2, AUTH_PRIVATE_KEY2, 768, 100);
     }
 
+    @Test
+    public void testRebalanceManyConnections() throws Exception {
+        testRebalance(3, 6, 30_000);
+    }
+
+    @Test
+    public void testRebalanceSingleConnection() throws Exception {
+        testRebalance(1, 4, 20_000);
+    }
+
+    @Test
+    public void testRebalanceAfterIdleRelease() throws Exception {
+        // writer threads are started once release event of the table is queued ahead of its rebalance event
+        writerQueueCapacity = 64;
+        minIdleMsBeforeWriterRelease = 50;
+        assertMemoryLeak(() -> {
+            final WorkerPool ioWorkerPool = newWorkerPool(1);
+            final WorkerPool writerWorkerPool = newWorkerPool(2);
+            final long timestamp = 1465839830100400200L;
+            try (LineTcpServer tcpServer = new LineTcpServer(lineConfiguration, engine, ioWorkerPool, writerWorkerPool, new ObjList<>())) {
+                final LineTcpMeasurementScheduler scheduler = tcpServer.getScheduler();
+                ioWorkerPool.assignCleaner(Path.CLEANER);
+                writerWorkerPool.assignCleaner(Path.CLEANER);
+                ioWorkerPool.start(LOG);
+                try {
+                    try (LineProtoSender sender = new LineTCPProtoSender(Net.parseIPv4("127.0.0.1"), bindPort, 4096)) {
+                        // new tables go to the least loaded thread, weather0 ends up next to weather1
+                        sendRows(sender, "weather1", 0, 60, timestamp);
+                        sendRows(sender, "weather2", 0, 80, timestamp);
+                        sendRows(sender, "weather0", 0, 1, timestamp);
+                        sender.flush();
+
+                        final long startEpochMs = System.currentTimeMillis();
+                        while (!scheduler.isTableIdle("weather0")) {
+                            Assert.assertTrue(System.currentTimeMillis() - startEpochMs < TEST_TIMEOUT_IN_MS);
+                            LockSupport.parkNanos(1_000_000);
+                        }
+
+                        // table goes active again and, being the least loaded one, is moved to the second writer thread
+                        sendRows(sender, "weather0", 1, 1, timestamp);
+                        sendRows(sender, "weather1", 60, 50, timestamp);
+                        sender.flush();
+                        while (scheduler.getNRebalances() == 0) {
+                            Assert.assertTrue(System.currentTimeMillis() - startEpochMs < TEST_TIMEOUT_IN_MS);
+                            LockSupport.parkNanos(1_000_000);
+                        }
+                        Assert.assertTrue(scheduler.isHandoffInProgress());
+                        sendRows(sender, "weather0", 2, 1, timestamp);
+                        sender.flush();
+                    }
+
+                    writerWorkerPool.start(LOG);
+                    final long startEpochMs = System.currentTimeMillis();
+                    while (countRows("weather0") < 3 || countRows("weather1") < 110 || countRows("weather2") < 80) {
+                        Assert.assertTrue(System.currentTimeMillis() - startEpochMs < TEST_TIMEOUT_IN_MS);
+                        LockSupport.parkNanos(1_000_000);
+                    }
+                } finally {
+                    writerWorkerPool.halt();
+                    ioWorkerPool.halt();
+                }
+
+                Assert.assertEquals(1, scheduler.getNRebalances());
+                Assert.assertFalse(scheduler.isHandoffInProgress());
+                Assert.assertEquals(0, scheduler.getNPendingHandoffs());
+            }
+
+            assertRowsInOrder("weather0", 3);
+            assertRowsInOrder("weather1", 110);
+            assertRowsInOrder("weather2", 80);
+        });
+    }
+
     @Test
     public void testUnauthenticated() throws Exception {
         test(null, null, 200, 1_000);
@@ -393,6 +468,128 @@ public class LineTcpServerTest extends AbstractCairoTest {
         }
     }
 
+    private void assertRowsInOrder(CharSequence tableName, int nRows) {
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            final int seqIndex = reader.getMetadata().getColumnIndex("seq");
+            final TableReaderRecordCursor cursor = reader.getCursor();
+            long expectedSeq = 0;
+            while (cursor.hasNext()) {
+                Assert.assertEquals(tableName.toString(), expectedSeq++, cursor.getRecord().getLong(seqIndex));
+            }
+            Assert.assertEquals(tableName.toString(), nRows, expectedSeq);
+        }
+    }
+
+    private int countRows(CharSequence tableName) {
+        while (true) {
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+                return (int) reader.size();
+            } catch (EntryLockedException ex) {
+                LOG.info().$("retrying read for ").$(tableName).$();
+                LockSupport.parkNanos(1);
+            } catch (CairoException ex) {
+                // table is not created yet
+                return 0;
+            }
+        }
+    }
+
+    private static WorkerPool newWorkerPool(int workerCount) {
+        return new WorkerPool(new WorkerPoolConfiguration() {
+            private final int[] affinity = new int[workerCount];
+
+            {
+                Arrays.fill(affinity, -1);
+            }
+
+            @Override
+            public int[] getWorkerAffinity() {
+                return affinity;
+            }
+
+            @Override
+            public int getWorkerCount() {
+                return workerCount;
+            }
+
+            @Override
+            public boolean haltOnError() {
+                return true;
+            }
+        });
+    }
+
+    private static void sendRows(LineProtoSender sender, String tableName, int firstSeq, int nRows, long timestamp) {
+        for (int n = 0; n < nRows; n++) {
+            sender.metric(tableName);
+            sender.field("seq", firstSeq + n);
+            sender.$(timestamp);
+        }
+    }
+
+    private void testRebalance(int nSenders, int nTables, int nRows) throws Exception {
+        // every table is written by a single connection, hence rows of a table have to arrive in the order they are sent
+        assertMemoryLeak(() -> {
+            final Rnd rand = new Rnd();
+            final int[] countByTable = new int[nTables];
+            // all rows of a table have the same timestamp, out of order rows would not be sorted back
+            final long timestamp = 1465839830100400200L;
+            minIdleMsBeforeWriterRelease = 30_000;
+            try (LineTcpServer tcpServer = LineTcpServer.create(lineConfiguration, sharedWorkerPool, LOG, engine)) {
+                Assert.assertNotNull(tcpServer);
+                final LineTcpMeasurementScheduler scheduler = tcpServer.getScheduler();
+                sharedWorkerPool.assignCleaner(Path.CLEANER);
+                sharedWorkerPool.start(LOG);
+                try {
+                    final LineProtoSender[] senders = new LineProtoSender[nSenders];
+                    for (int n = 0; n < nSenders; n++) {
+                        senders[n] = new LineTCPProtoSender(Net.parseIPv4("127.0.0.1"), bindPort, 4096);
+                    }
+
+                    for (int nRow = 0; nRow < nRows; nRow++) {
+                        // skewed load makes writer threads move tables while their events are queued
+                        final int nTable = nRow < nTables ? nRow : (int) Math.sqrt(rand.nextInt(nTables * nTables));
+                        final LineProtoSender sender = senders[nTable % nSenders];
+                        sender.metric("weather" + nTable);
+                        sender.field("seq", countByTable[nTable]++);
+                        sender.$(timestamp);
+                        if (rand.nextInt(8) == 0) {
+                            sender.flush();
+                        }
+                    }
+
+                    for (int n = 0; n < nSenders; n++) {
+                        senders[n].flush();
+                        senders[n].close();
+                    }
+
+                    final long startEpochMs = System.currentTimeMillis();
+                    int nRowsWritten;
+                    do {
+                        Assert.assertTrue(System.currentTimeMillis() - startEpochMs < TEST_TIMEOUT_IN_MS);
+                        Thread.yield();
+                        nRowsWritten = 0;
+                        for (int n = 0; n < nTables; n++) {
+                            nRowsWritten += countRows("weather" + n);
+                        }
+                    } while (nRowsWritten < nRows);
+                } finally {
+                    sharedWorkerPool.halt();
+                }
+
+                LOG.info().$("rebalanced ").$(scheduler.getNRebalances()).$(" times").$();
+                Assert.assertTrue(scheduler.getNRebalances() > 0);
+                // writer threads have drained their queues on shutdown, no table should be stuck between threads
+                Assert.assertFalse(scheduler.isHandoffInProgress());
+                Assert.assertEquals(0, scheduler.getNPendingHandoffs());
+            }
+
+            for (int n = 0; n < nTables; n++) {
+                assertRowsInOrder("weather" + n, countByTable[n]);
+            }
+        });
+    }
+
     private void test(
             String authKeyId,
             PrivateKey authPrivateKey,
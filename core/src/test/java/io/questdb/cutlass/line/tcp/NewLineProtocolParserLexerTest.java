@@ -27,6 +27,7 @@ package io.questdb.cutlass.line.tcp;
 import java.nio.charset.StandardCharsets;
 
 import org.junit.Assert;
+import org.junit.Test;
 
 import io.questdb.cutlass.line.LineProtoException;
 import io.questdb.cutlass.line.LineProtoLexerTest;
@@ -45,6 +46,19 @@ public class NewLineProtocolParserLexerTest extends LineProtoLexerTest {
     private boolean onErrorLine;
     private long startOfLineAddr;
 
+    @Test
+    public void testLongEntitiesWithEscapes() {
+        // separators and escapes at different offsets of 8 byte words
+        assertThat(
+                "a_rather_long_measurement_name,location_of_the_sensor=north west,b=x field_with_a_long_name=10000i,f=\"string value\" 100000\n",
+                "a_rather_long_measurement_name,location_of_the_sensor=north\\ west,b=x field_with_a_long_name=10000i,f=\"string\\ value\" 100000\n".getBytes(StandardCharsets.UTF_8)
+        );
+        assertThat(
+                "measurements_of,sensor_tag,name=value_of_tag,tag2=vaaaaaaaaaaaaaaaaaaaaaaaaalue field=1.5\n",
+                "measurements_of,sensor_tag\\,name=value_of_tag,tag2=vaaaaaaaaaaaaaaaaaaaaaaaaalue field=1.5\n".getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
     @Override
     protected void assertThat(CharSequence expected, byte[] line) throws LineProtoException {
         final int len = line.length;
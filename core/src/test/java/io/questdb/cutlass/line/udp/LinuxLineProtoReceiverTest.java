@@ -32,6 +32,7 @@ import io.questdb.network.Net;
 import io.questdb.network.NetworkError;
 import io.questdb.network.NetworkFacade;
 import io.questdb.network.NetworkFacadeImpl;
+import io.questdb.std.Misc;
 import io.questdb.std.Os;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
@@ -72,6 +73,22 @@ public class LinuxLineProtoReceiverTest extends AbstractCairoTest {
         assertFrequentCommit(GENERIC_FACTORY);
     }
 
+    @Test
+    public void testGenericMultipleReceivers() throws Exception {
+        LineUdpReceiverConfiguration configuration = new DefaultLineUdpReceiverConfiguration() {
+            @Override
+            public int getReceiverCount() {
+                return 2;
+            }
+
+            @Override
+            public boolean isUnicast() {
+                return true;
+            }
+        };
+        assertReceiveMultiple(configuration, (cfg, engine, router, receiverId) -> new LineProtoReceiver(cfg, engine, null, router, receiverId));
+    }
+
     @Test
     public void testGenericSimpleReceive() throws Exception {
         assertReceive(new DefaultLineUdpReceiverConfiguration(), GENERIC_FACTORY);
@@ -117,6 +134,25 @@ public class LinuxLineProtoReceiverTest extends AbstractCairoTest {
         assertFrequentCommit(LINUX_FACTORY);
     }
 
+    @Test
+    public void testLinuxMultipleReceivers() throws Exception {
+        if (Os.type != Os.LINUX_AMD64) {
+            return;
+        }
+        LineUdpReceiverConfiguration configuration = new DefaultLineUdpReceiverConfiguration() {
+            @Override
+            public int getReceiverCount() {
+                return 2;
+            }
+
+            @Override
+            public boolean isUnicast() {
+                return true;
+            }
+        };
+        assertReceiveMultiple(configuration, (cfg, engine, router, receiverId) -> new LinuxMMLineProtoReceiver(cfg, engine, null, router, receiverId));
+    }
+
     @Test
     public void testLinuxSimpleReceive() throws Exception {
         if (Os.type != Os.LINUX_AMD64) {
@@ -287,6 +323,82 @@ public class LinuxLineProtoReceiverTest extends AbstractCairoTest {
         });
     }
 
+    private void assertReceiveMultiple(LineUdpReceiverConfiguration receiverCfg, RoutedReceiverFactory factory) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int tableCount = 4;
+            final int rowCount = 25;
+            try (
+                    CairoEngine engine = new CairoEngine(configuration);
+                    LineProtoRouter router = new LineProtoRouter(receiverCfg)
+            ) {
+                for (int t = 0; t < tableCount; t++) {
+                    try (TableModel model = new TableModel(configuration, "tab" + t, PartitionBy.NONE)
+                            .col("colour", ColumnType.SYMBOL)
+                            .col("size", ColumnType.LONG)
+                            .timestamp()) {
+                        CairoTestUtils.create(model);
+                    }
+                }
+
+                final AbstractLineProtoReceiver[] receivers = new AbstractLineProtoReceiver[receiverCfg.getReceiverCount()];
+                try {
+                    for (int i = 0; i < receivers.length; i++) {
+                        receivers[i] = factory.create(receiverCfg, engine, router, i);
+                    }
+                    for (int i = 0; i < receivers.length; i++) {
+                        receivers[i].start();
+                    }
+
+                    try (LineProtoSender sender = new LineProtoSender(NetworkFacadeImpl.INSTANCE, 0, Net.parseIPv4("127.0.0.1"), receiverCfg.getPort(), 1400, 1)) {
+                        for (int i = 0; i < rowCount; i++) {
+                            for (int t = 0; t < tableCount; t++) {
+                                sender.metric("tab" + t).tag("colour", "blue").field("size", i).$(100000000000L);
+                            }
+                        }
+                        sender.flush();
+                    }
+
+                    int count = 1000000;
+                    while (count-- > 0 && countRows(tableCount) < tableCount * rowCount) {
+                        LockSupport.parkNanos(1);
+                    }
+                    Assert.assertTrue(count > 0);
+                } finally {
+                    for (int i = 0; i < receivers.length; i++) {
+                        Misc.free(receivers[i]);
+                    }
+                }
+
+                long dropped = 0;
+                for (int i = 0; i < receivers.length; i++) {
+                    dropped += receivers[i].getDroppedLineCount();
+                }
+                Assert.assertEquals(0, dropped);
+
+                for (int t = 0; t < tableCount; t++) {
+                    try (TableReader reader = new TableReader(new DefaultCairoConfiguration(root), "tab" + t)) {
+                        Assert.assertEquals(rowCount, reader.size());
+                    }
+                }
+            }
+        });
+    }
+
+    private static long countRows(int tableCount) {
+        long rows = 0;
+        for (int t = 0; t < tableCount; t++) {
+            try (TableReader reader = new TableReader(configuration, "tab" + t)) {
+                rows += reader.size();
+            }
+        }
+        return rows;
+    }
+
+    @FunctionalInterface
+    private interface RoutedReceiverFactory {
+        AbstractLineProtoReceiver create(LineUdpReceiverConfiguration configuration, CairoEngine engine, LineProtoRouter router, int receiverId);
+    }
+
     private interface ReceiverFactory extends WorkerPoolAwareConfiguration.ServerFactory<AbstractLineProtoReceiver, LineUdpReceiverConfiguration> {
     }
 }
\ No newline at end of file
@@ -63,6 +63,51 @@ public class AddIndexTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testAddCompactIndex() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table trades as (\n" +
+                            "    select \n" +
+                            "        cast(x % 3 as symbol) sym, \n" +
+                            "        x, \n" +
+                            "        timestamp_sequence(0, 36000000000) ts \n" +
+                            "    from long_sequence(30)\n" +
+                            ") timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+            compiler.compile("alter table trades alter column sym add index compact", sqlExecutionContext);
+            assertSql("select count() from trades where sym = '1'", "count\n10\n");
+
+            // new partition and out-of-order row in the existing one are indexed in compact format too
+            executeInsert("insert into trades values ('1', 100, '1970-01-10T00:00:00.000000Z')");
+            executeInsert("insert into trades values ('1', 101, '1970-01-01T00:30:00.000000Z')");
+            assertSql(
+                    "select x, ts from trades where sym = '1' and (x > 25 or x < 5)",
+                    "x\tts\n" +
+                            "1\t1970-01-01T00:00:00.000000Z\n" +
+                            "101\t1970-01-01T00:30:00.000000Z\n" +
+                            "4\t1970-01-02T06:00:00.000000Z\n" +
+                            "100\t1970-01-10T00:00:00.000000Z\n" +
+                            "28\t1970-01-12T06:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testAddIndexUnexpectedToken() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table trades (sym symbol, ts timestamp) timestamp(ts)", sqlExecutionContext);
+            try {
+                compiler.compile("alter table trades alter column sym add index fast", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(46, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "'compact' expected");
+            }
+        });
+    }
+
     @Test
     public void testBeforeAndAfterIndex() throws Exception {
         final String expected = "sym\tprice\tts\n" +
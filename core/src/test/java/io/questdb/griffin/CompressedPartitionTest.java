@@ -0,0 +1,412 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.PartitionCompressionJob;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+public class CompressedPartitionTest extends AbstractGriffinTest {
+
+    private static final String[] QUERIES = {
+            "x",
+            "x where d > 0.5",
+            "select sum(l), sum(d), min(dt), max(ts), count() from x",
+            "select s, sum(l), max(d), min(ts) from x order by s",
+            "select ts, sum(l) from x sample by 1d"
+    };
+
+    @Test
+    public void testAddIndex() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compiler.compile("alter table x add column k long", sqlExecutionContext);
+            executeInsert("insert into x values (100, 1.5, 'a', 'abc', cast(1 as date), '2021-01-05T20:00:00.000000Z', 3)");
+            executeInsert("insert into x values (101, 2.5, 'b', 'xyz', cast(2 as date), '2021-01-06T01:00:00.000000Z', 4)");
+            compiler.compile("alter table x set param compressAfterPartitions = 1", sqlExecutionContext);
+            compressPartitions();
+            assertCompressed(true, "2021-01-01", "2021-01-05");
+
+            // index is built from compressed values of cold partitions
+            compiler.compile("alter table x alter column l add index", sqlExecutionContext);
+            compiler.compile("alter table x alter column k add index", sqlExecutionContext);
+            assertFile(true, "2021-01-01", "l.k");
+            assertFile(true, "2021-01-01", "l.v");
+            assertSql(
+                    "select l, ts from x where l = 3",
+                    "l\tts\n" +
+                            "3\t2021-01-01T12:00:00.000000Z\n"
+            );
+            assertSql(
+                    "select l, ts from x where l in (18, 20)",
+                    "l\tts\n" +
+                            "18\t2021-01-05T06:00:00.000000Z\n" +
+                            "20\t2021-01-05T18:00:00.000000Z\n"
+            );
+            assertSql(
+                    "select l, k, ts from x where k in (3, 4)",
+                    "l\tk\tts\n" +
+                            "100\t3\t2021-01-05T20:00:00.000000Z\n" +
+                            "101\t4\t2021-01-06T01:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compiler.compile("alter table x add column k long", sqlExecutionContext);
+            executeInsert("insert into x values (100, 1.5, 'a', 'abc', cast(1 as date), '2021-01-05T20:00:00.000000Z', 7)");
+            executeInsert("insert into x values (101, 2.5, 'b', 'xyz', cast(2 as date), '2021-01-06T01:00:00.000000Z', 8)");
+            final String expected = "l\tk\tts\n" +
+                    "18\tNaN\t2021-01-05T06:00:00.000000Z\n" +
+                    "19\tNaN\t2021-01-05T12:00:00.000000Z\n" +
+                    "20\tNaN\t2021-01-05T18:00:00.000000Z\n" +
+                    "100\t7\t2021-01-05T20:00:00.000000Z\n" +
+                    "101\t8\t2021-01-06T01:00:00.000000Z\n";
+            assertSql("select l, k, ts from x where ts > '2021-01-05'", expected);
+
+            compiler.compile("alter table x set param compressAfterPartitions = 1", sqlExecutionContext);
+            compressPartitions();
+            assertCompressed(true, "2021-01-04", "2021-01-05");
+            assertCompressed(false, "2021-01-06");
+            assertSql("select l, k, ts from x where ts > '2021-01-05'", expected);
+            assertSql("select sum(k), max(k) from x", "sum\tmax\n15\t8\n");
+        });
+    }
+
+    @Test
+    public void testCompressColdPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final String[] expected = snapshot();
+
+            compiler.compile("alter table x set param compressAfterPartitions = 2", sqlExecutionContext);
+            // partitions are compressed by the job, writer attaches them on its next commit
+            assertCompressed(false, "2021-01-01", "2021-01-02", "2021-01-03");
+            compressPartitions();
+            assertCompressed(true, "2021-01-01", "2021-01-02", "2021-01-03");
+            assertCompressed(false, "2021-01-04", "2021-01-05");
+            assertSnapshot(expected);
+
+            // compressed partitions are kept when policy is switched off
+            compiler.compile("alter table x set param compressAfterPartitions = 0", sqlExecutionContext);
+            assertCompressed(true, "2021-01-01", "2021-01-02", "2021-01-03");
+            assertSnapshot(expected);
+        });
+    }
+
+    @Test
+    public void testCompressOnCommit() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (l long, d double, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table x set param compressAfterPartitions = 1", sqlExecutionContext);
+            executeInsert("insert into x values (1, 1.5, '2021-01-01T10:00:00.000000Z')");
+            assertCompressed(false, "2021-01-01");
+            executeInsert("insert into x values (2, 2.5, '2021-01-02T10:00:00.000000Z')");
+            executeInsert("insert into x values (3, 3.5, '2021-01-03T10:00:00.000000Z')");
+            assertCompressed(false, "2021-01-01", "2021-01-02");
+            compressPartitions();
+            assertCompressed(true, "2021-01-01", "2021-01-02");
+            assertCompressed(false, "2021-01-03");
+            assertSql(
+                    "x",
+                    "l\td\tts\n" +
+                            "1\t1.5\t2021-01-01T10:00:00.000000Z\n" +
+                            "2\t2.5\t2021-01-02T10:00:00.000000Z\n" +
+                            "3\t3.5\t2021-01-03T10:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDropAndRenameColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, "select l, d d2 from x", expected);
+            compiler.compile("alter table x set param compressAfterPartitions = 1", sqlExecutionContext);
+            compressPartitions();
+            compiler.compile("alter table x rename column d to d2", sqlExecutionContext);
+            compiler.compile("alter table x drop column dt", sqlExecutionContext);
+            assertSql("select l, d2 from x", expected);
+            assertFile(false, "2021-01-01", "d.dz");
+            assertFile(true, "2021-01-01", "d2.dz");
+            assertFile(false, "2021-01-01", "dt.dz");
+
+            compiler.compile("alter table x add column dt long", sqlExecutionContext);
+            assertSql("select max(dt) from x", "max\nNaN\n");
+        });
+    }
+
+    @Test
+    public void testDropFirstPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compiler.compile("alter table x set param compressAfterPartitions = 1", sqlExecutionContext);
+            compressPartitions();
+            compiler.compile("alter table x drop partition list '2021-01-01'", sqlExecutionContext);
+            // minimum timestamp is read from header of compressed timestamp file
+            assertSql("select min(ts), count() from x", "min\tcount\n2021-01-02T00:00:00.000000Z\t16\n");
+        });
+    }
+
+    @Test
+    public void testDropPartitionWhileCompressing() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compiler.compile("alter table x set param compressAfterPartitions = 1", sqlExecutionContext);
+            compiler.compile("alter table x drop partition list '2021-01-02'", sqlExecutionContext);
+            compressPartitions();
+            assertCompressed(true, "2021-01-01", "2021-01-03", "2021-01-04");
+            assertSql("select count(), sum(l) from x", "count\tsum\n16\t184\n");
+            assertNoStagingDirs();
+        });
+    }
+
+    @Test
+    public void testInvalidValue() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try {
+                compiler.compile("alter table x set param compressAfterPartitions = -1", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "invalid value [value=-,parameter=compressAfterPartitions]");
+            }
+            try {
+                compiler.compile("alter table x set param compressAfterPartitions = abc", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "invalid value [value=abc,parameter=compressAfterPartitions]");
+            }
+            assertCompressed(false, "2021-01-01", "2021-01-05");
+        });
+    }
+
+    @Test
+    public void testLargePartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            // partitions span several compressed blocks
+            compiler.compile(
+                    "create table x as (" +
+                            "select" +
+                            " x l," +
+                            " rnd_double(2) d," +
+                            " rnd_symbol('a', 'b', null) s," +
+                            " cast(x * 1000 as date) dt," +
+                            " timestamp_sequence('2021-01-01', 432000L) ts" +
+                            " from long_sequence(600000)" +
+                            ") timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+            final String[] queries = {
+                    "select sum(l), sum(d), min(dt), max(dt), min(ts), max(ts), count() from x",
+                    "select s, sum(l), max(d), min(ts) from x order by s",
+                    "select l, d, ts from x where l > 65530 and l < 65545",
+                    "select l, d, ts from x where ts in '2021-01-01T07:51:50;5s' and d > 0.3",
+                    "select count(), sum(l) from x where d > 0.5 and dt < 300000000",
+                    "select l, d, dt, ts from x order by d desc limit 5",
+                    "select l, ts from x latest by s",
+                    "select ts, sum(l), last(d) from x sample by 6h"
+            };
+            final String[] expected = new String[queries.length];
+            for (int i = 0; i < queries.length; i++) {
+                final StringSink sink = new StringSink();
+                TestUtils.printSql(compiler, sqlExecutionContext, queries[i], sink);
+                expected[i] = sink.toString();
+            }
+
+            compiler.compile("alter table x set param compressAfterPartitions = 1", sqlExecutionContext);
+            compressPartitions();
+            assertCompressed(true, "2021-01-01", "2021-01-02");
+            assertCompressed(false, "2021-01-03");
+            for (int i = 0; i < queries.length; i++) {
+                assertSql(queries[i], expected[i]);
+            }
+        });
+    }
+
+    @Test
+    public void testPageFramesReleaseBlocks() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x as (" +
+                            "select" +
+                            " x l," +
+                            " timestamp_sequence('2021-01-01', 432000L) ts" +
+                            " from long_sequence(500000)" +
+                            ") timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+            compiler.compile("alter table x set param compressAfterPartitions = 1", sqlExecutionContext);
+            compressPartitions();
+            assertCompressed(true, "2021-01-01", "2021-01-02");
+
+            try (
+                    RecordCursorFactory factory = compiler.compile("select l from x", sqlExecutionContext).getRecordCursorFactory();
+                    PageFrameCursor cursor = factory.getPageFrameCursor(sqlExecutionContext)
+            ) {
+                long sum = 0;
+                int frameCount = 0;
+                PageFrame frame;
+                while ((frame = cursor.next()) != null) {
+                    // frame of compressed partition is a block, cursor retires block of the previous frame
+                    Assert.assertTrue(cursor.getRetiredPageCount() <= 1);
+                    cursor.releaseFrames();
+                    Assert.assertEquals(0, cursor.getRetiredPageCount());
+                    final long address = frame.getPageAddress(0);
+                    for (long i = 0, n = frame.getPageSize(0) / Long.BYTES; i < n; i++) {
+                        sum += Unsafe.getUnsafe().getLong(address + i * Long.BYTES);
+                    }
+                    frameCount++;
+                }
+                Assert.assertEquals(500000L * 500001L / 2, sum);
+                Assert.assertTrue(frameCount > 4);
+            }
+        });
+    }
+
+    @Test
+    public void testOutOfOrderIntoCompressedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compiler.compile("alter table x set param compressAfterPartitions = 2", sqlExecutionContext);
+            compressPartitions();
+            assertCompressed(true, "2021-01-02");
+
+            // merge in the middle of partition and append past its last row
+            executeInsert("insert into x values (50, 50.5, 'c', 'ooo', cast(50 as date), '2021-01-02T07:00:00.000000Z')");
+            executeInsert("insert into x values (51, 51.5, 'c', 'ooo', cast(51 as date), '2021-01-03T23:00:00.000000Z')");
+            compressPartitions();
+            assertCompressed(true, "2021-01-02", "2021-01-03");
+            assertSql(
+                    "select l, d, ts from x where s = 'c'",
+                    "l\td\tts\n" +
+                            "50\t50.5\t2021-01-02T07:00:00.000000Z\n" +
+                            "51\t51.5\t2021-01-03T23:00:00.000000Z\n"
+            );
+            assertSql(
+                    "select l, ts from x where ts in '2021-01-02'",
+                    "l\tts\n" +
+                            "5\t2021-01-02T00:00:00.000000Z\n" +
+                            "6\t2021-01-02T06:00:00.000000Z\n" +
+                            "50\t2021-01-02T07:00:00.000000Z\n" +
+                            "7\t2021-01-02T12:00:00.000000Z\n" +
+                            "8\t2021-01-02T18:00:00.000000Z\n"
+            );
+            assertSql("select count(), sum(l) from x", "count\tsum\n22\t311\n");
+        });
+    }
+
+    private static void assertNoStagingDirs() {
+        final File[] dirs = new File(configuration.getRoot().toString(), "x").listFiles(
+                f -> f.getName().startsWith(PartitionCompressionJob.STAGING_DIR_PREFIX)
+        );
+        Assert.assertNotNull(dirs);
+        Assert.assertEquals(0, dirs.length);
+    }
+
+    private static void compressPartitions() {
+        try (PartitionCompressionJob job = new PartitionCompressionJob(engine.getMessageBus(), 1)) {
+            //noinspection StatementWithEmptyBody
+            while (job.run(0)) ;
+        }
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+            writer.commit();
+        }
+        assertNoStagingDirs();
+    }
+
+    private static void assertCompressed(boolean compressed, String... partitions) {
+        for (String partition : partitions) {
+            assertFile(compressed, partition, "ts.dz");
+            assertFile(!compressed, partition, "ts.d");
+        }
+    }
+
+    private static void assertFile(boolean exists, String partition, String fileName) {
+        // partition directory name has suffix of the transaction that rewrote it
+        final File[] dirs = new File(configuration.getRoot().toString(), "x").listFiles(
+                f -> f.getName().equals(partition) || f.getName().startsWith(partition + '.')
+        );
+        Assert.assertNotNull(dirs);
+        File latest = null;
+        long latestTxn = Long.MIN_VALUE;
+        for (File dir : dirs) {
+            final String name = dir.getName();
+            final long txn = name.length() > partition.length() ? Long.parseLong(name.substring(partition.length() + 1)) : -1;
+            if (txn > latestTxn) {
+                latestTxn = txn;
+                latest = dir;
+            }
+        }
+        Assert.assertNotNull(partition, latest);
+        Assert.assertEquals(partition + '/' + fileName, exists, new File(latest, fileName).exists());
+    }
+
+    private void assertSnapshot(String[] expected) throws SqlException {
+        for (int i = 0; i < QUERIES.length; i++) {
+            assertSql(QUERIES[i], expected[i]);
+        }
+    }
+
+    private static void createTable() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " x l," +
+                        " rnd_double(2) d," +
+                        " rnd_symbol('a', 'b', null) s," +
+                        " rnd_str(3, 5, 2) str," +
+                        " cast(x * 1000 as date) dt," +
+                        " timestamp_sequence('2021-01-01', 6 * 3600 * 1000000L) ts" +
+                        " from long_sequence(20)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+
+    private static String[] snapshot() throws SqlException {
+        final String[] expected = new String[QUERIES.length];
+        for (int i = 0; i < QUERIES.length; i++) {
+            final StringSink sink = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, QUERIES[i], sink);
+            expected[i] = sink.toString();
+        }
+        return expected;
+    }
+}
@@ -0,0 +1,336 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.std.NumericException;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DedupTest extends AbstractGriffinTest {
+
+    @Test
+    public void testColumnTopKey() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try (TableWriter w = getWriter()) {
+                appendRow(w, "a", 1, "2021-01-01T10:00:00.000000Z");
+                appendRow(w, "a", 2, "2021-01-02T10:00:00.000000Z");
+                w.commit();
+            }
+            compiler.compile("alter table x add column k symbol", sqlExecutionContext);
+            compiler.compile("alter table x dedup enable upsert keys(s, k)", sqlExecutionContext);
+            try (TableWriter w = getWriter()) {
+                // k is null in committed rows, which are above column top
+                appendRow(w, "a", 3, "2021-01-01T10:00:00.000000Z");
+                appendRow(w, "a", 4, "2021-01-02T10:00:00.000000Z");
+                TableWriter.Row row = w.newRow(TimestampFormatUtils.parseTimestamp("2021-01-01T10:00:00.000000Z"));
+                row.putSym(0, "a");
+                row.putLong(1, 5);
+                row.putSym(3, "k1");
+                row.append();
+                w.commit();
+            }
+            assertSql(
+                    "x order by v",
+                    "s\tv\tts\tk\n" +
+                            "a\t3\t2021-01-01T10:00:00.000000Z\t\n" +
+                            "a\t4\t2021-01-02T10:00:00.000000Z\t\n" +
+                            "a\t5\t2021-01-01T10:00:00.000000Z\tk1\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDisable() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compiler.compile("alter table x dedup enable upsert keys(s)", sqlExecutionContext);
+            compiler.compile("alter table x dedup disable", sqlExecutionContext);
+            try (TableWriter w = getWriter()) {
+                appendRow(w, "a", 1, "2021-01-01T10:00:00.000000Z");
+                appendRow(w, "a", 2, "2021-01-01T10:00:00.000000Z");
+                w.commit();
+            }
+            assertSql("select count() from x", "count\n2\n");
+        });
+    }
+
+    @Test
+    public void testIncomingRowReplacesCommitted() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table y (s symbol index, v long, str string, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table y dedup enable upsert keys(s)", sqlExecutionContext);
+            try (TableWriter w = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "y")) {
+                appendRow(w, "a", 1, "a1", "2021-01-01T10:00:00.000000Z");
+                appendRow(w, "b", 2, "b2", "2021-01-01T10:00:00.000000Z");
+                appendRow(w, "a", 3, "a3", "2021-01-01T11:00:00.000000Z");
+                appendRow(w, "a", 4, "a4", "2021-01-02T10:00:00.000000Z");
+                appendRow(w, "b", 5, "b5", "2021-01-02T10:00:00.000000Z");
+                w.commit();
+
+                // rows of the next commit replace committed rows in both older and last partitions
+                appendRow(w, "b", 20, "b20", "2021-01-01T10:00:00.000000Z");
+                appendRow(w, "a", 30, null, "2021-01-01T11:00:00.000000Z");
+                appendRow(w, "a", 40, "a40", "2021-01-02T10:00:00.000000Z");
+                appendRow(w, "c", 50, "c50", "2021-01-02T10:00:00.000000Z");
+                w.commit();
+
+                // last partition keeps accepting rows after the merge
+                appendRow(w, "b", 60, "b60", "2021-01-02T12:00:00.000000Z");
+                w.commit();
+            }
+
+            final String expected = "s\tv\tstr\tts\n" +
+                    "a\t1\ta1\t2021-01-01T10:00:00.000000Z\n" +
+                    "b\t20\tb20\t2021-01-01T10:00:00.000000Z\n" +
+                    "a\t30\t\t2021-01-01T11:00:00.000000Z\n" +
+                    "a\t40\ta40\t2021-01-02T10:00:00.000000Z\n" +
+                    "b\t5\tb5\t2021-01-02T10:00:00.000000Z\n" +
+                    "c\t50\tc50\t2021-01-02T10:00:00.000000Z\n" +
+                    "b\t60\tb60\t2021-01-02T12:00:00.000000Z\n";
+            assertSql("y order by ts, s", expected);
+            // symbol index of merged partitions has no entries of replaced rows
+            assertSql(
+                    "y where s = 'b'",
+                    "s\tv\tstr\tts\n" +
+                            "b\t20\tb20\t2021-01-01T10:00:00.000000Z\n" +
+                            "b\t5\tb5\t2021-01-02T10:00:00.000000Z\n" +
+                            "b\t60\tb60\t2021-01-02T12:00:00.000000Z\n"
+            );
+
+            engine.releaseAllWriters();
+            engine.releaseAllReaders();
+            assertSql("y order by ts, s", expected);
+        });
+    }
+
+    @Test
+    public void testInvalidKeys() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table y (s symbol, ts timestamp) timestamp(ts)", sqlExecutionContext);
+            assertFailure("alter table y dedup enable upsert keys(s)", 12, "deduplication requires partitioned table with designated timestamp");
+
+            createTable();
+            assertFailure("alter table x dedup enable upsert keys(v)", 39, "deduplication key must be SYMBOL or designated timestamp column");
+            assertFailure("alter table x dedup enable upsert keys(s, z)", 42, "Invalid column: z");
+            assertFailure("alter table x dedup enable upsert s", 34, "'keys' expected");
+            assertFailure("alter table x dedup switch", 20, "'enable' or 'disable' expected");
+        });
+    }
+
+    @Test
+    public void testKeyDistinguishesRows() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compiler.compile("alter table x dedup enable upsert keys(s)", sqlExecutionContext);
+            try (TableWriter w = getWriter()) {
+                appendRow(w, "a", 1, "2021-01-01T10:00:00.000000Z");
+                appendRow(w, "b", 2, "2021-01-01T10:00:00.000000Z");
+                appendRow(w, null, 3, "2021-01-01T10:00:00.000000Z");
+                w.commit();
+                appendRow(w, "c", 4, "2021-01-01T10:00:00.000000Z");
+                appendRow(w, null, 5, "2021-01-01T10:00:00.000000Z");
+                w.commit();
+            }
+            assertSql(
+                    "select * from x order by v",
+                    "s\tv\tts\n" +
+                            "a\t1\t2021-01-01T10:00:00.000000Z\n" +
+                            "b\t2\t2021-01-01T10:00:00.000000Z\n" +
+                            "c\t4\t2021-01-01T10:00:00.000000Z\n" +
+                            "\t5\t2021-01-01T10:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testKeysSurviveWriterReopen() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compiler.compile("alter table x dedup enable upsert keys(s)", sqlExecutionContext);
+            compiler.compile("alter table x add column z int", sqlExecutionContext);
+            compiler.compile("alter table x alter column s add index", sqlExecutionContext);
+            engine.releaseAllWriters();
+            try (TableWriter w = getWriter()) {
+                appendRow(w, "a", 1, "2021-01-01T10:00:00.000000Z");
+                appendRow(w, "a", 2, "2021-01-01T10:00:00.000000Z");
+                w.commit();
+            }
+            assertSql("x where s = 'a'", "s\tv\tts\tz\na\t2\t2021-01-01T10:00:00.000000Z\tNaN\n");
+        });
+    }
+
+    @Test
+    public void testReplayIntoOlderPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compiler.compile("alter table x dedup enable upsert keys(s)", sqlExecutionContext);
+            final String[] timestamps = {
+                    "2021-01-01T10:00:00.000000Z",
+                    "2021-01-01T11:00:00.000000Z",
+                    "2021-01-02T10:00:00.000000Z",
+                    "2021-01-03T10:00:00.000000Z"
+            };
+            try (TableWriter w = getWriter()) {
+                for (int i = 0; i < timestamps.length; i++) {
+                    appendRow(w, "a", i, timestamps[i]);
+                    appendRow(w, "b", i, timestamps[i]);
+                }
+                w.commit();
+
+                // replay of whole batch with a few new rows in between
+                for (int i = 0; i < timestamps.length; i++) {
+                    appendRow(w, "a", i, timestamps[i]);
+                    appendRow(w, "c", i, timestamps[i]);
+                    appendRow(w, "b", i, timestamps[i]);
+                }
+                w.commit();
+            }
+            assertSql(
+                    "select s, count() from x order by s",
+                    "s\tcount\n" +
+                            "a\t4\n" +
+                            "b\t4\n" +
+                            "c\t4\n"
+            );
+            assertSql(
+                    "select ts, count() from x sample by 1d",
+                    "ts\tcount\n" +
+                            "2021-01-01T10:00:00.000000Z\t6\n" +
+                            "2021-01-02T10:00:00.000000Z\t3\n" +
+                            "2021-01-03T10:00:00.000000Z\t3\n"
+            );
+        });
+    }
+
+    @Test
+    public void testReplayIsIdempotent() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compiler.compile("alter table x dedup enable upsert keys(s)", sqlExecutionContext);
+            final String insert = "insert into x select cast(x % 3 as symbol), x, timestamp_sequence('2021-01-01', 3600000000) from long_sequence(100)";
+            compiler.compile(insert, sqlExecutionContext);
+            compiler.compile(insert, sqlExecutionContext);
+            compiler.compile(insert, sqlExecutionContext);
+            assertSql("select count(), sum(v) from x", "count\tsum\n100\t5050\n");
+
+            try (TableWriter w = getWriter()) {
+                // everything is a replay, nothing to merge
+                appendRow(w, "1", 1, "2021-01-01T00:00:00.000000Z");
+                w.commit();
+                appendRow(w, "d", 1001, "2021-01-06T00:00:00.000000Z");
+                w.commit();
+            }
+            assertSql("select count(), sum(v) from x", "count\tsum\n101\t6051\n");
+        });
+    }
+
+    @Test
+    public void testTimestampOnlyKey() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compiler.compile("alter table x dedup enable upsert keys(ts)", sqlExecutionContext);
+            try (TableWriter w = getWriter()) {
+                appendRow(w, "a", 1, "2021-01-01T10:00:00.000000Z");
+                appendRow(w, "b", 2, "2021-01-01T10:00:00.000000Z");
+                appendRow(w, "c", 3, "2021-01-01T11:00:00.000000Z");
+                w.commit();
+                appendRow(w, "d", 4, "2021-01-01T11:00:00.000000Z");
+                w.commit();
+            }
+            assertSql(
+                    "x",
+                    "s\tv\tts\n" +
+                            "b\t2\t2021-01-01T10:00:00.000000Z\n" +
+                            "d\t4\t2021-01-01T11:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testUncommittedLatestWins() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compiler.compile("alter table x dedup enable upsert keys(s)", sqlExecutionContext);
+            try (TableWriter w = getWriter()) {
+                appendRow(w, "a", 1, "2021-01-01T10:00:00.000000Z");
+                w.commit();
+                // in order rows are moved to out-of-order memory on commit, they precede rows added there
+                appendRow(w, "b", 2, "2021-01-01T11:00:00.000000Z");
+                appendRow(w, "c", 3, "2021-01-01T12:00:00.000000Z");
+                appendRow(w, "b", 4, "2021-01-01T09:00:00.000000Z");
+                appendRow(w, "b", 5, "2021-01-01T11:00:00.000000Z");
+                appendRow(w, "c", 6, "2021-01-01T12:00:00.000000Z");
+                appendRow(w, "c", 7, "2021-01-01T12:00:00.000000Z");
+                w.commit();
+            }
+            assertSql(
+                    "x",
+                    "s\tv\tts\n" +
+                            "b\t4\t2021-01-01T09:00:00.000000Z\n" +
+                            "a\t1\t2021-01-01T10:00:00.000000Z\n" +
+                            "b\t5\t2021-01-01T11:00:00.000000Z\n" +
+                            "c\t7\t2021-01-01T12:00:00.000000Z\n"
+            );
+        });
+    }
+
+    private static void appendRow(TableWriter writer, CharSequence s, long v, String ts) throws NumericException {
+        TableWriter.Row row = writer.newRow(TimestampFormatUtils.parseTimestamp(ts));
+        row.putSym(0, s);
+        row.putLong(1, v);
+        row.append();
+    }
+
+    private static void appendRow(TableWriter writer, CharSequence s, long v, CharSequence str, String ts) throws NumericException {
+        TableWriter.Row row = writer.newRow(TimestampFormatUtils.parseTimestamp(ts));
+        row.putSym(0, s);
+        row.putLong(1, v);
+        row.putStr(2, str);
+        row.append();
+    }
+
+    private static void assertFailure(String sql, int position, String message) {
+        try {
+            compiler.compile(sql, sqlExecutionContext);
+            Assert.fail();
+        } catch (SqlException e) {
+            Assert.assertEquals(position, e.getPosition());
+            TestUtils.assertContains(e.getFlyweightMessage(), message);
+        }
+    }
+
+    private static void createTable() throws SqlException {
+        compiler.compile("create table x (s symbol, v long, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+    }
+
+    private static TableWriter getWriter() {
+        return engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x");
+    }
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import org.junit.Test;
+
+public class IndexIntersectionTest extends AbstractGriffinTest {
+
+    @Test
+    public void testIntersectTwoColumns() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql("select count() from x where a = '1' and b = '2'", "count\n10\n");
+            assertSql(
+                    "select a, b, k from x where a = '1' and b = '2' and k < 60",
+                    "a\tb\tk\n" +
+                            "1\t2\t17\n" +
+                            "1\t2\t37\n" +
+                            "1\t2\t57\n"
+            );
+        });
+    }
+
+    @Test
+    public void testIntersectThreeColumns() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "select k from x where a = '1' and b = '2' and c = '0'",
+                    "k\n" +
+                            "57\n" +
+                            "117\n" +
+                            "177\n"
+            );
+        });
+    }
+
+    @Test
+    public void testIntersectWithNoMatch() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql("select count() from x where a = '1' and b = '2' and c = '1' and k = 38", "count\n0\n");
+            assertSql("select count() from x where a = '1' and b = 'missing'", "count\n0\n");
+        });
+    }
+
+    @Test
+    public void testIntersectWithOutOfOrderRows() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            executeInsert("insert into x values ('1', '2', '0', 1000, '1970-01-01T00:30:00.000000Z')");
+            assertSql("select count() from x where a = '1' and b = '2'", "count\n11\n");
+        });
+    }
+
+    @Test
+    public void testUnionOfValues() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql("select count() from x where a = '1' and b in ('2', '3')", "count\n20\n");
+            assertSql("select count() from x where a = '1' and b in ('2', 'missing')", "count\n10\n");
+            assertSql(
+                    "select a, b, k from x where b in ('4', '2') and a = '1' and k < 50",
+                    "a\tb\tk\n" +
+                            "1\t4\t9\n" +
+                            "1\t2\t17\n" +
+                            "1\t4\t29\n" +
+                            "1\t2\t37\n" +
+                            "1\t4\t49\n"
+            );
+        });
+    }
+
+    private void createTable() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " cast(x % 4 as symbol) a," +
+                        " cast(x % 5 as symbol) b," +
+                        " cast(x % 3 as symbol) c," +
+                        " x k," +
+                        " timestamp_sequence(0, 3600000000) ts" +
+                        " from long_sequence(200)" +
+                        "), index(a), index(b capacity 256), index(c) timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+}
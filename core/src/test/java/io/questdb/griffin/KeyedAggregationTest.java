@@ -27,17 +27,106 @@ package io.questdb.griffin;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.griffin.engine.groupby.vect.GroupByCompositeKeyVectorRecordCursorFactory;
+import io.questdb.griffin.engine.groupby.vect.GroupByJob;
+import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.Sequence;
 import io.questdb.std.Os;
 import io.questdb.std.Rnd;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 public class KeyedAggregationTest extends AbstractGriffinTest {
     @Before
     public void setUp3() {
         SharedRandom.RANDOM.set(new Rnd());
     }
 
+    @Test
+    public void testCompositeKeyMatchesFunctionGroupBy() throws Exception {
+        assertMemoryLeak(() -> {
+            createCompositeKeyTable();
+            assertCompositeKey("s1, s2", sqlExecutionContext);
+            assertCompositeKey("l", sqlExecutionContext);
+            assertCompositeKey("i, l", sqlExecutionContext);
+            assertCompositeKey("s1, b, sh", sqlExecutionContext);
+            assertCompositeKey("bool, ch, t", sqlExecutionContext);
+            assertCompositeKey("s2, k", sqlExecutionContext);
+        });
+    }
+
+    @Test
+    public void testCompositeKeyParallel() throws Exception {
+        assertMemoryLeak(() -> {
+            createCompositeKeyTable();
+
+            final Sequence seq = engine.getMessageBus().getVectorAggregateSubSeq();
+            // consume sequence fully and do nothing
+            // this might be needed to make sure we don't consume things other tests publish here
+            while (true) {
+                long cursor = seq.next();
+                if (cursor == -1) {
+                    break;
+                } else if (cursor > -1) {
+                    seq.done(cursor);
+                }
+            }
+
+            final AtomicBoolean running = new AtomicBoolean(true);
+            final SOCountDownLatch haltLatch = new SOCountDownLatch(2);
+            final GroupByJob job = new GroupByJob(engine.getMessageBus());
+            for (int i = 1; i < 3; i++) {
+                final int workerId = i;
+                new Thread(() -> {
+                    while (running.get()) {
+                        job.run(workerId);
+                    }
+                    haltLatch.countDown();
+                }).start();
+            }
+
+            try {
+                final SqlExecutionContext parallelContext = new SqlExecutionContextImpl(engine, 3);
+                assertCompositeKey("s1, s2", parallelContext);
+                assertCompositeKey("l", parallelContext);
+                assertCompositeKey("s2, k", parallelContext);
+            } finally {
+                running.set(false);
+                haltLatch.await();
+            }
+        });
+    }
+
+    @Test
+    public void testCompositeKeyPlan() throws Exception {
+        assertMemoryLeak(() -> {
+            createCompositeKeyTable();
+            try (RecordCursorFactory factory = compiler.compile("select s1, s2, sum(d), count() from tab", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(GroupByCompositeKeyVectorRecordCursorFactory.class, factory.getClass());
+            }
+            // merge of integer sums is not reliable in bundled native library
+            try (RecordCursorFactory factory = compiler.compile("select s1, s2, sum(val), count() from tab", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof GroupByCompositeKeyVectorRecordCursorFactory);
+            }
+            try (RecordCursorFactory factory = compiler.compile("select l, sum(ts) from tab", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof GroupByCompositeKeyVectorRecordCursorFactory);
+            }
+            try (RecordCursorFactory factory = compiler.compile("select l, max(d) from tab", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof GroupByCompositeKeyVectorRecordCursorFactory);
+            }
+            // single symbol key keeps using Rosti directly
+            try (RecordCursorFactory factory = compiler.compile("select s1, sum(val) from tab", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof GroupByRecordCursorFactory);
+            }
+        });
+    }
+
     @Test
     public void testHourDouble() throws Exception {
         assertQuery(
@@ -910,4 +999,73 @@ public class KeyedAggregationTest extends AbstractGriffinTest {
             }
         });
     }
+
+    private void assertCompositeKey(String keys, SqlExecutionContext executionContext) throws SqlException {
+        final String vectorQuery = "select " + keys + ", min(val), max(val), count(), sum(d), max(d), min(ts), max(ts) from tab order by " + keys;
+        // expressions as arguments make aggregation fall back to group-by functions
+        // doubles hold integral values, so sums do not depend on aggregation order
+        final String functionQuery = "select " + keys + ", min(val + 0), max(val + 0), count(), sum(d + 0), max(d + 0), min(ts), max(ts) from tab order by " + keys;
+        assertSameResult(keys, executionContext, vectorQuery, functionQuery);
+
+        // integer sums are not vectorized on composite keys
+        assertSameResult(
+                keys,
+                executionContext,
+                "select " + keys + ", sum(val), sum(d) from tab order by " + keys,
+                "select " + keys + ", sum(val + 0), sum(d + 0) from tab order by " + keys
+        );
+    }
+
+    private void assertSameResult(
+            String keys,
+            SqlExecutionContext executionContext,
+            String query,
+            String expectedQuery
+    ) throws SqlException {
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, expectedQuery, expected);
+        TestUtils.printSql(compiler, executionContext, query, sink);
+        TestUtils.assertEquals(keys, expected, sink);
+    }
+
+    private void createCompositeKeyTable() throws SqlException {
+        compiler.compile(
+                "create table tab as (" +
+                        "select" +
+                        " rnd_symbol('s1','s2','s3', null) s1," +
+                        " rnd_symbol('a1','a2', null) s2," +
+                        " rnd_int(0, 5, 2) i," +
+                        " rnd_long(0, 20, 2) l," +
+                        " rnd_byte(1, 3) b," +
+                        " rnd_short(1, 3) sh," +
+                        " rnd_boolean() bool," +
+                        " rnd_char() ch," +
+                        " cast(rnd_long(0, 3, 0) * 1000000 as timestamp) t," +
+                        " rnd_long(-1000, 1000, 0) val," +
+                        " cast(rnd_int(0, 1000, 2) as double) d," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(200000)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+        compiler.compile("alter table tab add column k long", sqlExecutionContext);
+        compiler.compile(
+                "insert into tab select" +
+                        " rnd_symbol('s1','s2','s3', null)," +
+                        " rnd_symbol('a1','a2', null)," +
+                        " rnd_int(0, 5, 2)," +
+                        " rnd_long(0, 20, 2)," +
+                        " rnd_byte(1, 3)," +
+                        " rnd_short(1, 3)," +
+                        " rnd_boolean()," +
+                        " rnd_char()," +
+                        " cast(rnd_long(0, 3, 0) * 1000000 as timestamp)," +
+                        " rnd_long(-1000, 1000, 0)," +
+                        " cast(rnd_int(0, 1000, 2) as double)," +
+                        " timestamp_sequence(200000000000, 1000000)," +
+                        " rnd_long(0, 3, 2)" +
+                        " from long_sequence(100000)",
+                sqlExecutionContext
+        );
+    }
 }
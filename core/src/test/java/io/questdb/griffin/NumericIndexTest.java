@@ -0,0 +1,136 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NumericIndexTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAddIndexToIntColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable("");
+            compiler.compile("alter table x alter column i add index", sqlExecutionContext);
+            assertSql("select count() from x where i = 3", "count\n10\n");
+            assertSql("select count() from x where i in (3, 7, 13)", "count\n20\n");
+            assertSql("select count() from x where i = 3 and l > 500000003500", "count\n5\n");
+            assertSql("select count() from x where i = 3 and i = 4", "count\n0\n");
+        });
+    }
+
+    @Test
+    public void testCreateTableWithLongIndex() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(", index(l)");
+            assertSql(
+                    "x where l = 50000000035",
+                    "i\tl\tts\n" +
+                            "5\t50000000035\t1970-01-01T04:00:00.000000Z\n"
+            );
+            assertSql("x where l = 1", "i\tl\tts\n");
+            assertSql(
+                    "x where l in (10000000007, 990000000693)",
+                    "i\tl\tts\n" +
+                            "1\t10000000007\t1970-01-01T00:00:00.000000Z\n" +
+                            "9\t990000000693\t1970-01-05T02:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testIndexedColumnAdded() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable("");
+            compiler.compile("alter table x add column k long index capacity 128", sqlExecutionContext);
+            executeInsert("insert into x values (1, 2, '1970-01-05T05:00:00.000000Z', 42)");
+            executeInsert("insert into x values (1, 2, '1970-01-05T06:00:00.000000Z', 43)");
+            assertSql(
+                    "x where k = 42",
+                    "i\tl\tts\tk\n" +
+                            "1\t2\t1970-01-05T05:00:00.000000Z\t42\n"
+            );
+            // rows before column was added are above column top and are not in the index
+            assertSql("select count() from x where k in (42, 43)", "count\n2\n");
+        });
+    }
+
+    @Test
+    public void testInvalidKeyStaysInFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(", index(i)");
+            assertSql("select count() from x where i = 3.0", "count\n10\n");
+        });
+    }
+
+    @Test
+    public void testLatestBy() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(", index(i)");
+            assertSql(
+                    "select i, ts from x latest by i where i = 3",
+                    "i\tts\n" +
+                            "3\t1970-01-04T20:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testOutOfOrderRows() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(", index(i), index(l)");
+            executeInsert("insert into x values (3, 7, '1970-01-01T00:30:00.000000Z')");
+            assertSql("select count() from x where i = 3", "count\n11\n");
+            assertSql(
+                    "x where l = 7",
+                    "i\tl\tts\n" +
+                            "3\t7\t1970-01-01T00:30:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testUnsupportedType() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table y (d double, ts timestamp) timestamp(ts)", sqlExecutionContext);
+            try {
+                compiler.compile("alter table y alter column d add index", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "cannot create index for [column='d, type=DOUBLE");
+            }
+        });
+    }
+
+    private void createTable(String index) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select cast(x % 10 as int) i, x * 10000000007L l, timestamp_sequence(0, 3600000000) ts from long_sequence(100)" +
+                        ")" + index + " timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+}
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.PartitionBy;
+import io.questdb.std.str.Path;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static io.questdb.griffin.CompiledQuery.ALTER;
+
+public class PartitionByHourAndWeekTest extends AbstractGriffinTest {
+
+    @Test
+    public void testHourDropPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createHourly();
+            Assert.assertEquals(ALTER, compiler.compile("alter table x drop partition list '2021-01-01T23'", sqlExecutionContext).getType());
+            assertPartitionDirs("x", false, "2021-01-01T23");
+            assertPartitionDirs("x", true, "2021-01-01T22", "2021-01-02T00", "2021-01-02T01");
+            assertSql("select count() from x", "count\n9\n");
+        });
+    }
+
+    @Test
+    public void testHourMalformedPartitionName() throws Exception {
+        assertMemoryLeak(() -> {
+            createHourly();
+            try {
+                compiler.compile("alter table x drop partition list '2021-01-01'", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertTrue(e.getMessage().contains("'YYYY-MM-DDTHH' expected"));
+            }
+        });
+    }
+
+    @Test
+    public void testHourOutOfOrderInsert() throws Exception {
+        assertMemoryLeak(() -> {
+            createHourly();
+            executeInsert("insert into x values (100, '2021-01-01T23:10:00.000000Z')");
+            executeInsert("insert into x values (101, '2021-01-02T02:05:00.000000Z')");
+            assertPartitionDirs("x", true, "2021-01-02T02");
+            assertSql(
+                    "x where ts in '2021-01-01T23'",
+                    "x\tts\n" +
+                            "4\t2021-01-01T23:00:00.000000Z\n" +
+                            "100\t2021-01-01T23:10:00.000000Z\n" +
+                            "5\t2021-01-01T23:20:00.000000Z\n" +
+                            "6\t2021-01-01T23:40:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testHourPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createHourly();
+            assertPartitionDirs("x", true, "2021-01-01T22", "2021-01-01T23", "2021-01-02T00", "2021-01-02T01");
+            assertSql(
+                    "x where ts in '2021-01-02T00'",
+                    "x\tts\n" +
+                            "7\t2021-01-02T00:00:00.000000Z\n" +
+                            "8\t2021-01-02T00:20:00.000000Z\n" +
+                            "9\t2021-01-02T00:40:00.000000Z\n"
+            );
+            assertSql(
+                    "select ts, count() from x sample by 1h",
+                    "ts\tcount\n" +
+                            "2021-01-01T22:00:00.000000Z\t3\n" +
+                            "2021-01-01T23:00:00.000000Z\t3\n" +
+                            "2021-01-02T00:00:00.000000Z\t3\n" +
+                            "2021-01-02T01:00:00.000000Z\t3\n"
+            );
+        });
+    }
+
+    @Test
+    public void testPartitionByToString() {
+        Assert.assertEquals(PartitionBy.HOUR, PartitionBy.fromString("HOUR"));
+        Assert.assertEquals(PartitionBy.WEEK, PartitionBy.fromString("WEEK"));
+        Assert.assertEquals("HOUR", PartitionBy.toString(PartitionBy.HOUR));
+        Assert.assertEquals("WEEK", PartitionBy.toString(PartitionBy.WEEK));
+    }
+
+    @Test
+    public void testWeekDropPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createWeekly();
+            // any day of the week addresses the partition
+            Assert.assertEquals(ALTER, compiler.compile("alter table x drop partition list '2021-01-06'", sqlExecutionContext).getType());
+            assertPartitionDirs("x", false, "2021-01-04");
+            assertSql("select count() from x", "count\n13\n");
+        });
+    }
+
+    @Test
+    public void testWeekOutOfOrderInsert() throws Exception {
+        assertMemoryLeak(() -> {
+            createWeekly();
+            executeInsert("insert into x values (100, '2021-01-10T12:00:00.000000Z')");
+            assertSql(
+                    "x where ts >= '2021-01-09' and ts < '2021-01-12'",
+                    "x\tts\n" +
+                            "9\t2021-01-09T00:00:00.000000Z\n" +
+                            "10\t2021-01-10T00:00:00.000000Z\n" +
+                            "100\t2021-01-10T12:00:00.000000Z\n" +
+                            "11\t2021-01-11T00:00:00.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testWeekPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createWeekly();
+            // weeks start on Monday, 2021-01-01 is Friday
+            assertPartitionDirs("x", true, "2020-12-28", "2021-01-04", "2021-01-11", "2021-01-18");
+            assertPartitionDirs("x", false, "2021-01-01");
+            assertSql(
+                    "select count() from x where ts in '2021-01-11;6d'",
+                    "count\n7\n"
+            );
+        });
+    }
+
+    private static void assertPartitionDirs(String tableName, boolean exist, String... partitions) {
+        try (Path path = new Path()) {
+            for (String partition : partitions) {
+                path.of(configuration.getRoot()).concat(tableName).concat(partition).$();
+                Assert.assertEquals(partition, exist, configuration.getFilesFacade().exists(path));
+            }
+        }
+    }
+
+    private static void createHourly() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select x, timestamp_sequence('2021-01-01T22', 20 * 60 * 1000000L) ts from long_sequence(12)" +
+                        ") timestamp(ts) partition by HOUR",
+                sqlExecutionContext
+        );
+    }
+
+    private static void createWeekly() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select x, timestamp_sequence('2021-01-01', 24 * 3600 * 1000000L) ts from long_sequence(20)" +
+                        ") timestamp(ts) partition by WEEK",
+                sqlExecutionContext
+        );
+    }
+}
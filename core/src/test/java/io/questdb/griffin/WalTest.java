@@ -0,0 +1,315 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.WalApplyJob;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.std.NumericException;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+public class WalTest extends AbstractGriffinTest {
+
+    @Test
+    public void testColumnAddedAndDroppedAfterSegmentCreated() throws Exception {
+        assertMemoryLeak(() -> {
+            createWalTable();
+            try (TableWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                compiler.compile("alter table x add column b long", sqlExecutionContext);
+                compiler.compile("alter table x drop column str", sqlExecutionContext);
+
+                TableWriter.Row row = walWriter.newRow(TimestampFormatUtils.parseTimestamp("2021-01-01T10:00:00.000000Z"));
+                row.putInt(0, 1);
+                row.putSym(1, "a");
+                row.putStr(2, "dropped");
+                row.append();
+                walWriter.commit();
+            }
+            applyWal();
+            assertSql(
+                    "x",
+                    "a\ts\tts\tb\n" +
+                            "1\ta\t2021-01-01T10:00:00.000000Z\tNaN\n"
+            );
+            Assert.assertEquals(0, countSegments());
+        });
+    }
+
+    @Test
+    public void testConcurrentSegments() throws Exception {
+        assertMemoryLeak(() -> {
+            createWalTable();
+            try (
+                    TableWriter w1 = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x");
+                    TableWriter w2 = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")
+            ) {
+                appendRow(w1, 1, "a", "2021-01-02T10:00:00.000000Z");
+                appendRow(w2, 2, "b", "2021-01-01T10:00:00.000000Z");
+                appendRow(w1, 3, "c", "2021-01-01T11:00:00.000000Z");
+                appendRow(w2, 4, "d", "2021-01-02T09:00:00.000000Z");
+                w1.commit();
+                w2.commit();
+                // uncommitted rows stay in segment
+                appendRow(w2, 5, "e", "2021-01-01T00:00:00.000000Z");
+
+                applyWal();
+                assertSql(
+                        "x",
+                        "a\ts\tstr\tts\n" +
+                                "2\tb\tb\t2021-01-01T10:00:00.000000Z\n" +
+                                "3\tc\tc\t2021-01-01T11:00:00.000000Z\n" +
+                                "4\td\td\t2021-01-02T09:00:00.000000Z\n" +
+                                "1\ta\ta\t2021-01-02T10:00:00.000000Z\n"
+                );
+                Assert.assertEquals(2, countSegments());
+                w2.commit();
+            }
+
+            applyWal();
+            assertSql("select count(), min(ts) from x", "count\tmin\n5\t2021-01-01T00:00:00.000000Z\n");
+            Assert.assertEquals(0, countSegments());
+        });
+    }
+
+    @Test
+    public void testDisableWal() throws Exception {
+        assertMemoryLeak(() -> {
+            createWalTable();
+            executeInsert("insert into x values (1, 'a', 'abc', '2021-01-01T10:00:00.000000Z')");
+            compiler.compile("alter table x set param walEnabled = false", sqlExecutionContext);
+            executeInsert("insert into x values (2, 'b', 'xyz', '2021-01-01T09:00:00.000000Z')");
+            assertSql("select a from x", "a\n2\n");
+            closeSegments();
+            applyWal();
+            assertSql("select a from x", "a\n2\n1\n");
+        });
+    }
+
+    @Test
+    public void testInsertAppliedByJob() throws Exception {
+        assertMemoryLeak(() -> {
+            createWalTable();
+            executeInsert("insert into x values (1, 'a', 'abc', '2021-01-02T10:00:00.000000Z')");
+            executeInsert("insert into x values (2, 'b', null, '2021-01-01T10:00:00.000000Z')");
+            executeInsert("insert into x values (3, null, 'xyz', '2021-01-02T08:00:00.000000Z')");
+            assertSql("select count() from x", "count\n0\n");
+            // statements of the same context append to the same segment
+            Assert.assertEquals(1, countSegments());
+
+            closeSegments();
+            applyWal();
+            assertSql(
+                    "x",
+                    "a\ts\tstr\tts\n" +
+                            "2\tb\t\t2021-01-01T10:00:00.000000Z\n" +
+                            "3\t\txyz\t2021-01-02T08:00:00.000000Z\n" +
+                            "1\ta\tabc\t2021-01-02T10:00:00.000000Z\n"
+            );
+            Assert.assertEquals(0, countSegments());
+        });
+    }
+
+    @Test
+    public void testInsertWhileTableWriterIsBusy() throws Exception {
+        assertMemoryLeak(() -> {
+            createWalTable();
+            try (WalApplyJob job = new WalApplyJob(engine)) {
+                try (TableWriter ignored = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    executeInsert("insert into x values (1, 'a', 'abc', '2021-01-01T10:00:00.000000Z')");
+                    Assert.assertFalse(job.run(0));
+                }
+                Assert.assertTrue(job.run(0));
+            }
+            closeSegments();
+            assertSql("select a, ts from x", "a\tts\n1\t2021-01-01T10:00:00.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testInvalidParam() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table y (a int, ts timestamp) timestamp(ts)", sqlExecutionContext);
+            try {
+                compiler.compile("alter table y set param walEnabled = true", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "WAL requires partitioned table with designated timestamp");
+            }
+
+            createWalTable();
+            try {
+                compiler.compile("alter table x set param walEnabled = 1", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "invalid value [value=1,parameter=walEnabled]");
+            }
+        });
+    }
+
+    @Test
+    public void testRecoveryBeforeOtherWriters() throws Exception {
+        assertMemoryLeak(() -> {
+            createWalTable();
+            try (TableWriter w = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                appendRow(w, 1, "a", "2021-01-01T10:00:00.000000Z");
+                appendRow(w, 2, "b", "2021-01-01T11:00:00.000000Z");
+                w.commit();
+            }
+
+            // batch of both rows was interrupted before table commit
+            final long txn;
+            try (TableWriter w = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                txn = w.getTxn();
+            }
+            writeState(txn, txn + 1, Long.parseLong(listSegments()[0]), 0, 2);
+            engine.releaseAllWriters();
+            engine.releaseAllReaders();
+
+            try (CairoEngine restarted = new CairoEngine(configuration)) {
+                // commit of another writer must not be taken for commit of the batch
+                try (TableWriter w = restarted.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    appendRow(w, 3, "c", "2021-01-01T12:00:00.000000Z");
+                    w.commit();
+                    Assert.assertEquals(txn + 1, w.getTxn());
+                }
+                try (WalApplyJob job = new WalApplyJob(restarted)) {
+                    //noinspection StatementWithEmptyBody
+                    while (job.run(0)) ;
+                }
+            }
+            assertSql("select a from x", "a\n1\n2\n3\n");
+        });
+    }
+
+    @Test
+    public void testSegmentChangesWithTableStructure() throws Exception {
+        assertMemoryLeak(() -> {
+            createWalTable();
+            executeInsert("insert into x values (1, 'a', 'abc', '2021-01-01T10:00:00.000000Z')");
+            executeInsert("insert into x values (2, 'b', 'xyz', '2021-01-01T09:00:00.000000Z')");
+            compiler.compile("alter table x add column b long", sqlExecutionContext);
+            executeInsert("insert into x values (3, 'c', 'def', '2021-01-01T08:00:00.000000Z', 42)");
+            Assert.assertEquals(2, countSegments());
+
+            // segment of the old structure is closed and removed once applied
+            applyWal();
+            Assert.assertEquals(1, countSegments());
+            assertSql(
+                    "x",
+                    "a\ts\tstr\tts\tb\n" +
+                            "3\tc\tdef\t2021-01-01T08:00:00.000000Z\t42\n" +
+                            "2\tb\txyz\t2021-01-01T09:00:00.000000Z\tNaN\n" +
+                            "1\ta\tabc\t2021-01-01T10:00:00.000000Z\tNaN\n"
+            );
+
+            closeSegments();
+            applyWal();
+            Assert.assertEquals(0, countSegments());
+        });
+    }
+
+    @Test
+    public void testRestartDoesNotApplyTwice() throws Exception {
+        assertMemoryLeak(() -> {
+            createWalTable();
+            try (TableWriter w = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                appendRow(w, 1, "a", "2021-01-01T10:00:00.000000Z");
+                w.commit();
+                applyWal();
+
+                appendRow(w, 2, "b", "2021-01-01T09:00:00.000000Z");
+                w.commit();
+                // new job instance has to pick up applied position from disk
+                applyWal();
+            }
+            applyWal();
+            assertSql("select a from x", "a\n2\n1\n");
+            Assert.assertEquals(0, countSegments());
+        });
+    }
+
+    private static void appendRow(TableWriter writer, int a, String s, String ts) throws NumericException {
+        TableWriter.Row row = writer.newRow(TimestampFormatUtils.parseTimestamp(ts));
+        row.putInt(0, a);
+        row.putSym(1, s);
+        row.putStr(2, s);
+        row.append();
+    }
+
+    private static void applyWal() {
+        try (WalApplyJob job = new WalApplyJob(engine)) {
+            //noinspection StatementWithEmptyBody
+            while (job.run(0)) ;
+        }
+    }
+
+    private static void closeSegments() {
+        ((SqlExecutionContextImpl) sqlExecutionContext).clearWalWriters();
+    }
+
+    private static int countSegments() {
+        final String[] segments = listSegments();
+        return segments == null ? 0 : segments.length;
+    }
+
+    private static String[] listSegments() {
+        return new File(configuration.getRoot().toString(), "x" + File.separator + TableUtils.WAL_DIR_NAME).list(
+                (dir, name) -> new File(dir, name).isDirectory()
+        );
+    }
+
+    private static void writeState(long startTxn, long targetTxn, long segmentId, long appliedRowCount, long batchRowCount) throws IOException {
+        final ByteBuffer buf = ByteBuffer.allocate(6 * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putLong(startTxn).putLong(targetTxn).putLong(1).putLong(segmentId).putLong(appliedRowCount).putLong(batchRowCount);
+        final File file = new File(configuration.getRoot().toString(), "x" + File.separator + TableUtils.WAL_DIR_NAME + File.separator + TableUtils.WAL_APPLIED_FILE_NAME);
+        Files.write(file.toPath(), buf.array());
+    }
+
+    protected static void assertMemoryLeak(TestUtils.LeakProneCode code) throws Exception {
+        AbstractGriffinTest.assertMemoryLeak(() -> {
+            try {
+                code.run();
+            } finally {
+                closeSegments();
+            }
+        });
+    }
+
+    private static void createWalTable() throws SqlException {
+        compiler.compile("create table x (a int, s symbol, str string, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+        compiler.compile("alter table x set param walEnabled = true", sqlExecutionContext);
+    }
+}
@@ -616,6 +616,22 @@ public class WhereClauseParserTest extends AbstractCairoTest {
         Assert.assertEquals("[X]", m.keyValues.toString());
     }
 
+    @Test
+    public void testEqualsIntersectKeys() throws Exception {
+        IntrinsicModel m = modelOf("sym = 'X' and ex in ('Y', 'Z') and mode = 'A' and bid > 100");
+        assertFilter(m, "100bid>'A'mode='Z''Y'exinandand");
+        TestUtils.assertEquals("sym", m.keyColumn);
+        Assert.assertEquals("[ex,ex,mode]", m.intersectKeyColumns.toString());
+        Assert.assertEquals("[Y,Z,A]", m.intersectKeyValues.toString());
+    }
+
+    @Test
+    public void testEqualsIntersectKeysOr() throws Exception {
+        IntrinsicModel m = modelOf("sym = 'X' and (ex = 'Y' or mode = 'A')");
+        TestUtils.assertEquals("sym", m.keyColumn);
+        Assert.assertEquals(0, m.intersectKeyColumns.size());
+    }
+
     @Test
     public void testEqualsIndexedSearch() throws Exception {
         IntrinsicModel m = modelOf("sym ='X' and bid > 100.05");
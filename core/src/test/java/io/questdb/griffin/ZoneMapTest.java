@@ -0,0 +1,157 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.ZoneMap;
+import io.questdb.cairo.ZoneMapFilter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.griffin.model.QueryModel;
+import io.questdb.std.str.Path;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ZoneMapTest extends AbstractGriffinTest {
+
+    @Test
+    public void testColumnDropRemovesZoneMaps() throws Exception {
+        assertMemoryLeak(() -> {
+            createDaily();
+            compiler.compile("alter table x drop column i", sqlExecutionContext);
+            assertZoneMaps(false, "2021-01-01", "2021-01-02", "2021-01-03");
+            assertSql("select count() from x where l > 25", "count\n15\n");
+        });
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        configOverrideZoneMapEnabled = false;
+        assertMemoryLeak(() -> {
+            createDaily();
+            assertZoneMaps(false, "2021-01-01", "2021-01-02", "2021-01-03", "2021-01-04");
+            assertSql("select count() from x where l > 25", "count\n15\n");
+        });
+    }
+
+    @Test
+    public void testLastPartitionIsNeverSkipped() throws Exception {
+        assertMemoryLeak(() -> {
+            createDaily();
+            assertSkipped("l > 100", true, true, true, false);
+            // rows of the last partition are not in statistics
+            executeInsert("insert into x values (1000, 1000, 1000.0, '2021-01-04T20:00:00.000000Z')");
+            assertSql("x where l > 100", "l\ti\td\tts\n1000\t1000\t1000.0\t2021-01-04T20:00:00.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testNullChecks() throws Exception {
+        assertMemoryLeak(() -> {
+            createDaily();
+            // column i has nulls in the second partition only
+            assertSkipped("i = null", true, false, true, false);
+            assertSkipped("i != null", false, true, false, false);
+            assertSkipped("d = NaN", true, true, true, false);
+            assertSkipped("d != 5.0", false, false, false, false);
+            assertSql("select count() from x where i = null", "count\n10\n");
+        });
+    }
+
+    @Test
+    public void testOutOfOrderInsertRefreshesZoneMap() throws Exception {
+        assertMemoryLeak(() -> {
+            createDaily();
+            assertSkipped("l = 500", true, true, true, false);
+            executeInsert("insert into x values (500, 500, 500.0, '2021-01-02T12:30:00.000000Z')");
+            assertSkipped("l = 500", true, false, true, false);
+            assertSql("x where l = 500", "l\ti\td\tts\n500\t500\t500.0\t2021-01-02T12:30:00.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testSkipPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createDaily();
+            assertZoneMaps(true, "2021-01-01", "2021-01-02", "2021-01-03");
+            assertZoneMaps(false, "2021-01-04");
+
+            // partitions hold l values of 1..10, 11..20, 21..30 and 31..40
+            assertSkipped("l = 15", true, false, true, false);
+            assertSkipped("l > 20", true, true, false, false);
+            assertSkipped("25 < l", true, true, false, false);
+            assertSkipped("l <= 10", false, true, true, false);
+            assertSkipped("d > 30.5", true, true, true, false);
+            assertSkipped("l = 5 or l = 25", false, true, false, false);
+            assertSkipped("l = 5 and d > 20", true, true, true, false);
+            assertSkipped("l = 5 and abs(d) > 20", false, true, true, false);
+            assertSkipped("l = 5 or abs(d) > 20", false, false, false, false);
+            assertSkipped("ts > '2021-01-02T12'", true, false, false, false);
+
+            assertSql("x where l = 15", "l\ti\td\tts\n15\tNaN\t15.0\t2021-01-02T09:36:00.000000Z\n");
+            assertSql("select count() from x where l > 5 and l < 25", "count\n19\n");
+            assertSql("select count() from x where l = 5 or l = 25", "count\n2\n");
+            assertSql("select count() from x where d > 30.5", "count\n10\n");
+        });
+    }
+
+    private static void assertSkipped(String filter, boolean... expected) throws SqlException {
+        try (
+                TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x");
+                ZoneMapFilter zoneMapFilter = new FilterCompiler().compileZoneMapFilter(
+                        compiler.testParseExpression(filter, (QueryModel) null),
+                        reader.getMetadata()
+                )
+        ) {
+            Assert.assertNotNull(zoneMapFilter);
+            Assert.assertEquals(expected.length, reader.getPartitionCount());
+            for (int i = 0; i < expected.length; i++) {
+                Assert.assertEquals(filter + " [partition=" + i + ']', expected[i], zoneMapFilter.skip(reader, i));
+            }
+        }
+    }
+
+    private static void assertZoneMaps(boolean exist, String... partitions) {
+        try (Path path = new Path()) {
+            for (String partition : partitions) {
+                path.of(configuration.getRoot()).concat("x").concat(partition).concat(ZoneMap.FILE_NAME).$();
+                Assert.assertEquals(partition, exist, configuration.getFilesFacade().exists(path));
+            }
+        }
+    }
+
+    private static void createDaily() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " x l," +
+                        " case when x > 10 and x <= 20 then cast(null as int) else cast(x as int) end i," +
+                        " cast(x as double) d," +
+                        " timestamp_sequence('2021-01-01', 144 * 60 * 1000000L) ts" +
+                        " from long_sequence(40)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Rnd;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ApproxCountDistinctGroupByFunctionFactoryTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testLargeCardinalityInt() throws Exception {
+        assertEstimate("select approx_count_distinct(cast(x % 50000 as int)) from long_sequence(200000)", 50000);
+    }
+
+    @Test
+    public void testLargeCardinalityLong() throws Exception {
+        assertEstimate("select approx_count_distinct(x * 7919) from long_sequence(100000)", 100000);
+    }
+
+    @Test
+    public void testLargeCardinalityStr() throws Exception {
+        assertEstimate("select approx_count_distinct(cast(x % 30000 as string)) from long_sequence(90000)", 30000);
+    }
+
+    @Test
+    public void testLargeCardinalitySymbol() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select cast(cast(x % 20000 as string) as symbol) s from long_sequence(60000))", sqlExecutionContext);
+            assertEstimate("select approx_count_distinct(s) from x", 20000);
+        });
+    }
+
+    @Test
+    public void testNullsAreNotCounted() throws Exception {
+        assertQuery(
+                "approx_count_distinct\tapprox_count_distinct1\tapprox_count_distinct2\tapprox_count_distinct3\n" +
+                        "11\t6\t3\t4\n",
+                "select approx_count_distinct(l), approx_count_distinct(i), approx_count_distinct(s), approx_count_distinct(str) from x",
+                "create table x as (" +
+                        "select" +
+                        " rnd_long(0, 10, 2) l," +
+                        " rnd_int(0, 5, 2) i," +
+                        " rnd_symbol('a', 'b', 'c', null) s," +
+                        " rnd_str('x', 'y', 'z', 'w', null) str" +
+                        " from long_sequence(1000)" +
+                        ")",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testSmallCardinalityMatchesExactCount() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select * from (select rnd_symbol('a','b','c','d','e','f') a, rnd_symbol('344', 'xx2', '00s', '544', 'rraa', '0llp', null) s,  timestamp_sequence(0, 100000) ts from long_sequence(200)) timestamp(ts))", sqlExecutionContext);
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, "select a, count_distinct(s) c from x order by a", expected);
+            assertSql("select a, approx_count_distinct(s) c from x order by a", expected);
+
+            expected.clear();
+            TestUtils.printSql(compiler, sqlExecutionContext, "select ts, count_distinct(s) c from x sample by 10s", expected);
+            assertSql("select ts, approx_count_distinct(s) c from x sample by 10s", expected);
+        });
+    }
+
+    private void assertEstimate(String query, long expected) throws SqlException {
+        try (
+                RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+        ) {
+            final Record record = cursor.getRecord();
+            Assert.assertTrue(cursor.hasNext());
+            final long estimate = record.getLong(0);
+            // standard error with 1024 registers is around 3.25%
+            Assert.assertEquals(query, expected, estimate, expected * 0.08);
+        }
+    }
+}
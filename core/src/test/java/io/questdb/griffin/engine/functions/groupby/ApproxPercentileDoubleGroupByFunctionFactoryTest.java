@@ -0,0 +1,154 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ApproxPercentileDoubleGroupByFunctionFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAccuracyOnRandomOrder() throws Exception {
+        assertMemoryLeak(() -> {
+            // permutation of 0..99999
+            compiler.compile("create table x as (select (x * 7919) % 100000 v from long_sequence(100000))", sqlExecutionContext);
+            assertPercentiles(sqlExecutionContext);
+        });
+    }
+
+    @Test
+    public void testAccuracyOnSortedInput() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select x - 1 v from long_sequence(100000))", sqlExecutionContext);
+            assertPercentiles(sqlExecutionContext);
+        });
+    }
+
+    @Test
+    public void testAccuracyWithMerge() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select (x * 7919) % 100000 v, timestamp_sequence(0, 1000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            configOverrideSqlParallelGroupByMinTaskRows = 10000;
+            assertPercentiles(new SqlExecutionContextImpl(engine, 4));
+        });
+    }
+
+    @Test
+    public void testInvalidPercentile() throws Exception {
+        assertFailure(
+                "select approx_percentile(x, 1.5) from long_sequence(10)",
+                null,
+                28,
+                "percentile must be between 0 and 1"
+        );
+    }
+
+    @Test
+    public void testNonConstantPercentile() throws Exception {
+        assertFailure(
+                "select approx_percentile(x, x / 10.0) from long_sequence(10)",
+                null,
+                7,
+                "unexpected argument"
+        );
+    }
+
+    @Test
+    public void testNullsAreIgnored() throws Exception {
+        assertQuery(
+                "approx_median\tapprox_percentile\n" +
+                        "NaN\t5.0\n",
+                "select approx_median(d), approx_percentile(i, 0.5) from x",
+                "create table x as (" +
+                        "select" +
+                        " cast(null as double) d," +
+                        " case when x % 2 = 0 then cast(null as int) else cast(x as int) end i" +
+                        " from long_sequence(9)" +
+                        ")",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testSampleBy() throws Exception {
+        assertQuery(
+                "ts\tapprox_median\tapprox_percentile\n" +
+                        "1970-01-01T00:00:00.000000Z\t5.5\t10.0\n" +
+                        "1970-01-01T00:00:10.000000Z\t15.5\t20.0\n" +
+                        "1970-01-01T00:00:20.000000Z\t25.5\t30.0\n",
+                "select ts, approx_median(x), approx_percentile(x, 1) from x sample by 10s",
+                "create table x as (select x, timestamp_sequence(0, 1000000) ts from long_sequence(30)) timestamp(ts)",
+                "ts",
+                false
+        );
+    }
+
+    @Test
+    public void testSmallGroupsAreExact() throws Exception {
+        assertQuery(
+                "k\tapprox_median\tapprox_percentile\tapprox_percentile1\tapprox_percentile2\n" +
+                        "0\t6.0\t2.0\t10.0\t10.0\n" +
+                        "1\t5.0\t1.0\t9.0\t9.0\n",
+                "select k, approx_median(x), approx_percentile(x, 0), approx_percentile(x, 1), approx_percentile(x, 0.9) from x order by k",
+                "create table x as (select x, x % 2 k from long_sequence(10))",
+                null,
+                true,
+                true,
+                true
+        );
+    }
+
+    private void assertPercentile(SqlExecutionContext executionContext, double p, double tolerance) throws SqlException {
+        final String query = "select approx_percentile(v, " + p + ") from x";
+        try (
+                RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(executionContext)
+        ) {
+            final Record record = cursor.getRecord();
+            Assert.assertTrue(cursor.hasNext());
+            Assert.assertEquals(query, p * 100000, record.getDouble(0), tolerance);
+        }
+    }
+
+    private void assertPercentiles(SqlExecutionContext executionContext) throws SqlException {
+        assertPercentile(executionContext, 0, 0);
+        assertPercentile(executionContext, 0.01, 200);
+        assertPercentile(executionContext, 0.5, 1500);
+        assertPercentile(executionContext, 0.99, 200);
+        assertPercentile(executionContext, 0.999, 50);
+        assertPercentile(executionContext, 1, 1);
+    }
+}
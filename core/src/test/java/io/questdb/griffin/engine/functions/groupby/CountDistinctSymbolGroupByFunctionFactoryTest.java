@@ -0,0 +1,146 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Rnd;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CountDistinctSymbolGroupByFunctionFactoryTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testGroupKeyed() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select * from (select rnd_symbol('a','b','c','d','e','f') a, rnd_symbol('344', 'xx2', '00s', '544', 'rraa', '0llp') s,  timestamp_sequence(0, 100000) ts from long_sequence(20)) timestamp(ts))", sqlExecutionContext);
+            assertSql(
+                    "select a, count_distinct(s) from x order by a",
+                    "a\tcount_distinct\n" +
+                            "a\t4\n" +
+                            "b\t4\n" +
+                            "c\t3\n" +
+                            "d\t1\n" +
+                            "e\t2\n" +
+                            "f\t3\n"
+            );
+        });
+    }
+
+    @Test
+    public void testGroupNotKeyed() throws Exception {
+        assertQuery(
+                "count_distinct\n" +
+                        "6\n",
+                "select count_distinct(s) from x",
+                "create table x as (select * from (select rnd_symbol('344', 'xx2', '00s', '544', 'rraa', '0llp') s,  timestamp_sequence(0, 100000) ts from long_sequence(100)) timestamp(ts))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testManySymbols() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol(1000, 4, 6, 0) s, rnd_int(0, 3, 0) k from long_sequence(20000))", sqlExecutionContext);
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, "select k, count(s) count_distinct from x order by k", expected);
+            assertSql("select k, count_distinct(s) from x order by k", expected);
+        });
+    }
+
+    @Test
+    public void testNullsAreNotCounted() throws Exception {
+        assertQuery(
+                "count_distinct\n" +
+                        "3\n",
+                "select count_distinct(s) from x",
+                "create table x as (select rnd_symbol('a', 'b', 'c', null) s from long_sequence(100))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testReexecuteKeyed() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol(1000, 4, 6, 0) s, rnd_int(0, 100, 0) k from long_sequence(20000))", sqlExecutionContext);
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, "select k, count(s) count_distinct from x order by k", expected);
+            try (RecordCursorFactory factory = compiler.compile("select k, count_distinct(s) from x order by k", sqlExecutionContext).getRecordCursorFactory()) {
+                long memUsed = -1;
+                for (int i = 0; i < 3; i++) {
+                    try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                        TestUtils.assertCursor(expected, cursor, factory.getMetadata(), true, sink);
+                    }
+                    if (memUsed == -1) {
+                        memUsed = Unsafe.getMemUsed();
+                    } else {
+                        // bitsets of the previous execution are reused
+                        Assert.assertEquals(memUsed, Unsafe.getMemUsed());
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testSampleFillNone() throws Exception {
+        assertMemoryLeak(() -> {
+            final String sql = "with x as (select * from (select rnd_symbol('344', 'xx2', '00s', '544', 'rraa', '0llp') s,  timestamp_sequence(0, 100000) ts from long_sequence(100)) timestamp(ts))\n" +
+                    "select ts, count_distinct(s) from x sample by 1s";
+            assertSql(
+                    sql,
+                    "ts\tcount_distinct\n" +
+                            "1970-01-01T00:00:00.000000Z\t5\n" +
+                            "1970-01-01T00:00:01.000000Z\t5\n" +
+                            "1970-01-01T00:00:02.000000Z\t6\n" +
+                            "1970-01-01T00:00:03.000000Z\t5\n" +
+                            "1970-01-01T00:00:04.000000Z\t6\n" +
+                            "1970-01-01T00:00:05.000000Z\t4\n" +
+                            "1970-01-01T00:00:06.000000Z\t4\n" +
+                            "1970-01-01T00:00:07.000000Z\t5\n" +
+                            "1970-01-01T00:00:08.000000Z\t6\n" +
+                            "1970-01-01T00:00:09.000000Z\t5\n"
+            );
+        });
+    }
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GroupByNotKeyedMetadataRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAliases() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertMetadataPlan("select min(ts) first, max(ts) last, count() c from x");
+            assertSql(
+                    "select min(ts) first, max(ts) last, count() c from x",
+                    "first\tlast\tc\n" +
+                            "2021-01-01T00:00:00.000000Z\t2021-01-04T21:36:00.000000Z\t40\n"
+            );
+        });
+    }
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (v long, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            assertMetadataPlan("select min(ts), max(ts), count() from x");
+            assertSql("select min(ts), max(ts), count() from x", "min\tmax\tcount\n\t\t0\n");
+            assertSql(
+                    "select min(ts), max(ts), count() from x where ts in '2021-01-02'",
+                    "min\tmax\tcount\n\t\t0\n"
+            );
+        });
+    }
+
+    @Test
+    public void testFilterIsNotEligible() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertNotMetadataPlan("select min(ts), max(ts), count() from x where v > 10");
+            assertNotMetadataPlan("select min(v), max(ts) from x");
+            assertNotMetadataPlan("select min(ts), sum(v) from x");
+            assertSql(
+                    "select min(ts), max(ts), count() from x where v > 10",
+                    "min\tmax\tcount\n" +
+                            "2021-01-02T00:00:00.000000Z\t2021-01-04T21:36:00.000000Z\t30\n"
+            );
+        });
+    }
+
+    @Test
+    public void testInterval() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertMetadataPlan("select min(ts), max(ts), count() from x where ts in '2021-01-02'");
+            assertSql(
+                    "select min(ts), max(ts), count() from x where ts in '2021-01-02'",
+                    "min\tmax\tcount\n" +
+                            "2021-01-02T00:00:00.000000Z\t2021-01-02T21:36:00.000000Z\t10\n"
+            );
+            assertSql(
+                    "select min(ts), max(ts), count() from x where ts > '2021-01-01T12' and ts < '2021-01-03T03'",
+                    "min\tmax\tcount\n" +
+                            "2021-01-01T14:24:00.000000Z\t2021-01-03T02:24:00.000000Z\t16\n"
+            );
+            assertSql(
+                    "select count() from x where ts in '2021-01-01T10;2h' or ts in '2021-01-04T00;1h'",
+                    "count\n2\n"
+            );
+            assertSql(
+                    "select min(ts), max(ts), count() from x where ts in '2022'",
+                    "min\tmax\tcount\n\t\t0\n"
+            );
+        });
+    }
+
+    @Test
+    public void testNotPartitioned() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x as (" +
+                            "select x v, timestamp_sequence('2021-01-01', 3600 * 1000000L) ts from long_sequence(10)" +
+                            ") timestamp(ts)",
+                    sqlExecutionContext
+            );
+            executeInsert("insert into x values (11, '2021-01-01T12:00:00.000000Z')");
+            assertMetadataPlan("select min(ts), max(ts), count() from x");
+            assertSql(
+                    "select min(ts), max(ts), count() from x",
+                    "min\tmax\tcount\n" +
+                            "2021-01-01T00:00:00.000000Z\t2021-01-01T12:00:00.000000Z\t11\n"
+            );
+        });
+    }
+
+    @Test
+    public void testTableWithoutFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertMetadataPlan("select min(ts), max(ts), count() from x");
+            assertSql(
+                    "select min(ts), max(ts), count() from x",
+                    "min\tmax\tcount\n" +
+                            "2021-01-01T00:00:00.000000Z\t2021-01-04T21:36:00.000000Z\t40\n"
+            );
+
+            executeInsert("insert into x values (100, '2020-12-31T12:00:00.000000Z')");
+            assertSql(
+                    "select min(ts), max(ts), count() from x",
+                    "min\tmax\tcount\n" +
+                            "2020-12-31T12:00:00.000000Z\t2021-01-04T21:36:00.000000Z\t41\n"
+            );
+        });
+    }
+
+    private static void assertMetadataPlan(String query) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(factory instanceof GroupByNotKeyedMetadataRecordCursorFactory);
+        }
+    }
+
+    private static void assertNotMetadataPlan(String query) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertFalse(factory instanceof GroupByNotKeyedMetadataRecordCursorFactory);
+        }
+    }
+
+    private static void createTable() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select x v, timestamp_sequence('2021-01-01', 144 * 60 * 1000000L) ts from long_sequence(40)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ParallelGroupByTest extends AbstractGriffinTest {
+
+    // first() and last() keep these queries away from vector aggregation
+    private static final String[] QUERIES = {
+            "select s, first(i), last(l), count(), sum(l), sum(i), min(i), max(i), avg(d), ksum(d) from x order by s",
+            "select s, b, first(t), last(t), min(t), max(t), min(l), max(l) from x order by s, b",
+            "select l, first(s), last(s), sum(d), nsum(d), min(d), max(d), count() from x order by l",
+            "select bool, ch, first(d), last(f), sum(f), min(f), sum(sh), min(sh), sum(b) from x order by bool, ch",
+            "select i, k, first(k), last(k), count(), sum(k), min(k), max(k) from x order by i, k",
+            "select ts, first(i), count() from x order by ts",
+            // groups hold fewer distinct values than digest centroids, which keeps percentiles exact
+            "select b, sh, ch, first(l), approx_median(d), approx_percentile(i, 0.9), approx_percentile(l, 0) from x order by b, sh, ch",
+            "select b, first(s), approx_count_distinct(l), approx_count_distinct(i), approx_count_distinct(s), approx_count_distinct(ts) from x order by b",
+    };
+
+    @Test
+    public void testFallbackToSingleThreadedGroupBy() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final SqlExecutionContext parallelContext = new SqlExecutionContextImpl(engine, 4);
+            for (String query : QUERIES) {
+                assertFactory(query.substring(0, query.indexOf(" order by")), parallelContext, true);
+            }
+            // string keys are not part of page frames
+            assertFactory("select str, first(i) from x", parallelContext, false);
+            // expression arguments may keep state
+            assertFactory("select s, first(i + 1) from x", parallelContext, false);
+            // count_distinct style functions cannot merge
+            assertFactory("select s, count(str) from x", parallelContext, false);
+            assertFactory("select b, count_distinct(s) from x", parallelContext, false);
+            // there is nobody to share the work with
+            assertFactory("select s, first(i), count() from x", sqlExecutionContext, false);
+        });
+    }
+
+    @Test
+    public void testParallelGroupBy() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            // small ranges make every worker get a task
+            configOverrideSqlParallelGroupByMinTaskRows = 1000;
+
+            final Sequence seq = engine.getMessageBus().getGroupBySubSeq();
+            // consume sequence fully and do nothing
+            // this might be needed to make sure we don't consume things other tests publish here
+            while (true) {
+                long cursor = seq.next();
+                if (cursor == -1) {
+                    break;
+                } else if (cursor > -1) {
+                    seq.done(cursor);
+                }
+            }
+
+            final AtomicBoolean running = new AtomicBoolean(true);
+            final SOCountDownLatch haltLatch = new SOCountDownLatch(2);
+            final ParallelGroupByJob job = new ParallelGroupByJob(engine.getMessageBus());
+            for (int i = 0; i < 2; i++) {
+                final int workerId = i;
+                new Thread(() -> {
+                    while (running.get()) {
+                        job.run(workerId);
+                    }
+                    haltLatch.countDown();
+                }).start();
+            }
+
+            try {
+                for (String query : QUERIES) {
+                    assertParallelGroupBy(query);
+                }
+                assertParallelGroupBy("select s, first(i), last(i), count() from x where ts > '1970-01-02T10' order by s");
+                assertParallelGroupBy("select s, first(i), count() from x where ts > '1970-12-01' order by s");
+            } finally {
+                running.set(false);
+                haltLatch.await();
+            }
+        });
+    }
+
+    @Test
+    public void testParallelGroupByWithoutWorkers() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            configOverrideSqlParallelGroupByMinTaskRows = 5000;
+            for (String query : QUERIES) {
+                assertParallelGroupBy(query);
+            }
+        });
+    }
+
+    private void assertFactory(String query, SqlExecutionContext executionContext, boolean expectParallel) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(query, expectParallel, factory instanceof ParallelGroupByRecordCursorFactory);
+        }
+    }
+
+    private void assertParallelGroupBy(String query) throws SqlException {
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+        final SqlExecutionContext parallelContext = new SqlExecutionContextImpl(engine, 4);
+        TestUtils.printSql(compiler, parallelContext, query, sink);
+        TestUtils.assertEquals(query, expected, sink);
+    }
+
+    private void createTable() throws SqlException {
+        // doubles hold integral values, so sums do not depend on aggregation order
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_symbol('a', 'b', 'c', null) s," +
+                        " rnd_byte(1, 4) b," +
+                        " rnd_short(1, 100) sh," +
+                        " rnd_int(0, 20, 3) i," +
+                        " rnd_long(0, 30, 3) l," +
+                        " rnd_boolean() bool," +
+                        " rnd_char() ch," +
+                        " cast(rnd_int(0, 10, 0) as float) f," +
+                        " cast(rnd_int(0, 1000, 3) as double) d," +
+                        " cast(rnd_long(0, 5, 3) * 1000000 as timestamp) t," +
+                        " rnd_str(3, 5, 3) str," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(30000)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+        compiler.compile("alter table x add column k int", sqlExecutionContext);
+        compiler.compile(
+                "insert into x select" +
+                        " rnd_symbol('a', 'b', 'c', null)," +
+                        " rnd_byte(1, 4)," +
+                        " rnd_short(1, 100)," +
+                        " rnd_int(0, 20, 3)," +
+                        " rnd_long(0, 30, 3)," +
+                        " rnd_boolean()," +
+                        " rnd_char()," +
+                        " cast(rnd_int(0, 10, 0) as float)," +
+                        " cast(rnd_int(0, 1000, 3) as double)," +
+                        " cast(rnd_long(0, 5, 3) * 1000000 as timestamp)," +
+                        " rnd_str(3, 5, 3)," +
+                        " timestamp_sequence(100000000000, 1000000)," +
+                        " rnd_int(0, 4, 3)" +
+                        " from long_sequence(20000)",
+                sqlExecutionContext
+        );
+    }
+}
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.table.SelectedRecordCursorFactory;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ParallelHashJoinTest extends AbstractGriffinTest {
+
+    private static final String[] QUERIES = {
+            "select x.i, x.s, x.ts, y.v, y.name from x join y on (i)",
+            "select x.ts, x.l, y.v from x join y on x.s = y.s",
+            "select * from x join y on (i, s)",
+            "select x.ts, y.v, y.d from x join y on x.l = y.l where y.v > 10",
+            "select x.i, count() from x join y on (i) order by 1",
+            "select x.s, y.name from x join y on (s) join z on z.name = y.name",
+    };
+
+    @Test
+    public void testFallbackToSingleThreadedJoin() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            final SqlExecutionContext parallelContext = new SqlExecutionContextImpl(engine, 4);
+            assertFactory("select * from x join y on (i)", parallelContext, true);
+            // there is nobody to share the work with
+            assertFactory("select * from x join y on (i)", sqlExecutionContext, false);
+            // outer joins keep using single-threaded factories
+            assertFactory("select * from x left join y on (i)", parallelContext, false);
+            // master rows are revisited by row id, which requires random access
+            assertFactory("select * from (x union all x) x join y on (i)", parallelContext, false);
+        });
+    }
+
+    @Test
+    public void testGraceJoin() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            configOverrideSqlHashJoinMemoryBudget = 1024;
+            withWorkers(() -> {
+                for (String query : QUERIES) {
+                    assertParallelJoin(query);
+                }
+            });
+            final String[] files = new File(root.toString(), ".join").list();
+            Assert.assertTrue(files == null || files.length == 0);
+        });
+    }
+
+    @Test
+    public void testGraceJoinWithoutWorkers() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            configOverrideSqlHashJoinMemoryBudget = 1;
+            for (String query : QUERIES) {
+                assertParallelJoin(query);
+            }
+        });
+    }
+
+    @Test
+    public void testParallelJoin() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            // several batches per query
+            configOverrideSqlParallelHashJoinBatchRows = 700;
+            withWorkers(() -> {
+                for (String query : QUERIES) {
+                    assertParallelJoin(query);
+                }
+            });
+        });
+    }
+
+    @Test
+    public void testParallelJoinWithoutWorkers() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            for (String query : QUERIES) {
+                assertParallelJoin(query);
+            }
+        });
+    }
+
+    private void assertFactory(String query, SqlExecutionContext executionContext, boolean expectParallel) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(query, factory instanceof SelectedRecordCursorFactory);
+            Assert.assertEquals(query, expectParallel, ((SelectedRecordCursorFactory) factory).getBaseFactory() instanceof ParallelHashJoinLightRecordCursorFactory);
+        }
+    }
+
+    private void assertParallelJoin(String query) throws SqlException {
+        final StringSink expected = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+        final SqlExecutionContext parallelContext = new SqlExecutionContextImpl(engine, 4);
+        TestUtils.printSql(compiler, parallelContext, query, sink);
+        TestUtils.assertEquals(query, expected, sink);
+    }
+
+    private void createTables() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_int(0, 200, 3) i," +
+                        " rnd_symbol('a', 'b', 'c', 'd', null) s," +
+                        " rnd_long(0, 500, 3) l," +
+                        " timestamp_sequence(0, 60000000) ts" +
+                        " from long_sequence(5000)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+        compiler.compile(
+                "create table y as (" +
+                        "select" +
+                        " rnd_int(0, 250, 3) i," +
+                        " rnd_symbol('b', 'c', 'd', 'e', null) s," +
+                        " rnd_long(0, 500, 3) l," +
+                        " rnd_int(0, 100, 0) v," +
+                        " rnd_double(0) d," +
+                        " rnd_str('alpha', 'beta', 'gamma', null) name" +
+                        " from long_sequence(800)" +
+                        ")",
+                sqlExecutionContext
+        );
+        compiler.compile(
+                "create table z as (select rnd_str('alpha', 'gamma') name from long_sequence(3))",
+                sqlExecutionContext
+        );
+    }
+
+    private void withWorkers(TestUtils.LeakProneCode code) throws Exception {
+        final Sequence seq = engine.getMessageBus().getHashJoinSubSeq();
+        // consume sequence fully and do nothing
+        // this might be needed to make sure we don't consume things other tests publish here
+        while (true) {
+            long cursor = seq.next();
+            if (cursor == -1) {
+                break;
+            } else if (cursor > -1) {
+                seq.done(cursor);
+            }
+        }
+
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final SOCountDownLatch haltLatch = new SOCountDownLatch(2);
+        final HashJoinJob job = new HashJoinJob(engine.getMessageBus());
+        for (int i = 0; i < 2; i++) {
+            final int workerId = i;
+            new Thread(() -> {
+                while (running.get()) {
+                    job.run(workerId);
+                }
+                haltLatch.countDown();
+            }).start();
+        }
+
+        try {
+            code.run();
+        } finally {
+            running.set(false);
+            haltLatch.await();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+public class ExternalSortedRecordCursorTest extends AbstractGriffinTest {
+
+    private static final String[] QUERIES = {
+            "(x union all x) order by d desc",
+            "(x union all x) order by i, s",
+            "(x union all x) order by sym desc, ts",
+            "(x union all x) order by b, l desc",
+            "(x union all x) order by s desc, i",
+    };
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table y (i int)", sqlExecutionContext);
+            configOverrideSqlSortMemoryBudget = 1;
+            assertSql("(y union all y) order by i desc", "i\n");
+            executeInsert("insert into y values (3)");
+            executeInsert("insert into y values (5)");
+            assertSql("(y union all y) order by i desc", "i\n5\n5\n3\n3\n");
+            assertNoTempFiles();
+        });
+    }
+
+    @Test
+    public void testFitsMemoryBudget() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            configOverrideSqlSortMemoryBudget = 1 << 30;
+            for (String query : QUERIES) {
+                assertSortedAsInMemory(query);
+            }
+            Assert.assertFalse(new File(root.toString(), ".sort").exists());
+        });
+    }
+
+    @Test
+    public void testRandomAccess() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            configOverrideSqlSortMemoryBudget = 16 * 1024;
+            try (RecordCursorFactory factory = compiler.compile("(x union all x) order by l", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof SortedRecordCursorFactory);
+                Assert.assertTrue(factory.recordCursorSupportsRandomAccess());
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    Assert.assertEquals(6000, cursor.size());
+                    Assert.assertTrue(cursor.hasNext());
+                    final long rowId = cursor.getRecord().getRowId();
+                    final long first = cursor.getRecord().getLong(2);
+                    long last = first;
+                    while (cursor.hasNext()) {
+                        Assert.assertTrue(last <= cursor.getRecord().getLong(2));
+                        last = cursor.getRecord().getLong(2);
+                    }
+                    cursor.recordAt(cursor.getRecordB(), rowId);
+                    Assert.assertEquals(first, cursor.getRecordB().getLong(2));
+                }
+            }
+            assertNoTempFiles();
+        });
+    }
+
+    @Test
+    public void testSortedOutgrowsValuePageLimit() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final String query = "(x union all x) order by l";
+            final StringSink expected = new StringSink();
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+            // page limit caps in-memory chain only, runs and merged chain are much larger
+            configOverrideSqlSortValuePageSize = 4096;
+            configOverrideSqlSortValueMaxPages = 4;
+            configOverrideSqlSortMemoryBudget = 8 * 1024;
+            TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+            TestUtils.assertEquals(query, expected, sink);
+            assertNoTempFiles();
+        });
+    }
+
+    @Test
+    public void testSpillsToDisk() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            for (String query : QUERIES) {
+                configOverrideSqlSortMemoryBudget = 64 * 1024;
+                assertSortedAsInMemory(query);
+                // many small runs to merge
+                configOverrideSqlSortMemoryBudget = 4 * 1024;
+                assertSortedAsInMemory(query);
+            }
+            assertNoTempFiles();
+        });
+    }
+
+    private void assertNoTempFiles() {
+        final String[] files = new File(root.toString(), ".sort").list();
+        Assert.assertTrue(files == null || files.length == 0);
+    }
+
+    private void assertSortedAsInMemory(String query) throws SqlException {
+        final long budget = configOverrideSqlSortMemoryBudget;
+        final StringSink expected = new StringSink();
+        configOverrideSqlSortMemoryBudget = 0;
+        TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+        configOverrideSqlSortMemoryBudget = budget;
+        TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+        TestUtils.assertEquals(query, expected, sink);
+    }
+
+    private void createTable() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_byte(1, 3) b," +
+                        " rnd_int(-50, 50, 5) i," +
+                        " rnd_long(-1000, 1000, 5) l," +
+                        " rnd_double(0) d," +
+                        " rnd_str(2, 3, 5) s," +
+                        " rnd_symbol(20, 2, 4, 5) sym," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(3000)" +
+                        ") timestamp(ts)",
+                sqlExecutionContext
+        );
+    }
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.engine.LimitRecordCursorFactory;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LimitedSizeSortedLightRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    private static final String[] QUERIES = {
+            "select * from x order by d desc limit 10",
+            "select * from x order by d limit 0",
+            "select * from x order by i limit 25",
+            "select * from x order by i desc, s limit 30",
+            "select * from x order by s, i desc limit 7, 40",
+            "select * from x order by sym limit 100",
+            "select * from x order by sym desc, ts limit 3, 3",
+            "select * from x order by b, ts desc limit 5000",
+            "select * from x where i > 0 order by l desc limit 15",
+            "select * from x order by ts desc limit 20",
+    };
+
+    @Test
+    public void testEmptyTable() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table y (i int)", sqlExecutionContext);
+            assertSql("select i from y order by i desc limit 5", "i\n");
+            executeInsert("insert into y values (3)");
+            assertSql("select i from y order by i desc limit 5", "i\n3\n");
+        });
+    }
+
+    @Test
+    public void testFallbackToFullSort() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            for (String query : QUERIES) {
+                assertFactory(query, true);
+            }
+            // negative limits count rows from the end
+            assertFactory("select * from x order by i limit -5", false);
+            assertFactory("select * from x order by i limit 5, -5", false);
+            assertFactory("select * from x order by i limit 10, 5", false);
+            // limit is not known upfront
+            assertFactory("select * from x order by i limit 2 + 3", false);
+            // too many rows to keep in sorted list
+            configOverrideSqlSortTopKMaxRows = 99;
+            assertFactory("select * from x order by i limit 100", false);
+            assertFactory("select * from x order by i limit 99", true);
+        });
+    }
+
+    @Test
+    public void testMatchesFullSort() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            for (String query : QUERIES) {
+                assertTopK(query);
+            }
+        });
+    }
+
+    private void assertFactory(String query, boolean expectTopK) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(query, factory instanceof LimitRecordCursorFactory);
+            Assert.assertEquals(query, expectTopK, ((LimitRecordCursorFactory) factory).getBaseFactory() instanceof LimitedSizeSortedLightRecordCursorFactory);
+        }
+    }
+
+    private void assertTopK(String query) throws SqlException {
+        final StringSink expected = new StringSink();
+        configOverrideSqlSortTopKMaxRows = 0;
+        TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+        configOverrideSqlSortTopKMaxRows = -1;
+        TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+        TestUtils.assertEquals(query, expected, sink);
+    }
+
+    private void createTable() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_byte(1, 3) b," +
+                        " rnd_int(-50, 50, 5) i," +
+                        " rnd_long(-1000, 1000, 5) l," +
+                        " rnd_double(5) d," +
+                        " rnd_str(2, 3, 5) s," +
+                        " rnd_symbol(20, 2, 4, 5) sym," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(3000)" +
+                        ") timestamp(ts)",
+                sqlExecutionContext
+        );
+    }
+}
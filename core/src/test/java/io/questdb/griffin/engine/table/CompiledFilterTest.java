@@ -0,0 +1,295 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class CompiledFilterTest extends AbstractGriffinTest {
+
+    private static final String[] COMPILED_FILTERS = {
+            "i = 5",
+            "i != j",
+            "i < 0",
+            "i <= j",
+            "i > j",
+            "i >= 100",
+            "i = null",
+            "i = NaN",
+            "i != NaN",
+            "b > 10",
+            "b = sh",
+            "sh < -100",
+            "l = 5",
+            "l < m",
+            "l > -5",
+            "l = i",
+            "l >= i and l < 500",
+            "d < 0.5",
+            "d = e",
+            "d != NaN",
+            "f > 0.25",
+            "f = NaN",
+            "i = d",
+            "l < d",
+            "t2 < t3",
+            "t2 >= t3 or t2 = NaN",
+            "t2 > 5000",
+            "t2 = NaN",
+            "t2 > '1970-01-01T00:00:00.500000Z'",
+            "s = 'AA'",
+            "s != 'AA'",
+            "s = 'ZZZ'",
+            "s != 'ZZZ'",
+            "s = null",
+            "s != null",
+            "s in ('AA', 'BB')",
+            "s in ('CC')",
+            "i + j < 10",
+            "i - j = 0",
+            "i * 2 > j",
+            "l + i < 0",
+            "l - m > 100",
+            "l * 3 = m",
+            "l / 2 = i",
+            "l / 0 = NaN",
+            "d + e > 1",
+            "d - 1.5 < e",
+            "d * i > 10",
+            "d / e < 1",
+            "i + 1.5 < 3",
+            "k = NaN",
+            "k > 10 or k = NaN",
+            "i > 0 and (l < 0 or d > 0.5) and s != 'BB'",
+            "not (i > 0 or j > 0)",
+            "i < -10 and -5 < j",
+    };
+
+    private static final String[] FUNCTION_FILTERS = {
+            "str = 'abc'",
+            "length(str) > 3",
+            "b + b > 10",
+            "f + f > 0.5",
+            "i / j > 1",
+            "t2 + 1 > t3",
+            "i % 2 = 0",
+            "s = str",
+            "abs(i) > 5 and i > 0",
+            "i > 0 and str = null",
+    };
+
+    @Test
+    public void testCompiledFilterMatchesFunctionFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            for (String filter : COMPILED_FILTERS) {
+                assertFilter(filter, true);
+            }
+        });
+    }
+
+    @Test
+    public void testFallbackToFunctionFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            for (String filter : FUNCTION_FILTERS) {
+                assertFilter(filter, false);
+            }
+        });
+    }
+
+    @Test
+    public void testFilterWithIntervalAndLimit() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertFilter("ts in '1970-01-02' and i > 0", true);
+            assertFilter("ts > '1970-01-03' and s = 'AA' and d > 0.1", true);
+            assertFilter("s = 'BB' and i < 0 limit 2", true);
+            assertFilter("s = 'BB' and i < 0 limit -3", true);
+        });
+    }
+
+    @Test
+    public void testParallelFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            // small slices make frames span several dispatch rounds
+            configOverrideSqlParallelFilterFrameRows = 20;
+
+            final Sequence seq = engine.getMessageBus().getFilterSubSeq();
+            // consume sequence fully and do nothing
+            // this might be needed to make sure we don't consume things other tests publish here
+            while (true) {
+                long cursor = seq.next();
+                if (cursor == -1) {
+                    break;
+                } else if (cursor > -1) {
+                    seq.done(cursor);
+                }
+            }
+
+            final AtomicBoolean running = new AtomicBoolean(true);
+            final SOCountDownLatch haltLatch = new SOCountDownLatch(2);
+            final FilterJob job = new FilterJob(engine.getMessageBus());
+            for (int i = 0; i < 2; i++) {
+                final int workerId = i;
+                new Thread(() -> {
+                    while (running.get()) {
+                        job.run(workerId);
+                    }
+                    haltLatch.countDown();
+                }).start();
+            }
+
+            try {
+                assertParallelFilter("i > 0 and d < 0.5");
+                assertParallelFilter("s = 'AA' or k > 50");
+                assertParallelFilter("ts > '1970-01-02T12' and l < m limit 5000");
+                assertParallelFilter("i = 1000");
+            } finally {
+                running.set(false);
+                haltLatch.await();
+            }
+        });
+    }
+
+    @Test
+    public void testParallelFilterWithoutWorkers() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            configOverrideSqlParallelFilterFrameRows = 100;
+            assertParallelFilter("i < 0 and t2 = NaN");
+            assertParallelFilter("s in ('AA', 'BB') and d > 0.9");
+        });
+    }
+
+    @Test
+    public void testSymbolAddedAfterCompilation() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final String query = "select i, s from x where s = 'NEW' and i > 0";
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof FilteredRecordCursorFactory);
+                assertCursor("i\ts\n", factory, true, true, false);
+
+                executeInsert("insert into x (i, s, ts) values (42, 'NEW', 1000000000000)");
+                assertCursor(
+                        "i\ts\n" +
+                                "42\tNEW\n",
+                        factory,
+                        true,
+                        true,
+                        false
+                );
+            }
+        });
+    }
+
+    private void assertFilter(String filter, boolean expectCompiled) throws SqlException {
+        final String query = "select * from x where " + filter;
+        final StringSink expected = new StringSink();
+
+        configOverrideSqlFilterCompilationEnabled = false;
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+        }
+
+        configOverrideSqlFilterCompilationEnabled = true;
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(filter, expectCompiled, !(factory instanceof FilteredRecordCursorFactory));
+            TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+            TestUtils.assertEquals(filter, expected, sink);
+        }
+    }
+
+    private void assertParallelFilter(String filter) throws SqlException {
+        final String query = "select * from x where " + filter;
+        final StringSink expected = new StringSink();
+        configOverrideSqlFilterCompilationEnabled = false;
+        TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+
+        configOverrideSqlFilterCompilationEnabled = true;
+        final SqlExecutionContext parallelContext = new SqlExecutionContextImpl(engine, 4);
+        TestUtils.printSql(compiler, parallelContext, query, sink);
+        TestUtils.assertEquals(filter, expected, sink);
+    }
+
+    private void createTable() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_byte() b," +
+                        " rnd_short() sh," +
+                        " rnd_int(-1000, 1000, 5) i," +
+                        " rnd_int(-1000, 1000, 5) j," +
+                        " rnd_long(-1000, 1000, 5) l," +
+                        " rnd_long(-1000, 1000, 5) m," +
+                        " rnd_float(5) f," +
+                        " rnd_double(5) d," +
+                        " rnd_double(5) e," +
+                        " cast(rnd_long(0, 1000000, 5) as timestamp) t2," +
+                        " cast(rnd_long(0, 1000000, 5) as timestamp) t3," +
+                        " rnd_symbol(5, 2, 2, 3) s," +
+                        " rnd_str(3, 5, 3) str," +
+                        " timestamp_sequence(0, 30000000) ts" +
+                        " from long_sequence(10000)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+        compiler.compile("alter table x add column k int", sqlExecutionContext);
+        compiler.compile(
+                "insert into x " +
+                        "select" +
+                        " rnd_byte() b," +
+                        " rnd_short() sh," +
+                        " rnd_int(-1000, 1000, 5) i," +
+                        " rnd_int(-1000, 1000, 5) j," +
+                        " rnd_long(-1000, 1000, 5) l," +
+                        " rnd_long(-1000, 1000, 5) m," +
+                        " rnd_float(5) f," +
+                        " rnd_double(5) d," +
+                        " rnd_double(5) e," +
+                        " cast(rnd_long(0, 1000000, 5) as timestamp) t2," +
+                        " cast(rnd_long(0, 1000000, 5) as timestamp) t3," +
+                        " rnd_symbol(5, 2, 2, 3) s," +
+                        " rnd_str(3, 5, 3) str," +
+                        " timestamp_sequence(300000000000, 30000000) ts," +
+                        " rnd_int(0, 100, 5) k" +
+                        " from long_sequence(5000)",
+                sqlExecutionContext
+        );
+    }
+}
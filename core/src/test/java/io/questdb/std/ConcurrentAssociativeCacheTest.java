@@ -0,0 +1,153 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentAssociativeCacheTest {
+
+    @Test
+    public void testCheckoutIsExclusive() {
+        final ConcurrentAssociativeCache<Value> cache = new ConcurrentAssociativeCache<>(8, 8);
+        final Value v1 = new Value();
+        final Value v2 = new Value();
+        cache.put("x", v1);
+        cache.put("x", v2);
+
+        final Value a = cache.poll("x");
+        final Value b = cache.poll("x");
+        Assert.assertNotNull(a);
+        Assert.assertNotNull(b);
+        Assert.assertNotSame(a, b);
+        Assert.assertNull(cache.poll("x"));
+
+        cache.put("x", a);
+        Assert.assertSame(a, cache.poll("x"));
+        Assert.assertFalse(v1.closed);
+        Assert.assertFalse(v2.closed);
+    }
+
+    @Test
+    public void testClear() {
+        final ConcurrentAssociativeCache<Value> cache = new ConcurrentAssociativeCache<>(8, 8);
+        final Value v1 = new Value();
+        final Value v2 = new Value();
+        cache.put("x", v1);
+        cache.put("y", v2);
+        cache.close();
+        Assert.assertTrue(v1.closed);
+        Assert.assertTrue(v2.closed);
+        Assert.assertNull(cache.poll("x"));
+    }
+
+    @Test
+    public void testConcurrentCheckout() throws Exception {
+        final int threadCount = 4;
+        final int iterations = 10_000;
+        final ConcurrentAssociativeCache<Value> cache = new ConcurrentAssociativeCache<>(8, 16);
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        final AtomicInteger errors = new AtomicInteger();
+        final Thread[] threads = new Thread[threadCount];
+
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    barrier.await();
+                    for (int j = 0; j < iterations; j++) {
+                        Value v = cache.poll("select * from x");
+                        if (v == null) {
+                            v = new Value();
+                        }
+                        if (v.owners.incrementAndGet() != 1 || v.closed) {
+                            errors.incrementAndGet();
+                        }
+                        v.owners.decrementAndGet();
+                        cache.put("select * from x", v);
+                    }
+                } catch (Throwable e) {
+                    errors.incrementAndGet();
+                }
+            });
+            threads[i].start();
+        }
+
+        for (int i = 0; i < threadCount; i++) {
+            threads[i].join();
+        }
+        Assert.assertEquals(0, errors.get());
+        cache.close();
+    }
+
+    @Test
+    public void testEviction() {
+        final ConcurrentAssociativeCache<Value> cache = new ConcurrentAssociativeCache<>(2, 16);
+        final Value v1 = new Value();
+        final Value v2 = new Value();
+        final Value v3 = new Value();
+        cache.put("x", v1);
+        cache.put("x", v2);
+        // row is full, last slot is evicted
+        cache.put("x", v3);
+        Assert.assertFalse(v1.closed);
+        Assert.assertTrue(v2.closed);
+        Assert.assertFalse(v3.closed);
+        cache.close();
+        Assert.assertTrue(v1.closed);
+        Assert.assertTrue(v3.closed);
+    }
+
+    @Test
+    public void testInvalidate() {
+        final ConcurrentAssociativeCache<Value> cache = new ConcurrentAssociativeCache<>(8, 8);
+        final Value v1 = new Value();
+        final Value v2 = new Value();
+        final Value v3 = new Value();
+        cache.put("x", v1);
+        cache.put("x", v2);
+        cache.put("y", v3);
+
+        Assert.assertEquals(2, cache.invalidate("x"));
+        Assert.assertTrue(v1.closed);
+        Assert.assertTrue(v2.closed);
+        Assert.assertNull(cache.poll("x"));
+        Assert.assertSame(v3, cache.poll("y"));
+        Assert.assertFalse(v3.closed);
+    }
+
+    private static class Value implements Closeable {
+        private final AtomicInteger owners = new AtomicInteger();
+        private volatile boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}